@@ -16,8 +16,9 @@ public class MainJGRAM {
 			+ "\n\t 2 : Generate Grade"
 			+ "\n\t 3 : Tamper Test" 
 			+ "\n\t 4 : Assignment Report"
-			+ "\n\t 5 : Help"
-			+ "\n\t 6 : Exit"
+			+ "\n\t 5 : Watch and Grade"
+			+ "\n\t 6 : Help"
+			+ "\n\t 7 : Exit"
 			+ "\n\t\t (Example: 1): ";
 	
 	private static final String GET_SECRET = "\nEnter secret (Example: "
@@ -85,13 +86,22 @@ public class MainJGRAM {
 					assignmentReportTask.performTask();
 					break;
 					
-				// Help
+				// Watch
 				case "5":
+					String watchSecret = prompt(GET_SECRET, keyboard);
+					System.out.println(SECRET_REMINDER);
+					Task watchTask = new EvaluationTask(watchSecret, keyboard, 
+							true);
+					watchTask.performTask();
+					break;
+				
+				// Help
+				case "6":
 					help();
 					break;
 				
 				// Exit
-				case "6":
+				case "7":
 					keepGoing = false;
 					break;
 				
@@ -0,0 +1,94 @@
+package jgram.assessment;
+
+import java.util.List;
+
+/**
+ * Intent: Represent the checkpoints of a result as parallel arrays of 
+ * weights, grades and identifiers so that its grade is calculated without
+ * boxing.
+ *
+ * Precondition1 (Checkpoints): The checkpoints have been extracted from the
+ * assignment documents.
+ *
+ * Postcondition1 (Arrays): The weight, grade and identifier of each
+ * checkpoint are copied into int arrays.
+ * Postcondition2 (Total grade): The total grade of a result is the sum of the
+ * product of each checkpoint's grade and weight divided by the sum of the
+ * weights. A result without checkpoints has a total grade of 0.
+ */
+public class CheckpointBatch {
+
+	// Instance variable(s)
+	private final int[] weights;
+	private final int[] grades;
+	private final int[] ids;
+
+	// Constructor(s)
+	private CheckpointBatch(int size) {
+		weights = new int[size];
+		grades = new int[size];
+		ids = new int[size];
+	}
+
+	/**
+	 * Intent: (Post2) Calculate the total grade in one pass over the weights
+	 * and grades of the checkpoints.
+	 *
+	 * @return float total grade
+	 */
+	public float evaluate() {
+
+		long gradeWeights = 0;
+		long totalWeight = 0;
+		for (int i = 0; i < weights.length; i++) {
+			gradeWeights += (long) grades[i] * weights[i];
+			totalWeight += weights[i];
+		}
+
+		if (totalWeight == 0) {
+			return 0;
+		}
+
+		return gradeWeights / (float) totalWeight;
+
+	}
+
+	/**
+	 * Intent: (Post1) Create a batch from the checkpoints of one result.
+	 *
+	 * @param checkpointList List of Checkpoint objects
+	 * @return CheckpointBatch object
+	 */
+	public static CheckpointBatch fromCheckpoints(
+			List<Checkpoint> checkpointList) {
+
+		CheckpointBatch batch = new CheckpointBatch(checkpointList.size());
+		int index = 0;
+		for (Checkpoint checkpoint : checkpointList) {
+			batch.weights[index] = checkpoint.getWeight();
+			batch.grades[index] = checkpoint.getGrade();
+			batch.ids[index] = checkpoint.getID();
+			index++;
+		}
+
+		return batch;
+
+	}
+
+	public int getGrade(int index) {
+		return grades[index];
+	}
+
+	public int getID(int index) {
+		return ids[index];
+	}
+
+	public int getWeight(int index) {
+		return weights[index];
+	}
+
+	public int size() {
+		return weights.length;
+	}
+
+}
@@ -3,7 +3,6 @@ package jgram.assessment;
 import jgram.exceptions.InvalidCheckpointException;
 import jgram.exceptions.InvalidCommentException;
 import jgram.exceptions.InvalidGradeMappingException;
-import jgram.utilities.Validation;
 
 /**
  * Intent: Represent a comment in a Word document assignment. A comment has a 
@@ -18,6 +17,7 @@ public class Comment {
 	private String id;
 	private String author;
 	private String text;
+	private CommentParser parser;
 	
 	// Constructor(s)
 	public Comment (String inputID, String inputAuthor, String inputText) {
@@ -66,14 +66,16 @@ public class Comment {
 	 * Precondition1 (Comment text): Comment has a text value that contains a
 	 * checkpoint.
 	 * 
-	 * Postcondition1 (Checkpoint content): Checkpoint content is extracted.
+	 * Postcondition1 (Checkpoint content): Checkpoint content is parsed. If 
+	 * the content is invalid the offset of the error is reported.
 	 * Postcondition2 (Extraction): Each piece of checkpoint data (weight, 
-	 * grade, feedback) is extracted and stored.
+	 * grade, feedback) is extracted. A letter grade is converted with the 
+	 * grade mapping.
 	 * Postcondition3 (Checkpoint creation): Checkpoint object is created and 
 	 * returned from extracted data.
 	 * 
 	 * @param gradeMapping GradeMapping object
-	 * @throws InvalidGradeMappingException
+	 * @throws InvalidCommentException
 	 * 
 	 * @return Checkpoint object
 	 */
@@ -81,52 +83,31 @@ public class Comment {
 			throws InvalidCommentException {
 		
 		// Post1 Checkpoint content
-		int startIndex = text.indexOf("CHECKPOINT(");
-		int endIndex = text.indexOf(")");
-		String checkpointContent = text.substring(startIndex + 11, endIndex);
-		
-		// Post 2 Extraction
-		// Extract feedback
-		int feedbackStart = checkpointContent.indexOf("FEEDBACK=[");
-		int feedbackEnd = checkpointContent.indexOf("]");
-		String feedback = checkpointContent.substring(feedbackStart + 10, feedbackEnd);
-		
-		// Remove feedback from checkpoint content
-		checkpointContent = checkpointContent.substring(0, (feedbackStart - 2));
-		checkpointContent = checkpointContent.trim();
-			
+		CommentParser commentParser = getParser();
+		int commentID = Integer.parseInt(id);
+		if (commentParser.getCheckpointErrorOffset() != -1) {
+			throw new InvalidCommentException("\nERROR: Invalid checkpoint "
+					+ "data: " + commentParser.getCheckpointError(), commentID,
+					commentParser.getCheckpointErrorOffset());
+		}
+		
+		// Post2 Extraction
+		int weight = commentParser.getWeight();
+		int grade = commentParser.getGrade();
+		if (commentParser.getGradeLetter() != null) {
+			grade = gradeMapping.getGrade(commentParser.getGradeLetter());
+		}
+		
+		// Post3 Checkpoint creation
 		try {
-			// Split checkpoint content to extract weight and grade
-			String[] contentArray = checkpointContent.split(",", 0);
-			String weightContent = contentArray[0].trim();
-			String gradeContent = contentArray[1].trim();
-			
-			// Extract grade and weight
-			weightContent = weightContent.split("=",0)[1];
-			gradeContent = gradeContent.split("=", 0)[1];
-			
-			// Convert grade and weight to appropriate type
-			int weight = Integer.parseInt(weightContent);
-			
-			// Validate if grade is numeric or if it is in the grade mapping
-			int grade;
-			if (Validation.isNumeric(gradeContent)) {
-				grade = Integer.parseInt(gradeContent);
-			} else {
-				grade = gradeMapping.getGrade(gradeContent.toUpperCase());
-			}
-			
-			// Post3 Checkpoint creation
-			int cpID = Integer.parseInt(id) + 1;
-			Checkpoint checkpoint = new Checkpoint(weight, grade, feedback, 
+			int cpID = commentID + 1;
+			return new Checkpoint(weight, grade, commentParser.getFeedback(), 
 					cpID);
-			return checkpoint;
-			
-		} catch (ArrayIndexOutOfBoundsException | NumberFormatException 
-					| InvalidCheckpointException e) {
 			
-			int commentID = Integer.parseInt(id);
-			throw new InvalidCommentException(commentID);
+		} catch (InvalidCheckpointException e) {
+			throw new InvalidCommentException("\nERROR: Invalid checkpoint "
+					+ "data: " + e.getMessage(), commentID, 
+					commentParser.getGradeOffset());
 		}
 		
 	}
@@ -138,13 +119,11 @@ public class Comment {
 	 * grade mapping.
 	 * 
 	 * Postcondition1 (Create GradeMapping): Create a GradeMapping object.
-	 * Postcondition2 (Extraction content): Extract grade mapping content
-	 * from Comment text.
-	 * Postcondition3 (Extraction grade): Extract letter grade and numeric grade.
-	 * Postcondition4 (Add grade): Add grade to GradeMapping.
-	 * Postcondition5 (Return GradeMapping): Return complete GradeMapping.
-	 * 
-	 * TODO provide grademapping validation
+	 * Postcondition2 (Extraction content): Grade mapping content is parsed. If
+	 * the content is invalid the offset of the error is reported.
+	 * Postcondition3 (Add grade): Add each letter and numeric grade to 
+	 * GradeMapping.
+	 * Postcondition4 (Return GradeMapping): Return complete GradeMapping.
 	 * 
 	 * @return GradeMapping object
 	 */
@@ -152,44 +131,32 @@ public class Comment {
 			throws InvalidCommentException {
 		
 		// Post1
-		GradeMapping gradeMapping = new GradeMapping();
+		GradeMapping.Builder builder = new GradeMapping.Builder();
 		
 		// Post2
-		int startIndex = text.indexOf("GRADEMAPPING(");
-		int endIndex = text.indexOf(")");
-		String gradeContent = text.substring(startIndex + 13, endIndex);
+		CommentParser commentParser = getParser();
+		int commentID = Integer.parseInt(id);
+		String message = "\nERROR: Invalid grade mapping data "
+				+ "encountered in file";
+		if (commentParser.getGradeMappingErrorOffset() != -1) {
+			throw new InvalidCommentException(message, commentID, 
+					commentParser.getGradeMappingErrorOffset());
+		}
 		
 		// Post3
-		String[] contentArray = gradeContent.split(",", 0);
-		
-		// Loop through each element and extract grade mapping
-		for (String content : contentArray) {
-			
-			try {
-				content = content.trim();
-				
-				String[] grade = content.split("=", 0);
-				String letter = grade[0];
-				
-				// TODO throw exception if not numeric
-				int number = Integer.parseInt(grade[1]);
-				
-				// Post4
-				gradeMapping.setGrade(letter, number);
-			
-			// Catch any errors thrown by parsing comment for grade mapping
-			} catch (ArrayIndexOutOfBoundsException | NumberFormatException 
-					| InvalidGradeMappingException e) {
-				
-				String message = "\nERROR: Invalid grade mapping data "
-						+ "encountered in file";
-				int commentID = Integer.parseInt(id);
-				throw new InvalidCommentException(message, commentID);
+		try {
+			for (int i = 0; i < commentParser.getGradeCount(); i++) {
+				builder.setGrade(commentParser.getLetter(i), 
+						commentParser.getNumber(i));
 			}
+		
+		// Grades are validated by the parser
+		} catch (InvalidGradeMappingException e) {
+			throw new InvalidCommentException(message, e, commentID);
 		}
 		
-		// Post5
-		return gradeMapping;
+		// Post4
+		return builder.build();
 		
 	}
 	
@@ -209,6 +176,22 @@ public class Comment {
 		return id;
 	}
 	
+	/**
+	 * Intent: Return the parser of the comment text. The text is parsed the 
+	 * first time the parser is needed.
+	 * 
+	 * @return CommentParser object
+	 */
+	public CommentParser getParser() {
+		
+		if (parser == null) {
+			parser = new CommentParser(text);
+		}
+		
+		return parser;
+		
+	}
+	
 	/**
 	 * Returns comment's text.
 	 * @return String text
@@ -217,6 +200,24 @@ public class Comment {
 		return text;
 	}
 	
+	/**
+	 * Intent: Test if the comment text contains a checkpoint.
+	 * 
+	 * @return boolean
+	 */
+	public boolean hasCheckpoint() {
+		return getParser().hasCheckpoint();
+	}
+	
+	/**
+	 * Intent: Test if the comment text contains a grade mapping.
+	 * 
+	 * @return boolean
+	 */
+	public boolean hasGradeMapping() {
+		return getParser().hasGradeMapping();
+	}
+	
 	
 	/**
 	 * Create and return a String of Comment's state.
@@ -0,0 +1,578 @@
+package jgram.assessment;
+
+/**
+ * Intent: Parse the checkpoint and grade mapping grammar of a comment in one
+ * pass over the comment text.
+ *
+ * The grammar of the blocks that can be placed in a comment is:
+ *
+ *   CHECKPOINT(WEIGHT=3, GRADE=A-, FEEDBACK=[Feedback text])
+ *   GRADEMAPPING(A+=97, A=95, A-=93, B+=87, F=67)
+ *
+ * Keys of a checkpoint are not case sensitive and can be placed in any order.
+ * The feedback ends at the ']' that is followed by a ',' or ')' so feedback can
+ * contain ')' and ']' characters. Text outside of a block is ignored.
+ *
+ * Postcondition1 (Single pass): The comment text is read once. Numbers are
+ * parsed in place and substrings are only created for the feedback and the
+ * letters that are kept.
+ * Postcondition2 (Multiple blocks): A comment can contain a checkpoint block
+ * and a grade mapping block. A second block of the same kind is an error
+ * because a checkpoint is identified by its comment.
+ * Postcondition3 (Errors): The first error of each kind of block is stored
+ * with the offset of the character where it was found. No exceptions are
+ * thrown while parsing and the text that follows an error is still parsed.
+ */
+public class CommentParser {
+
+	// Class constant(s)
+	public static final String CHECKPOINT = "CHECKPOINT";
+	public static final String GRADE_MAPPING = "GRADEMAPPING";
+	private static final String WEIGHT_KEY = "WEIGHT";
+	private static final String GRADE_KEY = "GRADE";
+	private static final String FEEDBACK_KEY = "FEEDBACK";
+	// Largest number accepted before it is reported as too large
+	private static final int MAX_PARSED_NUMBER = 1000000;
+	private static final int NO_OFFSET = -1;
+
+	// Instance variable(s)
+	private String text;
+	private int position;
+	// Checkpoint block
+	private int checkpointOffset = NO_OFFSET;
+	private int weight = NO_OFFSET;
+	private int grade = NO_OFFSET;
+	private String gradeLetter;
+	private int gradeOffset = NO_OFFSET;
+	private String feedback = "";
+	private int checkpointErrorOffset = NO_OFFSET;
+	private String checkpointError;
+	// Grade mapping block
+	private int gradeMappingOffset = NO_OFFSET;
+	private String[] letters = new String[0];
+	private int[] numbers = new int[0];
+	private int gradeCount;
+	private int gradeMappingErrorOffset = NO_OFFSET;
+	private String gradeMappingError;
+
+	// Constructor(s)
+	public CommentParser(String inputText) {
+		text = inputText == null ? "" : inputText;
+		parse();
+	}
+
+	/**
+	 * Intent: Store a grade of the grade mapping block in the letter and
+	 * number arrays.
+	 *
+	 * @param letter String letter grade
+	 * @param number int numeric grade
+	 */
+	private void addGrade(String letter, int number) {
+
+		if (gradeCount == letters.length) {
+			int capacity = Math.max(10, gradeCount * 2);
+			String[] newLetters = new String[capacity];
+			int[] newNumbers = new int[capacity];
+			System.arraycopy(letters, 0, newLetters, 0, gradeCount);
+			System.arraycopy(numbers, 0, newNumbers, 0, gradeCount);
+			letters = newLetters;
+			numbers = newNumbers;
+		}
+
+		letters[gradeCount] = letter;
+		numbers[gradeCount] = number;
+		gradeCount++;
+
+	}
+
+	/**
+	 * Intent: Return the offset of the end of the feedback that starts after
+	 * the '[' at the current position or -1 if the feedback is not closed.
+	 *
+	 * Postcondition1 (Nested brackets): Brackets that are opened in the
+	 * feedback are closed in the feedback.
+	 * Postcondition2 (End): The feedback ends at a ']' that is followed by
+	 * optional whitespace and a ',' or ')'.
+	 *
+	 * @return int offset of the closing ']'
+	 */
+	private int findFeedbackEnd() {
+
+		int depth = 0;
+		for (int i = position + 1; i < text.length(); i++) {
+
+			char c = text.charAt(i);
+
+			// Post1 Nested brackets
+			if (c == '[') {
+				depth++;
+			} else if (c == ']') {
+				if (depth > 0) {
+					depth--;
+					continue;
+				}
+
+				// Post2 End
+				int next = skipWhitespace(i + 1);
+				if (next < text.length() && (text.charAt(next) == ','
+						|| text.charAt(next) == ')')) {
+					return i;
+				}
+			}
+		}
+
+		return NO_OFFSET;
+
+	}
+
+	public int getCheckpointErrorOffset() {
+		return checkpointErrorOffset;
+	}
+
+	public String getCheckpointError() {
+		return checkpointError;
+	}
+
+	public String getFeedback() {
+		return feedback;
+	}
+
+	/**
+	 * Intent: Return the numeric grade of the checkpoint or -1 if the grade is
+	 * a letter grade.
+	 *
+	 * @return int grade
+	 */
+	public int getGrade() {
+		return grade;
+	}
+
+	public int getGradeCount() {
+		return gradeCount;
+	}
+
+	/**
+	 * Intent: Return the letter grade of the checkpoint or null if the grade
+	 * is numeric.
+	 *
+	 * @return String letter grade
+	 */
+	public String getGradeLetter() {
+		return gradeLetter;
+	}
+
+	public int getGradeMappingErrorOffset() {
+		return gradeMappingErrorOffset;
+	}
+
+	public String getGradeMappingError() {
+		return gradeMappingError;
+	}
+
+	public int getGradeOffset() {
+		return gradeOffset;
+	}
+
+	/**
+	 * Intent: Return the letter of a grade of the grade mapping block.
+	 *
+	 * @param index int index of the grade
+	 * @return String letter grade
+	 */
+	public String getLetter(int index) {
+		return letters[index];
+	}
+
+	/**
+	 * Intent: Return the number of a grade of the grade mapping block.
+	 *
+	 * @param index int index of the grade
+	 * @return int numeric grade
+	 */
+	public int getNumber(int index) {
+		return numbers[index];
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Intent: Test if the comment contains a checkpoint block, valid or not.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasCheckpoint() {
+		return checkpointOffset != NO_OFFSET;
+	}
+
+	/**
+	 * Intent: Test if the comment contains a grade mapping block, valid or
+	 * not.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasGradeMapping() {
+		return gradeMappingOffset != NO_OFFSET;
+	}
+
+	/**
+	 * Intent: Test if the character is a letter of the grammar.
+	 *
+	 * @param c char
+	 * @return boolean
+	 */
+	private static boolean isLetter(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+	}
+
+	/**
+	 * Intent: Test if the keyword starts at the current position and is
+	 * followed by optional whitespace and '('. The position is moved past the
+	 * '(' if it is.
+	 *
+	 * @param keyword String keyword
+	 * @return boolean
+	 */
+	private boolean matchBlockStart(String keyword) {
+
+		if (!text.startsWith(keyword, position)) {
+			return false;
+		}
+
+		int next = skipWhitespace(position + keyword.length());
+		if (next < text.length() && text.charAt(next) == '(') {
+			position = next + 1;
+			return true;
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Intent: Test if the key parameter is found between the start and end
+	 * offsets. Keys are not case sensitive.
+	 *
+	 * @param key String key
+	 * @param start int start offset
+	 * @param end int end offset
+	 * @return boolean
+	 */
+	private boolean matchKey(String key, int start, int end) {
+		return end - start == key.length()
+				&& text.regionMatches(true, start, key, 0, key.length());
+	}
+
+	/**
+	 * Intent: (Post1, Post2) Walk the comment text and parse each block.
+	 */
+	private void parse() {
+
+		position = 0;
+		while (position < text.length()) {
+
+			int start = position;
+			char c = text.charAt(position);
+
+			if (c == 'C' && matchBlockStart(CHECKPOINT)) {
+
+				// Post2 Multiple blocks
+				if (hasCheckpoint()) {
+					setCheckpointError(start, "a comment can contain one "
+							+ "checkpoint");
+				} else {
+					checkpointOffset = start;
+				}
+				parseCheckpoint();
+
+			} else if (c == 'G' && matchBlockStart(GRADE_MAPPING)) {
+
+				if (hasGradeMapping()) {
+					setGradeMappingError(start, "a comment can contain one "
+							+ "grade mapping");
+				} else {
+					gradeMappingOffset = start;
+				}
+				parseGradeMapping();
+
+			} else {
+				position++;
+			}
+		}
+
+	}
+
+	/**
+	 * Intent: Parse the content of a checkpoint block. The position is at the
+	 * character after '('.
+	 *
+	 * Postcondition1 (Key): A key is read and followed by '='.
+	 * Postcondition2 (Value): The value of the key is read.
+	 * Postcondition3 (Separator): The value is followed by ',' or ')'.
+	 * Postcondition4 (Required keys): The weight and grade were found.
+	 * Postcondition5 (Recover): If an error is found the position is moved
+	 * past the error so the rest of the text is parsed.
+	 */
+	private void parseCheckpoint() {
+
+		int blockStart = position;
+		boolean closed = false;
+		while (!closed) {
+
+			// Post1 Key
+			position = skipWhitespace(position);
+			int keyStart = position;
+			while (position < text.length() && isLetter(text.charAt(position))) {
+				position++;
+			}
+			int keyEnd = position;
+			if (keyStart == keyEnd) {
+				setCheckpointError(keyStart, "expected WEIGHT, GRADE or "
+						+ "FEEDBACK");
+				return;
+			}
+			position = skipWhitespace(position);
+			if (position >= text.length() || text.charAt(position) != '=') {
+				setCheckpointError(position, "expected '='");
+				return;
+			}
+			position = skipWhitespace(position + 1);
+
+			// Post2 Value
+			int valueStart = position;
+			if (matchKey(WEIGHT_KEY, keyStart, keyEnd)) {
+				weight = parseNumber();
+				if (weight < 0) {
+					setCheckpointError(valueStart, "expected a number");
+					return;
+				}
+
+			} else if (matchKey(GRADE_KEY, keyStart, keyEnd)) {
+				gradeOffset = valueStart;
+				if (position < text.length()
+						&& isLetter(text.charAt(position))) {
+					gradeLetter = parseLetter();
+					grade = NO_OFFSET;
+				} else {
+					grade = parseNumber();
+					gradeLetter = null;
+					if (grade < 0) {
+						setCheckpointError(valueStart, "expected a number or "
+								+ "a letter grade");
+						return;
+					}
+				}
+
+			} else if (matchKey(FEEDBACK_KEY, keyStart, keyEnd)) {
+				if (position >= text.length() || text.charAt(position) != '[') {
+					setCheckpointError(position, "expected '['");
+					return;
+				}
+				int feedbackEnd = findFeedbackEnd();
+				if (feedbackEnd < 0) {
+					setCheckpointError(position, "feedback is not closed "
+							+ "with ']'");
+					position = text.length();
+					return;
+				}
+				feedback = text.substring(position + 1, feedbackEnd);
+				position = feedbackEnd + 1;
+
+			} else {
+				setCheckpointError(keyStart, "expected WEIGHT, GRADE or "
+						+ "FEEDBACK");
+				return;
+			}
+
+			// Post3 Separator
+			position = skipWhitespace(position);
+			if (position < text.length() && text.charAt(position) == ',') {
+				position++;
+			} else if (position < text.length()
+					&& text.charAt(position) == ')') {
+				position++;
+				closed = true;
+			} else {
+				setCheckpointError(position, "expected ',' or ')'");
+				return;
+			}
+		}
+
+		// Post4 Required keys
+		if (weight < 0) {
+			setCheckpointError(blockStart, "WEIGHT is missing");
+		} else if (grade < 0 && gradeLetter == null) {
+			setCheckpointError(blockStart, "GRADE is missing");
+		}
+
+	}
+
+	/**
+	 * Intent: Parse the content of a grade mapping block. The position is at
+	 * the character after '('.
+	 *
+	 * Postcondition1 (Letter): A letter grade between A and F is read and
+	 * followed by '='.
+	 * Postcondition2 (Number): A numeric grade between 0 and 100 is read.
+	 * Postcondition3 (Separator): The grade is followed by ',' or ')'.
+	 */
+	private void parseGradeMapping() {
+
+		boolean closed = false;
+		while (!closed) {
+
+			// Post1 Letter
+			position = skipWhitespace(position);
+			int letterStart = position;
+			if (position >= text.length() || !isLetter(text.charAt(position))) {
+				setGradeMappingError(position, "expected a letter grade");
+				return;
+			}
+			String letter = parseLetter();
+			char first = letter.charAt(0);
+			if (first < GradeMapping.MIN_LETTER.charAt(0)
+					|| first > GradeMapping.MAX_LETTER.charAt(0)
+					|| letter.compareTo(GradeMapping.MAX_LETTER) > 0) {
+				setGradeMappingError(letterStart, "letter grades are "
+						+ GradeMapping.MIN_LETTER + " to "
+						+ GradeMapping.MAX_LETTER);
+				return;
+			}
+			position = skipWhitespace(position);
+			if (position >= text.length() || text.charAt(position) != '=') {
+				setGradeMappingError(position, "expected '='");
+				return;
+			}
+			position = skipWhitespace(position + 1);
+
+			// Post2 Number
+			int numberStart = position;
+			int number = parseNumber();
+			if (number < GradeMapping.MIN_NUMBER
+					|| number > GradeMapping.MAX_NUMBER) {
+				setGradeMappingError(numberStart, "expected a number from "
+						+ GradeMapping.MIN_NUMBER + " to "
+						+ GradeMapping.MAX_NUMBER);
+				return;
+			}
+			addGrade(letter, number);
+
+			// Post3 Separator
+			position = skipWhitespace(position);
+			if (position < text.length() && text.charAt(position) == ',') {
+				position++;
+			} else if (position < text.length()
+					&& text.charAt(position) == ')') {
+				position++;
+				closed = true;
+			} else {
+				setGradeMappingError(position, "expected ',' or ')'");
+				return;
+			}
+		}
+
+	}
+
+	/**
+	 * Intent: Read a letter grade such as 'A', 'b+' or 'C-' at the current
+	 * position and return it in upper case.
+	 *
+	 * @return String letter grade
+	 */
+	private String parseLetter() {
+
+		int start = position;
+		position++;
+		if (position < text.length() && (text.charAt(position) == '+'
+				|| text.charAt(position) == '-')) {
+			position++;
+		}
+
+		return text.substring(start, position).toUpperCase();
+
+	}
+
+	/**
+	 * Intent: Read the digits at the current position as a non-negative
+	 * number. Returns -1 if there are no digits or the number is too large.
+	 *
+	 * @return int number
+	 */
+	private int parseNumber() {
+
+		int start = position;
+		int number = 0;
+		while (position < text.length()) {
+			char c = text.charAt(position);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			if (number <= MAX_PARSED_NUMBER) {
+				number = number * 10 + (c - '0');
+			}
+			position++;
+		}
+
+		if (position == start || number > MAX_PARSED_NUMBER) {
+			return NO_OFFSET;
+		}
+
+		return number;
+
+	}
+
+	/**
+	 * Intent: (Post3) Store the first checkpoint error and move past the
+	 * character where it was found.
+	 *
+	 * @param offset int offset of the error
+	 * @param message String description of the error
+	 */
+	private void setCheckpointError(int offset, String message) {
+
+		if (checkpointErrorOffset == NO_OFFSET) {
+			checkpointErrorOffset = offset;
+			checkpointError = message;
+		}
+		position = Math.max(position, offset + 1);
+
+	}
+
+	/**
+	 * Intent: (Post3) Store the first grade mapping error and move past the
+	 * character where it was found.
+	 *
+	 * @param offset int offset of the error
+	 * @param message String description of the error
+	 */
+	private void setGradeMappingError(int offset, String message) {
+
+		if (gradeMappingErrorOffset == NO_OFFSET) {
+			gradeMappingErrorOffset = offset;
+			gradeMappingError = message;
+		}
+		position = Math.max(position, offset + 1);
+
+	}
+
+	/**
+	 * Intent: Return the offset of the first character at or after the offset
+	 * parameter that is not whitespace.
+	 *
+	 * @param offset int offset
+	 * @return int offset
+	 */
+	private int skipWhitespace(int offset) {
+
+		while (offset < text.length()
+				&& Character.isWhitespace(text.charAt(offset))) {
+			offset++;
+		}
+
+		return offset;
+
+	}
+
+}
@@ -0,0 +1,20 @@
+package jgram.assessment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Intent: Represent a backend that reads the comments of a Word document
+ * assignment and produces a list of Comment objects.
+ *
+ * Precondition1 (Assignment exists): A Word document assignment exists at the
+ * path provided to the retrieveComments method.
+ *
+ * Postcondition1 (Comments): The retrieveComments method returns a list of
+ * Comment objects in document order. The list is empty if the document does
+ * not contain any comments.
+ */
+public interface CommentSource {
+	List<Comment> retrieveComments(Path path) throws IOException;
+}
@@ -1,21 +1,29 @@
 package jgram.assessment;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.poi.xwpf.usermodel.XWPFComment;
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.openxml4j.opc.TargetMode;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xwpf.usermodel.XWPFRun;
@@ -25,7 +33,11 @@ import org.apache.poi.xwpf.usermodel.XWPFTableRow;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTblLayoutType;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.STTblLayoutType;
 
+import io.jsonwebtoken.JwtException;
+
+import jgram.exceptions.InvalidCheckpointException;
 import jgram.exceptions.InvalidCommentException;
+import jgram.exceptions.InvalidGradeMappingException;
 import jgram.security.JWT;
 import jgram.security.Secret;
 
@@ -64,32 +76,96 @@ import jgram.security.Secret;
 public class Document {
 	
 	// Class constant(s)
-	// Checkpoint and grade mapping grammar
-	private static final String CHECKPOINT = "CHECKPOINT";
-	private static final String GRADE_MAPPING = "GRADEMAPPING";
 	private static final String TABLE_TITLE = "JGRAM RESULTS";
+	private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+	// Results table formatting
+	private static final int[] COLUMN_WIDTHS = {1000, 1000, 1000, 6000};
+	private static final String HEADER_COLOR = "c0c0c0";
+	private static final String TOTAL_COLOR = "8fbc8f";
 	
 	// Instance variable(s)
 	private Path assignmentPath;
+	private CommentSource commentSource;
+	private GradedArchive gradedArchive;
 	private List<Comment> commentList;
 	private List<Checkpoint> checkpointList;
 	private GradeMapping gradeMapping;
 	private Result result;
+	private String fingerprint;
 	
 	private XWPFTable table;;
 	
 	// Constructor(s)
 	public Document() {
+		commentSource = new StreamingCommentSource();
 		commentList = new ArrayList<>();
 		checkpointList = new ArrayList<>();
-		gradeMapping = new GradeMapping();
+		gradeMapping = GradeMapping.EMPTY;
 	}
 	
 	public Document(Path path) {
 		assignmentPath = path;
+		commentSource = new StreamingCommentSource();
 		commentList = new ArrayList<>();
 		checkpointList = new ArrayList<>();
-		gradeMapping = new GradeMapping();
+		gradeMapping = GradeMapping.EMPTY;
+	}
+	
+	/**
+	 * Intent: Append a table cell with a width, an optional fill color and 
+	 * text to a WordprocessingML fragment.
+	 * 
+	 * @param xml StringBuilder that holds the fragment
+	 * @param column int index of the column
+	 * @param text String value of the cell
+	 * @param color String hex fill color or null
+	 */
+	private static void appendCell(StringBuilder xml, int column, String text,
+			String color) {
+		
+		xml.append("<w:tc><w:tcPr><w:tcW w:w=\"")
+			.append(COLUMN_WIDTHS[column])
+			.append("\" w:type=\"dxa\"/>");
+		if (color != null) {
+			xml.append("<w:shd w:val=\"clear\" w:color=\"auto\" w:fill=\"")
+				.append(color)
+				.append("\"/>");
+		}
+		xml.append("</w:tcPr><w:p><w:r>");
+		appendText(xml, text);
+		xml.append("</w:r></w:p></w:tc>");
+		
+	}
+	
+	/**
+	 * Intent: Append a text element with escaped content to a 
+	 * WordprocessingML fragment.
+	 * 
+	 * @param xml StringBuilder that holds the fragment
+	 * @param text String value to append
+	 */
+	private static void appendText(StringBuilder xml, String text) {
+		
+		xml.append("<w:t xml:space=\"preserve\">");
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '&':
+					xml.append("&amp;");
+					break;
+				case '<':
+					xml.append("&lt;");
+					break;
+				case '>':
+					xml.append("&gt;");
+					break;
+				default:
+					xml.append(c);
+					break;
+			}
+		}
+		xml.append("</w:t>");
+		
 	}
 	
 	/**
@@ -103,6 +179,8 @@ public class Document {
 	 * values.
 	 * Postcondition2 (Hash result): Create a hash string that encodes the
 	 * result object.
+	 * Postcondition3 (Result data): The assignment name, student name and 
+	 * content fingerprint are stored in the Result object.
 	 */
 	public void calculateResult() {
 		
@@ -115,40 +193,50 @@ public class Document {
 		// Post3 Set assignment name and student name for Result
 		result.setAssignmentName(assignmentPath.getFileName().toString());
 		result.extractStudentName();
+		result.setFingerprint(fingerprint);
 		
 	}
 	
 	/**
-	 * Intent: Copy Document's assignmentPath to a new Path that represents
-	 * a file on the file system.
-	 * 
-	 * Precondition1 (Assignment path): The assignment path has been identified
-	 * by the user.
+	 * Intent: Create a content fingerprint of the assignment from its comments
+	 * part. All grading data is stored in the comments so an unchanged 
+	 * fingerprint means that the assignment grades the same way.
 	 * 
-	 * Postcondition1 (Target file): The target file is created.
-	 * Postcondition2 (Copy): The file found at the assignment path is copied to
-	 * the target file.
-	 * Postcondition3 (Return path): The path representation of the target file
-	 * is returned.
+	 * Postcondition1 (Comments part): The raw comments part is read from the
+	 * assignment. If the comments part is not stored in the expected entry 
+	 * the complete assignment is read instead.
+	 * Postcondition2 (Digest): A SHA-256 digest of the comments part is 
+	 * stored as a hexadecimal string.
 	 * 
-	 * @return Path object
 	 * @throws IOException
 	 */
-	private Path copyFile() throws IOException {
-		
-		// Post1 Target file
-		String targetDirectory = assignmentPath.getParent().toString() 
-				+ "/GRADED";
-		String targetFile =  "/GRADED_" + assignmentPath.getFileName()
-			.toString();
-		File target = new File(targetDirectory + targetFile);
+	public void createFingerprint() throws IOException {
+		
+		// Post1 Comments part
+		byte[] commentsPart;
+		try {
+			commentsPart = StreamingCommentSource
+					.readCommentsPart(assignmentPath);
+		} catch (IOException e) {
+			commentsPart = Files.readAllBytes(assignmentPath);
+		}
 		
-		// Post2 Copy
-		File original = assignmentPath.toFile();
-		FileUtils.copyFile(original, target);
+		// Post2 Digest
+		MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Could not create fingerprint: " 
+					+ e.getMessage(), e);
+		}
+		byte[] digest = messageDigest.digest(commentsPart);
 		
-		// Post3 Return path
-		return target.toPath();
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+				.append(Character.forDigit(b & 0xf, 16));
+		}
+		fingerprint = hex.toString();
 		
 	}
 	
@@ -158,41 +246,56 @@ public class Document {
 	 * 
 	 * Precondition1 (Graded) Assignment has been graded.
 	 * 
-	 * Postcondition1 (XWPF document creation): The assignment path has been 
-	 * converted to a File and passed to the XWPFDocument constructor to create
-	 * an XWPFDocument object that represents a Word document.
-	 * Postcondition2 (Assignment copied): XWPFDocument object is copied to 
-	 * a new XWPF document which also creates a new copy of the assignment
-	 * file on the file system.
-	 * Postcondition2 (Table creation): An XWPFTable object has been created
-	 * that represents a Word document table with the graded assignment results.
-	 * Postcondition3 (Result written to copy): The XWPFTable has been written to a copy
-	 * of the Word document assignment.
+	 * Postcondition1 (Graded path): The path of the graded copy is determined
+	 * from the assignment path.
+	 * Postcondition2 (Stream graded copy): The entries of the assignment are
+	 * streamed to the graded copy and a results table is spliced into the
+	 * main document part. The assignment is read once and the graded copy is
+	 * written once. The graded copy is added to the output archive if one has
+	 * been set, otherwise it is written to the 'GRADED' sub-directory.
+	 * Postcondition3 (XWPF fallback): If the results table could not be 
+	 * spliced into the main document part, the assignment is opened as an
+	 * XWPFDocument, the results table is appended and the document is written
+	 * to the graded copy.
+	 * Postcondition4 (Signed result): If the hash string has been created it
+	 * is stored in a custom XML part of the graded copy.
 	 * 
 	 * @throws IOException
 	 */
 	public void createGradedAssignment() throws IOException {
 		
-		// Post1 XWPF document creation
-		XWPFDocument documentContent = retrieveXWPFDocument(assignmentPath);
-		
-		// Post2 Assignment copied
-		Path pathCopy = copyFile();
-		XWPFDocument documentCopy = retrieveXWPFDocument(pathCopy);
+		// Post1 Graded path
+		Path gradedPath = getGradedPath();
+		GradedDocumentWriter writer = new GradedDocumentWriter(assignmentPath);
+		
+		// Post4 Signed result
+		writer.setSignedResult(result.getHashString());
+		String fragment = createTableFragment();
+		
+		// Post2 Stream graded copy to the output archive
+		if (gradedArchive != null) {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			if (!writer.write(fragment, buffer)) {
+				// Post3 XWPF fallback
+				buffer.reset();
+				writeXWPFGradedAssignment(buffer);
+			}
+			gradedArchive.addDocument(gradedPath.getFileName().toString(), 
+					buffer.toByteArray());
+			return;
+		}
 		
-		// Post3 Table creation
-		createParagraph(documentCopy);
-		createTable(documentCopy);
+		// Post2 Stream graded copy to the 'GRADED' sub-directory
+		if (writer.write(fragment, gradedPath)) {
+			return;
+		}
 		
-		// Post4 Results written to copy
-		FileOutputStream fileOutputStream = 
-				new FileOutputStream(pathCopy.toString());
-		documentCopy.write(fileOutputStream);
+		// Post3 XWPF fallback
+		Files.createDirectories(gradedPath.getParent());
+		try (OutputStream outputStream = Files.newOutputStream(gradedPath)) {
+			writeXWPFGradedAssignment(outputStream);
+		}
 		
-		// Close resources
-		documentContent.close();
-		documentCopy.close();
-		fileOutputStream.close();
 	}
 	
 	/**
@@ -205,8 +308,8 @@ public class Document {
 	 */
 	public void createHashString(Secret secret) {
 		
-		// Create JWT object
-		JWT jwt = new JWT(secret);
+		// Shared JWT object of the secret
+		JWT jwt = JWT.forSecret(secret);
 		
 		// Encode Document's Result and GradeMapping objects
 		jwt.encode(this);
@@ -228,6 +331,44 @@ public class Document {
 		
 	}
 	
+	/**
+	 * Intent: Store the hash string in a custom XML part of a XWPFDocument 
+	 * that is related to the main document part. A previous signed result 
+	 * part is replaced.
+	 * 
+	 * @param documentContent
+	 * @throws IOException
+	 */
+	private void createResultPart(XWPFDocument documentContent) 
+			throws IOException {
+		
+		try {
+			OPCPackage documentPackage = documentContent.getPackage();
+			PackagePartName partName = PackagingURIHelper.createPartName("/"
+					+ GradedDocumentWriter.RESULT_ENTRY);
+			if (documentPackage.containPart(partName)) {
+				documentPackage.removePart(partName);
+			}
+			PackagePart part = documentPackage.createPart(partName, 
+					GradedDocumentWriter.RESULT_CONTENT_TYPE);
+			try (OutputStream partStream = part.getOutputStream()) {
+				partStream.write(GradedDocumentWriter.createResultXml(
+						result.getHashString()));
+			}
+			PackagePart documentPart = documentContent.getPackagePart();
+			if (documentPart.getRelationshipsByType(
+					GradedDocumentWriter.RESULT_RELATIONSHIP_TYPE).size() == 0) {
+				documentPart.addRelationship(partName, TargetMode.INTERNAL, 
+						GradedDocumentWriter.RESULT_RELATIONSHIP_TYPE);
+			}
+			
+		} catch (InvalidFormatException e) {
+			throw new IOException("Could not store signed result: " 
+					+ e.getMessage(), e);
+		}
+		
+	}
+	
 	/**
 	 * Intent: Create an XWPF table object that contains results of assignment
 	 * grading.
@@ -265,6 +406,72 @@ public class Document {
 		
 	}
 	
+	/**
+	 * Intent: Create a WordprocessingML fragment that contains the title 
+	 * paragraph and a table of the results of assignment grading.
+	 * 
+	 * Postcondition1 (Title): A bold title paragraph is created.
+	 * Postcondition2 (Table properties): A fixed layout table with borders 
+	 * and column widths is started.
+	 * Postcondition3 (Column headers): The column header row is created.
+	 * Postcondition4 (Checkpoint rows): A row is created for each checkpoint.
+	 * Postcondition5 (Total grade row): The total grade row is created.
+	 * 
+	 * @return String of WordprocessingML
+	 */
+	private String createTableFragment() {
+		
+		StringBuilder xml = new StringBuilder(1024 
+				+ checkpointList.size() * 512);
+		
+		// Post1 Title
+		xml.append("<w:p><w:r><w:rPr><w:b/><w:sz w:val=\"32\"/></w:rPr>");
+		appendText(xml, TABLE_TITLE);
+		xml.append("</w:r></w:p>");
+		
+		// Post2 Table properties
+		xml.append("<w:tbl><w:tblPr><w:tblW w:w=\"0\" w:type=\"auto\"/>"
+				+ "<w:tblBorders><w:top w:val=\"single\"/>"
+				+ "<w:left w:val=\"single\"/><w:bottom w:val=\"single\"/>"
+				+ "<w:right w:val=\"single\"/><w:insideH w:val=\"single\"/>"
+				+ "<w:insideV w:val=\"single\"/></w:tblBorders>"
+				+ "<w:tblLayout w:type=\"fixed\"/></w:tblPr><w:tblGrid>");
+		for (int width : COLUMN_WIDTHS) {
+			xml.append("<w:gridCol w:w=\"").append(width).append("\"/>");
+		}
+		xml.append("</w:tblGrid>");
+		
+		// Post3 Column headers
+		xml.append("<w:tr>");
+		appendCell(xml, 0, "C#", HEADER_COLOR);
+		appendCell(xml, 1, "Weight", HEADER_COLOR);
+		appendCell(xml, 2, "Grade", HEADER_COLOR);
+		appendCell(xml, 3, "Feedback", HEADER_COLOR);
+		xml.append("</w:tr>");
+		
+		// Post4 Checkpoint rows
+		for (Checkpoint checkpoint : checkpointList) {
+			xml.append("<w:tr>");
+			appendCell(xml, 0, "" + checkpoint.getID(), null);
+			appendCell(xml, 1, "" + checkpoint.getWeight(), null);
+			appendCell(xml, 2, "" + checkpoint.getGrade(), null);
+			appendCell(xml, 3, "" + checkpoint.getFeedback(), null);
+			xml.append("</w:tr>");
+		}
+		
+		// Post5 Total grade row
+		xml.append("<w:tr>");
+		appendCell(xml, 0, "", null);
+		appendCell(xml, 1, "Σ", null);
+		appendCell(xml, 2, String.format("%.2f", result.getTotalGrade()), 
+				TOTAL_COLOR);
+		appendCell(xml, 3, "", null);
+		xml.append("</w:tr></w:tbl>");
+		
+		return xml.toString();
+		
+	}
+	
 	public Path getAssignmentName() {
 		return assignmentPath;
 	}
@@ -273,10 +480,33 @@ public class Document {
 		return checkpointList;
 	}
 	
+	public CommentSource getCommentSource() {
+		return commentSource;
+	}
+	
 	public List<Comment> getCommentList() {
 		return commentList;
 	}
 	
+	public String getFingerprint() {
+		return fingerprint;
+	}
+	
+	public GradedArchive getGradedArchive() {
+		return gradedArchive;
+	}
+	
+	/**
+	 * Intent: Return the path of the graded copy of the assignment which is
+	 * stored in the 'GRADED' sub-directory and prefixed with 'GRADED_'.
+	 * 
+	 * @return Path object
+	 */
+	public Path getGradedPath() {
+		return assignmentPath.resolveSibling("GRADED")
+				.resolve("GRADED_" + assignmentPath.getFileName().toString());
+	}
+	
 	public GradeMapping getGradeMapping() {
 		return gradeMapping;
 	}
@@ -344,11 +574,10 @@ public class Document {
 		
 		// Post1 Track invalid checkpoints
 		ArrayList<Integer> invalidCommentList = new ArrayList<>();
+		ArrayList<Integer> errorOffsetList = new ArrayList<>();
 		
 		// Post2 Predicate interface object
-		Predicate<Comment> isCheckpoint = (comment -> comment
-														.getText()
-														.contains(CHECKPOINT));
+		Predicate<Comment> isCheckpoint = Comment::hasCheckpoint;
 		
 		// Post3 Function interface object with result
 		Function<Comment, Checkpoint> checkpointCreator = comment -> {
@@ -358,6 +587,7 @@ public class Document {
 			} catch (InvalidCommentException e) {
 				int id = e.getCommentID();
 				invalidCommentList.add(id);
+				errorOffsetList.add(e.getErrorOffset());
 				return null;
 			}
 		};
@@ -374,7 +604,8 @@ public class Document {
 		if (!(invalidCommentList.isEmpty()) ) {
 			String message = "\nERROR: Invalid checkpoint data detected in "
 					+ "file";
-			throw new InvalidCommentException(message, invalidCommentList);
+			throw new InvalidCommentException(message, invalidCommentList,
+					errorOffsetList);
 		}
 		
 	}
@@ -383,34 +614,43 @@ public class Document {
 	 * Intent: (Post1) Extract the comments from the assignment document and
 	 * store them in a list.
 	 * 
-	 * Postcondition1 (XWPF document creation): The assignment path has been 
-	 * converted to a File and passed to the XWPFDocument constructor to create
-	 * an XWPFDocument object that represents a Word document.
-	 * Postcondition2 (List of Document comments ): A list of XWPFComment
-	 * objects is created from the assignment document.
-	 * Postcondition3 (Comment list creation): A list of Comment objects is 
-	 * produced from a Stream of XWPFComment objects.
+	 * Precondition1 (Comment source): A comment source has been selected. The
+	 * streaming comment source is used by default so that only the comments
+	 * part of the document is read.
+	 * 
+	 * Postcondition1 (Comment list creation): A list of Comment objects is 
+	 * produced by the comment source from the assignment document.
+	 * Postcondition2 (Fallback): If the streaming comment source cannot 
+	 * locate or parse the comments part, the complete document is loaded by 
+	 * the XWPF comment source instead. The original exception is thrown if 
+	 * the XWPF comment source cannot read the document either.
 	 * 
 	 * @throws IOException
 	 * @throws InvalidCommentException
 	 */
 	public void parseComments() throws IOException, InvalidCommentException {
 		
-		// Post1 XWPF document creation
-		XWPFDocument documentContent = retrieveXWPFDocument(assignmentPath);
-		
-		// Post2 List of Document comments 
-		XWPFComment[] docCommentList = documentContent.getComments();
-		
-		// Post3 Comment list creation
-		Stream<XWPFComment> xwpfStream = Stream.of(docCommentList);
-		commentList = xwpfStream
-				.map(dc -> new Comment(dc.getId(), dc.getAuthor(), dc.getText()))
-				.collect(Collectors.toList());
-		
-		// Close open resources
-		documentContent.close();
-		
+		try {
+			
+			// Post1 Comment list creation
+			commentList = commentSource.retrieveComments(assignmentPath);
+			
+		} catch (IOException e) {
+			
+			// Post2 Fallback
+			if (!(commentSource instanceof StreamingCommentSource)) {
+				throw e;
+			}
+			try {
+				commentList = new XWPFCommentSource()
+						.retrieveComments(assignmentPath);
+			} catch (IOException | POIXMLException 
+					| UnsupportedFileFormatException fallbackException) {
+				e.addSuppressed(fallbackException);
+				throw e;
+			}
+			
+		}
 		
 	}
 	
@@ -429,9 +669,7 @@ public class Document {
 		
 		
 		// Post1 Predicate interface object
-		Predicate<Comment> isGradeMapping = (comment -> comment
-														.getText()
-														.contains(GRADE_MAPPING));
+		Predicate<Comment> isGradeMapping = Comment::hasGradeMapping;
 		
 		// Post2 Extract grade mapping data
 		Optional<Comment> gradeMappingData = commentList
@@ -443,12 +681,86 @@ public class Document {
 		if (gradeMappingData.isPresent()) {
 			gradeMapping = gradeMappingData.get().extractGradeMapping();
 		} else {
-			gradeMapping = new GradeMapping();
+			gradeMapping = GradeMapping.EMPTY;
 		}
 				
 
 	}
 	
+	/**
+	 * Intent: Reuse the result of a previous grading of the assignment if the
+	 * assignment has not changed since it was graded.
+	 * 
+	 * Precondition1 (Fingerprint): The content fingerprint of the assignment
+	 * has been created.
+	 * 
+	 * Postcondition1 (Unchanged): The fingerprint of the previous result 
+	 * matches the fingerprint of the assignment. If it does not, false is 
+	 * returned.
+	 * Postcondition2 (Decode hash string): The previous hash string is decoded
+	 * with the secret parameter to restore the checkpoints, result and grade 
+	 * mapping. If the hash string was not signed with the secret, false is 
+	 * returned so the assignment is graded again.
+	 * Postcondition3 (Result data): The hash string, assignment name, student
+	 * name and fingerprint of the previous result are stored in the restored
+	 * Result object.
+	 * 
+	 * @param previousResult Result object of a previous grading or null
+	 * @param secret Secret object
+	 * @return boolean value that indicates if the previous result was reused
+	 */
+	public boolean restorePreviousResult(Result previousResult, 
+			Secret secret) {
+		
+		// Post1 Unchanged
+		if (previousResult == null || fingerprint == null 
+				|| !fingerprint.equals(previousResult.getFingerprint())) {
+			return false;
+		}
+		
+		// Post2 Decode hash string
+		result = new Result(previousResult.getHashString());
+		try {
+			JWT jwt = JWT.forSecret(secret);
+			jwt.decode(this);
+		} catch (JwtException | IllegalArgumentException 
+				| InvalidCheckpointException | InvalidGradeMappingException e) {
+			result = null;
+			return false;
+		}
+		
+		// Post3 Result data
+		result.setHashString(previousResult.getHashString());
+		result.setAssignmentName(previousResult.getAssignmentName());
+		result.extractStudentName();
+		result.setFingerprint(fingerprint);
+		
+		return true;
+		
+	}
+	
+	/**
+	 * Intent: Keep the graded copy of a previous grading of the assignment.
+	 * A graded copy in the 'GRADED' sub-directory is left in place and a 
+	 * graded copy in a previous version of the output archive is copied into
+	 * the output archive.
+	 * 
+	 * @return boolean value that indicates if the graded copy was kept
+	 * @throws IOException
+	 */
+	public boolean retainGradedAssignment() throws IOException {
+		
+		Path gradedPath = getGradedPath();
+		
+		if (gradedArchive != null) {
+			return gradedArchive.copyPreviousDocument(gradedPath.getFileName()
+					.toString());
+		}
+		
+		return Files.isRegularFile(gradedPath);
+		
+	}
+	
 	/**
 	 * Intent: Open and return an XWPFDocument object that represents a Word
 	 * document.
@@ -460,18 +772,11 @@ public class Document {
 	private static XWPFDocument retrieveXWPFDocument(Path path) 
 			throws IOException {
 		
-		// Get file path to Word Document
-		File file = path.toFile();
-		FileInputStream fileInputStream = 
-				new FileInputStream(file.getAbsolutePath());
-		
-		// Create XWPFDocument
-		XWPFDocument documentContent = new XWPFDocument(fileInputStream);
-		
-		// Close input stream
-		fileInputStream.close();
+		// Create XWPFDocument from the file or archive entry
+		try (InputStream inputStream = Files.newInputStream(path)) {
+			return new XWPFDocument(inputStream);
+		}
 		
-		return documentContent;
 	}
 	
 	/**
@@ -486,9 +791,6 @@ public class Document {
 	 */
 	private void setCellWidth() {
 		
-		// Create a list of table widths
-		int[] columnWidth = {1000, 1000, 1000, 6000};
-		
 		// Get a list of the rows
 		List<XWPFTableRow> rows = table.getRows();
 		
@@ -506,7 +808,7 @@ public class Document {
 				cell.getCTTc()
 					.addNewTcPr()
 					.addNewTcW()
-					.setW(BigInteger.valueOf(columnWidth[i]));
+					.setW(BigInteger.valueOf(COLUMN_WIDTHS[i]));
 				
 				i++;
 				
@@ -525,6 +827,13 @@ public class Document {
 		commentList = cList;
 	}
 	
+	/**
+	 * Intent: Set the backend used to read the document's comments.
+	 */
+	public void setCommentSource(CommentSource source) {
+		commentSource = source;
+	}
+	
 	/**
 	 * Intent: Set default grade mapping for Document and print message to 
 	 * console to notify user.
@@ -538,12 +847,20 @@ public class Document {
 		synchronized(System.out) {
 			System.out.println("\nDid not find a grade mapping for assignment:"
 					+ "\n\t" + assignmentPath.getFileName().toString());
-			gradeMapping.setDefaultGradeMapping();
+			gradeMapping = GradeMapping.DEFAULT;
 			System.out.println("Default mapping is set to: \n" + gradeMapping);
 		}
 		
 	}
 	
+	/**
+	 * Intent: Set the output archive that graded copies are added to. Graded
+	 * copies are written to the 'GRADED' sub-directory if no archive is set.
+	 */
+	public void setGradedArchive(GradedArchive archive) {
+		gradedArchive = archive;
+	}
+	
 	public void setGradeMapping(GradeMapping gMap) {
 		gradeMapping = gMap;
 	}
@@ -565,7 +882,7 @@ public class Document {
         		result.getTotalGrade()));
 
         // Format result row
-        resultRow.getCell(2).setColor("8fbc8f");
+        resultRow.getCell(2).setColor(TOTAL_COLOR);
 		
 	}
 	
@@ -598,9 +915,31 @@ public class Document {
 		columnHeadersRow.addNewTableCell().setText("Feedback");
 		
 		// Format column header row
-		columnHeadersRow.getCell(0).setColor("c0c0c0");
-		columnHeadersRow.getCell(1).setColor("c0c0c0");
-		columnHeadersRow.getCell(2).setColor("c0c0c0");
-		columnHeadersRow.getCell(3).setColor("c0c0c0");
+		columnHeadersRow.getCell(0).setColor(HEADER_COLOR);
+		columnHeadersRow.getCell(1).setColor(HEADER_COLOR);
+		columnHeadersRow.getCell(2).setColor(HEADER_COLOR);
+		columnHeadersRow.getCell(3).setColor(HEADER_COLOR);
+	}
+	
+	/**
+	 * Intent: Append the results table to the assignment through the Apache
+	 * POI XWPFDocument model and write the graded copy to an output stream.
+	 * 
+	 * @param outputStream OutputStream of graded copy
+	 * @throws IOException
+	 */
+	private void writeXWPFGradedAssignment(OutputStream outputStream) 
+			throws IOException {
+		
+		try (XWPFDocument documentCopy = 
+				retrieveXWPFDocument(assignmentPath)) {
+			createParagraph(documentCopy);
+			createTable(documentCopy);
+			if (result.getHashString() != null) {
+				createResultPart(documentCopy);
+			}
+			documentCopy.write(outputStream);
+		}
+		
 	}
 }
@@ -1,23 +1,32 @@
 package jgram.assessment;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import jgram.exceptions.InvalidGradeMappingException;
 
 /**
  * Intent: Represent an assignment Word document grade mapping.
- * 
+ *
  * Precondition1 (Document creation): A Document object is created that contains
  * a grade mapping.
- * 
- * Postcondition1 (GradeMapping creation): A GradeMapping is created that 
+ *
+ * Postcondition1 (GradeMapping creation): A GradeMapping is created that
  * represents the grade mapping used to determine a student's grade on their
  * assignment.
+ * Postcondition2 (Immutable and interned): A GradeMapping cannot be changed
+ * once it is built and grade mappings with the same grades share one instance
+ * so that grade mappings are equal only if they are the same object.
+ * Postcondition3 (Letter index): The letter grades A+ to F are stored in an
+ * array that is indexed by the letter and its '+' or '-' modifier.
  *
  */
-public class GradeMapping {
-	
+public final class GradeMapping {
+
 	// Class constant(s)
 		// Minimum and maximum values for a checkpoint weight
 		public static final String MIN_LETTER = "A";
@@ -25,46 +34,74 @@ public class GradeMapping {
 		// Minimum and maximum values for a checkpoint grade
 		public static final int MIN_NUMBER = 0;
 		public static final int MAX_NUMBER = 100;
-	
+		// Three slots for each letter: '+', no modifier and '-'
+		private static final int SLOT_COUNT = (MAX_LETTER.charAt(0)
+				- MIN_LETTER.charAt(0) + 1) * 3;
+		private static final int NO_GRADE = -1;
+		// Interned grade mappings keyed by their grades
+		private static final ConcurrentMap<String, GradeMapping> INTERNED =
+				new ConcurrentHashMap<>();
+		// Grade mappings decoded from the String form of a grade mapping
+		private static final ConcurrentMap<String, GradeMapping> PARSED =
+				new ConcurrentHashMap<>();
+		public static final GradeMapping EMPTY = new Builder().build();
+		public static final GradeMapping DEFAULT = createDefault();
+
 	// Instance variable(s)
-	// Map of letter and numeric grade values
-	private LinkedHashMap<String, Integer> limits;
-	
+	// Numeric grade of each letter slot or NO_GRADE
+	private final int[] numbers;
+	private final int size;
+	private final Map<String, Integer> limits;
+	private final String text;
+
 	// Constructor(s)
-	public GradeMapping() {
-		limits = new LinkedHashMap<>();
+	private GradeMapping(int[] inputNumbers) {
+
+		numbers = inputNumbers;
+
+		// Letters are kept in order from A+ to F
+		LinkedHashMap<String, Integer> limitMap = new LinkedHashMap<>();
+		StringBuilder gradeMapping = new StringBuilder("");
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			if (numbers[slot] != NO_GRADE) {
+				String letter = slotLetter(slot);
+				limitMap.put(letter, numbers[slot]);
+				gradeMapping.append(String.format("%-2s = %d", letter,
+						numbers[slot]) + "\n");
+			}
+		}
+
+		size = limitMap.size();
+		limits = Collections.unmodifiableMap(limitMap);
+		text = gradeMapping.toString();
 	}
-	
+
 	/**
-	 * Compares GradeMapping objects.
-	 * @return boolean value that indicates if objects are equal
+	 * Create the default grade mapping.
+	 * @return GradeMapping object
 	 */
-	@Override
-	public boolean equals(Object obj) {
-		
-		// Test if object is compared with a reference to itself
-		if (obj == this) {
-			return true;
-		}
-		
-		// Check if object is an instance of Result
-		if (!(obj instanceof GradeMapping)) {
-			return false;
+	private static GradeMapping createDefault() {
+
+		try {
+			return new Builder()
+					.setGrade("A+", 97)
+					.setGrade("A", 95)
+					.setGrade("A-", 93)
+					.setGrade("B+", 87)
+					.setGrade("B", 85)
+					.setGrade("B-", 83)
+					.setGrade("C+", 77)
+					.setGrade("C", 75)
+					.setGrade("C-", 73)
+					.setGrade("F", 67)
+					.build();
+
+		} catch (InvalidGradeMappingException e) {
+			throw new IllegalStateException(e);
 		}
-		
-		// Downcast object to Result to compare instance variables
-		GradeMapping gradeMapping = (GradeMapping) obj;
-		
-		// Retrieve parameter GradeMapping's limits
-		LinkedHashMap<String, Integer> gradeLimits = gradeMapping.getLimits();
-		
-		// Compare this GradeMapping's limits with parameter GradeMapping limits
-		boolean isEqual = this.limits.equals(gradeLimits);
-		
-		return isEqual;
-		
+
 	}
-	
+
 	/**
 	 * Finds and returns the numeric grade associated with an alphabetic grade.
 	 * Returns -1 if grade letter was not found in grade mapping.
@@ -72,93 +109,217 @@ public class GradeMapping {
 	 * @return int value of a numeric grade
 	 */
 	public int getGrade(String gradeLetter) {
-		
-		boolean containsGrade = limits.containsKey(gradeLetter);
-		if (!containsGrade ) {
-			return -1;
+
+		int slot = slotOf(gradeLetter);
+		if (slot == NO_GRADE) {
+			return NO_GRADE;
 		}
-		
-		return limits.get(gradeLetter);
-		
+
+		return numbers[slot];
+
 	}
-	
+
 	/**
-	 * Returns a map of letters mapped to grades.
-	 * @return LinkedHashMap of mapped letter and numeric grades
+	 * Returns an unmodifiable map of letters mapped to grades in order from
+	 * A+ to F.
+	 * @return Map of mapped letter and numeric grades
 	 */
-	public LinkedHashMap<String, Integer> getLimits() {
+	public Map<String, Integer> getLimits() {
 		return limits;
 	}
-	
+
 	/**
-	 * Create a default grade mapping for limits LinkedHashMap.
-	 * @return LinkedHashMap of mapped letter and number grades
+	 * Intent: (Post2) Return the shared instance of the grade mapping with the
+	 * numeric grades of each letter slot.
+	 *
+	 * @param numbers int array of numeric grades indexed by letter slot
+	 * @return GradeMapping object
 	 */
-	public void setDefaultGradeMapping() {
-		
-        limits.put("A+", 97);
-        limits.put("A", 95);
-        limits.put("A-", 93);
-        limits.put("B+", 87);
-        limits.put("B", 85);
-        limits.put("B-", 83);
-        limits.put("C+", 77);
-        limits.put("C", 75);
-        limits.put("C-", 73);
-        limits.put("F", 67);
-        
+	private static GradeMapping intern(int[] numbers) {
+
+		char[] key = new char[SLOT_COUNT];
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			key[slot] = (char) (numbers[slot] + 1);
+		}
+
+		return INTERNED.computeIfAbsent(new String(key),
+				k -> new GradeMapping(numbers.clone()));
+
 	}
-	
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
 	/**
-	 * Intent: Adds an element to the limits map.
-	 * 
-	 * Postcondition1 (Grade added): A grade mapping is added to the list of 
-	 * limits.
-	 * 
-	 * @param gradeLetter String value of an alphabetic grade
-	 * @param gradeNumber int value of a numeric grade
-	 * @throw throw new InvalidGradeMappingException();
+	 * Intent: Return the grade mapping that is written in the form returned by
+	 * toString. Each line holds a letter, '=' and a numeric grade. Decoded
+	 * grade mappings are cached by their text.
+	 *
+	 * @param text String form of a grade mapping
+	 * @return GradeMapping object
+	 * @throws InvalidGradeMappingException
 	 */
-	public void setGrade(String gradeLetter, int gradeNumber) 
+	public static GradeMapping parse(String text)
 			throws InvalidGradeMappingException {
-		
-		gradeLetter = gradeLetter.toUpperCase();
-		
-		// Test if input parameters are valid
-		String errorMessage = "Invalid grade mapping data encountered.";
-		if (gradeLetter == null || gradeLetter.trim().length() == 0) {
-			throw new InvalidGradeMappingException(errorMessage);
+
+		GradeMapping gradeMapping = PARSED.get(text);
+		if (gradeMapping != null) {
+			return gradeMapping;
 		}
-		if (gradeLetter.compareTo(MIN_LETTER) < 0 
-				|| gradeLetter.compareTo(MAX_LETTER) > 0) {
-			throw new InvalidGradeMappingException(errorMessage);
+
+		Builder builder = new Builder();
+		for (String line : text.split("\\r?\\n")) {
+
+			if (line.isBlank()) {
+				continue;
+			}
+
+			int separator = line.indexOf('=');
+			if (separator < 0) {
+				throw new InvalidGradeMappingException();
+			}
+
+			String letter = line.substring(0, separator).trim();
+			String number = line.substring(separator + 1).trim();
+			if (number.isEmpty() || number.length() > 3
+					|| !number.chars().allMatch(Character::isDigit)) {
+				throw new InvalidGradeMappingException();
+			}
+			builder.setGrade(letter, Integer.parseInt(number));
 		}
-		
-		if (gradeNumber < MIN_NUMBER || gradeNumber > MAX_NUMBER) {
-			throw new InvalidGradeMappingException(errorMessage);
+
+		gradeMapping = builder.build();
+		PARSED.putIfAbsent(text, gradeMapping);
+
+		return gradeMapping;
+
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Intent: (Post3) Return the index of the slot of a letter grade or -1 if
+	 * the letter grade is not between A+ and F. 'F' has no modifiers.
+	 *
+	 * @param gradeLetter String letter grade
+	 * @return int slot index
+	 */
+	private static int slotOf(String gradeLetter) {
+
+		if (gradeLetter == null || gradeLetter.isEmpty()
+				|| gradeLetter.length() > 2) {
+			return NO_GRADE;
 		}
-		
-		// Post1 Grade added
-		limits.put(gradeLetter, gradeNumber);
-		
+
+		char letter = Character.toUpperCase(gradeLetter.charAt(0));
+		if (letter < MIN_LETTER.charAt(0) || letter > MAX_LETTER.charAt(0)) {
+			return NO_GRADE;
+		}
+
+		int modifier = 1;
+		if (gradeLetter.length() == 2) {
+			char c = gradeLetter.charAt(1);
+			if (c == '+') {
+				modifier = 0;
+			} else if (c == '-') {
+				modifier = 2;
+			} else {
+				return NO_GRADE;
+			}
+			if (letter == MAX_LETTER.charAt(0)) {
+				return NO_GRADE;
+			}
+		}
+
+		return (letter - MIN_LETTER.charAt(0)) * 3 + modifier;
+
 	}
-	
+
+	/**
+	 * Intent: Return the letter grade of a slot.
+	 *
+	 * @param slot int slot index
+	 * @return String letter grade
+	 */
+	private static String slotLetter(int slot) {
+
+		String letter = String.valueOf((char) (MIN_LETTER.charAt(0) + slot / 3));
+		switch (slot % 3) {
+			case 0:
+				return letter + "+";
+			case 2:
+				return letter + "-";
+			default:
+				return letter;
+		}
+
+	}
+
 	/**
 	 * Create and return a String of GradeMapping's state.
 	 * @return String representation of GradeMapping's current state
 	 */
 	@Override
 	public String toString() {
-		
-		StringBuilder gradeMapping = new StringBuilder("");
-		
-		for (Map.Entry<String, Integer> entry : limits.entrySet()) {
-			String grade = String.format("%-2s = %d", entry.getKey(), 
-				entry.getValue());
-			gradeMapping.append(grade + "\n");
+		return text;
+	}
+
+	/**
+	 * Intent: Collect the grades of a grade mapping and build the shared
+	 * GradeMapping instance.
+	 */
+	public static class Builder {
+
+		// Instance variable(s)
+		private final int[] numbers;
+
+		// Constructor(s)
+		public Builder() {
+			numbers = new int[SLOT_COUNT];
+			Arrays.fill(numbers, NO_GRADE);
 		}
-		
-		return gradeMapping.toString();
+
+		/**
+		 * Intent: Return the interned GradeMapping with the grades that were
+		 * set.
+		 *
+		 * @return GradeMapping object
+		 */
+		public GradeMapping build() {
+			return intern(numbers);
+		}
+
+		/**
+		 * Intent: Adds an element to the grade mapping.
+		 *
+		 * Postcondition1 (Grade added): A grade mapping is added to the list
+		 * of limits.
+		 *
+		 * @param gradeLetter String value of an alphabetic grade
+		 * @param gradeNumber int value of a numeric grade
+		 * @return Builder object
+		 * @throws InvalidGradeMappingException
+		 */
+		public Builder setGrade(String gradeLetter, int gradeNumber)
+				throws InvalidGradeMappingException {
+
+			// Test if input parameters are valid
+			int slot = slotOf(gradeLetter);
+			if (slot == NO_GRADE || gradeNumber < MIN_NUMBER
+					|| gradeNumber > MAX_NUMBER) {
+				throw new InvalidGradeMappingException("Invalid grade mapping "
+						+ "data encountered.");
+			}
+
+			// Post1 Grade added
+			numbers[slot] = gradeNumber;
+			return this;
+
+		}
+
 	}
-	
+
 }
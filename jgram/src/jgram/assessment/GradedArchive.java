@@ -0,0 +1,141 @@
+package jgram.assessment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+/**
+ * Intent: Represent an output archive that collects graded copies of Word
+ * document assignments that were read from an input archive.
+ *
+ * Precondition1 (Input archive): Assignments are graded directly from an
+ * archive without being extracted to the file system.
+ *
+ * Postcondition1 (Graded copies): Each graded copy is added to the archive as
+ * a stored entry. Word documents are already compressed so they are not
+ * compressed a second time.
+ * Postcondition2 (Previous copies): Graded copies from a previous version of
+ * the archive can be copied into the archive without being rewritten.
+ * Postcondition3 (Replace archive): The archive is written to a temporary
+ * file that replaces the previous version of the archive when it is closed.
+ * If no graded copy was added the previous version is kept.
+ * Postcondition4 (Synchronized): Graded copies can be added by several
+ * executing Threads.
+ */
+public class GradedArchive implements Closeable {
+
+	// Class constant(s)
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+
+	// Instance variable(s)
+	private Path archivePath;
+	private Path temporaryPath;
+	private ZipFile previousArchive;
+	private ZipArchiveOutputStream outputStream;
+	private int entryCount;
+
+	// Constructor(s)
+	public GradedArchive(Path path) throws IOException {
+		archivePath = path;
+		temporaryPath = path.resolveSibling(path.getFileName()
+				+ TEMPORARY_EXTENSION);
+		if (Files.isRegularFile(path)) {
+			previousArchive = new ZipFile(path.toFile());
+		}
+		outputStream = new ZipArchiveOutputStream(temporaryPath.toFile());
+	}
+
+	/**
+	 * Intent: (Post1) Add a graded copy to the archive.
+	 *
+	 * Postcondition1 (Entry): A stored entry is created with the size and
+	 * checksum of the graded copy.
+	 * Postcondition2 (Synchronized): Only one Thread writes to the archive at
+	 * a time.
+	 *
+	 * @param name String name of the entry
+	 * @param content byte array of the graded copy
+	 * @throws IOException
+	 */
+	public synchronized void addDocument(String name, byte[] content)
+			throws IOException {
+
+		// Post1 Entry
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		ZipArchiveEntry entry = new ZipArchiveEntry(name);
+		entry.setMethod(ZipArchiveEntry.STORED);
+		entry.setSize(content.length);
+		entry.setCrc(crc.getValue());
+
+		// Post2 Synchronized
+		outputStream.putArchiveEntry(entry);
+		outputStream.write(content);
+		outputStream.closeArchiveEntry();
+		entryCount++;
+
+	}
+
+	/**
+	 * Intent: Write the archive's central directory and replace the previous
+	 * version of the archive.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+
+		outputStream.close();
+		if (previousArchive != null) {
+			previousArchive.close();
+		}
+		if (entryCount == 0 && Files.isRegularFile(archivePath)) {
+			Files.delete(temporaryPath);
+			return;
+		}
+		Files.move(temporaryPath, archivePath,
+				StandardCopyOption.REPLACE_EXISTING);
+
+	}
+
+	/**
+	 * Intent: (Post2) Copy a graded copy from the previous version of the
+	 * archive without decompressing it.
+	 *
+	 * @param name String name of the entry
+	 * @return boolean value that indicates if the graded copy was found and
+	 * copied
+	 * @throws IOException
+	 */
+	public synchronized boolean copyPreviousDocument(String name)
+			throws IOException {
+
+		if (previousArchive == null) {
+			return false;
+		}
+
+		ZipArchiveEntry entry = previousArchive.getEntry(name);
+		if (entry == null) {
+			return false;
+		}
+
+		try (InputStream rawStream = previousArchive.getRawInputStream(entry)) {
+			outputStream.addRawArchiveEntry(entry, rawStream);
+		}
+		entryCount++;
+
+		return true;
+
+	}
+
+	public Path getArchivePath() {
+		return archivePath;
+	}
+
+}
@@ -0,0 +1,541 @@
+package jgram.assessment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+/**
+ * Intent: Write a graded copy of a Word document assignment by streaming the
+ * zip entries of the original document into a new document.
+ *
+ * Precondition1 (Original document): The original Word document exists and
+ * contains a 'word/document.xml' main document part. The original document
+ * can be a file or an entry of an archive opened as a zip file system.
+ *
+ * Postcondition1 (Unchanged entries): All entries other than the main document
+ * part are copied byte for byte without being decompressed or recompressed.
+ * Postcondition2 (Main document part): The main document part is rewritten with
+ * a WordprocessingML fragment inserted at the end of the document body, before
+ * the body's section properties.
+ * Postcondition3 (Signed result part): If a signed result has been set, it is
+ * written to a custom XML part that is related to the main document part so
+ * that the graded copy can be tamper tested without the JGRAM database.
+ *
+ * References:
+ * Apache Commons Compress - ZIP package. (n.d.). Retrieved from Apache Commons: https://commons.apache.org/proper/commons-compress/zip.html
+ */
+public class GradedDocumentWriter {
+
+	// Class constant(s)
+	public static final String DOCUMENT_ENTRY = "word/document.xml";
+	private static final String BODY_END = "</w:body>";
+	private static final String SECTION_START = "<w:sectPr";
+	// Custom XML part that holds the signed result of the graded copy
+	public static final String RESULT_ENTRY = "customXml/jgramResult.xml";
+	private static final String RELATIONSHIPS_ENTRY = 
+			"word/_rels/document.xml.rels";
+	private static final String CONTENT_TYPES_ENTRY = "[Content_Types].xml";
+	private static final String RELATIONSHIPS_END = "</Relationships>";
+	private static final String TYPES_END = "</Types>";
+	public static final String RESULT_RELATIONSHIP_TYPE = "http://schemas."
+			+ "openxmlformats.org/officeDocument/2006/relationships/customXml";
+	public static final String RESULT_CONTENT_TYPE = "application/xml";
+	private static final String RESULT_TARGET = "../" + RESULT_ENTRY;
+	private static final String RESULT_START = "<jgram:result";
+	private static final String RESULT_END = "</jgram:result>";
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+
+	// Instance variable(s)
+	private Path sourcePath;
+	private String signedResult;
+
+	// Constructor(s)
+	public GradedDocumentWriter(Path source) {
+		sourcePath = source;
+	}
+
+	/**
+	 * Intent: Write each entry of the original document to the output stream
+	 * in its original order.
+	 *
+	 * Postcondition1 (Rewritten entries): The main document part and any other
+	 * rewritten part are compressed with their new content.
+	 * Postcondition2 (Unchanged entries): All other entries are copied as raw
+	 * compressed data. A previous signed result part is left out.
+	 * Postcondition3 (Signed result part): The signed result part is written
+	 * after the entries of the original document.
+	 *
+	 * @param zipFile ZipFile of original document
+	 * @param rewrittenEntries Map of rewritten parts keyed by entry name
+	 * @param outputStream ZipArchiveOutputStream of graded copy
+	 * @throws IOException
+	 */
+	private void copyEntries(ZipFile zipFile, 
+			Map<String, byte[]> rewrittenEntries,
+			ZipArchiveOutputStream outputStream) throws IOException {
+
+		Enumeration<ZipArchiveEntry> entries =
+				zipFile.getEntriesInPhysicalOrder();
+		while (entries.hasMoreElements()) {
+
+			ZipArchiveEntry entry = entries.nextElement();
+			byte[] rewritten = rewrittenEntries.get(entry.getName());
+
+			// Post1 Rewritten entries
+			if (rewritten != null) {
+				writeEntry(entry.getName(), rewritten, entry.getTime(),
+						outputStream);
+
+			// Post2 Unchanged entries
+			} else if (!entry.getName().equals(RESULT_ENTRY)) {
+				try (InputStream rawStream =
+						zipFile.getRawInputStream(entry)) {
+					outputStream.addRawArchiveEntry(entry, rawStream);
+				}
+			}
+		}
+
+		// Post3 Signed result part
+		byte[] resultXml = rewrittenEntries.get(RESULT_ENTRY);
+		if (resultXml != null) {
+			writeEntry(RESULT_ENTRY, resultXml, System.currentTimeMillis(),
+					outputStream);
+		}
+
+	}
+
+	/**
+	 * Intent: Read the parts of the original document that are rewritten for 
+	 * the graded copy. Returns null if the main document part is missing or 
+	 * the fragment cannot be inserted.
+	 * 
+	 * Postcondition1 (Main document part): The fragment is inserted into the
+	 * main document part.
+	 * Postcondition2 (Signed result part): If a signed result has been set 
+	 * and the document has a relationships part and a content types part, 
+	 * the signed result part is added, related to the main document part and
+	 * given a content type.
+	 *
+	 * @param zipFile ZipFile of original document
+	 * @param fragment WordprocessingML body content using the 'w' prefix
+	 * @return Map of rewritten parts keyed by entry name or null
+	 * @throws IOException
+	 */
+	private Map<String, byte[]> createRewrittenEntries(ZipFile zipFile, 
+			String fragment) throws IOException {
+
+		// Post1 Main document part
+		byte[] gradedXml = createGradedXml(zipFile, fragment);
+		if (gradedXml == null) {
+			return null;
+		}
+		Map<String, byte[]> rewrittenEntries = new LinkedHashMap<>();
+		rewrittenEntries.put(DOCUMENT_ENTRY, gradedXml);
+
+		// Post2 Signed result part
+		ZipArchiveEntry relationshipsEntry = 
+				zipFile.getEntry(RELATIONSHIPS_ENTRY);
+		ZipArchiveEntry contentTypesEntry = 
+				zipFile.getEntry(CONTENT_TYPES_ENTRY);
+		if (signedResult == null || relationshipsEntry == null 
+				|| contentTypesEntry == null) {
+			return rewrittenEntries;
+		}
+		
+		String relationships = readEntry(zipFile, relationshipsEntry);
+		String contentTypes = readEntry(zipFile, contentTypesEntry);
+		int relationshipsEnd = relationships.lastIndexOf(RELATIONSHIPS_END);
+		int typesEnd = contentTypes.lastIndexOf(TYPES_END);
+		if (relationshipsEnd == -1 || typesEnd == -1) {
+			return rewrittenEntries;
+		}
+		
+		if (!relationships.contains("\"" + RESULT_TARGET + "\"")) {
+			rewrittenEntries.put(RELATIONSHIPS_ENTRY, new StringBuilder(
+					relationships)
+					.insert(relationshipsEnd, "<Relationship Id=\"rIdJgram"
+							+ "Result\" Type=\"" + RESULT_RELATIONSHIP_TYPE 
+							+ "\" Target=\"" + RESULT_TARGET + "\"/>")
+					.toString()
+					.getBytes(StandardCharsets.UTF_8));
+		}
+		if (!contentTypes.contains("\"/" + RESULT_ENTRY + "\"")) {
+			rewrittenEntries.put(CONTENT_TYPES_ENTRY, new StringBuilder(
+					contentTypes)
+					.insert(typesEnd, "<Override PartName=\"/" 
+							+ RESULT_ENTRY + "\" ContentType=\"" 
+							+ RESULT_CONTENT_TYPE + "\"/>")
+					.toString()
+					.getBytes(StandardCharsets.UTF_8));
+		}
+		rewrittenEntries.put(RESULT_ENTRY, createResultXml(signedResult));
+		
+		return rewrittenEntries;
+
+	}
+
+	/**
+	 * Intent: Create the content of the signed result part.
+	 *
+	 * @param signedResult String hash string of the graded result
+	 * @return byte array of the signed result part
+	 */
+	public static byte[] createResultXml(String signedResult) {
+		
+		return ("<?xml version=\"1.0\" encoding=\"UTF-8\" "
+				+ "standalone=\"yes\"?>\n" + RESULT_START 
+				+ " xmlns:jgram=\"urn:jgram:result\" version=\"1\">" 
+				+ signedResult + RESULT_END)
+				.getBytes(StandardCharsets.UTF_8);
+		
+	}
+
+	/**
+	 * Intent: Read the main document part and insert the fragment parameter.
+	 * Returns null if the main document part is missing or the fragment
+	 * cannot be inserted.
+	 *
+	 * @param zipFile ZipFile of original document
+	 * @param fragment WordprocessingML body content using the 'w' prefix
+	 * @return byte array of the rewritten main document part or null
+	 * @throws IOException
+	 */
+	private static byte[] createGradedXml(ZipFile zipFile, String fragment)
+			throws IOException {
+
+		ZipArchiveEntry documentEntry = zipFile.getEntry(DOCUMENT_ENTRY);
+		if (documentEntry == null) {
+			return null;
+		}
+		String documentXml = readEntry(zipFile, documentEntry);
+		int insertIndex = findInsertIndex(documentXml);
+		if (insertIndex == -1) {
+			return null;
+		}
+
+		return new StringBuilder(documentXml.length() + fragment.length())
+				.append(documentXml, 0, insertIndex)
+				.append(fragment)
+				.append(documentXml, insertIndex, documentXml.length())
+				.toString()
+				.getBytes(StandardCharsets.UTF_8);
+
+	}
+
+	/**
+	 * Intent: Determine where a fragment should be inserted into the main
+	 * document part so that it becomes the last block of the document body.
+	 *
+	 * Postcondition1 (Body end): The closing body tag is located. If the body
+	 * does not use the 'w' prefix -1 is returned.
+	 * Postcondition2 (Section properties): If the last element of the body is
+	 * the body's section properties, the index of the section properties is
+	 * returned. Section properties found inside a paragraph are ignored.
+	 * Postcondition3 (No section properties): The index of the closing body
+	 * tag is returned.
+	 *
+	 * @param documentXml String value of the main document part
+	 * @return int index to insert the fragment at or -1
+	 */
+	public static int findInsertIndex(String documentXml) {
+
+		// Post1 Body end
+		int bodyEnd = documentXml.lastIndexOf(BODY_END);
+		if (bodyEnd == -1) {
+			return -1;
+		}
+
+		// Post2 Section properties
+		int sectionStart = documentXml.lastIndexOf(SECTION_START, bodyEnd);
+		while (sectionStart != -1 && !isTagEnd(documentXml.charAt(
+				sectionStart + SECTION_START.length()))) {
+			sectionStart = documentXml.lastIndexOf(SECTION_START,
+					sectionStart - 1);
+		}
+		int lastParagraph = documentXml.lastIndexOf("</w:p>", bodyEnd);
+		int lastTable = documentXml.lastIndexOf("</w:tbl>", bodyEnd);
+		int lastSdt = documentXml.lastIndexOf("</w:sdt>", bodyEnd);
+		if (sectionStart > lastParagraph && sectionStart > lastTable
+				&& sectionStart > lastSdt) {
+			return sectionStart;
+		}
+
+		// Post3 No section properties
+		return bodyEnd;
+
+	}
+
+	/**
+	 * Intent: Test if a character ends an element name so that elements such
+	 * as 'w:sectPrChange' are not mistaken for 'w:sectPr'.
+	 *
+	 * @param c
+	 * @return boolean
+	 */
+	private static boolean isTagEnd(char c) {
+		return c == '>' || c == '/' || Character.isWhitespace(c);
+	}
+	
+	/**
+	 * Intent: Read a part of the original document.
+	 *
+	 * @param zipFile ZipFile object
+	 * @param entry ZipArchiveEntry of the part
+	 * @return String value of the part
+	 * @throws IOException
+	 */
+	private static String readEntry(ZipFile zipFile, ZipArchiveEntry entry)
+			throws IOException {
+
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+					(int) Math.max(entry.getSize(), 1024));
+			inputStream.transferTo(buffer);
+			return buffer.toString(StandardCharsets.UTF_8);
+		}
+
+	}
+
+	/**
+	 * Intent: Read the signed result that is stored in the signed result part
+	 * of a graded copy. Returns null if the graded copy has no signed result.
+	 *
+	 * Postcondition1 (Archive entry): A graded copy stored inside an archive
+	 * is streamed until the signed result part is found.
+	 * Postcondition2 (Open package): A graded copy on the default file system
+	 * is opened as a zip file and only the signed result part is read.
+	 * Postcondition3 (Signed result): The hash string is extracted from the
+	 * signed result part.
+	 *
+	 * @param path Path of graded copy
+	 * @return String hash string or null
+	 * @throws IOException
+	 */
+	public static String readSignedResult(Path path) throws IOException {
+
+		byte[] resultXml = null;
+
+		// Post1 Archive entry
+		if (path.getFileSystem() != FileSystems.getDefault()) {
+			try (ZipInputStream zipInputStream = new ZipInputStream(
+					Files.newInputStream(path))) {
+				ZipEntry entry;
+				while ((entry = zipInputStream.getNextEntry()) != null) {
+					if (entry.getName().equals(RESULT_ENTRY)) {
+						resultXml = zipInputStream.readAllBytes();
+						break;
+					}
+				}
+			}
+
+		// Post2 Open package
+		} else {
+			try (ZipFile zipFile = new ZipFile(path.toFile())) {
+				ZipArchiveEntry entry = zipFile.getEntry(RESULT_ENTRY);
+				if (entry != null) {
+					try (InputStream inputStream = 
+							zipFile.getInputStream(entry)) {
+						resultXml = inputStream.readAllBytes();
+					}
+				}
+			}
+		}
+
+		// Post3 Signed result
+		if (resultXml == null) {
+			return null;
+		}
+		String xml = new String(resultXml, StandardCharsets.UTF_8);
+		int start = xml.indexOf(RESULT_START);
+		int end = xml.lastIndexOf(RESULT_END);
+		if (start == -1 || end == -1) {
+			return null;
+		}
+		start = xml.indexOf('>', start) + 1;
+		if (start == 0 || start > end) {
+			return null;
+		}
+		String hashString = xml.substring(start, end).trim();
+
+		return hashString.isEmpty() ? null : hashString;
+
+	}
+
+	public String getSignedResult() {
+		return signedResult;
+	}
+
+	public Path getSourcePath() {
+		return sourcePath;
+	}
+
+	/**
+	 * Intent: Open the original document for random access. A document on the
+	 * default file system is read in place. A document stored inside an
+	 * archive is read into a buffer because archive entries can only be
+	 * streamed.
+	 *
+	 * @return ZipFile object
+	 * @throws IOException
+	 */
+	private ZipFile openSource() throws IOException {
+
+		if (sourcePath.getFileSystem() == FileSystems.getDefault()) {
+			return new ZipFile(sourcePath.toFile());
+		}
+
+		return new ZipFile(new SeekableInMemoryByteChannel(
+				Files.readAllBytes(sourcePath)));
+
+	}
+
+	/**
+	 * Intent: Write the graded copy of the original document to an output
+	 * stream with the fragment parameter appended to the document body. The
+	 * output stream is closed when the graded copy has been written.
+	 *
+	 * Postcondition1 (Main document part): The main document part is read from
+	 * the original document and the fragment is inserted. If the fragment
+	 * cannot be inserted false is returned and nothing is written.
+	 * Postcondition2 (Copy entries): The entries of the original document are
+	 * written to the output stream.
+	 *
+	 * @param fragment WordprocessingML body content using the 'w' prefix
+	 * @param outputStream OutputStream of graded copy
+	 * @return boolean value that indicates if the graded copy was written
+	 * @throws IOException
+	 */
+	public boolean write(String fragment, OutputStream outputStream)
+			throws IOException {
+
+		try (ZipFile zipFile = openSource()) {
+
+			// Post1 Main document part
+			Map<String, byte[]> rewrittenEntries = 
+					createRewrittenEntries(zipFile, fragment);
+			if (rewrittenEntries == null) {
+				return false;
+			}
+
+			// Post2 Copy entries
+			try (ZipArchiveOutputStream zipOutputStream =
+					new ZipArchiveOutputStream(outputStream)) {
+				copyEntries(zipFile, rewrittenEntries, zipOutputStream);
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Intent: Write the graded copy of the original document to a file with
+	 * the fragment parameter appended to the document body.
+	 *
+	 * Postcondition1 (Main document part): The main document part is read from
+	 * the original document and the fragment is inserted. If the fragment
+	 * cannot be inserted false is returned and no file is written.
+	 * Postcondition2 (Target directory): The target file's directory is
+	 * created if it does not exist.
+	 * Postcondition3 (Copy entries): The entries of the original document are
+	 * written to a temporary file next to the target file.
+	 * Postcondition4 (Replace target): The temporary file replaces the 
+	 * target file in one step so that a graded copy is never seen half 
+	 * written. The temporary file is deleted if it could not be moved.
+	 *
+	 * @param fragment WordprocessingML body content using the 'w' prefix
+	 * @param targetPath Path of graded copy
+	 * @return boolean value that indicates if the graded copy was written
+	 * @throws IOException
+	 */
+	public boolean write(String fragment, Path targetPath) throws IOException {
+
+		try (ZipFile zipFile = openSource()) {
+
+			// Post1 Main document part
+			Map<String, byte[]> rewrittenEntries = 
+					createRewrittenEntries(zipFile, fragment);
+			if (rewrittenEntries == null) {
+				return false;
+			}
+
+			// Post2 Target directory
+			Files.createDirectories(targetPath.toAbsolutePath().getParent());
+
+			// Post3 Copy entries
+			Path temporaryPath = targetPath.resolveSibling(
+					targetPath.getFileName() + TEMPORARY_EXTENSION);
+			try {
+				try (ZipArchiveOutputStream zipOutputStream =
+						new ZipArchiveOutputStream(temporaryPath.toFile())) {
+					copyEntries(zipFile, rewrittenEntries, zipOutputStream);
+				}
+				
+				// Post4 Replace target
+				try {
+					Files.move(temporaryPath, targetPath,
+							StandardCopyOption.ATOMIC_MOVE,
+							StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temporaryPath, targetPath,
+							StandardCopyOption.REPLACE_EXISTING);
+				}
+				
+			} finally {
+				Files.deleteIfExists(temporaryPath);
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Intent: Set the hash string that is written to the signed result part
+	 * of the graded copy. No signed result part is written if it is null.
+	 *
+	 * @param hashString String hash string of the graded result
+	 */
+	public void setSignedResult(String hashString) {
+		signedResult = hashString;
+	}
+
+	/**
+	 * Intent: Write a compressed entry to the graded copy.
+	 *
+	 * @param name String entry name
+	 * @param content byte array of entry content
+	 * @param time long modification time of the entry
+	 * @param outputStream ZipArchiveOutputStream of graded copy
+	 * @throws IOException
+	 */
+	private static void writeEntry(String name, byte[] content, long time,
+			ZipArchiveOutputStream outputStream) throws IOException {
+
+		ZipArchiveEntry entry = new ZipArchiveEntry(name);
+		entry.setMethod(ZipArchiveEntry.DEFLATED);
+		entry.setTime(time);
+		outputStream.putArchiveEntry(entry);
+		outputStream.write(content);
+		outputStream.closeArchiveEntry();
+
+	}
+
+}
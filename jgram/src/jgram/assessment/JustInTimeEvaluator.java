@@ -1,8 +1,6 @@
 package jgram.assessment;
 
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Function;
 
 /**
  * Intent: Represents an evaluator that evaluates assignment grades based on
@@ -27,17 +25,13 @@ public class JustInTimeEvaluator implements Evaluator {
 	 * contains a list of grades and weights. Creates a result object to store 
 	 * the  checkpoint list and total grade.
 	 * 
-	 * Postcondition1 (Function interface object): A Function interface object
-	 * is created that takes a Checkpoint argument and returns an Integer
-	 * result.
-	 * Postcondition2 (Sum the product of checkpoint grade and weight):
-	 * The sum of the product of all checkpoint's grade and weight instance 
-	 * variables is calculated.
-	 * Postcondition3 (Sum checkpoint grade weights): The sum of all checkpoint
-	 * grade weights is calculated.
-	 * Postcondition4 (Determine total grade): The total grade for the 
-	 * assignment is calculated.
-	 * Postcondition5 (Result): A Result object is created with a list of 
+	 * Postcondition1 (Checkpoint batch): The grades and weights of the 
+	 * checkpoints are copied into a CheckpointBatch.
+	 * Postcondition2 (Determine total grade): The sum of the product of each
+	 * checkpoint's grade and weight and the sum of the weights are calculated
+	 * in one pass and the total grade is determined. An assignment without
+	 * checkpoints has a total grade of 0.
+	 * Postcondition3 (Result): A Result object is created with a list of 
 	 * Checkpoint objects and a total grade.
 	 * 
 	 * @return Result object
@@ -45,36 +39,15 @@ public class JustInTimeEvaluator implements Evaluator {
 	@Override
 	public Result evaluate() {
 		
-		// Post1 Function interface object
-		Function<Checkpoint, Integer> gradeWeightProduct = checkpoint -> 
-				checkpoint.getGrade() * checkpoint.getWeight();
+		// Post1 Checkpoint batch
+		CheckpointBatch batch = CheckpointBatch.fromCheckpoints(checkpointList);
 		
-		// Post2 Sum the product of checkpoint grade and weight
-		Optional<Integer> sumGradeWeights = checkpointList
-				.stream()
-				.map(gradeWeightProduct)
-				.reduce((x, y) -> x + y);
+		// Post2 Determine total grade for the assignment
+		float grade = batch.evaluate();
 		
-		int gradeWeights;
-		if (sumGradeWeights.isPresent()) {
-			gradeWeights = sumGradeWeights.get();
-		} else {
-			gradeWeights = -1;
-		}
-		
-		// Post3 Sum checkpoint grade weights
-		int weights = checkpointList
-				.stream()
-				.mapToInt(c -> c.getWeight())
-				.sum();
-		
-		// Post4 Determine total grade for the assignment
-		float grade = gradeWeights / (float) weights;
-		
-		// Post5 Result
+		// Post3 Result
 		Result result = new Result(checkpointList, grade);
 		return result;
-
 		
 	}
 
@@ -20,6 +20,8 @@ public class Result {
 	private float totalGrade;
 	private List<Checkpoint> checkpointList;
 	private String hashString;
+	private String fingerprint;
+	private String proof;
 	private String assignmentName;
 	private String studentFirstName;
 	private String studentLastName;
@@ -79,6 +81,26 @@ public class Result {
 	
 	// Instance method(s)
 	
+	/**
+	 * Intent: Return a copy of the result without its checkpoints. The copy
+	 * holds what is needed to skip an unchanged document and to sign the
+	 * results of an assignment after the result has been saved.
+	 * 
+	 * @return Result object
+	 */
+	public Result createSummary() {
+		
+		Result summary = new Result(hashString);
+		summary.totalGrade = totalGrade;
+		summary.fingerprint = fingerprint;
+		summary.assignmentName = assignmentName;
+		summary.studentFirstName = studentFirstName;
+		summary.studentLastName = studentLastName;
+		
+		return summary;
+		
+	}
+	
 	/**
 	 * Compares Result objects.
 	 * @return boolean value that indicates if objects are equal
@@ -167,6 +189,14 @@ public class Result {
 		return checkpointList;
 	}
 	
+	/**
+	 * Returns result's content fingerprint.
+	 * @return String
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+	
 	/**
 	 * Returns result's hash string.
 	 * @return String
@@ -175,6 +205,14 @@ public class Result {
 		return hashString;
 	}
 	
+	/**
+	 * Returns result's inclusion proof in the Merkle tree of its assignment.
+	 * @return String
+	 */
+	public String getProof() {
+		return proof;
+	}
+	
 	/**
 	 * Returns result's student first name.
 	 * @return String
@@ -207,6 +245,14 @@ public class Result {
 		assignmentName = inputAssignment;
 	}
 	
+	/**
+	 * Sets the content fingerprint value to parameter value.
+	 * @param String
+	 */
+	public void setFingerprint(String inputFingerprint) {
+		fingerprint = inputFingerprint;
+	}
+	
 	/**
 	 * Sets the hash string value to parameter value.
 	 * @param String
@@ -215,6 +261,14 @@ public class Result {
 		hashString = inputHash;
 	}
 	
+	/**
+	 * Sets the inclusion proof value to parameter value.
+	 * @param String
+	 */
+	public void setProof(String inputProof) {
+		proof = inputProof;
+	}
+	
 	/**
 	 * Sets the total grade value to parameter value.
 	 * @param grade float value to set total grade to
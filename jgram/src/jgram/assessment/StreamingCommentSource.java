@@ -0,0 +1,348 @@
+package jgram.assessment;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Intent: Read the comments of a Word document assignment by streaming only the
+ * comments part of the document package with a StAX pull parser.
+ *
+ * A Word document is a zip archive. The comments are stored in the
+ * 'word/comments.xml' entry so the body, styles and media of the document do
+ * not need to be loaded to grade it.
+ *
+ * Postcondition1 (Comments): The comments are extracted from the comments part
+ * and returned as a list of Comment objects. The comment text matches the text
+ * produced by the Apache POI XWPFComment class.
+ *
+ * References:
+ * ECMA-376 Office Open XML File Formats. (n.d.). Retrieved from ECMA International: https://www.ecma-international.org/publications-and-standards/standards/ecma-376/
+ */
+public class StreamingCommentSource implements CommentSource {
+
+	// Class constant(s)
+	public static final String COMMENTS_ENTRY = "word/comments.xml";
+	private static final String CONTENT_TYPES_ENTRY = "[Content_Types].xml";
+	private static final String COMMENTS_CONTENT_TYPE =
+			"wordprocessingml.comments+xml";
+	private static final String W_NAMESPACE =
+			"http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+	private static final XMLInputFactory XML_INPUT_FACTORY =
+			createInputFactory();
+
+	/**
+	 * Intent: Create an XMLInputFactory that does not resolve DTDs or external
+	 * entities found in untrusted documents.
+	 *
+	 * @return XMLInputFactory object
+	 */
+	private static XMLInputFactory createInputFactory() {
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+		return factory;
+	}
+
+	/**
+	 * Intent: Test if the current element of the reader is a WordprocessingML
+	 * element with the local name parameter.
+	 *
+	 * @param reader XMLStreamReader object
+	 * @param localName
+	 * @return boolean
+	 */
+	private static boolean isElement(XMLStreamReader reader, String localName) {
+		return W_NAMESPACE.equals(reader.getNamespaceURI())
+				&& localName.equals(reader.getLocalName());
+	}
+
+	/**
+	 * Intent: Parse a comments part and create a list of Comment objects.
+	 *
+	 * Precondition1 (Comments part): The input stream contains the XML of a
+	 * WordprocessingML comments part.
+	 *
+	 * Postcondition1 (Comment start): A new comment is started for each
+	 * 'w:comment' element and its id and author are stored.
+	 * Postcondition2 (Paragraphs): Only the paragraphs that are direct children
+	 * of a comment contribute text. Tables and text boxes are skipped.
+	 * Postcondition3 (Run content): Text, deleted text, tabs and breaks found
+	 * in a run are appended to the comment text.
+	 * Postcondition4 (Comment end): A Comment object is created when the
+	 * 'w:comment' element ends.
+	 *
+	 * @param inputStream InputStream of comments part
+	 * @return List of Comment objects
+	 * @throws IOException
+	 */
+	public List<Comment> parseComments(InputStream inputStream)
+			throws IOException {
+
+		List<Comment> commentList = new ArrayList<>();
+
+		// Local names of the open elements inside the current comment
+		Deque<String> openElements = new ArrayDeque<>();
+		StringBuilder text = new StringBuilder(64);
+		String id = null;
+		String author = null;
+		boolean inComment = false;
+		boolean inParagraph = false;
+		int skipDepth = 0;
+
+		XMLStreamReader reader = null;
+		try {
+
+			reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+
+			while (reader.hasNext()) {
+
+				int event = reader.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT) {
+
+					// Post1 Comment start
+					if (!inComment) {
+						if (isElement(reader, "comment")) {
+							inComment = true;
+							id = reader.getAttributeValue(W_NAMESPACE, "id");
+							author = reader.getAttributeValue(W_NAMESPACE,
+									"author");
+							text.setLength(0);
+							openElements.clear();
+						}
+						continue;
+					}
+
+					String parent = openElements.peek();
+					String name = reader.getLocalName();
+					boolean isW = W_NAMESPACE.equals(reader.getNamespaceURI());
+					openElements.push(name);
+
+					// Post2 Paragraphs
+					if (isW && name.equals("p") && openElements.size() == 1) {
+						inParagraph = true;
+						continue;
+					}
+					if (isW && (name.equals("tbl")
+							|| name.equals("txbxContent"))) {
+						skipDepth++;
+						continue;
+					}
+					if (!inParagraph || skipDepth > 0 || !isW
+							|| !"r".equals(parent)) {
+						continue;
+					}
+
+					// Post3 Run content
+					switch (name) {
+						case "t":
+						case "delText":
+							text.append(reader.getElementText());
+							openElements.pop();
+							break;
+						case "tab":
+						case "ptab":
+							text.append('\t');
+							break;
+						case "br":
+						case "cr":
+							text.append('\n');
+							break;
+						default:
+							break;
+					}
+
+				} else if (event == XMLStreamConstants.END_ELEMENT
+						&& inComment) {
+
+					// Post4 Comment end
+					if (openElements.isEmpty()) {
+						commentList.add(new Comment(id, author,
+								text.toString()));
+						inComment = false;
+						continue;
+					}
+
+					String name = openElements.pop();
+					boolean isW = W_NAMESPACE.equals(reader.getNamespaceURI());
+					if (isW && name.equals("p") && openElements.isEmpty()) {
+						inParagraph = false;
+					}
+					if (isW && (name.equals("tbl")
+							|| name.equals("txbxContent"))) {
+						skipDepth--;
+					}
+				}
+			}
+
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not parse document comments: "
+					+ e.getMessage(), e);
+
+		} finally {
+			// Close resources
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// Closing the reader does not close the input stream
+				}
+			}
+		}
+
+		return commentList;
+
+	}
+
+	/**
+	 * Intent: Read the raw comments part of a Word document.
+	 *
+	 * Postcondition1 (Archive entry): A document stored inside an archive is
+	 * streamed without being extracted to the file system.
+	 * Postcondition2 (Open package): A document on the default file system is
+	 * opened as a zip file.
+	 * Postcondition3 (Comments part): The comments part is located and its
+	 * bytes are returned. If the document does not contain a comments part an
+	 * empty array is returned.
+	 * Postcondition4 (Remapped part): An IOException is thrown if the content
+	 * types of the document declare a comments part that is not stored in the
+	 * 'word/comments.xml' entry.
+	 *
+	 * @param path Path to Word document
+	 * @return byte array of the comments part
+	 * @throws IOException
+	 */
+	public static byte[] readCommentsPart(Path path) throws IOException {
+
+		// Post1 Archive entry
+		if (path.getFileSystem() != FileSystems.getDefault()) {
+			try (InputStream inputStream = Files.newInputStream(path)) {
+				return readCommentsPart(inputStream);
+			}
+		}
+
+		// Post2 Open package
+		try (ZipFile zipFile = new ZipFile(path.toFile())) {
+
+			// Post3 Comments part
+			ZipEntry entry = zipFile.getEntry(COMMENTS_ENTRY);
+			if (entry != null) {
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					return inputStream.readAllBytes();
+				}
+			}
+
+			// Post4 Remapped part
+			ZipEntry contentTypes = zipFile.getEntry(CONTENT_TYPES_ENTRY);
+			if (contentTypes != null) {
+				try (InputStream inputStream =
+						zipFile.getInputStream(contentTypes)) {
+					checkContentTypes(inputStream.readAllBytes());
+				}
+			}
+			return new byte[0];
+		}
+
+	}
+
+	/**
+	 * Intent: Test that the content types of a document without a
+	 * 'word/comments.xml' entry do not declare a comments part stored under
+	 * another part name.
+	 *
+	 * @param contentTypes byte array of the content types part
+	 * @throws IOException if a comments part is declared
+	 */
+	private static void checkContentTypes(byte[] contentTypes)
+			throws IOException {
+
+		String declarations = new String(contentTypes, StandardCharsets.UTF_8);
+		if (declarations.contains(COMMENTS_CONTENT_TYPE)) {
+			throw new IOException("Document comments are not stored in "
+					+ COMMENTS_ENTRY);
+		}
+
+	}
+
+	/**
+	 * Intent: Read the raw comments part of a Word document that is read as a
+	 * stream. The zip entries of the document are skipped until the comments
+	 * part is found. An IOException is thrown if the content types of the
+	 * document declare a comments part that is not stored in the
+	 * 'word/comments.xml' entry.
+	 *
+	 * @param documentStream InputStream of a Word document
+	 * @return byte array of the comments part
+	 * @throws IOException
+	 */
+	public static byte[] readCommentsPart(InputStream documentStream)
+			throws IOException {
+
+		ZipInputStream zipInputStream = new ZipInputStream(documentStream);
+
+		byte[] contentTypes = null;
+		ZipEntry entry;
+		while ((entry = zipInputStream.getNextEntry()) != null) {
+			if (entry.getName().equals(COMMENTS_ENTRY)) {
+				return zipInputStream.readAllBytes();
+			}
+			if (entry.getName().equals(CONTENT_TYPES_ENTRY)) {
+				contentTypes = zipInputStream.readAllBytes();
+			}
+		}
+
+		if (contentTypes != null) {
+			checkContentTypes(contentTypes);
+		}
+		return new byte[0];
+
+	}
+
+	/**
+	 * Intent: Extract the comments from the assignment document.
+	 *
+	 * Postcondition1 (Comments part): The comments part is read. If the
+	 * document does not contain a comments part an empty list is returned.
+	 * Postcondition2 (Parse comments): The comments part is parsed and a list
+	 * of Comment objects is returned.
+	 *
+	 * @param path Path to Word document
+	 * @return List of Comment objects
+	 * @throws IOException
+	 */
+	@Override
+	public List<Comment> retrieveComments(Path path) throws IOException {
+
+		// Post1 Comments part
+		byte[] commentsPart = readCommentsPart(path);
+		if (commentsPart.length == 0) {
+			return new ArrayList<>();
+		}
+
+		// Post2 Parse comments
+		return parseComments(new ByteArrayInputStream(commentsPart));
+
+	}
+
+}
@@ -0,0 +1,61 @@
+package jgram.assessment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.poi.xwpf.usermodel.XWPFComment;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+/**
+ * Intent: Read the comments of a Word document assignment by loading the
+ * complete document through the Apache POI XWPFDocument model.
+ *
+ * This comment source loads every part of the document package and should only
+ * be used when the streaming comment source cannot read the document.
+ *
+ * Postcondition1 (Comments): The comments are extracted from the XWPFDocument
+ * and returned as a list of Comment objects.
+ */
+public class XWPFCommentSource implements CommentSource {
+
+	/**
+	 * Intent: Extract the comments from the assignment document.
+	 *
+	 * Postcondition1 (XWPF document creation): The path is opened and passed
+	 * to the XWPFDocument constructor to create an XWPFDocument object that
+	 * represents a Word document.
+	 * Postcondition2 (List of Document comments): A list of XWPFComment
+	 * objects is created from the assignment document.
+	 * Postcondition3 (Comment list creation): A list of Comment objects is
+	 * produced from a Stream of XWPFComment objects.
+	 *
+	 * @param path Path to Word document
+	 * @return List of Comment objects
+	 * @throws IOException
+	 */
+	@Override
+	public List<Comment> retrieveComments(Path path) throws IOException {
+
+		// Post1 XWPF document creation
+		try (InputStream inputStream = Files.newInputStream(path);
+				XWPFDocument documentContent =
+					new XWPFDocument(inputStream)) {
+
+			// Post2 List of Document comments
+			XWPFComment[] docCommentList = documentContent.getComments();
+
+			// Post3 Comment list creation
+			return Stream.of(docCommentList)
+					.map(dc -> new Comment(dc.getId(), dc.getAuthor(),
+							dc.getText()))
+					.collect(Collectors.toList());
+		}
+
+	}
+
+}
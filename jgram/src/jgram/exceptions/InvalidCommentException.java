@@ -14,6 +14,9 @@ import java.util.ArrayList;
  * Postcondition2 (All comment IDs tracked) All invalid comment identifiers 
  * are stored in order to notify the user of the location of all invalid 
  * comments.
+ * 
+ * Postcondition3 (Error offsets tracked) The offset of the character where 
+ * the invalid data was found in the comment text is stored when it is known.
  *
  */
 public class InvalidCommentException extends Exception {
@@ -22,6 +25,8 @@ public class InvalidCommentException extends Exception {
 	// Instance variable(s)
 	private int commentID = -1;   // Default to -1 to detect if no comment IDs are present
 	private ArrayList<Integer> invalidCommentList;
+	private int errorOffset = -1;
+	private ArrayList<Integer> errorOffsetList;
 	
 	// Constructor(s)
 	/**
@@ -85,6 +90,36 @@ public class InvalidCommentException extends Exception {
 		commentID = id;
 	}
 	
+	/**
+	 * Post3 Error offsets tracked: Passes a message, comment ID and the 
+	 * offset of the invalid data in the comment text to exception.
+	 * 
+	 * @param message
+	 * @param id
+	 * @param offset
+	 */
+	public InvalidCommentException(String message, int id, int offset) {
+		super(message);
+		commentID = id;
+		errorOffset = offset;
+	}
+	
+	/**
+	 * Post2 All comment IDs tracked and Post3 Error offsets tracked: Passes 
+	 * a message, a list of invalid comment identifiers and the offset of the
+	 * invalid data in each comment to exception.
+	 * 
+	 * @param message
+	 * @param invalidCList
+	 * @param offsetList
+	 */
+	public InvalidCommentException(String message, 
+			ArrayList<Integer> invalidCList, ArrayList<Integer> offsetList) {
+		super(message);
+		invalidCommentList = invalidCList;
+		errorOffsetList = offsetList;
+	}
+	
 	/**
 	 * Passes client code message and Throwable to Exception superclass.
 	 * 
@@ -163,6 +198,14 @@ public class InvalidCommentException extends Exception {
 		return commentID;
 	}
 	
+	public int getErrorOffset() {
+		return errorOffset;
+	}
+	
+	public ArrayList<Integer> getErrorOffsetList() {
+		return errorOffsetList;
+	}
+	
 	public ArrayList<Integer> getInvalidCommentList()  {
 		return invalidCommentList;
 	}
@@ -1,16 +1,28 @@
 package jgram.security;
 
-import java.security.Key;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
 
 import jgram.assessment.Checkpoint;
 import jgram.assessment.Document;
@@ -21,12 +33,23 @@ import jgram.exceptions.InvalidGradeMappingException;
 
 /**
  * Intent: Encode and decode a Document's Result and GradeMapping using JSON Web 
- * Tokens.
+ * Tokens or the compact binary form written by ResultCodec.
  * 
  * Postcondition1 (Encode): The Result object and GradeMapping object is encoded
  * and a hash string containing the encoded Result and GradeMapping is returned.
  * Postcondition2 (Decode): The Result object and GradeMapping is decoded from 
  * a hash string and returned.
+ * Postcondition3 (Cached key): The secret is decoded into a signing key once 
+ * for each secret and each Thread reuses its own Mac object to sign and 
+ * verify hash strings.
+ * Postcondition4 (Compact form): New hash strings are the base64url form of
+ * the binary result followed by its HMAC. Hash strings that were signed as a
+ * JWT are still decoded.
+ * Postcondition5 (Merkle root): The root of a MerkleTree over the results of
+ * an assignment is signed with the number of its leaves.
+ * 
+ * References:
+ * JSON Web Signature (JWS). (2015, 5). Retrieved from IETF: https://tools.ietf.org/html/rfc7515
  */
 public class JWT {
 	
@@ -37,15 +60,43 @@ public class JWT {
 	private static final String CLAIM_GRADE_MAPPING = "GradeMapping";
 	private static final String CLAIM_TOTAL_GRADE = "TotalGrade";
 	private static final String CLAIM_CP_INDEXES = "CPIndexes";
+	private static final SignatureAlgorithm SIGNATURE_ALGORITHM = 
+			SignatureAlgorithm.HS256;
+	private static final Base64.Encoder BASE64URL_ENCODER = 
+			Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder BASE64URL_DECODER = 
+			Base64.getUrlDecoder();
+	// Encoded headers of signed and unsigned hash strings
+	private static final String SIGNED_HEADER = encodeHeader(
+			SIGNATURE_ALGORITHM.getValue());
+	private static final String UNSIGNED_HEADER = encodeHeader(
+			SignatureAlgorithm.NONE.getValue());
+	// Length of the HMAC that follows a binary result
+	private static final int SIGNATURE_LENGTH = 32;
+	// Magic byte and version of a signed Merkle root
+	private static final byte ROOT_MAGIC = 'M';
+	private static final byte ROOT_VERSION = 1;
+	// One JWT object for each secret
+	private static final ConcurrentMap<String, JWT> SIGNERS = 
+			new ConcurrentHashMap<>();
 	
 	// Instance Variable(s)
-	private SignatureAlgorithm signatureAlgorithm;
 	private Secret secret;
+	private byte[] secretKey;
+	private SecretKeySpec signingKey;
+	private ThreadLocal<Mac> macs;
 	
 	// Constructor(s)
 	public JWT(Secret uSecret) {
-		signatureAlgorithm = SignatureAlgorithm.HS256;
+		
 		secret = uSecret;
+		
+		// Post3 Cached key
+		secretKey = DatatypeConverter.parseBase64Binary(secret
+				.getSecretString());
+		signingKey = new SecretKeySpec(secretKey, 
+				SIGNATURE_ALGORITHM.getJcaName());
+		macs = ThreadLocal.withInitial(this::createMac);
 	}
 	
 	/**
@@ -112,6 +163,25 @@ public class JWT {
 		
 	}
 	
+	/**
+	 * Intent: Create a Mac object that is initialized with the signing key.
+	 * 
+	 * @return Mac object
+	 */
+	private Mac createMac() {
+		
+		try {
+			Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM.getJcaName());
+			mac.init(signingKey);
+			return mac;
+			
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Could not create signature "
+					+ "algorithm: " + e.getMessage(), e);
+		}
+		
+	}
+	
 	/**
 	 * Intent: Decode Document hash string to produce a Result object
 	 * and GradeMapping object.
@@ -130,24 +200,20 @@ public class JWT {
 	public void decode(Document document) throws InvalidCheckpointException, 
 			InvalidGradeMappingException {
 		
-		String jwt = document.getResult().getHashString();
+		String hashString = document.getResult().getHashString();
 		
-		// Create parser to parse hash string and set secret as signing key
-		Claims claims = Jwts.parser()
-			.setSigningKey(DatatypeConverter.parseBase64Binary(secret
-					.getSecretString()))
-			.parseClaimsJws(jwt)
-			.getBody();
+		// Verify the signature of the hash string and decode it
+		SignedResult signedResult = verify(hashString);
 		
 		// Post1 Create Result
-		Result result = decodeResult(claims);
+		Result result = signedResult.getResult();
 		document.setResult(result);
 		
 		// Post2 Create Checkpoint list
 		document.setCheckpointList(result.getCheckpointList());		
 		
 		// Post3 Create GradeMapping
-		document.setGradeMapping(decodeGradeMapping(claims));
+		document.setGradeMapping(signedResult.getGradeMapping());
 		
 	}
 	
@@ -160,7 +226,7 @@ public class JWT {
 	 * 
 	 * Postcondition1 (GradeMapping): GradeMapping object has been created.
 	 * Postcondition2 (Parse claims): Claims have been parsed for grade mapping
-	 * and grades have been added to the GradeMapping object.
+	 * and the shared GradeMapping object with the grades is returned.
 	 * Postcondition3 (Invalid grade mapping data): Invalid grade mapping data
 	 * is detected and an InvalidGradeMappingException is thrown.
 	 * Postcondition4 (GradeMapping returned): Complete GradeMapping object
@@ -172,33 +238,15 @@ public class JWT {
 	private GradeMapping decodeGradeMapping(Claims claims) 
 			throws InvalidGradeMappingException {
 		
-		// Post1 GradeMapping
-		GradeMapping gradeMapping = new GradeMapping();
-		
-		// Post2 Parse claims
+		// Post1 GradeMapping and Post2 Parse claims
 		String gradeMapString = (String) claims.get(CLAIM_GRADE_MAPPING);
-		String[] gradeLines = gradeMapString.split("\\r?\\n");
-		
-		for (String line : gradeLines) {
-			
-			try {
-			
-				String[] grade = line.split("=");
-				
-				String letter = grade[0].trim();
-				int number = Integer.parseInt(grade[1].trim());
-				
-				gradeMapping.setGrade(letter, number);
-			
-			// Post3 Invalid grade mapping data
-			} catch(ArrayIndexOutOfBoundsException | NumberFormatException 
-					| InvalidGradeMappingException e) {
-				
-				throw new InvalidGradeMappingException();
-			}
-			
+		if (gradeMapString == null) {
+			throw new InvalidGradeMappingException();
 		}
 		
+		// Post3 Invalid grade mapping data is reported by the parser
+		GradeMapping gradeMapping = GradeMapping.parse(gradeMapString);
+		
 		// Post4 GradeMapping returned
 		return gradeMapping;
 	}
@@ -269,25 +317,112 @@ public class JWT {
 	 */
 	public void encode(Document document) {
 		
-		Date date = new Date(System.currentTimeMillis());
+		// Post1, Post2 and Post3 Compact claims into a String and set 
+		// hashString of Document
+		String hashString = sign(document.getResult(), 
+				document.getGradeMapping());
+		document.getResult().setHashString(hashString);
+
+	}
+	
+	/**
+	 * Intent: Encode the JSON of a JWT header with the algorithm parameter.
+	 * 
+	 * @param algorithm String name of the JWT algorithm
+	 * @return String encoded header
+	 */
+	private static String encodeHeader(String algorithm) {
 		
-		// Post1 Sign JWT
-		byte[] secretKey = DatatypeConverter.parseBase64Binary(secret
-				.getSecretString());
-		Key signingKey = new SecretKeySpec(secretKey, 
-				signatureAlgorithm.getJcaName());
+		String header = "{\"alg\":\"" + algorithm + "\"}";
+		
+		return BASE64URL_ENCODER.encodeToString(header
+				.getBytes(StandardCharsets.UTF_8));
 		
-		// Post2 Build JWT using registered claim names
+	}
+	
+	/**
+	 * Intent: Return the shared JWT object of a secret. The signing key of 
+	 * the secret is created the first time the secret is used.
+	 * 
+	 * @param secret Secret object
+	 * @return JWT object
+	 */
+	public static JWT forSecret(Secret secret) {
+		
+		JWT jwt = SIGNERS.get(secret.getSecretString());
+		if (jwt == null) {
+			jwt = new JWT(secret);
+			JWT previous = SIGNERS.putIfAbsent(secret.getSecretString(), jwt);
+			if (previous != null) {
+				jwt = previous;
+			}
+		}
+		
+		return jwt;
+		
+	}
+	
+	/**
+	 * Intent: (Post4) Create a hash string that encodes a Result object and 
+	 * the GradeMapping object it was graded with in the compact binary form.
+	 * 
+	 * Postcondition1 (Binary result): The Result object and GradeMapping 
+	 * object are written by ResultCodec.
+	 * Postcondition2 (Signature): The HMAC of the binary result is created by
+	 * the Thread's Mac object and appended to it.
+	 * Postcondition3 (Base64url): The signed binary result is returned in the
+	 * base64url form without padding.
+	 * 
+	 * @param result Result object
+	 * @param gradeMapping GradeMapping object
+	 * @return String hash string
+	 */
+	public String sign(Result result, GradeMapping gradeMapping) {
+		
+		// Post1 Binary result
+		byte[] payload = ResultCodec.write(result, gradeMapping, 
+				System.currentTimeMillis() / 1000);
+		
+		// Post2 Signature
+		byte[] signed = Arrays.copyOf(payload, payload.length 
+				+ SIGNATURE_LENGTH);
+		Mac mac = macs.get();
+		mac.update(payload);
+		try {
+			mac.doFinal(signed, payload.length);
+		} catch (ShortBufferException e) {
+			throw new IllegalStateException(e);
+		}
+		
+		// Post3 Base64url
+		return BASE64URL_ENCODER.encodeToString(signed);
+		
+	}
+	
+	/**
+	 * Intent: Create a hash string that encodes a Result object and the 
+	 * GradeMapping object it was graded with as a JWT.
+	 * 
+	 * Postcondition1 (Claims): JWT claims are set up and contain Result and 
+	 * GradeMapping info alongside the registered claims of the secret.
+	 * Postcondition2 (Sign JWT): The header and claims are signed with the
+	 * Thread's Mac object.
+	 * 
+	 * @param result Result object
+	 * @param gradeMapping GradeMapping object
+	 * @return String hash string
+	 */
+	public String signClaims(Result result, GradeMapping gradeMapping) {
+		
+		Date date = new Date(System.currentTimeMillis());
+		
+		// Post1 Claims using registered claim names
 		JwtBuilder builder = Jwts.builder().setId(secret.getID())
 			.setIssuedAt(date)
 			.setSubject(secret.getSubject())
-			.setIssuer(secret.getIssuer())
-			.signWith(signatureAlgorithm, signingKey);
-		
-		// Post2 Build JWT with custom claim data
+			.setIssuer(secret.getIssuer());
 		
 		// Result
-		Result result = document.getResult();
 		buildResultClaim(builder, result);
 		
 		// Checkpoint Indexes
@@ -295,15 +430,256 @@ public class JWT {
 		builder.claim(CLAIM_CP_INDEXES, cpIndexes.toString());
 		
 		// GradeMapping
-		GradeMapping gradeMapping = document.getGradeMapping();
 		builder.claim(CLAIM_GRADE_MAPPING, gradeMapping.toString());
 		
 		// Total Grade
 		builder.claim(CLAIM_TOTAL_GRADE, result.getTotalGrade());
 		
-		// Post3 Compact claims into a String and set hashString of Document
-		document.getResult().setHashString(builder.compact());
-
+		// Post2 Sign JWT
+		// An unsigned JWT is compacted as 'header.claims.'
+		String unsigned = builder.compact();
+		String claims = unsigned.substring(unsigned.indexOf('.') + 1, 
+				unsigned.length() - 1);
+		String signingInput = SIGNED_HEADER + "." + claims;
+		byte[] signature = macs.get().doFinal(signingInput
+				.getBytes(StandardCharsets.US_ASCII));
+		
+		return signingInput + "." + BASE64URL_ENCODER.encodeToString(signature);
+		
+	}
+	
+	/**
+	 * Intent: (Post5) Sign the root of a MerkleTree and the number of its 
+	 * leaves. The signed root is written with a magic byte that no hash 
+	 * string starts with.
+	 * 
+	 * @param root byte array root digest
+	 * @param leafCount int number of leaves
+	 * @return String signed root in base64url form
+	 */
+	public String signRoot(byte[] root, int leafCount) {
+		
+		ByteBuffer signed = ByteBuffer.allocate(6 + root.length 
+				+ SIGNATURE_LENGTH);
+		signed.put(ROOT_MAGIC);
+		signed.put(ROOT_VERSION);
+		signed.putInt(leafCount);
+		signed.put(root);
+		
+		Mac mac = macs.get();
+		mac.update(signed.array(), 0, signed.position());
+		signed.put(mac.doFinal());
+		
+		return BASE64URL_ENCODER.encodeToString(signed.array());
+		
+	}
+	
+	/**
+	 * Intent: Verify the signature of a hash string and decode the Result 
+	 * object and GradeMapping object it holds.
+	 * 
+	 * Postcondition1 (Format): A hash string without '.' separators is a
+	 * binary result. Other hash strings are verified as a JWT.
+	 * Postcondition2 (Signature): The HMAC that follows the binary result is
+	 * compared with the HMAC created by the Thread's Mac object in constant 
+	 * time. A SignatureException is thrown if they do not match.
+	 * Postcondition3 (Decode): The verified binary result or claims are 
+	 * decoded and returned.
+	 * 
+	 * @param token String hash string
+	 * @return SignedResult object
+	 * @throws InvalidCheckpointException
+	 * @throws InvalidGradeMappingException
+	 */
+	public SignedResult verify(String token) throws InvalidCheckpointException,
+			InvalidGradeMappingException {
+		
+		if (token == null || token.isEmpty()) {
+			throw new IllegalArgumentException("Hash string cannot be empty.");
+		}
+		
+		// Post1 Format
+		if (token.indexOf('.') >= 0) {
+			Claims claims = verifyClaims(token);
+			long issuedAt = claims.getIssuedAt() == null ? 0 
+					: claims.getIssuedAt().getTime() / 1000;
+			return new SignedResult(decodeResult(claims), 
+					decodeGradeMapping(claims), issuedAt);
+		}
+		
+		// Post2 Signature
+		byte[] signed = verifySignature(token);
+		
+		// Post3 Decode
+		try {
+			return ResultCodec.read(signed, signed.length 
+					- SIGNATURE_LENGTH);
+		} catch (IOException e) {
+			throw new MalformedJwtException(e.getMessage(), e);
+		}
+		
+	}
+	
+	/**
+	 * Intent: Verify the signature of a JWT hash string and return its claims.
+	 * 
+	 * Postcondition1 (Format): The hash string has a header, claims and a 
+	 * signature. A hash string with another header is verified by the JWT 
+	 * parser.
+	 * Postcondition2 (Signature): The signature is compared with the 
+	 * signature created by the Thread's Mac object in constant time. A 
+	 * SignatureException is thrown if they do not match.
+	 * Postcondition3 (Claims): The verified claims are parsed and returned.
+	 * 
+	 * @param token String hash string
+	 * @return Claims object
+	 */
+	public Claims verifyClaims(String token) {
+		
+		if (token == null || token.isEmpty()) {
+			throw new IllegalArgumentException("Hash string cannot be empty.");
+		}
+		
+		// Post1 Format
+		int claimsStart = token.indexOf('.');
+		int signatureStart = token.lastIndexOf('.');
+		if (claimsStart < 0 || claimsStart == signatureStart) {
+			throw new MalformedJwtException("Hash string must contain a "
+					+ "header, claims and a signature.");
+		}
+		if (claimsStart != SIGNED_HEADER.length() 
+				|| !token.startsWith(SIGNED_HEADER)) {
+			return Jwts.parser()
+					.setSigningKey(secretKey)
+					.parseClaimsJws(token)
+					.getBody();
+		}
+		
+		// Post2 Signature
+		byte[] expected = macs.get().doFinal(token.substring(0, signatureStart)
+				.getBytes(StandardCharsets.US_ASCII));
+		byte[] actual = BASE64URL_DECODER.decode(token
+				.substring(signatureStart + 1));
+		if (!MessageDigest.isEqual(expected, actual)) {
+			throw new SignatureException("Hash string signature does not "
+					+ "match the secret.");
+		}
+		
+		// Post3 Claims
+		return Jwts.parser()
+				.parseClaimsJwt(UNSIGNED_HEADER 
+						+ token.substring(claimsStart, signatureStart + 1))
+				.getBody();
+		
+	}
+	
+	/**
+	 * Intent: Verify the signature of a hash string and test if the digest it
+	 * was signed with matches the canonical digest of a Result object and 
+	 * GradeMapping object. The hash string is not decoded.
+	 * 
+	 * Postcondition1 (Signature): The signature of a binary result is 
+	 * verified. A SignatureException is thrown if it does not match.
+	 * Postcondition2 (Digest): True is returned if the signed digest matches.
+	 * False is returned if it does not match or if the hash string was 
+	 * signed without a digest, and the hash string must be decoded to compare
+	 * the results.
+	 * 
+	 * @param token String hash string
+	 * @param result Result object
+	 * @param gradeMapping GradeMapping object
+	 * @return boolean value that indicates if the digests match
+	 */
+	public boolean verifyDigest(String token, Result result, 
+			GradeMapping gradeMapping) {
+		
+		if (token == null || token.isEmpty() || token.indexOf('.') >= 0) {
+			return false;
+		}
+		
+		// Post1 Signature
+		byte[] signed = verifySignature(token);
+		
+		// Post2 Digest
+		byte[] signedDigest = ResultCodec.readDigest(signed, 
+				signed.length - SIGNATURE_LENGTH);
+		if (signedDigest == null) {
+			return false;
+		}
+		
+		return MessageDigest.isEqual(signedDigest, 
+				ResultCodec.digest(result, gradeMapping));
+		
+	}
+	
+	/**
+	 * Intent: (Post5) Verify a signed root and test if it was signed for the
+	 * root and number of leaves parameters.
+	 * 
+	 * Postcondition1 (Signature): The HMAC of the signed root is verified. A
+	 * SignatureException is thrown if it does not match.
+	 * Postcondition2 (Root): True is returned if the signed root and number
+	 * of leaves match. A changed result changes the root and an added or 
+	 * removed result changes the number of leaves.
+	 * 
+	 * @param signedRoot String signed root
+	 * @param root byte array root digest
+	 * @param leafCount int number of leaves
+	 * @return boolean value that indicates if the root matches
+	 */
+	public boolean verifyRoot(String signedRoot, byte[] root, int leafCount) {
+		
+		// Post1 Signature
+		byte[] signed = verifySignature(signedRoot);
+		if (signed[0] != ROOT_MAGIC || signed[1] != ROOT_VERSION 
+				|| signed.length != 6 + MerkleTree.DIGEST_LENGTH 
+				+ SIGNATURE_LENGTH) {
+			throw new MalformedJwtException("Signed root is not valid.");
+		}
+		
+		// Post2 Root
+		ByteBuffer buffer = ByteBuffer.wrap(signed, 2, 4);
+		byte[] signedDigest = Arrays.copyOfRange(signed, 6, 
+				6 + MerkleTree.DIGEST_LENGTH);
+		
+		return buffer.getInt() == leafCount 
+				&& MessageDigest.isEqual(signedDigest, root);
+		
+	}
+	
+	/**
+	 * Intent: Decode a binary result hash string or a signed root and verify
+	 * the HMAC that follows it. A SignatureException is thrown if it does not
+	 * match.
+	 * 
+	 * @param token String hash string or signed root
+	 * @return byte array of the binary data followed by its HMAC
+	 */
+	private byte[] verifySignature(String token) {
+		
+		byte[] signed;
+		try {
+			signed = BASE64URL_DECODER.decode(token);
+		} catch (IllegalArgumentException e) {
+			throw new MalformedJwtException("Hash string is not base64url "
+					+ "encoded.", e);
+		}
+		int length = signed.length - SIGNATURE_LENGTH;
+		if (length <= 0) {
+			throw new MalformedJwtException("Hash string is too short.");
+		}
+		
+		Mac mac = macs.get();
+		mac.update(signed, 0, length);
+		byte[] expected = mac.doFinal();
+		byte[] actual = Arrays.copyOfRange(signed, length, signed.length);
+		if (!MessageDigest.isEqual(expected, actual)) {
+			throw new SignatureException("Hash string signature does not "
+					+ "match the secret.");
+		}
+		
+		return signed;
+		
 	}
 	
 }
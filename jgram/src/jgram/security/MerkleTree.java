@@ -0,0 +1,237 @@
+package jgram.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Intent: Build a Merkle tree over the results of an assignment so that the
+ * whole assignment is verified with one signature and each result is proved
+ * with the hashes on its path to the root.
+ *
+ * Postcondition1 (Leaves): Each leaf is the digest of an assignment name and
+ * the hash string of its result. Leaf and node digests are prefixed with
+ * different bytes so that a node cannot be passed off as a leaf.
+ * Postcondition2 (Levels): Each level pairs the digests of the level below
+ * from left to right. The last digest of a level with an odd number of
+ * digests is promoted to the next level unchanged.
+ * Postcondition3 (Inclusion proof): The proof of a leaf holds its index, the
+ * number of leaves and the sibling digest on each level where it has one.
+ *
+ * References:
+ * Certificate Transparency. (2013, 6). Retrieved from IETF: https://tools.ietf.org/html/rfc6962
+ */
+public class MerkleTree {
+
+	// Class constant(s)
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	public static final int DIGEST_LENGTH = 32;
+	private static final byte LEAF_PREFIX = 0;
+	private static final byte NODE_PREFIX = 1;
+	private static final Base64.Encoder BASE64URL_ENCODER =
+			Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder BASE64URL_DECODER =
+			Base64.getUrlDecoder();
+
+	// Instance variable(s)
+	// Digests of each level from the leaves to the root
+	private final List<byte[][]> levels;
+
+	// Constructor(s)
+	public MerkleTree(List<byte[]> leaves) {
+
+		if (leaves.isEmpty()) {
+			throw new IllegalArgumentException("A Merkle tree needs at least "
+					+ "one leaf.");
+		}
+
+		// Post2 Levels
+		MessageDigest messageDigest = createMessageDigest();
+		levels = new ArrayList<>();
+		byte[][] level = leaves.toArray(new byte[0][]);
+		levels.add(level);
+		while (level.length > 1) {
+			byte[][] parent = new byte[(level.length + 1) / 2][];
+			for (int i = 0; i < parent.length; i++) {
+				int left = i * 2;
+				parent[i] = left + 1 < level.length
+						? hashNode(messageDigest, level[left], level[left + 1])
+						: level[left];
+			}
+			levels.add(parent);
+			level = parent;
+		}
+
+	}
+
+	/**
+	 * Intent: Create a MessageDigest object for the digest algorithm.
+	 *
+	 * @return MessageDigest object
+	 */
+	private static MessageDigest createMessageDigest() {
+
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+	}
+
+	public int getLeafCount() {
+		return levels.get(0).length;
+	}
+
+	/**
+	 * Intent: (Post3) Return the inclusion proof of a leaf in base64url form.
+	 *
+	 * @param index int index of the leaf
+	 * @return String inclusion proof
+	 */
+	public String getProof(int index) {
+
+		List<byte[]> siblings = new ArrayList<>();
+		int position = index;
+		for (int depth = 0; depth < levels.size() - 1; depth++) {
+			byte[][] level = levels.get(depth);
+			int sibling = position ^ 1;
+			if (sibling < level.length) {
+				siblings.add(level[sibling]);
+			}
+			position /= 2;
+		}
+
+		ByteBuffer proof = ByteBuffer.allocate(8
+				+ siblings.size() * DIGEST_LENGTH);
+		proof.putInt(index);
+		proof.putInt(getLeafCount());
+		for (byte[] sibling : siblings) {
+			proof.put(sibling);
+		}
+
+		return BASE64URL_ENCODER.encodeToString(proof.array());
+
+	}
+
+	public byte[] getRoot() {
+		return levels.get(levels.size() - 1)[0].clone();
+	}
+
+	/**
+	 * Intent: (Post1) Return the leaf digest of an assignment name and the
+	 * hash string of its result.
+	 *
+	 * @param assignmentName String name of the assignment document
+	 * @param hashString String hash string of the result
+	 * @return byte array leaf digest
+	 */
+	public static byte[] hashLeaf(String assignmentName, String hashString) {
+
+		MessageDigest messageDigest = createMessageDigest();
+		messageDigest.update(LEAF_PREFIX);
+		byte[] name = assignmentName.getBytes(StandardCharsets.UTF_8);
+		messageDigest.update(ByteBuffer.allocate(4).putInt(name.length)
+				.array());
+		messageDigest.update(name);
+		messageDigest.update(hashString.getBytes(StandardCharsets.UTF_8));
+
+		return messageDigest.digest();
+
+	}
+
+	/**
+	 * Intent: (Post1) Return the digest of two child digests.
+	 *
+	 * @param messageDigest MessageDigest object
+	 * @param left byte array left child digest
+	 * @param right byte array right child digest
+	 * @return byte array node digest
+	 */
+	private static byte[] hashNode(MessageDigest messageDigest, byte[] left,
+			byte[] right) {
+
+		messageDigest.update(NODE_PREFIX);
+		messageDigest.update(left);
+		messageDigest.update(right);
+
+		return messageDigest.digest();
+
+	}
+
+	/**
+	 * Intent: Return the number of leaves of the tree an inclusion proof was
+	 * created from.
+	 *
+	 * @param proof String inclusion proof
+	 * @return int number of leaves
+	 * @throws IllegalArgumentException if the proof is not valid
+	 */
+	public static int readLeafCount(String proof) {
+
+		byte[] bytes = BASE64URL_DECODER.decode(proof);
+		if (bytes.length < 8) {
+			throw new IllegalArgumentException("Inclusion proof is too "
+					+ "short.");
+		}
+
+		return ByteBuffer.wrap(bytes, 4, 4).getInt();
+
+	}
+
+	/**
+	 * Intent: (Post3) Return the root that an inclusion proof leads to from a
+	 * leaf digest. The leaf is included in a tree if the root matches the
+	 * root of the tree.
+	 *
+	 * @param leaf byte array leaf digest
+	 * @param proof String inclusion proof
+	 * @return byte array root digest
+	 * @throws IllegalArgumentException if the proof is not valid
+	 */
+	public static byte[] rootFromProof(byte[] leaf, String proof) {
+
+		ByteBuffer buffer = ByteBuffer.wrap(BASE64URL_DECODER.decode(proof));
+		if (buffer.remaining() < 8) {
+			throw new IllegalArgumentException("Inclusion proof is too "
+					+ "short.");
+		}
+		int position = buffer.getInt();
+		int levelSize = buffer.getInt();
+		if (position < 0 || position >= levelSize) {
+			throw new IllegalArgumentException("Inclusion proof index is out "
+					+ "of range.");
+		}
+
+		MessageDigest messageDigest = createMessageDigest();
+		byte[] digest = leaf;
+		byte[] sibling = new byte[DIGEST_LENGTH];
+		while (levelSize > 1) {
+			if ((position ^ 1) < levelSize) {
+				if (buffer.remaining() < DIGEST_LENGTH) {
+					throw new IllegalArgumentException("Inclusion proof is "
+							+ "truncated.");
+				}
+				buffer.get(sibling);
+				digest = (position & 1) == 0
+						? hashNode(messageDigest, digest, sibling)
+						: hashNode(messageDigest, sibling, digest);
+			}
+			position /= 2;
+			levelSize = (levelSize + 1) / 2;
+		}
+		if (buffer.hasRemaining()) {
+			throw new IllegalArgumentException("Inclusion proof is too long.");
+		}
+
+		return Arrays.copyOf(digest, digest.length);
+
+	}
+
+}
@@ -0,0 +1,328 @@
+package jgram.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+
+import jgram.assessment.Checkpoint;
+import jgram.assessment.GradeMapping;
+import jgram.assessment.Result;
+import jgram.exceptions.InvalidCheckpointException;
+import jgram.exceptions.InvalidGradeMappingException;
+
+/**
+ * Intent: Write and read the compact binary form of a Result object and the
+ * GradeMapping object it was graded with. The binary form is signed by the JWT
+ * class.
+ *
+ * The binary form is:
+ *
+ *   byte     magic 'J'
+ *   byte     version
+ *   int      issued at in seconds
+ *   byte[32] digest of the canonical result (version 2 and later)
+ *   varint   length, UTF-8 assignment name (version 3)
+ *   float    total grade
+ *   varint   checkpoint count
+ *            varint id, byte weight, byte grade, varint length, UTF-8 feedback
+ *   byte     grade count
+ *            byte length, ASCII letter, byte number
+ *
+ * Postcondition1 (Versioned): The binary form starts with a magic byte and a
+ * version so that the format can change.
+ * Postcondition2 (Length prefixed): Strings and lists are prefixed with their
+ * length. Lengths and checkpoint ids are written as variable length integers.
+ * Postcondition3 (Canonical digest): The bytes from the assignment name to
+ * the end are the canonical form of the result. Equal results of the same
+ * assignment graded with the same grade mapping have the same canonical form,
+ * and its SHA-256 digest is written before it so that a result can be 
+ * compared without being decoded.
+ * Postcondition4 (Bound to the assignment): The assignment name is part of 
+ * the canonical form, so a signed result copied into the graded document of
+ * another student does not verify.
+ */
+class ResultCodec {
+
+	// Class constant(s)
+	static final byte MAGIC = 'J';
+	static final byte VERSION = 3;
+	private static final byte VERSION_WITHOUT_NAME = 2;
+	private static final byte VERSION_WITHOUT_DIGEST = 1;
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	static final int DIGEST_LENGTH = 32;
+	// Offset of the digest after the magic byte, version and issued at
+	private static final int DIGEST_OFFSET = 6;
+	// Each Thread reuses its own MessageDigest object
+	private static final ThreadLocal<MessageDigest> DIGESTS = 
+			ThreadLocal.withInitial(ResultCodec::createMessageDigest);
+
+	/**
+	 * Intent: Create a MessageDigest object for the digest algorithm.
+	 *
+	 * @return MessageDigest object
+	 */
+	private static MessageDigest createMessageDigest() {
+
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+	}
+
+	/**
+	 * Intent: (Post3) Return the digest of the canonical form of a Result 
+	 * object and its GradeMapping object.
+	 *
+	 * @param result Result object
+	 * @param gradeMapping GradeMapping object
+	 * @return byte array digest
+	 */
+	static byte[] digest(Result result, GradeMapping gradeMapping) {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try {
+			writeCanonical(new DataOutputStream(bytes), result, gradeMapping);
+		} catch (IOException e) {
+			// A ByteArrayOutputStream does not throw IOException
+			throw new IllegalStateException(e);
+		}
+
+		return DIGESTS.get().digest(bytes.toByteArray());
+
+	}
+
+	/**
+	 * Intent: (Post3) Return the digest that is written in the binary form
+	 * or null if the binary form was written without a digest.
+	 *
+	 * @param data byte array that holds the binary form
+	 * @param length int number of bytes of the binary form
+	 * @return byte array digest or null
+	 */
+	static byte[] readDigest(byte[] data, int length) {
+
+		if (length < DIGEST_OFFSET + DIGEST_LENGTH || data[0] != MAGIC 
+				|| data[1] != VERSION) {
+			return null;
+		}
+
+		return Arrays.copyOfRange(data, DIGEST_OFFSET, 
+				DIGEST_OFFSET + DIGEST_LENGTH);
+
+	}
+
+	/**
+	 * Intent: Read a Result object and its GradeMapping object from the
+	 * binary form.
+	 *
+	 * @param data byte array that holds the binary form
+	 * @param length int number of bytes of the binary form
+	 * @return SignedResult object
+	 * @throws IOException if the binary form is not valid
+	 * @throws InvalidCheckpointException
+	 * @throws InvalidGradeMappingException
+	 */
+	static SignedResult read(byte[] data, int length) throws IOException,
+			InvalidCheckpointException, InvalidGradeMappingException {
+
+		DataInputStream input = new DataInputStream(
+				new ByteArrayInputStream(data, 0, length));
+
+		// Post1 Versioned
+		byte magic = input.readByte();
+		byte version = input.readByte();
+		if (magic != MAGIC || (version != VERSION 
+				&& version != VERSION_WITHOUT_NAME
+				&& version != VERSION_WITHOUT_DIGEST)) {
+			throw new IOException("Unsupported signed result version.");
+		}
+		long issuedAt = input.readInt() & 0xFFFFFFFFL;
+		if (version != VERSION_WITHOUT_DIGEST) {
+			input.skipBytes(DIGEST_LENGTH);
+		}
+
+		// Post4 Bound to the assignment (earlier versions have no name)
+		Result result = new Result();
+		if (version == VERSION) {
+			byte[] assignmentName = new byte[readVarInt(input)];
+			input.readFully(assignmentName);
+			result.setAssignmentName(new String(assignmentName, 
+					StandardCharsets.UTF_8));
+		}
+		float totalGrade = input.readFloat();
+
+		// Checkpoints
+		int checkpointCount = readVarInt(input);
+		for (int i = 0; i < checkpointCount; i++) {
+			int id = readVarInt(input);
+			int weight = input.readUnsignedByte();
+			int grade = input.readUnsignedByte();
+			byte[] feedback = new byte[readVarInt(input)];
+			input.readFully(feedback);
+			result.addCheckpoint(new Checkpoint(weight, grade,
+					new String(feedback, StandardCharsets.UTF_8), id));
+		}
+		result.setTotalGrade(totalGrade);
+
+		// Grade mapping
+		GradeMapping.Builder builder = new GradeMapping.Builder();
+		int gradeCount = input.readUnsignedByte();
+		for (int i = 0; i < gradeCount; i++) {
+			byte[] letter = new byte[input.readUnsignedByte()];
+			input.readFully(letter);
+			builder.setGrade(new String(letter, StandardCharsets.US_ASCII),
+					input.readUnsignedByte());
+		}
+
+		if (input.available() > 0) {
+			throw new IOException("Unexpected data after signed result.");
+		}
+
+		return new SignedResult(result, builder.build(), issuedAt);
+
+	}
+
+	/**
+	 * Intent: (Post2) Read an unsigned variable length integer.
+	 *
+	 * @param input InputStream object
+	 * @return int
+	 * @throws IOException
+	 */
+	private static int readVarInt(InputStream input) throws IOException {
+
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = input.read();
+			if (b < 0) {
+				throw new IOException("Signed result is truncated.");
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new IOException("Signed result length is too large.");
+
+	}
+
+	/**
+	 * Intent: Write a Result object and its GradeMapping object in the binary
+	 * form.
+	 *
+	 * @param result Result object
+	 * @param gradeMapping GradeMapping object
+	 * @param issuedAt long time the result was signed in seconds
+	 * @return byte array of the binary form
+	 */
+	static byte[] write(Result result, GradeMapping gradeMapping,
+			long issuedAt) {
+
+		ByteArrayOutputStream canonical = new ByteArrayOutputStream(256);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream output = new DataOutputStream(bytes);
+
+		try {
+
+			// Post3 Canonical digest
+			writeCanonical(new DataOutputStream(canonical), result, 
+					gradeMapping);
+			byte[] canonicalBytes = canonical.toByteArray();
+
+			// Post1 Versioned
+			output.writeByte(MAGIC);
+			output.writeByte(VERSION);
+			output.writeInt((int) issuedAt);
+			output.write(DIGESTS.get().digest(canonicalBytes));
+			output.write(canonicalBytes);
+			output.flush();
+
+		} catch (IOException e) {
+			// A ByteArrayOutputStream does not throw IOException
+			throw new IllegalStateException(e);
+		}
+
+		return bytes.toByteArray();
+
+	}
+
+	/**
+	 * Intent: (Post3) Write the canonical form of a Result object and its
+	 * GradeMapping object.
+	 *
+	 * @param output DataOutputStream object
+	 * @param result Result object
+	 * @param gradeMapping GradeMapping object
+	 * @throws IOException
+	 */
+	private static void writeCanonical(DataOutputStream output, Result result,
+			GradeMapping gradeMapping) throws IOException {
+
+		// Post4 Bound to the assignment
+		String assignmentName = result.getAssignmentName() == null ? ""
+				: result.getAssignmentName();
+		byte[] nameBytes = assignmentName.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(output, nameBytes.length);
+		output.write(nameBytes);
+
+		output.writeFloat(result.getTotalGrade());
+
+		// Checkpoints
+		writeVarInt(output, result.getCheckpointList().size());
+		for (Checkpoint checkpoint : result.getCheckpointList()) {
+			writeVarInt(output, checkpoint.getID());
+			output.writeByte(checkpoint.getWeight());
+			output.writeByte(checkpoint.getGrade());
+			String feedback = checkpoint.getFeedback() == null ? ""
+					: checkpoint.getFeedback();
+			byte[] feedbackBytes = feedback.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(output, feedbackBytes.length);
+			output.write(feedbackBytes);
+		}
+
+		// Grade mapping
+		output.writeByte(gradeMapping.size());
+		for (Map.Entry<String, Integer> entry
+				: gradeMapping.getLimits().entrySet()) {
+			byte[] letter = entry.getKey().getBytes(
+					StandardCharsets.US_ASCII);
+			output.writeByte(letter.length);
+			output.write(letter);
+			output.writeByte(entry.getValue());
+		}
+		output.flush();
+
+	}
+
+	/**
+	 * Intent: (Post2) Write an unsigned variable length integer.
+	 *
+	 * @param output OutputStream object
+	 * @param value int non-negative value
+	 * @throws IOException
+	 */
+	private static void writeVarInt(OutputStream output, int value)
+			throws IOException {
+
+		while ((value & ~0x7F) != 0) {
+			output.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.write(value);
+
+	}
+
+}
@@ -0,0 +1,43 @@
+package jgram.security;
+
+import jgram.assessment.GradeMapping;
+import jgram.assessment.Result;
+
+/**
+ * Intent: Represent a Result object and the GradeMapping object it was graded
+ * with after the signature of their hash string has been verified.
+ */
+public class SignedResult {
+
+	// Instance variable(s)
+	private final Result result;
+	private final GradeMapping gradeMapping;
+	private final long issuedAt;
+
+	// Constructor(s)
+	public SignedResult(Result inputResult, GradeMapping inputGradeMapping,
+			long inputIssuedAt) {
+		result = inputResult;
+		gradeMapping = inputGradeMapping;
+		issuedAt = inputIssuedAt;
+	}
+
+	public GradeMapping getGradeMapping() {
+		return gradeMapping;
+	}
+
+	/**
+	 * Intent: Return the time the result was signed in seconds since the
+	 * epoch.
+	 *
+	 * @return long
+	 */
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	public Result getResult() {
+		return result;
+	}
+
+}
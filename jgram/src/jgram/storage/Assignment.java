@@ -1,10 +1,17 @@
 package jgram.storage;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import jgram.assessment.GradeMapping;
 import jgram.assessment.Result;
+import jgram.security.JWT;
+import jgram.security.MerkleTree;
 
 public class Assignment {
 	
@@ -13,7 +20,9 @@ public class Assignment {
 	private String assignmentTitle;
 	private String location;
 	private List<Result> resultList;
+	private Map<String, Result> previousResultMap;
 	private GradeMapping gradeMapping;
+	private String signedRoot;
 
 	public Assignment(String inputGrader, String inputTitle,
 			String inputLocation) {
@@ -22,6 +31,7 @@ public class Assignment {
 		assignmentTitle = inputTitle;
 		location = inputLocation;
 		resultList = new ArrayList<>();
+		previousResultMap = new HashMap<>();
 	}
 	
 	/**
@@ -32,6 +42,25 @@ public class Assignment {
 		resultList.add(result);
 	}
 	
+	/**
+	 * Intent: Build a Merkle tree over a list of results in order of their
+	 * assignment names.
+	 * 
+	 * @param results List of Result objects sorted by assignment name
+	 * @return MerkleTree object
+	 */
+	private static MerkleTree createResultTree(List<Result> results) {
+		
+		List<byte[]> leaves = new ArrayList<>(results.size());
+		for (Result result : results) {
+			leaves.add(MerkleTree.hashLeaf(result.getAssignmentName(), 
+					result.getHashString()));
+		}
+		
+		return new MerkleTree(leaves);
+		
+	}
+	
 	public String getAssignmentTitle() {
 		return assignmentTitle;
 	}
@@ -48,12 +77,161 @@ public class Assignment {
 		return location;
 	}
 	
+	/**
+	 * Intent: Return the result of a previous grading of the assignment 
+	 * document with the assignment name parameter or null if the document 
+	 * has not been graded before.
+	 * 
+	 * @param assignmentName
+	 * @return Result object or null
+	 */
+	public Result getPreviousResult(String assignmentName) {
+		return previousResultMap.get(assignmentName);
+	}
+	
 	public List<Result> getResultList() {
 		return resultList;
 	}
 	
+	public String getSignedRoot() {
+		return signedRoot;
+	}
+	
+	/**
+	 * Intent: Add the previous result of every document that was not graded
+	 * again to the result list. Used when only the documents that match 
+	 * filter patterns were graded, so that the results of the other documents
+	 * are not deleted and are signed with the graded results.
+	 */
+	public void keepPreviousResults() {
+		
+		Set<String> assignmentNames = new HashSet<>();
+		for (Result result : resultList) {
+			assignmentNames.add(result.getAssignmentName());
+		}
+		for (Result previous : previousResultMap.values()) {
+			if (assignmentNames.add(previous.getAssignmentName())) {
+				resultList.add(previous);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Intent: Replace the result with the same assignment name as the result
+	 * parameter or add the result if there is none.
+	 * 
+	 * @param result
+	 */
+	public void replaceResult(Result result) {
+		resultList.removeIf(r -> r.getAssignmentName()
+				.equals(result.getAssignmentName()));
+		resultList.add(result);
+	}
+	
 	public void setGradeMapping(GradeMapping gm) {
 		gradeMapping = gm;
 	}
 	
+	/**
+	 * Intent: Store a result as the previous result of its assignment 
+	 * document so that later changes are compared against it.
+	 * 
+	 * @param result
+	 */
+	public void setPreviousResult(Result result) {
+		previousResultMap.put(result.getAssignmentName(), result);
+	}
+	
+	public void setPreviousResultMap(Map<String, Result> inputMap) {
+		previousResultMap = inputMap;
+	}
+	
+	public void setSignedRoot(String inputRoot) {
+		signedRoot = inputRoot;
+	}
+	
+	/**
+	 * Intent: Sign the results of the assignment as one batch.
+	 * 
+	 * Postcondition1 (Order): The results are sorted by assignment name so 
+	 * that the same results always build the same tree.
+	 * Postcondition2 (Merkle tree): A Merkle tree is built over the assignment
+	 * names and hash strings of the results.
+	 * Postcondition3 (Proofs): Each result stores its inclusion proof.
+	 * Postcondition4 (Signed root): The root of the tree and the number of 
+	 * results are signed and stored. No root is signed if there are no 
+	 * results.
+	 * 
+	 * @param jwt JWT object of the secret
+	 */
+	public void signResults(JWT jwt) {
+		
+		if (resultList.isEmpty()) {
+			signedRoot = null;
+			return;
+		}
+		
+		// Post1 Order
+		resultList.sort(Comparator.comparing(Result::getAssignmentName));
+		
+		// Post2 Merkle tree
+		MerkleTree tree = createResultTree(resultList);
+		
+		// Post3 Proofs
+		for (int i = 0; i < resultList.size(); i++) {
+			resultList.get(i).setProof(tree.getProof(i));
+		}
+		
+		// Post4 Signed root
+		signedRoot = jwt.signRoot(tree.getRoot(), tree.getLeafCount());
+		
+	}
+	
+	/**
+	 * Intent: Verify one result with its inclusion proof against the signed 
+	 * root of the assignment without the other results.
+	 * 
+	 * @param jwt JWT object of the secret
+	 * @param result Result object with a proof
+	 * @return boolean value that indicates if the result was signed
+	 */
+	public boolean verifyResult(JWT jwt, Result result) {
+		
+		if (signedRoot == null || result.getProof() == null) {
+			return false;
+		}
+		
+		String proof = result.getProof();
+		byte[] root = MerkleTree.rootFromProof(MerkleTree.hashLeaf(
+				result.getAssignmentName(), result.getHashString()), proof);
+		
+		return jwt.verifyRoot(signedRoot, root, 
+				MerkleTree.readLeafCount(proof));
+		
+	}
+	
+	/**
+	 * Intent: Verify that the results of the assignment are the results that
+	 * were signed. A changed, added or removed result is detected.
+	 * 
+	 * @param jwt JWT object of the secret
+	 * @param results List of Result objects to verify
+	 * @return boolean value that indicates if the results were signed
+	 */
+	public boolean verifyResults(JWT jwt, List<Result> results) {
+		
+		if (signedRoot == null || results.isEmpty()) {
+			return false;
+		}
+		
+		List<Result> sorted = new ArrayList<>(results);
+		sorted.sort(Comparator.comparing(Result::getAssignmentName));
+		MerkleTree tree = createResultTree(sorted);
+		
+		return jwt.verifyRoot(signedRoot, tree.getRoot(), 
+				tree.getLeafCount());
+		
+	}
+	
 }
@@ -0,0 +1,66 @@
+package jgram.storage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Intent: Read the columns of the current row of the checkpoint stats query
+ * with their own types. The columns are read from the open cursor so no row
+ * is copied.
+ *
+ * Postcondition1 (Spread): The standard deviation of the grades of the
+ * checkpoint is derived from the count, sum and sum of squares of the row
+ * like the stats of an assignment.
+ */
+public final class CheckpointStatRow {
+
+	// Instance variable(s)
+	private final ResultSet results;
+
+	// Constructor(s)
+	CheckpointStatRow(ResultSet inputResults) {
+		results = inputResults;
+	}
+
+	public float getAverage() throws SQLException {
+		return results.getFloat(3);
+	}
+
+	public int getCheckpointID() throws SQLException {
+		return results.getInt(1);
+	}
+
+	public int getCount() throws SQLException {
+		return results.getInt(2);
+	}
+
+	public int getMaximum() throws SQLException {
+		return results.getInt(5);
+	}
+
+	public int getMinimum() throws SQLException {
+		return results.getInt(4);
+	}
+
+	/**
+	 * Intent: (Post1) Return the standard deviation of the grades.
+	 *
+	 * @return float
+	 * @throws SQLException
+	 */
+	public float getStandardDeviation() throws SQLException {
+		return StatRow.round(Math.sqrt(StatRow.variance(getCount(),
+				results.getDouble(6), results.getDouble(7))));
+	}
+
+	/**
+	 * Intent: Return the number of students who were given a grade of zero.
+	 *
+	 * @return int
+	 * @throws SQLException
+	 */
+	public int getZeroCount() throws SQLException {
+		return results.getInt(8);
+	}
+
+}
@@ -0,0 +1,45 @@
+package jgram.storage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Intent: Read the columns of the current row of the grade distribution query
+ * with their own types. The columns are read from the open cursor so no row
+ * is copied.
+ */
+public final class DistributionRow {
+
+	// Instance variable(s)
+	private final ResultSet results;
+
+	// Constructor(s)
+	DistributionRow(ResultSet inputResults) {
+		results = inputResults;
+	}
+
+	public String getAssignmentTitle() throws SQLException {
+		return results.getString(1);
+	}
+
+	public String getGrader() throws SQLException {
+		return results.getString(2);
+	}
+
+	/**
+	 * Intent: Decode the grade sketch of the assignment.
+	 *
+	 * @return GradeSketch object
+	 * @throws SQLException if the sketch could not be decoded
+	 */
+	public GradeSketch getSketch() throws SQLException {
+
+		try {
+			return GradeSketch.decode(results.getBytes(3));
+		} catch (IllegalArgumentException e) {
+			throw new SQLException(e.getMessage(), e);
+		}
+
+	}
+
+}
@@ -0,0 +1,219 @@
+package jgram.storage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import jgram.assessment.Checkpoint;
+
+/**
+ * Intent: Summarize the distribution of the total grades of an assignment so
+ * that its percentiles and histogram are read without the grades. Total
+ * grades are bounded by the checkpoint grades, so the sketch counts them in
+ * bins of a tenth of a point. A grade is counted in the bin that starts at or
+ * below it, so a grade of 89.99 is counted in the range 80-89 of the
+ * histogram as it is printed.
+ *
+ * Postcondition1 (Bounded error): A quantile of the sketch is the
+ * nearest-rank quantile of the grades that were added rounded down to a
+ * tenth of a point.
+ * Postcondition2 (Mergeable): Sketches are merged by adding their bins, so a
+ * merged sketch equals the sketch of all of their grades. Sketches of
+ * assignments are merged across sections and terms without reading the
+ * results again.
+ * Postcondition3 (Compact): A sketch is encoded as its non-empty bins.
+ *
+ * References:
+ * Hyndman, R. J., & Fan, Y. (1996). Sample Quantiles in Statistical
+ * Packages. The American Statistician, 50(4), 361-365.
+ */
+public final class GradeSketch {
+
+	// Class constant(s)
+	public static final int BINS_PER_POINT = 10;
+	public static final int HISTOGRAM_WIDTH = 10;
+	private static final int BIN_COUNT = Checkpoint.MAX_GRADE
+			* BINS_PER_POINT + 1;
+	private static final byte FORMAT = 1;
+	// Total grades are floats, so a grade on a bin edge can be stored just
+	// below it
+	private static final double BIN_TOLERANCE = 1e-3;
+
+	// Instance variable(s)
+	private final int[] bins = new int[BIN_COUNT];
+	private int count;
+
+	// Constructor(s)
+	public GradeSketch() {}
+
+	/**
+	 * Intent: Add a total grade to the sketch. A grade outside of the
+	 * checkpoint grade range is counted at the nearest end of the range.
+	 *
+	 * @param grade double total grade
+	 */
+	public void add(double grade) {
+
+		bins[binOf(grade)]++;
+		count++;
+
+	}
+
+	/**
+	 * Intent: Remove a total grade that was added to the sketch, so that the
+	 * sketch of an assignment is updated when a result is graded again or
+	 * removed. A grade that is not in the sketch is ignored.
+	 *
+	 * @param grade double total grade
+	 */
+	public void remove(double grade) {
+
+		int bin = binOf(grade);
+		if (bins[bin] > 0) {
+			bins[bin]--;
+			count--;
+		}
+
+	}
+
+	/**
+	 * Intent: Return the bin that starts at or below a grade, clamped to the
+	 * checkpoint grade range.
+	 */
+	private static int binOf(double grade) {
+
+		int bin = (int) Math.floor(grade * BINS_PER_POINT + BIN_TOLERANCE);
+		return Math.min(Math.max(bin, 0), BIN_COUNT - 1);
+
+	}
+
+	/**
+	 * Intent: (Post3) Create a sketch from its encoding.
+	 *
+	 * @param bytes byte array created by encode
+	 * @return GradeSketch object
+	 * @throws IllegalArgumentException if the bytes are not an encoded sketch
+	 */
+	public static GradeSketch decode(byte[] bytes) {
+
+		GradeSketch sketch = new GradeSketch();
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			if (buffer.get() != FORMAT) {
+				throw new IllegalArgumentException("Unknown grade sketch "
+						+ "format.");
+			}
+
+			int nonEmpty = buffer.getInt();
+			for (int i = 0; i < nonEmpty; i++) {
+				int bin = buffer.getShort();
+				int binCount = buffer.getInt();
+				sketch.bins[bin] += binCount;
+				sketch.count += binCount;
+			}
+
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid grade sketch.", e);
+		}
+
+		return sketch;
+
+	}
+
+	/**
+	 * Intent: (Post3) Encode the non-empty bins of the sketch.
+	 *
+	 * @return byte array
+	 */
+	public byte[] encode() {
+
+		int nonEmpty = 0;
+		for (int binCount : bins) {
+			if (binCount > 0) {
+				nonEmpty++;
+			}
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(5 + nonEmpty * 6);
+		buffer.put(FORMAT);
+		buffer.putInt(nonEmpty);
+		for (int bin = 0; bin < BIN_COUNT; bin++) {
+			if (bins[bin] > 0) {
+				buffer.putShort((short) bin);
+				buffer.putInt(bins[bin]);
+			}
+		}
+
+		return buffer.array();
+
+	}
+
+	/**
+	 * Intent: Return the number of grades in the sketch.
+	 *
+	 * @return int
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Intent: Return the number of grades in each range of HISTOGRAM_WIDTH
+	 * points. The last range also counts the maximum grade.
+	 *
+	 * @return int array with one element for each range
+	 */
+	public int[] getHistogram() {
+
+		int ranges = Checkpoint.MAX_GRADE / HISTOGRAM_WIDTH;
+		int[] histogram = new int[ranges];
+		for (int bin = 0; bin < BIN_COUNT; bin++) {
+			int range = bin / (HISTOGRAM_WIDTH * BINS_PER_POINT);
+			histogram[Math.min(range, ranges - 1)] += bins[bin];
+		}
+
+		return histogram;
+
+	}
+
+	/**
+	 * Intent: (Post2) Add the grades of another sketch to this sketch.
+	 *
+	 * @param other GradeSketch object
+	 */
+	public void merge(GradeSketch other) {
+
+		for (int bin = 0; bin < BIN_COUNT; bin++) {
+			bins[bin] += other.bins[bin];
+		}
+		count += other.count;
+
+	}
+
+	/**
+	 * Intent: (Post1) Return the nearest-rank quantile of the grades. The
+	 * median is the 0.5 quantile.
+	 *
+	 * @param fraction double between 0 and 1
+	 * @return float grade or NaN if the sketch is empty
+	 */
+	public float quantile(double fraction) {
+
+		if (count == 0) {
+			return Float.NaN;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		int bin = 0;
+		for (; bin < BIN_COUNT - 1; bin++) {
+			seen += bins[bin];
+			if (seen >= rank) {
+				break;
+			}
+		}
+
+		return (float) bin / BINS_PER_POINT;
+
+	}
+
+}
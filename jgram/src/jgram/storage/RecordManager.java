@@ -3,14 +3,15 @@ package jgram.storage;
 import java.io.File;
 import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import jgram.assessment.Checkpoint;
 import jgram.assessment.GradeMapping;
@@ -28,42 +29,123 @@ public class RecordManager {
 	// Inserts
 	private static final String ASSIGNMENT_INSERT = "INSERT INTO Assignment "
 			+ "(grader, assignment_title, location) VALUES (?, ?, ?);";
-	private static final String RESULT_INSERT = "INSERT INTO Result "
+	// A result that was graded before is updated in place and keeps its id
+	private static final String RESULT_UPSERT = "INSERT INTO Result "
 			+ "(student_fname, student_lname, assignment_name, total_grade, "
-			+ "hash_string, a_id) VALUES (?, ?, ?, ?, ?, ?)";
+			+ "hash_string, fingerprint, merkle_proof, a_id) VALUES (?, ?, ?, "
+			+ "?, ?, ?, ?, ?) ON CONFLICT (a_id, assignment_name) DO UPDATE "
+			+ "SET student_fname = excluded.student_fname, student_lname = "
+			+ "excluded.student_lname, total_grade = excluded.total_grade, "
+			+ "hash_string = excluded.hash_string, fingerprint = "
+			+ "excluded.fingerprint, merkle_proof = excluded.merkle_proof;";
 	private static final String GM_INSERT = "INSERT INTO GradeMapping (letter, "
 			+ "num, a_id) VALUES (?, ?, ?);";
 	private static final String CP_INSERT = "INSERT INTO Checkpoint (weight, "
-			+ "grade, feedback, r_id) VALUES (?, ?, ?, ?)";
+			+ "grade, feedback, cp_number, r_id) VALUES (?, ?, ?, ?, ?)";
 	
 	// Selects
 	private static final String ASSIGNMENT_ID = "SELECT assignment_id FROM "
 			+ "Assignment WHERE assignment_title = ?;";
-	private static final String RESULT_ID = "SELECT result_id FROM "
-			+ "Result WHERE assignment_name = ?;";
-	private static final String RESULT_LIST = "SELECT result_id FROM Result "
-			+ "WHERE a_id = ?;";
+	private static final String STORED_RESULTS = "SELECT assignment_name, "
+			+ "result_id, hash_string, total_grade FROM Result WHERE a_id = ?;";
+	private static final String STORED_RESULT = "SELECT assignment_name, "
+			+ "result_id, hash_string, total_grade FROM Result WHERE a_id = ? "
+			+ "AND assignment_name = ?;";
+	private static final String STORED_CHECKPOINTS = "SELECT cp_id, weight, "
+			+ "grade, feedback, cp_number FROM Checkpoint WHERE r_id = ? "
+			+ "ORDER BY cp_id;";
+	private static final String REMOVED_CHECKPOINTS = "SELECT count(*) FROM "
+			+ "Checkpoint WHERE r_id IN (SELECT result_id FROM Result WHERE "
+			+ "a_id = ? AND assignment_name NOT IN (SELECT assignment_name FROM "
+			+ "temp.CurrentName));";
+	private static final String REMOVED_GRADES = "SELECT total_grade FROM "
+			+ "Result WHERE a_id = ? AND assignment_name NOT IN (SELECT "
+			+ "assignment_name FROM temp.CurrentName);";
+	private static final String STORED_STATS = "SELECT result_count, "
+			+ "grade_sum, grade_sum_squares, min_grade, max_grade FROM "
+			+ "AssignmentStats WHERE a_id = ?;";
+	// Each extreme is read from the end of the Result_grade index
+	private static final String GRADE_EXTREMES = "SELECT (SELECT "
+			+ "min(total_grade) FROM Result WHERE a_id = ?), (SELECT "
+			+ "max(total_grade) FROM Result WHERE a_id = ?);";
+	private static final String PREVIOUS_RESULTS = "SELECT "
+			+ "Result.assignment_name, Result.total_grade, Result.hash_string, "
+			+ "Result.fingerprint, Result.merkle_proof FROM Result JOIN "
+			+ "Assignment ON Result.a_id = Assignment.assignment_id WHERE "
+			+ "Assignment.assignment_title = ?;";
+	private static final String SIGNED_ROOT = "SELECT merkle_root FROM "
+			+ "Assignment WHERE assignment_title = ?;";
+	private static final String SIGNED_ASSIGNMENT = "SELECT "
+			+ "Assignment.assignment_title FROM Result JOIN Assignment ON "
+			+ "Result.a_id = Assignment.assignment_id WHERE "
+			+ "Result.assignment_name = ? AND Assignment.merkle_root IS NOT "
+			+ "NULL ORDER BY Assignment.assignment_id DESC LIMIT 1;";
 	private static final String HASH_STRING = "Select hash_string FROM Result "
 			+ "WHERE assignment_name = ?;";
 	private static final String ALL_STUDENTS = "SELECT Assignment.grader, Assignment.assignment_title, Result.student_fname, Result.student_lname, Result.assignment_name, Result.total_grade, Checkpoint.weight, Checkpoint.grade, Checkpoint.feedback FROM Result JOIN Assignment ON Result.a_id = Assignment.assignment_id JOIN Checkpoint ON Result.result_id = Checkpoint.r_id WHERE assignment_id = ? ORDER BY Result.student_lname, Result.student_fname;";
 	private static final String STUDENT_ASSIGNMENTS = "SELECT Assignment.grader, Assignment.assignment_title, Result.student_fname, Result.student_lname, Result.assignment_name, Result.total_grade, Checkpoint.weight, Checkpoint.grade, Checkpoint.feedback FROM Result JOIN Assignment ON Result.a_id = Assignment.assignment_id JOIN Checkpoint ON Result.result_id = Checkpoint.r_id WHERE Result.student_fname = ? AND Result.student_lname = ? ORDER BY Assignment.assignment_id;";
-	private static final String ASSIGNMENTS_STATS = "SELECT Assignment.assignment_title, count(*) as Count, ROUND(min(Result.total_grade), 2) as Minimum, ROUND(max(Result.total_grade), 2) as Maximum, ROUND(avg(Result.total_grade), 2) as Average FROM Result JOIN Assignment ON Result.a_id = Assignment.assignment_id GROUP BY Assignment.assignment_id;";
+	private static final String GRADE_SKETCHES = "SELECT Assignment.assignment_title, Assignment.grader, GradeSketch.sketch FROM GradeSketch JOIN Assignment ON GradeSketch.a_id = Assignment.assignment_id ORDER BY GradeSketch.a_id;";
+	private static final String STORED_SKETCH = "SELECT sketch FROM "
+			+ "GradeSketch WHERE a_id = ?;";
+	private static final String CHECKPOINT_STATS = "SELECT Checkpoint.cp_number, count(*) as Count, ROUND(avg(Checkpoint.grade), 2) as Average, min(Checkpoint.grade) as Minimum, max(Checkpoint.grade) as Maximum, sum(Checkpoint.grade), sum(Checkpoint.grade * Checkpoint.grade), sum(Checkpoint.grade = 0) as Zeros FROM Checkpoint JOIN Result ON Checkpoint.r_id = Result.result_id JOIN Assignment ON Result.a_id = Assignment.assignment_id WHERE Assignment.assignment_title = ? GROUP BY Checkpoint.cp_number ORDER BY Checkpoint.cp_number;";
+	private static final String ASSIGNMENTS_STATS = "SELECT Assignment.assignment_title, AssignmentStats.result_count as Count, ROUND(AssignmentStats.min_grade, 2) as Minimum, ROUND(AssignmentStats.max_grade, 2) as Maximum, ROUND(AssignmentStats.grade_sum / AssignmentStats.result_count, 2) as Average, AssignmentStats.grade_sum, AssignmentStats.grade_sum_squares FROM AssignmentStats JOIN Assignment ON AssignmentStats.a_id = Assignment.assignment_id WHERE AssignmentStats.result_count > 0 ORDER BY AssignmentStats.a_id;";
+	
+	// Updates
+	private static final String ASSIGNMENT_UPDATE = "UPDATE Assignment SET "
+			+ "grader = ?, location = ? WHERE assignment_id = ?;";
+	private static final String ROOT_UPDATE = "UPDATE Assignment SET "
+			+ "merkle_root = ? WHERE assignment_id = ?;";
+	private static final String PROOF_UPDATE = "UPDATE Result SET "
+			+ "merkle_proof = ? WHERE a_id = ? AND assignment_name = ?;";
+	private static final String CP_UPDATE = "UPDATE Checkpoint SET "
+			+ "weight = ?, grade = ?, feedback = ?, cp_number = ? WHERE "
+			+ "cp_id = ?;";
+	private static final String STATS_UPSERT = "INSERT INTO AssignmentStats "
+			+ "(a_id, result_count, grade_sum, grade_sum_squares, min_grade, "
+			+ "max_grade) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (a_id) "
+			+ "DO UPDATE SET result_count = excluded.result_count, grade_sum = "
+			+ "excluded.grade_sum, grade_sum_squares = "
+			+ "excluded.grade_sum_squares, min_grade = excluded.min_grade, "
+			+ "max_grade = excluded.max_grade;";
+	private static final String SKETCH_UPSERT = "INSERT INTO GradeSketch "
+			+ "(a_id, sketch) VALUES (?, ?) ON CONFLICT (a_id) DO UPDATE SET "
+			+ "sketch = excluded.sketch;";
 	
-	// Deletes
-	private static final String DELETE_CHECKPOINTS = "DELETE FROM Checkpoint "
-			+ "WHERE r_id = ?;";
-	private static final String DELETE_RESULT = "DELETE FROM Result WHERE a_id "
-			+ "= ?;";
+	// Deletes (checkpoints are deleted with their result by cascade)
+	private static final String DELETE_REMOVED_RESULTS = "DELETE FROM Result "
+			+ "WHERE a_id = ? AND assignment_name NOT IN (SELECT "
+			+ "assignment_name FROM temp.CurrentName);";
+	private static final String DELETE_CHECKPOINT = "DELETE FROM Checkpoint "
+			+ "WHERE cp_id = ?;";
 	private static final String DELETE_GRADEMAPPING = "DELETE FROM "
 			+ "GradeMapping WHERE a_id = ?;";
-	private static final String DELETE_ASSIGNMENT = "DELETE FROM Assignment "
-			+ "WHERE assignment_id = ?;";
-
+	
+	// Assignment names of the current results
+	private static final String CURRENT_NAME_TABLE = "CREATE TEMP TABLE IF "
+			+ "NOT EXISTS CurrentName (assignment_name VARCHAR PRIMARY KEY);";
+	private static final String CLEAR_CURRENT_NAMES = "DELETE FROM "
+			+ "temp.CurrentName;";
+	private static final String CURRENT_NAME_INSERT = "INSERT OR IGNORE INTO "
+			+ "temp.CurrentName (assignment_name) VALUES (?);";
 	
 	// Instance variable(s)
 	private Assignment assignment;
 	private int assignmentID;
+	private GradeMapping writtenGradeMapping;
+	// Shared connection that writes records
 	private Connection connection;
+	// Shared read only connection of reports and lookups
+	private Connection readConnection;
+	// Rows written by committed transactions
+	private final RowChanges resultChanges = new RowChanges();
+	private final RowChanges checkpointChanges = new RowChanges();
+	// Rows written by the current transaction
+	private RowChanges pendingResultChanges = new RowChanges();
+	private RowChanges pendingCheckpointChanges = new RowChanges();
+	// Total grades the current transaction adds to and removes from the 
+	// assignment
+	private List<Double> pendingAddedGrades = new ArrayList<>();
+	private List<Double> pendingRemovedGrades = new ArrayList<>();
 	private String URL = "jdbc:sqlite:" + getDBFile();
 	
 	public RecordManager() {}
@@ -73,52 +155,26 @@ public class RecordManager {
 	}
 	
 	/**
-	 * Intent: Close a connection to the JGRAM database.
+	 * Intent: Close the connections to the JGRAM database that are shared by
+	 * all RecordManager objects. Called when the process is done with the 
+	 * database; the connections are also closed when the process exits.
 	 * 
-	 * Postcondition1 (Database connection): A connection to the JGRAM database
-	 * is closed.
-	 * @throws SQLException 
+	 * @throws SQLException
 	 */
-	public void closeConnection() throws SQLException {
-		connection.close();
+	public static void closeAll() throws SQLException {
+		SharedConnection.closeAll();
 	}
 	
 	/**
-	 * Intent: Return a list of result record ids.
-	 * 
-	 * Postcondition1 (Create query): A prepared statement is created with 
-	 * the assignment id as the first input parameter.
-	 * Poscondition2 (Execute query): The query to obtain the 
-	 * result ids is executed and the result is returned.
-	 * Postcondition3 (Create and return list): A list is created from the 
-	 * query results and contains all result ids.
+	 * Intent: Release the connection to the JGRAM database.
 	 * 
-	 * @return
-	 * @throws SQLException
+	 * Postcondition1 (Database connection): This RecordManager no longer uses
+	 * the shared connections. They stay open for the next RecordManager.
+	 * @throws SQLException 
 	 */
-	private ArrayList<Integer> createResultList() throws SQLException {
-		
-		// Post1 Create query
-		PreparedStatement preparedStatement = connection
-				.prepareStatement(RESULT_LIST);
-		// Assignment id
-		preparedStatement.setInt(1, assignmentID);
-		
-		// Post2 Execute query
-		ResultSet results = preparedStatement.executeQuery();
-		
-		// Post3 Create and return list
-		ArrayList<Integer> resultList = new ArrayList<>();
-		while (results.next()) {
-			resultList.add(results.getInt(1));
-		}
-		
-		// Close resources
-		results.close();
-		preparedStatement.close();
-		
-		return resultList;
-		
+	public void closeConnection() throws SQLException {
+		connection = null;
+		readConnection = null;
 	}
 	
 	/**
@@ -131,9 +187,10 @@ public class RecordManager {
 	 * 
 	 * @param sql
 	 * @param id
+	 * @return int number of deleted rows
 	 * @throws SQLException
 	 */
-	private void deleteData(String sql, int id) throws SQLException {
+	private int deleteData(String sql, int id) throws SQLException {
 		
 		// Post1 Create query
 		PreparedStatement preparedStatement = connection
@@ -141,61 +198,58 @@ public class RecordManager {
 		preparedStatement.setInt(1, id);
 		
 		// Post2 Execute query
-		preparedStatement.executeUpdate();
+		int rows = preparedStatement.executeUpdate();
 		
 		// Close resources
 		preparedStatement.close();
+		
+		return rows;
 	}
 	
 	/**
 	 * Intent: Create a String array that represents a row in the ResultSet.
 	 * 
-	 * @param results
+	 * @param row StudentRow positioned on the row
 	 * @return
 	 * @throws SQLException
 	 */
-	private String[] createStudentRow(ResultSet results) 
+	private String[] createStudentRow(StudentRow row) 
 			throws SQLException {
 		
-		// Column count
-		int columnCount = results.getMetaData().getColumnCount();
-
 		// Create row
-		String[] row = new String[columnCount];
-		row[0] = results.getString("grader");
-		row[1] = results.getString("assignment_title");
-		row[2] = results.getString("student_fname");
-		row[3] = results.getString("student_lname");
-		row[4] = results.getString("assignment_name");
-		row[5] = Float.toString(results.getFloat("total_grade"));
-		row[6] = Integer.toString(results.getInt("weight"));
-		row[7] = Integer.toString(results.getInt("grade"));
-		row[8] = results.getString("feedback");
-
-		return row;
+		return new String[] {
+				row.getGrader(),
+				row.getAssignmentTitle(),
+				row.getStudentFirstName(),
+				row.getStudentLastName(),
+				row.getAssignmentName(),
+				Float.toString(row.getTotalGrade()),
+				Integer.toString(row.getWeight()),
+				Integer.toString(row.getGrade()),
+				row.getFeedback()
+		};
+		
 	}
 	
 	/**
 	 * Intent: Create a String array that represents a row in the ResultSet.
 	 * 
-	 * @param results
+	 * @param row StatRow positioned on the row
 	 * @return
 	 * @throws SQLException
 	 */
-	private String[] createStatRow(ResultSet results) throws SQLException {
-		
-		// Column count
-		int columnCount = results.getMetaData().getColumnCount();
+	private String[] createStatRow(StatRow row) throws SQLException {
 		
 		// Create row
-		String[] row = new String[columnCount];
-		row[0] = results.getString("assignment_title");
-		row[1] = Integer.toString(results.getInt("count"));
-		row[2] = Float.toString(results.getFloat("minimum"));
-		row[3] = Float.toString(results.getFloat("maximum"));
-		row[4] = Float.toString(results.getFloat("average"));
-		
-		return row;
+		return new String[] {
+				row.getAssignmentTitle(),
+				Integer.toString(row.getCount()),
+				Float.toString(row.getMinimum()),
+				Float.toString(row.getMaximum()),
+				Float.toString(row.getAverage()),
+				Float.toString(row.getVariance()),
+				Float.toString(row.getStandardDeviation())
+		};
 		
 	}
 	
@@ -224,7 +278,7 @@ public class RecordManager {
 			
 			try {
 				// Post2 Retrieve hash string
-				ps = connection.prepareStatement(HASH_STRING);
+				ps = readConnection.prepareStatement(HASH_STRING);
 				ps.setString(1, entry.getKey());
 				rs = ps.executeQuery();
 				
@@ -248,45 +302,66 @@ public class RecordManager {
 	
  	
 	/**
-	 * Intent: Locate previous assignment data in JGRAM database.
+	 * Intent: Locate previous assignment data in JGRAM database and delete 
+	 * the results that no longer exist.
 	 * 
 	 * Postcondition1 (Assignment id): A previous assignment record is searched
-	 * for in the Assignment table.
-	 * Postcondition2 (Result id list): A list of associated result record ids
-	 * is created.
-	 * Postcondition3 (Delete data): The related records that contain
-	 * previous assignment data are deleted from the JGRAM database.
+	 * for in the Assignment table. If none is found, false is returned.
+	 * Postcondition2 (Current names): The assignment names of the current 
+	 * results are written to a temporary table.
+	 * Postcondition3 (Removed results): The records of results whose document
+	 * no longer exists are deleted with one statement and their checkpoints 
+	 * are deleted by cascade. The deleted rows and their total grades are 
+	 * counted. The previous grade mapping is deleted.
+	 * Postcondition4 (Stored results): The id, hash string and total grade of
+	 * each result that is kept are added to the stored results by assignment
+	 * name.
 	 * 
+	 * @param storedResults Map that receives the stored results
+	 * @return boolean value that indicates if a previous assignment was found
 	 * @throws SQLException
 	 */
-	private void findPreviousAssignment() throws SQLException {
+	private boolean findPreviousAssignment(
+			Map<String, StoredResult> storedResults) throws SQLException {
 		
 		// Post1 Assignment id
 		try {
-			assignmentID = getRowID(ASSIGNMENT_ID, assignment
+			assignmentID = getRowID(connection, ASSIGNMENT_ID, assignment
 					.getAssignmentTitle());
 		} catch (SQLException e) {
 			// No assignment id found
-			return;
+			return false;
 		}
 		
-		// Post2 Result id list
-		ArrayList<Integer> resultList = createResultList();
+		// Post2 Current names
+		writeCurrentNames();
 		
-		// Post3 Delete data
-		// Checkpoint
-		for (int rID : resultList) {
-			deleteData(DELETE_CHECKPOINTS, rID);
+		// Post3 Removed results
+		try (PreparedStatement preparedStatement = connection
+				.prepareStatement(REMOVED_CHECKPOINTS)) {
+			preparedStatement.setInt(1, assignmentID);
+			try (ResultSet results = preparedStatement.executeQuery()) {
+				results.next();
+				pendingCheckpointChanges.countRemoved(results.getInt(1));
+			}
 		}
-		
-		// Result
-		deleteData(DELETE_RESULT, assignmentID);
-		
-		// GradeMapping
+		try (PreparedStatement preparedStatement = connection
+				.prepareStatement(REMOVED_GRADES)) {
+			preparedStatement.setInt(1, assignmentID);
+			try (ResultSet results = preparedStatement.executeQuery()) {
+				while (results.next()) {
+					pendingRemovedGrades.add(results.getDouble(1));
+				}
+			}
+		}
+		pendingResultChanges.countRemoved(deleteData(DELETE_REMOVED_RESULTS, 
+				assignmentID));
 		deleteData(DELETE_GRADEMAPPING, assignmentID);
 		
-		// Assignment
-		deleteData(DELETE_ASSIGNMENT, assignmentID);
+		// Post4 Stored results
+		storedResults.putAll(selectStoredResults(null));
+		
+		return true;
 		
 	}
 	
@@ -298,6 +373,16 @@ public class RecordManager {
 		return assignment;
 	}
 	
+	/**
+	 * Intent: Return the number of Checkpoint rows that were added, changed 
+	 * and removed by this RecordManager.
+	 * 
+	 * @return RowChanges object
+	 */
+	public RowChanges getCheckpointChanges() {
+		return checkpointChanges;
+	}
+	
 	/**
 	 * Intent: Return current directory of the JGRAM database.
 	 * @return
@@ -308,6 +393,17 @@ public class RecordManager {
 		return cwd;
 	}
 	
+	/**
+	 * Intent: Return the number of Result rows that were added, changed and 
+	 * removed by this RecordManager. Results that were unchanged since the 
+	 * previous grading are not counted.
+	 * 
+	 * @return RowChanges object
+	 */
+	public RowChanges getResultChanges() {
+		return resultChanges;
+	}
+	
 	/**
 	 * Intent: Retrieve the row's unique identifier (primary key).
 	 * 
@@ -316,15 +412,17 @@ public class RecordManager {
 	 * Poscondition2 (Execute and return query): The query to obtain the 
 	 * assignment id is executed and the result is returned.
 	 * 
+	 * @param source Connection the row is read from
 	 * @param sql
 	 * @param where
 	 * 
 	 * @throws SQLException
 	 */
-	private int getRowID(String sql, String where) throws SQLException {
+	private int getRowID(Connection source, String sql, String where) 
+			throws SQLException {
 		
 		// Post1 Prepare statement
-		PreparedStatement preparedStatement = connection.prepareStatement(sql);
+		PreparedStatement preparedStatement = source.prepareStatement(sql);
 		preparedStatement.setString(1, where);
 		
 		// Post 2 Execute and return query
@@ -343,24 +441,216 @@ public class RecordManager {
 	/**
 	 * Intent: Open a connection to the JGRAM database.
 	 * 
-	 * Postcondition1 (Database connection): A connection to the JGRAM database
-	 * is established.
+	 * Postcondition1 (Database connection): The connections to the JGRAM 
+	 * database that are shared by the process are used. They are opened, 
+	 * tuned and migrated to the current schema the first time the database 
+	 * is used, and foreign key enforcement is turned on so that deleted 
+	 * records cascade to the records that reference them.
+	 * Postcondition2 (Readers and writer): Records are written on one 
+	 * connection and reports read from another, so reports do not wait for
+	 * results that are being written.
 	 * @throws SQLException 
 	 */
 	public void openConnection() throws SQLException {
-		connection = DriverManager.getConnection(URL);
+		
+		// Post1 Database connection
+		SharedConnection shared = SharedConnection.forURL(URL);
+		
+		// Post2 Readers and writer
+		connection = shared.getWriter();
+		readConnection = shared.getReader();
+		
+	}
+	
+	/**
+	 * Intent: Write a single Result to the JGRAM database as soon as it has 
+	 * been graded. Used when an assignment directory is watched and results
+	 * complete one at a time.
+	 * 
+	 * Precondition1 (Open connection): A connection to the JGRAM database is
+	 * open.
+	 * 
+	 * Postcondition1 (Assignment): The Assignment record is located or 
+	 * written the first time a result is persisted.
+	 * Postcondition2 (GradeMapping): The grade mapping of the assignment is
+	 * written once, with the first result that is persisted. It is read 
+	 * while holding the lock of the Assignment that grading Threads use.
+	 * Postcondition3 (Previous result): A previous record of the result is
+	 * looked up by its assignment name.
+	 * Postcondition4 (Result): The Result object is inserted or, if it was
+	 * graded before, updated in place together with the checkpoints that 
+	 * differ.
+	 * Postcondition5 (Synchronized): Only one Thread writes to the JGRAM 
+	 * database at a time.
+	 * Postcondition6 (Transaction): The records and the stats of the 
+	 * assignment are written in one transaction.
+	 * 
+	 * @param result Result object
+	 * @throws SQLException
+	 */
+	public synchronized void persistResult(Result result) 
+			throws SQLException {
+		
+		// Post6 Transaction
+		runTransaction(() -> {
+			try (ResultStatements statements = new ResultStatements()) {
+				writeResultRecords(statements, result);
+			}
+			writeAssignmentStats();
+		});
+		
+	}
+	
+	/**
+	 * Intent: Write a batch of results that were graded while the assignment
+	 * is being graded. Used by the ResultWriter so that results are saved 
+	 * while grading continues.
+	 * 
+	 * Precondition1 (Open connection): A connection to the JGRAM database is
+	 * open.
+	 * 
+	 * Postcondition1 (Results): Each result is written as by persistResult.
+	 * Postcondition2 (Group commit): The batch and the stats of the 
+	 * assignment are written in one transaction.
+	 * 
+	 * @param batch List of results waiting to be written
+	 * @throws SQLException
+	 */
+	synchronized void persistResults(List<ResultWriter.PendingResult> batch) 
+			throws SQLException {
+		
+		// Post2 Group commit
+		runTransaction(() -> {
+			
+			// Post1 Results
+			try (ResultStatements statements = new ResultStatements()) {
+				for (ResultWriter.PendingResult pending : batch) {
+					writeResultRecords(statements, pending.result);
+				}
+			}
+			writeAssignmentStats();
+		});
+		
+	}
+	
+	/**
+	 * Intent: Return the generated id of the row inserted by a statement.
+	 * 
+	 * @param preparedStatement PreparedStatement that returns generated keys
+	 * @return int row id
+	 * @throws SQLException if no id was generated
+	 */
+	private int readGeneratedKey(PreparedStatement preparedStatement) 
+			throws SQLException {
+		
+		try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+			if (!keys.next()) {
+				throw new SQLException("No row id was generated.");
+			}
+			return keys.getInt(1);
+		}
+		
+	}
+	
+	/**
+	 * Intent: Run a unit of work in one transaction. The transaction is 
+	 * committed if the work completes and rolled back if it throws any
+	 * exception or error. The auto-commit mode of the connection is restored.
+	 * Transactions of different RecordManager objects run one at a time.
+	 * The rows a transaction adds, changes and removes are counted once it
+	 * is committed. If it is rolled back, the ids of the records it wrote 
+	 * are forgotten.
+	 * 
+	 * @param work Transaction that writes records
+	 * @throws SQLException
+	 */
+	private void runTransaction(Transaction work) throws SQLException {
+		
+		// The writer is shared by every RecordManager
+		synchronized (connection) {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			pendingResultChanges = new RowChanges();
+			pendingCheckpointChanges = new RowChanges();
+			pendingAddedGrades = new ArrayList<>();
+			pendingRemovedGrades = new ArrayList<>();
+			int previousAssignmentID = assignmentID;
+			GradeMapping previousGradeMapping = writtenGradeMapping;
+			try {
+				work.run();
+				connection.commit();
+				resultChanges.add(pendingResultChanges);
+				checkpointChanges.add(pendingCheckpointChanges);
+				
+			} catch (Throwable e) {
+				// Also roll back unchecked exceptions so that the shared 
+				// writer is never left in a half applied transaction
+				connection.rollback();
+				
+				// Forget the records of the transaction
+				assignmentID = previousAssignmentID;
+				writtenGradeMapping = previousGradeMapping;
+				throw e;
+				
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Intent: Write a single Result and the records it depends on. Used by
+	 * persistResult.
+	 * 
+	 * @param statements ResultStatements of the transaction
+	 * @param result Result object
+	 * @throws SQLException
+	 */
+	private void writeResultRecords(ResultStatements statements, 
+			Result result) throws SQLException {
+		
+		// Post1 Assignment
+		if (assignmentID == 0) {
+			try {
+				assignmentID = getRowID(connection, ASSIGNMENT_ID, 
+						assignment.getAssignmentTitle());
+				updateAssignment();
+			} catch (SQLException e) {
+				// No assignment id found
+				assignmentID = writeAssignment();
+			}
+		}
+		
+		// Post2 GradeMapping (set by the first graded document)
+		if (writtenGradeMapping == null) {
+			GradeMapping gradeMapping;
+			synchronized (assignment) {
+				gradeMapping = assignment.getGradeMapping();
+			}
+			if (gradeMapping != null) {
+				deleteData(DELETE_GRADEMAPPING, assignmentID);
+				writeGradeMapping(gradeMapping);
+				writtenGradeMapping = gradeMapping;
+			}
+		}
+		
+		// Post3 Previous result
+		String name = result.getAssignmentName();
+		StoredResult stored = selectStoredResults(name).get(name);
+		
+		// Post4 Result (a document can be graded twice in one batch)
+		writeResultChanges(statements, result, stored);
+		statements.executeBatches();
+		
 	}
 	
 	/**
 	 * Intent: Return an array of rows that contains all student grading data
 	 * for an assignment.
 	 * 
-	 * Postcondition1 (Prepare statement): The query statement is prepared to
-	 * select assignment by ID which has been determined by the assignmentTitle
-	 * parameter.
-	 * Postcondition 2 (Execute query and extract results): The query is 
-	 * executed and results are returned. These results are parsed into a String
-	 * array of arrays (rows).
+	 * Postcondition1 (Extract results): The rows of visitAllStudents are 
+	 * parsed into a String array of arrays (rows).
 	 * 
 	 * @param assignmentTitle
 	 * @return
@@ -369,22 +659,10 @@ public class RecordManager {
 	public ArrayList<String[]> selectAllStudents(String assignmentTitle) 
 			throws SQLException {
 		
-		// Post1 Prepare statement
-		assignmentID = getRowID(ASSIGNMENT_ID, assignmentTitle);
-		PreparedStatement preparedStatement = connection.prepareStatement(ALL_STUDENTS);
-		preparedStatement.setInt(1, assignmentID);
-		
-		// Post 2 Execute query and extract results
-		ResultSet results = preparedStatement.executeQuery();
+		// Post1 Extract results
 		ArrayList<String[]> rows = new ArrayList<>();
-		
-		while (results.next()) {
-			rows.add(createStudentRow(results));
-		}
-				
-		// Close resources
-		results.close();
-		preparedStatement.close();
+		visitAllStudents(assignmentTitle, row -> rows.add(
+				createStudentRow(row)));
 				
 		return rows;
 		
@@ -393,33 +671,140 @@ public class RecordManager {
 	/**
 	 * Intent: Return an array of rows that contains all assignment stats.
 	 * 
-	 * Postcondition1 (Prepare statement): The query statement is prepared to
-	 * select all assignments with aggregate functions grouped by assignment id.
-	 * Postcondition 2 (Execute query and extract results): The query is 
-	 * executed and results are returned. These results are parsed into a String
-	 * array of arrays (rows).
+	 * Postcondition1 (Extract results): The rows of visitAssignmentStats are
+	 * parsed into a String array of arrays (rows).
 	 * 
 	 * @return
 	 * @throws SQLException 
 	 */
 	public ArrayList<String[]> selectAssignmentStats() throws SQLException {
 		
+		// Post1 Extract results
+		ArrayList<String[]> rows = new ArrayList<>();
+		visitAssignmentStats(row -> rows.add(createStatRow(row)));
+				
+		return rows;
+		
+	}
+	
+	/**
+	 * Intent: Return the results of a previous grading of the assignment keyed
+	 * by assignment name. The results contain the data needed to decide if a
+	 * document has changed since it was graded.
+	 * 
+	 * Postcondition1 (Prepare statement): The query statement is prepared to
+	 * select the results of the assignment by title.
+	 * Postcondition2 (Execute query and extract results): The query is 
+	 * executed and a Result object is created for each row.
+	 * 
+	 * @return Map of assignment names to Result objects
+	 * @throws SQLException
+	 */
+	public Map<String, Result> selectPreviousResults() throws SQLException {
+		
 		// Post1 Prepare statement
-		Statement statement = connection.createStatement();
+		PreparedStatement preparedStatement = readConnection
+				.prepareStatement(PREVIOUS_RESULTS);
+		preparedStatement.setString(1, assignment.getAssignmentTitle());
 		
-		// Post 2 Execute query and extract results
-		ResultSet results = statement.executeQuery(ASSIGNMENTS_STATS);
-		ArrayList<String[]> rows = new ArrayList<>();
+		// Post2 Execute query and extract results
+		ResultSet results = preparedStatement.executeQuery();
+		Map<String, Result> previousResultMap = new HashMap<>();
 		
 		while (results.next()) {
-			rows.add(createStatRow(results));
+			Result result = new Result(results.getString("hash_string"));
+			result.setAssignmentName(results.getString("assignment_name"));
+			result.setTotalGrade(results.getFloat("total_grade"));
+			result.setFingerprint(results.getString("fingerprint"));
+			result.setProof(results.getString("merkle_proof"));
+			previousResultMap.put(result.getAssignmentName(), result);
 		}
-				
+		
 		// Close resources
 		results.close();
-		statement.close();
-				
-		return rows;
+		preparedStatement.close();
+		
+		return previousResultMap;
+		
+	}
+	
+	/**
+	 * Intent: Return the title of the most recent assignment with a signed 
+	 * Merkle root that has a result with the assignment name parameter, or
+	 * null if there is none.
+	 * 
+	 * @param assignmentName String assignment name of a result
+	 * @return String assignment title or null
+	 * @throws SQLException
+	 */
+	public String selectSignedAssignmentTitle(String assignmentName) 
+			throws SQLException {
+		
+		try (PreparedStatement preparedStatement = readConnection
+				.prepareStatement(SIGNED_ASSIGNMENT)) {
+			preparedStatement.setString(1, assignmentName);
+			try (ResultSet results = preparedStatement.executeQuery()) {
+				return results.next() ? results.getString(1) : null;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Intent: Return the signed Merkle root of the results of the assignment
+	 * or null if the results were not signed as a batch.
+	 * 
+	 * @return String signed root or null
+	 * @throws SQLException
+	 */
+	public String selectSignedRoot() throws SQLException {
+		
+		PreparedStatement preparedStatement = readConnection
+				.prepareStatement(SIGNED_ROOT);
+		preparedStatement.setString(1, assignment.getAssignmentTitle());
+		
+		ResultSet results = preparedStatement.executeQuery();
+		String signedRoot = results.next() ? results.getString(1) : null;
+		
+		// Close resources
+		results.close();
+		preparedStatement.close();
+		
+		return signedRoot;
+		
+	}
+	
+	/**
+	 * Intent: Return the id and hash string of the stored results of the 
+	 * assignment keyed by assignment name. Read on the writer so that results
+	 * written earlier in the transaction are found.
+	 * 
+	 * @param assignmentName String name of one result or null for every 
+	 * result of the assignment
+	 * @return Map of assignment names to StoredResult objects
+	 * @throws SQLException
+	 */
+	private Map<String, StoredResult> selectStoredResults(
+			String assignmentName) throws SQLException {
+		
+		Map<String, StoredResult> storedResults = new HashMap<>();
+		try (PreparedStatement preparedStatement = connection.prepareStatement(
+				assignmentName == null ? STORED_RESULTS : STORED_RESULT)) {
+			preparedStatement.setInt(1, assignmentID);
+			if (assignmentName != null) {
+				preparedStatement.setString(2, assignmentName);
+			}
+			
+			try (ResultSet results = preparedStatement.executeQuery()) {
+				while (results.next()) {
+					storedResults.put(results.getString(1), new StoredResult(
+							results.getInt(2), results.getString(3), 
+							results.getDouble(4)));
+				}
+			}
+		}
+		
+		return storedResults;
 		
 	}
 	
@@ -427,11 +812,8 @@ public class RecordManager {
 	 * Intent: Return an array of rows that contains one student's grading data
 	 * for all assignments.
 	 * 
-	 * Postcondition1 (Prepare statement): The query statement is prepared to
-	 * select student by name.
-	 * Postcondition 2 (Execute query and extract results): The query is 
-	 * executed and results are returned. These results are parsed into a String
-	 * array of arrays (rows).
+	 * Postcondition1 (Extract results): The rows of visitStudentAssignments
+	 * are parsed into a String array of arrays (rows).
 	 * 
 	 * @param name
 	 * @return
@@ -440,27 +822,23 @@ public class RecordManager {
 	public ArrayList<String[]> selectStudentAssignments(String[] name) 
 			throws SQLException {
 		
-		// Post1 Prepare statement
-		PreparedStatement preparedStatement = connection.prepareStatement(STUDENT_ASSIGNMENTS);
-		preparedStatement.setString(1, name[0]);
-		preparedStatement.setString(2, name[1]);
-		
-		// Post 2 Execute query and extract results
-		ResultSet results = preparedStatement.executeQuery();
+		// Post1 Extract results
 		ArrayList<String[]> rows = new ArrayList<>();
-		
-		while (results.next()) {
-			rows.add(createStudentRow(results));
-		}
-				
-		// Close resources
-		results.close();
-		preparedStatement.close();
+		visitStudentAssignments(name, row -> rows.add(createStudentRow(row)));
 				
 		return rows;
 		
 	}
 	
+	/**
+	 * Intent: Set the Assignment object whose records are read and written.
+	 * 
+	 * @param inputAssignment
+	 */
+	public void setAssignment(Assignment inputAssignment) {
+		assignment = inputAssignment;
+	}
+	
 	/**
 	 * Intent: Set the database URL string.
 	 */
@@ -468,6 +846,194 @@ public class RecordManager {
 		URL = inputURL;
 	}
 	
+	/**
+	 * Intent: Update the previous assignment record with the grader and 
+	 * location of the current grading.
+	 * 
+	 * @throws SQLException
+	 */
+	private void updateAssignment() throws SQLException {
+		
+		PreparedStatement preparedStatement = connection
+				.prepareStatement(ASSIGNMENT_UPDATE);
+		preparedStatement.setString(1, assignment.getGrader());
+		preparedStatement.setString(2, assignment.getLocation());
+		preparedStatement.setInt(3, assignmentID);
+		preparedStatement.executeUpdate();
+		
+		// Close resources
+		preparedStatement.close();
+		
+	}
+	
+	/**
+	 * Intent: Stream all student grading data for an assignment to a visitor
+	 * one row at a time.
+	 * 
+	 * Postcondition1 (Prepare statement): The query statement is prepared to
+	 * select assignment by ID which has been determined by the assignmentTitle
+	 * parameter.
+	 * Postcondition2 (Visit rows): Each row is passed to the visitor while the
+	 * cursor is open, so the rows are not held in memory.
+	 * 
+	 * @param assignmentTitle
+	 * @param visitor RowVisitor that receives each row
+	 * @return int number of rows visited
+	 * @throws SQLException if no assignment has the title
+	 */
+	public int visitAllStudents(String assignmentTitle, 
+			RowVisitor<StudentRow> visitor) throws SQLException {
+		
+		// Post1 Prepare statement
+		assignmentID = getRowID(readConnection, ASSIGNMENT_ID, 
+				assignmentTitle);
+		try (PreparedStatement preparedStatement = readConnection
+				.prepareStatement(ALL_STUDENTS)) {
+			preparedStatement.setInt(1, assignmentID);
+			
+			// Post2 Visit rows
+			return visitRows(preparedStatement.executeQuery(), 
+					StudentRow::new, visitor);
+		}
+		
+	}
+	
+	/**
+	 * Intent: Stream the stats of all assignments to a visitor one row at a
+	 * time.
+	 * 
+	 * Postcondition1 (Prepare statement): The query statement is prepared to
+	 * select the stats of all assignments. The stats are kept up to date when
+	 * results are written, so one row is read for each assignment.
+	 * Postcondition2 (Visit rows): Each row is passed to the visitor while the
+	 * cursor is open.
+	 * 
+	 * @param visitor RowVisitor that receives each row
+	 * @return int number of rows visited
+	 * @throws SQLException
+	 */
+	public int visitAssignmentStats(RowVisitor<StatRow> visitor) 
+			throws SQLException {
+		
+		// Post1 Prepare statement
+		try (Statement statement = readConnection.createStatement()) {
+			
+			// Post2 Visit rows
+			return visitRows(statement.executeQuery(ASSIGNMENTS_STATS), 
+					StatRow::new, visitor);
+		}
+		
+	}
+	
+	/**
+	 * Intent: Stream the stats of each checkpoint of an assignment to a 
+	 * visitor one row at a time.
+	 * 
+	 * Postcondition1 (Prepare statement): The query statement is prepared to
+	 * select the checkpoints of the assignment by title with aggregate 
+	 * functions grouped by checkpoint id. The checkpoints are read in one 
+	 * pass through the a_id and r_id indexes.
+	 * Postcondition2 (Visit rows): One row for each checkpoint id is passed
+	 * to the visitor, so the number of rows does not grow with the number of
+	 * students.
+	 * 
+	 * @param assignmentTitle String title of the assignment
+	 * @param visitor RowVisitor that receives each row
+	 * @return int number of rows visited
+	 * @throws SQLException
+	 */
+	public int visitCheckpointStats(String assignmentTitle, 
+			RowVisitor<CheckpointStatRow> visitor) throws SQLException {
+		
+		// Post1 Prepare statement
+		try (PreparedStatement preparedStatement = readConnection
+				.prepareStatement(CHECKPOINT_STATS)) {
+			preparedStatement.setString(1, assignmentTitle);
+			
+			// Post2 Visit rows
+			return visitRows(preparedStatement.executeQuery(), 
+					CheckpointStatRow::new, visitor);
+		}
+		
+	}
+	
+	/**
+	 * Intent: Stream the grade sketches of all assignments to a visitor one 
+	 * row at a time. The sketches are kept up to date when results are 
+	 * written, so no result is read.
+	 * 
+	 * @param visitor RowVisitor that receives each row
+	 * @return int number of rows visited
+	 * @throws SQLException
+	 */
+	public int visitGradeSketches(RowVisitor<DistributionRow> visitor) 
+			throws SQLException {
+		
+		try (Statement statement = readConnection.createStatement()) {
+			return visitRows(statement.executeQuery(GRADE_SKETCHES), 
+					DistributionRow::new, visitor);
+		}
+		
+	}
+	
+	/**
+	 * Intent: Pass each row of a query to a visitor and close the cursor.
+	 * 
+	 * @param results ResultSet of the query
+	 * @param createRow Function that wraps the cursor in a row object
+	 * @param visitor RowVisitor that receives each row
+	 * @return int number of rows visited
+	 * @throws SQLException
+	 */
+	private <T> int visitRows(ResultSet results, 
+			Function<ResultSet, T> createRow, RowVisitor<T> visitor) 
+			throws SQLException {
+		
+		try (results) {
+			
+			// One row object reads every row from the cursor
+			T row = createRow.apply(results);
+			int count = 0;
+			while (results.next()) {
+				visitor.visit(row);
+				count++;
+			}
+			
+			return count;
+		}
+		
+	}
+	
+	/**
+	 * Intent: Stream one student's grading data for all assignments to a 
+	 * visitor one row at a time.
+	 * 
+	 * Postcondition1 (Prepare statement): The query statement is prepared to
+	 * select student by name.
+	 * Postcondition2 (Visit rows): Each row is passed to the visitor while the
+	 * cursor is open.
+	 * 
+	 * @param name String array of the first and last name
+	 * @param visitor RowVisitor that receives each row
+	 * @return int number of rows visited
+	 * @throws SQLException
+	 */
+	public int visitStudentAssignments(String[] name, 
+			RowVisitor<StudentRow> visitor) throws SQLException {
+		
+		// Post1 Prepare statement
+		try (PreparedStatement preparedStatement = readConnection
+				.prepareStatement(STUDENT_ASSIGNMENTS)) {
+			preparedStatement.setString(1, name[0]);
+			preparedStatement.setString(2, name[1]);
+			
+			// Post2 Visit rows
+			return visitRows(preparedStatement.executeQuery(), 
+					StudentRow::new, visitor);
+		}
+		
+	}
+	
 	/**
 	 * Intent: Write assignment record.
 	 * 
@@ -475,14 +1041,18 @@ public class RecordManager {
 	 * the Assignment table.
 	 * Postcondition2 (Execute query): A row is inserted into the Assignment
 	 * table.
+	 * Postcondition3 (Assignment id): The generated id of the row is 
+	 * returned.
 	 * 
+	 * @return int assignment id
 	 * @throws SQLException
 	 */
-	private void writeAssignment() throws SQLException {
+	private int writeAssignment() throws SQLException {
 		
 		// Post1 Create query
 		PreparedStatement preparedStatement = connection
-				.prepareStatement(ASSIGNMENT_INSERT);
+				.prepareStatement(ASSIGNMENT_INSERT, 
+						Statement.RETURN_GENERATED_KEYS);
 		// Grader
 		preparedStatement.setString(1, assignment.getGrader());
 		
@@ -495,8 +1065,13 @@ public class RecordManager {
 		// Post2 Execute query
 		preparedStatement.executeUpdate();
 		
+		// Post3 Assignment id
+		int rowID = readGeneratedKey(preparedStatement);
+		
 		// Close resources
 		preparedStatement.close();
+		
+		return rowID;
 
 	}
 	
@@ -505,62 +1080,290 @@ public class RecordManager {
 	 * Intent: Write assignment data to various JGRAM database tables.
 	 * 
 	 * Postcondition1 (Previous assignment): If a previous assignment exists in
-	 * the JGRAM database, it is deleted.
+	 * the JGRAM database, the records of results whose document no longer 
+	 * exists are deleted and the other records are compared with the current
+	 * results by assignment name.
 	 * Postcondition2 (Assignment): The Assignment object is written to the
-	 * JGRAM database Assignment table.
+	 * JGRAM database Assignment table or the previous Assignment record is 
+	 * updated.
 	 * Postcondition3 (Assignment ID): The id of the Assignment record is 
 	 * retrieved for later use.
 	 * Postcondition4 (GradeMapping): The GradeMapping object is written to the
 	 * JGRAM database GradeMapping table.
-	 * Postcondition5 (Result): The Result object is written to the JGRAM 
-	 * database Result table and Checkpoint table. 
+	 * Postcondition5 (Result): Only the Result and Checkpoint rows that differ
+	 * from the current results are inserted, updated or deleted. Unchanged 
+	 * results keep their rows. The changed rows are counted.
+	 * Postcondition6 (Merkle tree): The signed root of the assignment and the
+	 * inclusion proofs of the results are updated.
+	 * Postcondition7 (Transaction): All records are written in one 
+	 * transaction so the database is synchronized to disk once.
+	 * Postcondition8 (Stats): The stats of the assignment are updated in the
+	 * same transaction if any Result row was written.
 	 * 
 	 * @throws SQLException
 	 */
-	public void writeAssignmentData() throws SQLException {
-				
+	public synchronized void writeAssignmentData() throws SQLException {
+		
+		// Post7 Transaction
+		runTransaction(this::writeAssignmentRecords);
+		
+	}
+	
+	/**
+	 * Intent: Write the records of writeAssignmentData.
+	 * 
+	 * @throws SQLException
+	 */
+	private void writeAssignmentRecords() throws SQLException {
+		
 		// Post1 Previous assignment
-		findPreviousAssignment();
+		Map<String, StoredResult> storedResults = new HashMap<>();
+		boolean previousFound = findPreviousAssignment(storedResults);
 		
 		// Post2 Assignment
-		writeAssignment();
-		
-		// Post3 Get Assignment ID
-		assignmentID = getRowID(ASSIGNMENT_ID, assignment.getAssignmentTitle());
+		if (previousFound) {
+			updateAssignment();
+		} else {
+			
+			// Post3 Get Assignment ID
+			assignmentID = writeAssignment();
+		}
 		
 		// Post4 GradeMapping
-		writeGradeMapping();
+		writeGradeMapping(assignment.getGradeMapping());
 		
 		// Post5 Result
-		writeResultData();
+		writeResultData(storedResults);
+		
+		// Post6 Merkle tree
+		writeMerkleRecords();
+		
+		// Post8 Stats
+		writeAssignmentStats();
 		
 	}
 	
 	/**
-	 * Intent: Write Checkpoint records.
+	 * Intent: Compare the stored checkpoints of a result that was graded 
+	 * again with its current checkpoints by position.
 	 * 
-	 * Postcondition1 (Checkpoint List): Each Checkpoint object is iterated
-	 * upon from the Result object's checkpoint list.
-	 * Postcondition2 (Create query): A query is created to insert the 
-	 * Checkpoint object as a row in the JGRAM database Checkpoint table.
-	 * Postcondition3 (Execute query): A row is inserted into the Checkpoint
-	 * table.
+	 * Postcondition1 (Changed checkpoints): A stored checkpoint whose weight,
+	 * grade, feedback or id differs is updated in place.
+	 * Postcondition2 (Removed checkpoints): Stored checkpoints beyond the 
+	 * current checkpoints are deleted.
+	 * Postcondition3 (Added checkpoints): Current checkpoints beyond the 
+	 * stored checkpoints are inserted.
+	 * Postcondition4 (Batch): The rows are added to the batches of the 
+	 * statements and counted. The caller executes the batches.
 	 * 
-	 * @param result
+	 * @param statements ResultStatements of the transaction
+	 * @param result Result object
+	 * @param resultID int id of the stored result
+	 * @throws SQLException
+	 */
+	private void writeCheckpointChanges(ResultStatements statements, 
+			Result result, int resultID) throws SQLException {
+		
+		List<Checkpoint> checkpointList = result.getCheckpointList();
+		int position = 0;
+		
+		statements.checkpointSelect.setInt(1, resultID);
+		try (ResultSet stored = statements.checkpointSelect.executeQuery()) {
+			for (; stored.next(); position++) {
+				
+				// Post2 Removed checkpoints
+				if (position >= checkpointList.size()) {
+					statements.checkpointDelete.setInt(1, stored.getInt(1));
+					statements.checkpointDelete.addBatch();
+					pendingCheckpointChanges.countRemoved(1);
+					continue;
+				}
+				
+				// Post1 Changed checkpoints
+				Checkpoint cp = checkpointList.get(position);
+				if (stored.getInt(2) != cp.getWeight() 
+						|| stored.getInt(3) != cp.getGrade()
+						|| !stored.getString(4).equals(cp.getFeedback())
+						|| stored.getInt(5) != cp.getID()) {
+					statements.checkpointUpdate.setInt(1, cp.getWeight());
+					statements.checkpointUpdate.setInt(2, cp.getGrade());
+					statements.checkpointUpdate.setString(3, 
+							cp.getFeedback());
+					statements.checkpointUpdate.setInt(4, cp.getID());
+					statements.checkpointUpdate.setInt(5, stored.getInt(1));
+					statements.checkpointUpdate.addBatch();
+					pendingCheckpointChanges.countChanged(1);
+				}
+			}
+		}
+		
+		// Post3 Added checkpoints
+		if (position < checkpointList.size()) {
+			writeCheckpoints(statements.checkpointInsert, checkpointList
+					.subList(position, checkpointList.size()), resultID);
+		}
+		
+	}
+	
+	/**
+	 * Intent: Write the stats and the grade sketch of the assignment. Called 
+	 * in the transaction that writes the results so that they are never out
+	 * of date.
+	 * 
+	 * Precondition1 (Changed results): Nothing is written if no Result row 
+	 * was added, changed or removed in the transaction.
+	 * 
+	 * Postcondition1 (Stats): The total grades the transaction added and 
+	 * removed are applied to the stored count, sum and sum of squares. The 
+	 * minimum and maximum are read again from the Result_grade index only if
+	 * a removed grade was an extreme.
+	 * Postcondition2 (Grade sketch): The stored GradeSketch of the assignment
+	 * is decoded, the removed total grades are taken out of it and the added
+	 * ones are put in. The sketch is only built from the results by the 
+	 * schema migration.
+	 * 
+	 * @throws SQLException
+	 */
+	private void writeAssignmentStats() throws SQLException {
+		
+		if (assignmentID == 0 || (pendingAddedGrades.isEmpty() 
+				&& pendingRemovedGrades.isEmpty())) {
+			return;
+		}
+		
+		// Post1 Stats
+		writeStats();
+		
+		// Post2 Grade sketch
+		GradeSketch sketch = new GradeSketch();
+		try (PreparedStatement preparedStatement = connection
+				.prepareStatement(STORED_SKETCH)) {
+			preparedStatement.setInt(1, assignmentID);
+			try (ResultSet results = preparedStatement.executeQuery()) {
+				if (results.next()) {
+					sketch = GradeSketch.decode(results.getBytes(1));
+				}
+			} catch (IllegalArgumentException e) {
+				throw new SQLException(e.getMessage(), e);
+			}
+		}
+		pendingRemovedGrades.forEach(sketch::remove);
+		pendingAddedGrades.forEach(sketch::add);
+		try (PreparedStatement preparedStatement = connection
+				.prepareStatement(SKETCH_UPSERT)) {
+			preparedStatement.setInt(1, assignmentID);
+			preparedStatement.setBytes(2, sketch.encode());
+			preparedStatement.executeUpdate();
+		}
+		
+	}
+	
+	/**
+	 * Intent: (writeAssignmentStats Post1) Apply the total grades of the 
+	 * transaction to the stats of the assignment.
+	 * 
+	 * @throws SQLException
+	 */
+	private void writeStats() throws SQLException {
+		
+		// Stored stats
+		int count = 0;
+		double sum = 0;
+		double sumSquares = 0;
+		Double minimum = null;
+		Double maximum = null;
+		try (PreparedStatement preparedStatement = connection
+				.prepareStatement(STORED_STATS)) {
+			preparedStatement.setInt(1, assignmentID);
+			try (ResultSet results = preparedStatement.executeQuery()) {
+				if (results.next()) {
+					count = results.getInt(1);
+					sum = results.getDouble(2);
+					sumSquares = results.getDouble(3);
+					minimum = results.getObject(4) == null ? null 
+							: results.getDouble(4);
+					maximum = results.getObject(5) == null ? null 
+							: results.getDouble(5);
+				}
+			}
+		}
+		
+		// Removed grades
+		boolean extremeRemoved = false;
+		for (double grade : pendingRemovedGrades) {
+			count--;
+			sum -= grade;
+			sumSquares -= grade * grade;
+			extremeRemoved |= minimum == null || grade <= minimum 
+					|| grade >= maximum;
+		}
+		
+		// Added grades
+		for (double grade : pendingAddedGrades) {
+			count++;
+			sum += grade;
+			sumSquares += grade * grade;
+			minimum = minimum == null ? grade : Math.min(minimum, grade);
+			maximum = maximum == null ? grade : Math.max(maximum, grade);
+		}
+		
+		// Extremes
+		if (count <= 0) {
+			count = 0;
+			sum = 0;
+			sumSquares = 0;
+			minimum = null;
+			maximum = null;
+			
+		} else if (extremeRemoved) {
+			try (PreparedStatement preparedStatement = connection
+					.prepareStatement(GRADE_EXTREMES)) {
+				preparedStatement.setInt(1, assignmentID);
+				preparedStatement.setInt(2, assignmentID);
+				try (ResultSet results = preparedStatement.executeQuery()) {
+					results.next();
+					minimum = results.getDouble(1);
+					maximum = results.getDouble(2);
+				}
+			}
+		}
+		
+		try (PreparedStatement preparedStatement = connection
+				.prepareStatement(STATS_UPSERT)) {
+			preparedStatement.setInt(1, assignmentID);
+			preparedStatement.setInt(2, count);
+			preparedStatement.setDouble(3, sum);
+			preparedStatement.setDouble(4, sumSquares);
+			preparedStatement.setObject(5, minimum);
+			preparedStatement.setObject(6, maximum);
+			preparedStatement.executeUpdate();
+		}
+		
+	}
+	
+	/**
+	 * Intent: Add Checkpoint records to a batch.
+	 * 
+	 * Postcondition1 (Checkpoint List): Each Checkpoint object of the list is
+	 * iterated upon.
+	 * Postcondition2 (Set parameters): The parameters of the insert statement
+	 * are set to the Checkpoint object.
+	 * Postcondition3 (Batch): A row is added to the batch of the statement
+	 * and counted. The caller executes the batch.
+	 * 
+	 * @param preparedStatement PreparedStatement of CP_INSERT
+	 * @param checkpointList List of Checkpoint objects of a result
 	 * @param resultID
 	 * @throws SQLException
 	 */
-	private void writeCheckpoints(Result result, int resultID) 
+	private void writeCheckpoints(PreparedStatement preparedStatement, 
+			List<Checkpoint> checkpointList, int resultID) 
 			throws SQLException {
 		
-		PreparedStatement preparedStatement = null;
-		
 		// Post1 Checkpoint list
-		for (Checkpoint cp : result.getCheckpointList()) {
+		for (Checkpoint cp : checkpointList) {
 			
-			// Post2 Create query
-			preparedStatement = connection
-					.prepareStatement(CP_INSERT);
+			// Post2 Set parameters
 			
 			// Weight
 			preparedStatement.setInt(1, cp.getWeight());
@@ -571,36 +1374,62 @@ public class RecordManager {
 			// Feedback
 			preparedStatement.setString(3, cp.getFeedback());
 			
+			// Checkpoint id
+			preparedStatement.setInt(4, cp.getID());
+			
 			// Result id
-			preparedStatement.setInt(4, resultID);
+			preparedStatement.setInt(5, resultID);
 			
-			// Post3 Execute query
-			preparedStatement.executeUpdate();
+			// Post3 Batch
+			preparedStatement.addBatch();
+			pendingCheckpointChanges.countAdded(1);
 		}
-		
-		// Close resources
-		preparedStatement.close();
 			
 	}
 	
+	/**
+	 * Intent: Write the assignment names of the current results to a 
+	 * temporary table so that previous results are compared with them in one
+	 * statement.
+	 * 
+	 * @throws SQLException
+	 */
+	private void writeCurrentNames() throws SQLException {
+		
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate(CURRENT_NAME_TABLE);
+			statement.executeUpdate(CLEAR_CURRENT_NAMES);
+		}
+		
+		try (PreparedStatement preparedStatement = connection
+				.prepareStatement(CURRENT_NAME_INSERT)) {
+			for (Result result : assignment.getResultList()) {
+				preparedStatement.setString(1, result.getAssignmentName());
+				preparedStatement.addBatch();
+			}
+			preparedStatement.executeBatch();
+		}
+		
+	}
+	
 	/**
 	 * Intent: Write grade mapping record.
 	 * 
 	 * Postcondition1 (Create query): A query is created to insert one row
 	 * for each grade mapping limit into the GradeMapping table.
-	 * Postcondition2 (Execute query): A row is inserted into the GradeMapping
-	 * table.
+	 * Postcondition2 (Execute query): The rows are inserted into the 
+	 * GradeMapping table as one batch.
 	 * 
+	 * @param gm GradeMapping object of the assignment
 	 * @throws SQLException
 	 */
-	private void writeGradeMapping() throws SQLException {
+	private void writeGradeMapping(GradeMapping gm) throws SQLException {
 		
 		// Post1 Create query
 		PreparedStatement preparedStatement = connection
 				.prepareStatement(GM_INSERT);
 		
 		// Limits
-		GradeMapping gm = assignment.getGradeMapping();
 		for (Map.Entry<String, Integer> entry : gm.getLimits().entrySet()) {
 			
 			int counter = 1;
@@ -613,32 +1442,94 @@ public class RecordManager {
 			
 			preparedStatement.setInt(counter, assignmentID);
 			
-			// Post2 Execute query
-			preparedStatement.executeUpdate();
+			preparedStatement.addBatch();
 			
 		}
 		
+		// Post2 Execute query
+		preparedStatement.executeBatch();
+		
 		// Close resources
 		preparedStatement.close();
 
 	}
 	
+	/**
+	 * Intent: Write the signed root of the assignment and the inclusion 
+	 * proofs of its results.
+	 * 
+	 * Precondition1 (Signed results): The results of the assignment have been
+	 * signed as a batch and the Assignment record has been written.
+	 * 
+	 * Postcondition1 (Signed root): The signed root is written to the 
+	 * Assignment record.
+	 * Postcondition2 (Proofs): The inclusion proof of each result is updated.
+	 * The proofs of results that were kept from a previous grading change 
+	 * when any other result of the assignment changes.
+	 * Postcondition3 (Transaction): The records are written in one 
+	 * transaction.
+	 * 
+	 * @throws SQLException
+	 */
+	public synchronized void writeMerkleTree() throws SQLException {
+		
+		// Post3 Transaction
+		runTransaction(this::writeMerkleRecords);
+		
+	}
+	
+	/**
+	 * Intent: Write the records of writeMerkleTree.
+	 * 
+	 * @throws SQLException
+	 */
+	private void writeMerkleRecords() throws SQLException {
+		
+		if (assignmentID == 0) {
+			return;
+		}
+		
+		// Post1 Signed root
+		PreparedStatement preparedStatement = connection
+				.prepareStatement(ROOT_UPDATE);
+		preparedStatement.setString(1, assignment.getSignedRoot());
+		preparedStatement.setInt(2, assignmentID);
+		preparedStatement.executeUpdate();
+		preparedStatement.close();
+		
+		// Post2 Proofs
+		preparedStatement = connection.prepareStatement(PROOF_UPDATE);
+		for (Result result : assignment.getResultList()) {
+			preparedStatement.setString(1, result.getProof());
+			preparedStatement.setInt(2, assignmentID);
+			preparedStatement.setString(3, result.getAssignmentName());
+			preparedStatement.addBatch();
+		}
+		preparedStatement.executeBatch();
+		
+		// Close resources
+		preparedStatement.close();
+		
+	}
+	
 	/**
 	 * Intent: Write result record.
 	 * 
-	 * Postcondition1 (Create query): A query is created to insert the Result
-	 * object parameter as a row in the JGRAM database Result table.
+	 * Postcondition1 (Set parameters): The parameters of the upsert statement
+	 * are set to the Result object parameter.
 	 * Postcondition2 (Execute query): A row is inserted into the Result
-	 * table.
+	 * table or the row of the result with the same assignment name is 
+	 * updated in place.
 	 * 
+	 * @param preparedStatement PreparedStatement of RESULT_UPSERT that 
+	 * returns generated keys
 	 * @param result
 	 * @throws SQLException
 	 */
-	private void writeResult(Result result) throws SQLException {
+	private void writeResult(PreparedStatement preparedStatement, 
+			Result result) throws SQLException {
 		
-		// Post2 Create query
-		PreparedStatement preparedStatement = connection
-				.prepareStatement(RESULT_INSERT);
+		// Post1 Set parameters
 		
 		// First name
 		preparedStatement.setString(1, result.getStudentFirstName());
@@ -655,45 +1546,176 @@ public class RecordManager {
 		// Hash string
 		preparedStatement.setString(5, result.getHashString());
 		
+		// Fingerprint
+		preparedStatement.setString(6, result.getFingerprint());
+		
+		// Inclusion proof
+		preparedStatement.setString(7, result.getProof());
+		
 		// Assignment id
-		preparedStatement.setInt(6, assignmentID);
+		preparedStatement.setInt(8, assignmentID);
 		
 		// Post2 Execute query
 		preparedStatement.executeUpdate();
 		
-		// Close resources
-		preparedStatement.close();
 	}
 	
 	/**
-	 * Intent: Write result record.
+	 * Intent: Write the rows of a result that differ from its stored rows.
 	 * 
-	 * Postcondition1 (Result list): Each Result object is iterated upon from
-	 * the Assignment object's result list.
-	 * Postcondition2 (Write result): A row is inserted into the Result
-	 * table for each Result object.
-	 * Postcondition3 (Get result id): The previous Result record id is 
-	 * retrieved and stored for later use.
-	 * Postcondition4 (Write checkpoints): All Checkpoint objects contained as a
-	 * list in the Result object are written to the Checkpoint table.
+	 * Postcondition1 (Unchanged result): A result whose hash string matches 
+	 * the stored result was reused without being graded again and its rows
+	 * are kept.
+	 * Postcondition2 (Upsert): The Result row is inserted, or updated in 
+	 * place if the result was graded before so that it keeps its id.
+	 * Postcondition3 (Checkpoints): The checkpoints of a new result are added
+	 * to the insert batch. The checkpoints of a result that was graded before
+	 * are compared with its stored checkpoints.
+	 * Postcondition4 (Count): The Result row is counted as added or changed.
+	 * Its total grade is added to the grades of the transaction and the 
+	 * total grade it replaces is removed.
 	 * 
+	 * @param statements ResultStatements of the transaction
+	 * @param result Result object
+	 * @param stored StoredResult with the same assignment name or null
 	 * @throws SQLException
 	 */
-	private void writeResultData() throws SQLException {
+	private void writeResultChanges(ResultStatements statements, 
+			Result result, StoredResult stored) throws SQLException {
 		
-		// Post1 Result list
-		for (Result result : assignment.getResultList()) {
+		// Post1 Unchanged result
+		if (stored != null 
+				&& stored.hashString.equals(result.getHashString())) {
+			return;
+		}
+		
+		// Post2 Upsert
+		writeResult(statements.resultUpsert, result);
+		
+		if (stored == null) {
+			
+			// Post3 Checkpoints and Post4 Count
+			int resultID = readGeneratedKey(statements.resultUpsert);
+			writeCheckpoints(statements.checkpointInsert, 
+					result.getCheckpointList(), resultID);
+			pendingResultChanges.countAdded(1);
 			
-			// Post2 Write result
-			writeResult(result);
+		} else {
+			
+			// Post3 Checkpoints and Post4 Count
+			writeCheckpointChanges(statements, result, stored.resultID);
+			pendingResultChanges.countChanged(1);
+			pendingRemovedGrades.add(stored.totalGrade);
+		}
+		pendingAddedGrades.add((double) result.getTotalGrade());
+		
+	}
+	
+	/**
+	 * Intent: Write result records.
+	 * 
+	 * Postcondition1 (Result list): Each Result object is iterated upon from
+	 * the Assignment object's result list and compared with the stored 
+	 * result of the same assignment name.
+	 * Postcondition2 (Write result): The rows that differ are written with 
+	 * statements that are prepared once.
+	 * Postcondition3 (Write checkpoints): The checkpoint rows of all results
+	 * are written as batches after the results.
+	 * 
+	 * @param storedResults Map of assignment names to stored results
+	 * @throws SQLException
+	 */
+	private void writeResultData(Map<String, StoredResult> storedResults) 
+			throws SQLException {
+		
+		try (ResultStatements statements = new ResultStatements()) {
 			
-			// Post3 Get result id
-			int resultID = getRowID(RESULT_ID, result.getAssignmentName());
+			// Post1 Result list
+			for (Result result : assignment.getResultList()) {
+				
+				// Post2 Write result
+				writeResultChanges(statements, result, storedResults.get(
+						result.getAssignmentName()));
+			}
 			
-			// Post4 Write checkpoints
-			writeCheckpoints(result, resultID);
+			// Post3 Write checkpoints
+			statements.executeBatches();
 		}
 
 	}
- 
+	
+	/**
+	 * Intent: The statements that write the rows of results in a 
+	 * transaction. They are prepared once and closed with the transaction.
+	 */
+	private final class ResultStatements implements AutoCloseable {
+		
+		// Instance variable(s)
+		private final PreparedStatement resultUpsert;
+		private final PreparedStatement checkpointSelect;
+		private final PreparedStatement checkpointInsert;
+		private final PreparedStatement checkpointUpdate;
+		private final PreparedStatement checkpointDelete;
+		
+		// Constructor(s)
+		private ResultStatements() throws SQLException {
+			resultUpsert = connection.prepareStatement(RESULT_UPSERT, 
+					Statement.RETURN_GENERATED_KEYS);
+			checkpointSelect = connection.prepareStatement(
+					STORED_CHECKPOINTS);
+			checkpointInsert = connection.prepareStatement(CP_INSERT);
+			checkpointUpdate = connection.prepareStatement(CP_UPDATE);
+			checkpointDelete = connection.prepareStatement(DELETE_CHECKPOINT);
+		}
+		
+		@Override
+		public void close() throws SQLException {
+			for (PreparedStatement preparedStatement : new PreparedStatement[] 
+					{resultUpsert, checkpointSelect, checkpointInsert, 
+					checkpointUpdate, checkpointDelete}) {
+				preparedStatement.close();
+			}
+		}
+		
+		/**
+		 * Intent: Execute the batches of checkpoint rows.
+		 * 
+		 * @throws SQLException
+		 */
+		private void executeBatches() throws SQLException {
+			checkpointInsert.executeBatch();
+			checkpointUpdate.executeBatch();
+			checkpointDelete.executeBatch();
+		}
+		
+	}
+	
+	/**
+	 * Intent: The id, hash string and total grade of a stored result.
+	 */
+	private static final class StoredResult {
+		
+		// Instance variable(s)
+		private final int resultID;
+		private final String hashString;
+		private final double totalGrade;
+		
+		// Constructor(s)
+		private StoredResult(int inputResultID, String inputHashString, 
+				double inputTotalGrade) {
+			resultID = inputResultID;
+			hashString = inputHashString;
+			totalGrade = inputTotalGrade;
+		}
+		
+	}
+	
+	/**
+	 * Intent: A unit of work that writes records in a transaction.
+	 */
+	@FunctionalInterface
+	private interface Transaction {
+		void run() throws SQLException;
+	}
+	
 }
@@ -0,0 +1,166 @@
+package jgram.storage;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import jgram.assessment.Result;
+
+/**
+ * Intent: Write graded results to the JGRAM database from one writer Thread
+ * while documents are still being graded.
+ *
+ * Precondition1 (Open connection): The connection of the RecordManager is
+ * open until the ResultWriter is closed.
+ *
+ * Postcondition1 (Bounded queue): Results are handed to the writer through a
+ * bounded queue. A grading Thread waits when the queue is full so that
+ * results do not pile up in memory.
+ * Postcondition2 (Group commit): The writer takes every result that is
+ * waiting, up to the batch size, and writes them in one transaction.
+ * Postcondition3 (Failure): If a batch cannot be written, later results are
+ * discarded and the SQLException is thrown by submit and close.
+ * Postcondition4 (Close): Close waits until every submitted result has been
+ * written.
+ */
+public class ResultWriter implements AutoCloseable {
+
+	// Class constant(s)
+	public static final int DEFAULT_CAPACITY = 64;
+	public static final int DEFAULT_BATCH_SIZE = 32;
+	// Marks the end of the queue
+	private static final PendingResult END = new PendingResult(null);
+
+	// Instance variable(s)
+	private final RecordManager recordManager;
+	private final BlockingQueue<PendingResult> queue;
+	private final int batchSize;
+	private final Thread writerThread;
+	private volatile SQLException failure;
+
+	// Constructor(s)
+	public ResultWriter(RecordManager inputRecordManager) {
+		this(inputRecordManager, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+	}
+
+	public ResultWriter(RecordManager inputRecordManager, int capacity,
+			int inputBatchSize) {
+
+		recordManager = inputRecordManager;
+		queue = new ArrayBlockingQueue<>(capacity);
+		batchSize = inputBatchSize;
+		writerThread = new Thread(this::writeResults, "JGRAM result writer");
+		writerThread.start();
+
+	}
+
+	/**
+	 * Intent: (Post4) Wait until every submitted result has been written and
+	 * stop the writer Thread.
+	 *
+	 * @throws SQLException if a result could not be written or the wait was
+	 * interrupted
+	 */
+	@Override
+	public void close() throws SQLException {
+
+		try {
+			queue.put(END);
+			writerThread.join();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while saving results.", e);
+		}
+
+		throwFailure();
+
+	}
+
+	/**
+	 * Intent: (Post1) Queue a graded result to be written. Waits while the
+	 * queue is full.
+	 *
+	 * @param result Result object
+	 * @throws SQLException if an earlier result could not be written or the
+	 * wait was interrupted
+	 */
+	public void submit(Result result) throws SQLException {
+
+		throwFailure();
+		try {
+			queue.put(new PendingResult(result));
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while saving result.", e);
+		}
+
+	}
+
+	/**
+	 * Intent: (Post3) Throw the SQLException of a batch that could not be
+	 * written.
+	 *
+	 * @throws SQLException
+	 */
+	private void throwFailure() throws SQLException {
+
+		if (failure != null) {
+			throw failure;
+		}
+
+	}
+
+	/**
+	 * Intent: (Post2) Take results from the queue and write them in batches
+	 * until the end of the queue is reached. Runs on the writer Thread.
+	 */
+	private void writeResults() {
+
+		List<PendingResult> batch = new ArrayList<>(batchSize);
+		boolean end = false;
+		while (!end) {
+
+			// Wait for a result and take the results that are waiting
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				failure = new SQLException("Result writer was interrupted.",
+						e);
+				return;
+			}
+			queue.drainTo(batch, batchSize - 1);
+
+			end = batch.remove(END);
+			if (!batch.isEmpty() && failure == null) {
+				try {
+					recordManager.persistResults(batch);
+				} catch (SQLException e) {
+					failure = e;
+				}
+			}
+			batch.clear();
+		}
+
+	}
+
+	/**
+	 * Intent: A graded result waiting to be written. Results are wrapped so
+	 * that the end of the queue is found by identity.
+	 */
+	static final class PendingResult {
+
+		// Instance variable(s)
+		final Result result;
+
+		// Constructor(s)
+		PendingResult(Result inputResult) {
+			result = inputResult;
+		}
+
+	}
+
+}
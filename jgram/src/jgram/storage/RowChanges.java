@@ -0,0 +1,102 @@
+package jgram.storage;
+
+/**
+ * Intent: Count the rows of a table that were added, changed and removed
+ * while grading results were saved.
+ *
+ * Postcondition1 (Committed rows): Only rows of committed transactions are
+ * counted.
+ */
+public final class RowChanges {
+
+	// Instance variable(s)
+	private int added;
+	private int changed;
+	private int removed;
+
+	// Constructor(s)
+	RowChanges() {}
+
+	/**
+	 * Intent: Add the counts of another RowChanges object to this one.
+	 *
+	 * @param other RowChanges object
+	 */
+	void add(RowChanges other) {
+
+		added += other.added;
+		changed += other.changed;
+		removed += other.removed;
+
+	}
+
+	/**
+	 * Intent: Count rows that were inserted.
+	 *
+	 * @param rows int number of rows
+	 */
+	void countAdded(int rows) {
+		added += rows;
+	}
+
+	/**
+	 * Intent: Count rows that were updated in place.
+	 *
+	 * @param rows int number of rows
+	 */
+	void countChanged(int rows) {
+		changed += rows;
+	}
+
+	/**
+	 * Intent: Count rows that were deleted.
+	 *
+	 * @param rows int number of rows
+	 */
+	void countRemoved(int rows) {
+		removed += rows;
+	}
+
+	/**
+	 * Intent: Return true if no row was counted.
+	 *
+	 * @return boolean
+	 */
+	boolean isEmpty() {
+		return added == 0 && changed == 0 && removed == 0;
+	}
+
+	/**
+	 * Intent: Return the number of rows that were inserted.
+	 *
+	 * @return int
+	 */
+	public int getAdded() {
+		return added;
+	}
+
+	/**
+	 * Intent: Return the number of rows that were updated in place.
+	 *
+	 * @return int
+	 */
+	public int getChanged() {
+		return changed;
+	}
+
+	/**
+	 * Intent: Return the number of rows that were deleted.
+	 *
+	 * @return int
+	 */
+	public int getRemoved() {
+		return removed;
+	}
+
+	@Override
+	public String toString() {
+		return added + " added, " + changed + " changed, " + removed
+				+ " removed";
+	}
+
+}
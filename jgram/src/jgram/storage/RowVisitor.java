@@ -0,0 +1,23 @@
+package jgram.storage;
+
+import java.sql.SQLException;
+
+/**
+ * Intent: Receive the rows of a report query one at a time while the cursor
+ * of the query is open. The row object is reused for every row and is only
+ * valid during the call.
+ *
+ * @param <T> type of the row
+ */
+@FunctionalInterface
+public interface RowVisitor<T> {
+
+	/**
+	 * Intent: Visit the current row of a report query.
+	 *
+	 * @param row row object positioned on the current row
+	 * @throws SQLException if a column could not be read
+	 */
+	void visit(T row) throws SQLException;
+
+}
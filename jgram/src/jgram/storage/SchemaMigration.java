@@ -0,0 +1,459 @@
+package jgram.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Intent: Upgrade the schema of a JGRAM database to the version this release
+ * uses. The version of a database is stored in its user_version pragma and is
+ * the number of migrations that have been applied to it.
+ *
+ * Postcondition1 (Ordered migrations): Migrations are applied in order from
+ * the version of the database to the latest version. A database that is
+ * already at the latest version is not changed.
+ * Postcondition2 (Transaction): Each migration and the new version are
+ * written in one transaction so a failed migration leaves the database at
+ * the previous version.
+ * Postcondition3 (Foreign keys): Foreign key enforcement is turned off while
+ * tables are rebuilt. The caller turns it on afterwards.
+ *
+ * References:
+ * SQLite. (2020). ALTER TABLE: Making Other Kinds Of Table Schema Changes.
+ * Retrieved from SQLite: https://www.sqlite.org/lang_altertable.html
+ */
+class SchemaMigration {
+
+	// Class constant(s)
+	private static final String USER_VERSION = "PRAGMA user_version;";
+	private static final String SET_USER_VERSION = "PRAGMA user_version = ";
+	private static final String FOREIGN_KEYS_OFF = "PRAGMA foreign_keys = "
+			+ "OFF;";
+
+	// Version 1: columns added after the database was first released
+	private static final String RESULT_COLUMNS = "PRAGMA table_info(Result);";
+	private static final String ASSIGNMENT_COLUMNS = "PRAGMA "
+			+ "table_info(Assignment);";
+	private static final String ADD_FINGERPRINT = "ALTER TABLE Result ADD "
+			+ "COLUMN fingerprint VARCHAR NULL;";
+	private static final String ADD_MERKLE_PROOF = "ALTER TABLE Result ADD "
+			+ "COLUMN merkle_proof VARCHAR NULL;";
+	private static final String ADD_MERKLE_ROOT = "ALTER TABLE Assignment "
+			+ "ADD COLUMN merkle_root VARCHAR NULL;";
+
+	// Version 2: tables rebuilt with cascading foreign keys
+	private static final String[] CASCADE_TABLES = {
+			"CREATE TABLE Assignment_new ("
+			+ "assignment_id INTEGER PRIMARY KEY, "
+			+ "grader VARCHAR NOT NULL, "
+			+ "assignment_title VARCHAR NOT NULL, "
+			+ "location VARCHAR NOT NULL, "
+			+ "merkle_root VARCHAR NULL);",
+			"CREATE TABLE GradeMapping_new ("
+			+ "gm_id INTEGER PRIMARY KEY, "
+			+ "letter CHARACTER NULL, "
+			+ "num INTEGER NULL, "
+			+ "a_id INTEGER NOT NULL, "
+			+ "FOREIGN KEY (a_id) REFERENCES Assignment(assignment_id) "
+			+ "ON DELETE CASCADE);",
+			"CREATE TABLE Result_new ("
+			+ "result_id INTEGER PRIMARY KEY, "
+			+ "student_fname VARCHAR NOT NULL, "
+			+ "student_lname VARCHAR NOT NULL, "
+			+ "assignment_name VARCHAR NOT NULL, "
+			+ "total_grade INTEGER NOT NULL, "
+			+ "hash_string VARCHAR NOT NULL, "
+			+ "a_id INTEGER NOT NULL, "
+			+ "fingerprint VARCHAR NULL, "
+			+ "merkle_proof VARCHAR NULL, "
+			+ "FOREIGN KEY (a_id) REFERENCES Assignment(assignment_id) "
+			+ "ON DELETE CASCADE);",
+			"CREATE TABLE Checkpoint_new ("
+			+ "cp_id INTEGER PRIMARY KEY, "
+			+ "weight INTEGER NOT NULL, "
+			+ "grade INTEGER NOT NULL, "
+			+ "feedback VARCHAR NOT NULL, "
+			+ "r_id INTEGER NOT NULL, "
+			+ "FOREIGN KEY (r_id) REFERENCES Result(result_id) "
+			+ "ON DELETE CASCADE);",
+			"INSERT INTO Assignment_new (assignment_id, grader, "
+			+ "assignment_title, location, merkle_root) SELECT assignment_id, "
+			+ "grader, assignment_title, location, merkle_root FROM "
+			+ "Assignment;",
+			"INSERT INTO GradeMapping_new (gm_id, letter, num, a_id) SELECT "
+			+ "gm_id, letter, num, a_id FROM GradeMapping;",
+			"INSERT INTO Result_new (result_id, student_fname, student_lname, "
+			+ "assignment_name, total_grade, hash_string, a_id, fingerprint, "
+			+ "merkle_proof) SELECT result_id, student_fname, student_lname, "
+			+ "assignment_name, total_grade, hash_string, a_id, fingerprint, "
+			+ "merkle_proof FROM Result;",
+			"INSERT INTO Checkpoint_new (cp_id, weight, grade, feedback, r_id) "
+			+ "SELECT cp_id, weight, grade, feedback, r_id FROM Checkpoint;",
+			"DROP TABLE Checkpoint;",
+			"DROP TABLE Result;",
+			"DROP TABLE GradeMapping;",
+			"DROP TABLE Assignment;",
+			"ALTER TABLE Assignment_new RENAME TO Assignment;",
+			"ALTER TABLE GradeMapping_new RENAME TO GradeMapping;",
+			"ALTER TABLE Result_new RENAME TO Result;",
+			"ALTER TABLE Checkpoint_new RENAME TO Checkpoint;"
+	};
+
+	// Version 3: indexes for the lookups of RecordManager
+	private static final String[] INDEXES = {
+			// ASSIGNMENT_ID, PREVIOUS_RESULTS and SIGNED_ROOT
+			"CREATE INDEX IF NOT EXISTS Assignment_title ON "
+			+ "Assignment (assignment_title);",
+			// HASH_STRING is answered from the index alone
+			"CREATE INDEX IF NOT EXISTS Result_name_hash ON "
+			+ "Result (assignment_name, hash_string);",
+			// PROOF_UPDATE, STORED_RESULT and the a_id joins
+			"CREATE INDEX IF NOT EXISTS Result_assignment_name ON "
+			+ "Result (a_id, assignment_name);",
+			// STUDENT_ASSIGNMENTS
+			"CREATE INDEX IF NOT EXISTS Result_student ON "
+			+ "Result (student_lname, student_fname);",
+			// Checkpoint joins and cascading deletes of results
+			"CREATE INDEX IF NOT EXISTS Checkpoint_result ON "
+			+ "Checkpoint (r_id);",
+			// DELETE_GRADEMAPPING and cascading deletes of assignments
+			"CREATE INDEX IF NOT EXISTS GradeMapping_assignment ON "
+			+ "GradeMapping (a_id);"
+	};
+
+	// Version 4: one result per document of an assignment so that results
+	// are upserted by assignment name
+	private static final String[] UNIQUE_RESULT_NAMES = {
+			// Move all but the latest of duplicate results to backup tables
+			"CREATE TABLE DuplicateResult AS SELECT * FROM Result WHERE "
+			+ "result_id NOT IN (SELECT max(result_id) FROM Result GROUP BY "
+			+ "a_id, assignment_name);",
+			"CREATE TABLE DuplicateCheckpoint AS SELECT * FROM Checkpoint "
+			+ "WHERE r_id IN (SELECT result_id FROM DuplicateResult);",
+			"DELETE FROM Result WHERE result_id IN (SELECT result_id FROM "
+			+ "DuplicateResult);",
+			// Foreign keys are off so checkpoints are not deleted by cascade
+			"DELETE FROM Checkpoint WHERE r_id NOT IN (SELECT result_id FROM "
+			+ "Result);",
+			"DROP INDEX IF EXISTS Result_assignment_name;",
+			"CREATE UNIQUE INDEX Result_assignment_name ON "
+			+ "Result (a_id, assignment_name);"
+	};
+	private static final String DUPLICATE_COUNT = "SELECT count(*) FROM "
+			+ "DuplicateResult;";
+	private static final String[] DROP_DUPLICATE_TABLES = {
+			"DROP TABLE DuplicateResult;",
+			"DROP TABLE DuplicateCheckpoint;"
+	};
+
+	// Version 5: statistics of the results of each assignment that are kept
+	// up to date when results are written
+	private static final String[] ASSIGNMENT_STATS = {
+			"CREATE TABLE AssignmentStats ("
+			+ "a_id INTEGER PRIMARY KEY, "
+			+ "result_count INTEGER NOT NULL, "
+			+ "grade_sum REAL NULL, "
+			+ "grade_sum_squares REAL NULL, "
+			+ "min_grade REAL NULL, "
+			+ "max_grade REAL NULL, "
+			+ "FOREIGN KEY (a_id) REFERENCES Assignment(assignment_id) "
+			+ "ON DELETE CASCADE);",
+			"INSERT INTO AssignmentStats (a_id, result_count, grade_sum, "
+			+ "grade_sum_squares, min_grade, max_grade) SELECT a_id, count(*), "
+			+ "sum(total_grade), sum(total_grade * total_grade), "
+			+ "min(total_grade), max(total_grade) FROM Result GROUP BY a_id;"
+	};
+
+	// Version 6: grade sketches of each assignment
+	private static final String GRADE_SKETCH_TABLE = "CREATE TABLE "
+			+ "GradeSketch ("
+			+ "a_id INTEGER PRIMARY KEY, "
+			+ "sketch BLOB NOT NULL, "
+			+ "FOREIGN KEY (a_id) REFERENCES Assignment(assignment_id) "
+			+ "ON DELETE CASCADE);";
+	private static final String RESULT_GRADES = "SELECT a_id, total_grade "
+			+ "FROM Result ORDER BY a_id;";
+	private static final String GRADE_SKETCH_INSERT = "INSERT INTO "
+			+ "GradeSketch (a_id, sketch) VALUES (?, ?);";
+
+	// Version 7: the id of each checkpoint in its document. Checkpoints that
+	// were written before are numbered by their position in the result.
+	private static final String[] CHECKPOINT_NUMBERS = {
+			"ALTER TABLE Checkpoint ADD COLUMN cp_number INTEGER NULL;",
+			"UPDATE Checkpoint SET cp_number = (SELECT count(*) FROM "
+			+ "Checkpoint AS previous WHERE previous.r_id = Checkpoint.r_id "
+			+ "AND previous.cp_id <= Checkpoint.cp_id);"
+	};
+
+	// Version 8: the extremes of the total grades of an assignment are read
+	// from the ends of an index when an extreme result is removed
+	private static final String GRADE_INDEX = "CREATE INDEX IF NOT EXISTS "
+			+ "Result_grade ON Result (a_id, total_grade);";
+
+	// Version 9: grade sketches rebuilt with a grade counted in the bin that
+	// starts at or below it instead of the nearest bin
+	private static final String CLEAR_GRADE_SKETCHES = "DELETE FROM "
+			+ "GradeSketch;";
+
+	// Migration n upgrades a database from version n to version n + 1
+	private static final List<Migration> MIGRATIONS = List.of(
+			SchemaMigration::addColumns,
+			statement -> executeAll(statement, CASCADE_TABLES),
+			statement -> executeAll(statement, INDEXES),
+			SchemaMigration::uniqueResultNames,
+			statement -> executeAll(statement, ASSIGNMENT_STATS),
+			SchemaMigration::addGradeSketches,
+			statement -> executeAll(statement, CHECKPOINT_NUMBERS),
+			statement -> statement.executeUpdate(GRADE_INDEX),
+			SchemaMigration::rebuildGradeSketches);
+	static final int LATEST_VERSION = MIGRATIONS.size();
+
+	// Constructor(s)
+	private SchemaMigration() {}
+
+	/**
+	 * Intent: Add the fingerprint, merkle_proof and merkle_root columns if a
+	 * database is missing them. Databases that were opened by an earlier
+	 * release may already have some of them.
+	 *
+	 * @param statement Statement object
+	 * @throws SQLException
+	 */
+	private static void addColumns(Statement statement) throws SQLException {
+
+		Set<String> resultColumns = selectColumns(statement, RESULT_COLUMNS);
+		Set<String> assignmentColumns = selectColumns(statement,
+				ASSIGNMENT_COLUMNS);
+
+		if (!resultColumns.contains("fingerprint")) {
+			statement.executeUpdate(ADD_FINGERPRINT);
+		}
+		if (!resultColumns.contains("merkle_proof")) {
+			statement.executeUpdate(ADD_MERKLE_PROOF);
+		}
+		if (!assignmentColumns.contains("merkle_root")) {
+			statement.executeUpdate(ADD_MERKLE_ROOT);
+		}
+
+	}
+
+	/**
+	 * Intent: Make the assignment names of the results of an assignment
+	 * unique. Duplicate results and their checkpoints are kept in the
+	 * DuplicateResult and DuplicateCheckpoint tables and the user is told how
+	 * many were moved. The backup tables are dropped if there were none.
+	 *
+	 * @param statement Statement object
+	 * @throws SQLException
+	 */
+	private static void uniqueResultNames(Statement statement)
+			throws SQLException {
+
+		executeAll(statement, UNIQUE_RESULT_NAMES);
+
+		int duplicateCount;
+		try (ResultSet results = statement.executeQuery(DUPLICATE_COUNT)) {
+			duplicateCount = results.getInt(1);
+		}
+
+		if (duplicateCount == 0) {
+			executeAll(statement, DROP_DUPLICATE_TABLES);
+		} else {
+			synchronized(System.out) {
+				System.out.println("\nNOTICE: " + duplicateCount + " older "
+						+ "results of documents that were graded more than "
+						+ "once were moved to the DuplicateResult and "
+						+ "DuplicateCheckpoint tables.");
+			}
+		}
+
+	}
+
+	/**
+	 * Intent: Create the GradeSketch table and write the sketch of each
+	 * assignment that has results.
+	 *
+	 * @param statement Statement object
+	 * @throws SQLException
+	 */
+	private static void addGradeSketches(Statement statement)
+			throws SQLException {
+
+		statement.executeUpdate(GRADE_SKETCH_TABLE);
+		writeGradeSketches(statement);
+
+	}
+
+	/**
+	 * Intent: Replace the sketch of each assignment with a sketch of its
+	 * results in the current bins.
+	 *
+	 * @param statement Statement object
+	 * @throws SQLException
+	 */
+	private static void rebuildGradeSketches(Statement statement)
+			throws SQLException {
+
+		statement.executeUpdate(CLEAR_GRADE_SKETCHES);
+		writeGradeSketches(statement);
+
+	}
+
+	/**
+	 * Intent: Write the sketch of each assignment that has results. The
+	 * grades are read in one pass ordered by assignment.
+	 *
+	 * @param statement Statement object
+	 * @throws SQLException
+	 */
+	private static void writeGradeSketches(Statement statement)
+			throws SQLException {
+
+		try (PreparedStatement insert = statement.getConnection()
+					.prepareStatement(GRADE_SKETCH_INSERT);
+				ResultSet results = statement.executeQuery(RESULT_GRADES)) {
+
+			GradeSketch sketch = null;
+			int assignmentID = 0;
+			while (results.next()) {
+				if (sketch == null || results.getInt(1) != assignmentID) {
+					addSketch(insert, assignmentID, sketch);
+					assignmentID = results.getInt(1);
+					sketch = new GradeSketch();
+				}
+				sketch.add(results.getDouble(2));
+			}
+			addSketch(insert, assignmentID, sketch);
+			insert.executeBatch();
+		}
+
+	}
+
+	/**
+	 * Intent: Add the sketch of an assignment to the insert batch.
+	 *
+	 * @param insert PreparedStatement of GRADE_SKETCH_INSERT
+	 * @param assignmentID int assignment id
+	 * @param sketch GradeSketch object or null if there is none
+	 * @throws SQLException
+	 */
+	private static void addSketch(PreparedStatement insert, int assignmentID,
+			GradeSketch sketch) throws SQLException {
+
+		if (sketch != null) {
+			insert.setInt(1, assignmentID);
+			insert.setBytes(2, sketch.encode());
+			insert.addBatch();
+		}
+
+	}
+
+	/**
+	 * Intent: Execute each statement of a migration in order.
+	 *
+	 * @param statement Statement object
+	 * @param sql String array of statements
+	 * @throws SQLException
+	 */
+	private static void executeAll(Statement statement, String[] sql)
+			throws SQLException {
+
+		for (String update : sql) {
+			statement.executeUpdate(update);
+		}
+
+	}
+
+	/**
+	 * Intent: Apply the migrations a database is missing.
+	 *
+	 * Precondition1 (Auto-commit): The connection is in auto-commit mode.
+	 *
+	 * @param connection Connection to the JGRAM database
+	 * @throws SQLException if a migration fails
+	 */
+	static void migrate(Connection connection) throws SQLException {
+
+		try (Statement statement = connection.createStatement()) {
+
+			int version = selectVersion(statement);
+			if (version >= LATEST_VERSION) {
+				return;
+			}
+
+			// Post3 Foreign keys
+			statement.executeUpdate(FOREIGN_KEYS_OFF);
+
+			// Post1 Ordered migrations
+			for (; version < LATEST_VERSION; version++) {
+
+				// Post2 Transaction
+				connection.setAutoCommit(false);
+				try {
+					MIGRATIONS.get(version).apply(statement);
+					statement.executeUpdate(SET_USER_VERSION + (version + 1));
+					connection.commit();
+
+				} catch (SQLException e) {
+					connection.rollback();
+					throw e;
+
+				} finally {
+					connection.setAutoCommit(true);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Intent: Return the names of the columns of a table.
+	 *
+	 * @param statement Statement object
+	 * @param sql String table_info pragma of the table
+	 * @return Set of column names
+	 * @throws SQLException
+	 */
+	private static Set<String> selectColumns(Statement statement, String sql)
+			throws SQLException {
+
+		Set<String> columns = new HashSet<>();
+		try (ResultSet results = statement.executeQuery(sql)) {
+			while (results.next()) {
+				columns.add(results.getString("name"));
+			}
+		}
+
+		return columns;
+
+	}
+
+	/**
+	 * Intent: Return the schema version of the database.
+	 *
+	 * @param statement Statement object
+	 * @return int user_version of the database
+	 * @throws SQLException
+	 */
+	static int selectVersion(Statement statement) throws SQLException {
+
+		try (ResultSet results = statement.executeQuery(USER_VERSION)) {
+			return results.next() ? results.getInt(1) : 0;
+		}
+
+	}
+
+	/**
+	 * Intent: A migration that upgrades the schema by one version.
+	 */
+	@FunctionalInterface
+	private interface Migration {
+		void apply(Statement statement) throws SQLException;
+	}
+
+}
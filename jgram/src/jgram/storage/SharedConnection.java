@@ -0,0 +1,190 @@
+package jgram.storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Intent: Hold the connections to a JGRAM database that are shared by every
+ * RecordManager object of the process. The connections are opened the first
+ * time the database is used and stay open until closeAll is called.
+ *
+ * Postcondition1 (Write-ahead log): The database uses a write-ahead log so
+ * that reports read the last committed data while results are written.
+ * Postcondition2 (Writer): One connection writes records. Transactions of
+ * different RecordManager objects are serialized on it.
+ * Postcondition3 (Reader): One read only connection serves reports and
+ * tamper lookups without waiting for the writer.
+ * Postcondition4 (Tuned pragmas): Both connections sync only at checkpoints,
+ * use a larger page cache, memory map the database and keep temporary
+ * tables in memory.
+ *
+ * References:
+ * SQLite. (2020). Write-Ahead Logging. Retrieved from SQLite: https://www.sqlite.org/wal.html
+ */
+final class SharedConnection {
+
+	// Class constant(s)
+	private static final String JOURNAL_MODE = "PRAGMA journal_mode = WAL;";
+	private static final String[] PRAGMAS = {
+			// A committed transaction is durable after the next checkpoint
+			"PRAGMA synchronous = NORMAL;",
+			// 8 MiB page cache
+			"PRAGMA cache_size = -8192;",
+			// 256 MiB memory map
+			"PRAGMA mmap_size = 268435456;",
+			"PRAGMA temp_store = MEMORY;",
+			// Wait for a checkpoint or another process instead of failing
+			"PRAGMA busy_timeout = 5000;"
+	};
+	private static final String FOREIGN_KEYS_ON = "PRAGMA foreign_keys = "
+			+ "ON;";
+	private static final String QUERY_ONLY = "PRAGMA query_only = ON;";
+
+	// Class variable(s)
+	private static final Map<String, SharedConnection> CONNECTIONS =
+			new HashMap<>();
+
+	static {
+		// Checkpoint the write-ahead log when the process exits
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				closeAll();
+			} catch (SQLException e) {
+				System.out.println("\nCould not close the JGRAM database.");
+			}
+		}));
+	}
+
+	// Instance variable(s)
+	private final Connection writer;
+	private final Connection reader;
+
+	// Constructor(s)
+	private SharedConnection(Connection inputWriter, Connection inputReader) {
+		writer = inputWriter;
+		reader = inputReader;
+	}
+
+	/**
+	 * Intent: Close the connections to every database. A database that is
+	 * used again afterwards is opened again.
+	 *
+	 * @throws SQLException if a connection could not be closed
+	 */
+	static synchronized void closeAll() throws SQLException {
+
+		SQLException failure = null;
+		for (SharedConnection shared : CONNECTIONS.values()) {
+			for (Connection connection : new Connection[] {shared.reader,
+					shared.writer}) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					failure = e;
+				}
+			}
+		}
+		CONNECTIONS.clear();
+
+		if (failure != null) {
+			throw failure;
+		}
+
+	}
+
+	/**
+	 * Intent: Return the shared connections to a database and open them the
+	 * first time the database is used.
+	 *
+	 * Postcondition1 (Open writer): The writer is opened, switched to the
+	 * write-ahead log and the schema migrations the database is missing are
+	 * applied.
+	 * Postcondition2 (Open reader): The reader is opened after the schema is
+	 * current and cannot write.
+	 *
+	 * @param url String JDBC URL of the database
+	 * @return SharedConnection object
+	 * @throws SQLException
+	 */
+	static synchronized SharedConnection forURL(String url)
+			throws SQLException {
+
+		SharedConnection shared = CONNECTIONS.get(url);
+		if (shared != null) {
+			return shared;
+		}
+
+		// Post1 Open writer
+		Connection writer = DriverManager.getConnection(url);
+		try {
+			try (Statement statement = writer.createStatement()) {
+				statement.execute(JOURNAL_MODE);
+				tune(statement);
+			}
+			SchemaMigration.migrate(writer);
+			try (Statement statement = writer.createStatement()) {
+				statement.executeUpdate(FOREIGN_KEYS_ON);
+			}
+
+		} catch (SQLException e) {
+			writer.close();
+			throw e;
+		}
+
+		// Post2 Open reader
+		Connection reader = DriverManager.getConnection(url);
+		try (Statement statement = reader.createStatement()) {
+			tune(statement);
+			statement.executeUpdate(QUERY_ONLY);
+
+		} catch (SQLException e) {
+			reader.close();
+			writer.close();
+			throw e;
+		}
+
+		shared = new SharedConnection(writer, reader);
+		CONNECTIONS.put(url, shared);
+
+		return shared;
+
+	}
+
+	/**
+	 * Intent: (Post3) Return the read only connection.
+	 *
+	 * @return Connection object
+	 */
+	Connection getReader() {
+		return reader;
+	}
+
+	/**
+	 * Intent: (Post2) Return the connection that writes records. Callers
+	 * synchronize on it for the length of a transaction.
+	 *
+	 * @return Connection object
+	 */
+	Connection getWriter() {
+		return writer;
+	}
+
+	/**
+	 * Intent: (Post4) Apply the tuned pragmas to a connection.
+	 *
+	 * @param statement Statement of the connection
+	 * @throws SQLException
+	 */
+	private static void tune(Statement statement) throws SQLException {
+
+		for (String pragma : PRAGMAS) {
+			statement.execute(pragma);
+		}
+
+	}
+
+}
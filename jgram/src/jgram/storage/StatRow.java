@@ -0,0 +1,103 @@
+package jgram.storage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Intent: Read the columns of the current row of the assignment stats query
+ * with their own types. The columns are read from the open cursor so no row
+ * is copied.
+ *
+ * Postcondition1 (Spread): The variance and standard deviation of the total
+ * grades are derived from the count, sum and sum of squares of the row. They
+ * are the population variance and standard deviation of the results of the
+ * assignment and are rounded to two decimals like the other columns.
+ */
+public final class StatRow {
+
+	// Instance variable(s)
+	private final ResultSet results;
+
+	// Constructor(s)
+	StatRow(ResultSet inputResults) {
+		results = inputResults;
+	}
+
+	public String getAssignmentTitle() throws SQLException {
+		return results.getString(1);
+	}
+
+	public float getAverage() throws SQLException {
+		return results.getFloat(5);
+	}
+
+	public int getCount() throws SQLException {
+		return results.getInt(2);
+	}
+
+	public float getMaximum() throws SQLException {
+		return results.getFloat(4);
+	}
+
+	public float getMinimum() throws SQLException {
+		return results.getFloat(3);
+	}
+
+	/**
+	 * Intent: (Post1) Return the standard deviation of the total grades.
+	 *
+	 * @return float
+	 * @throws SQLException
+	 */
+	public float getStandardDeviation() throws SQLException {
+		return round(Math.sqrt(computeVariance()));
+	}
+
+	/**
+	 * Intent: (Post1) Return the variance of the total grades.
+	 *
+	 * @return float
+	 * @throws SQLException
+	 */
+	public float getVariance() throws SQLException {
+		return round(computeVariance());
+	}
+
+	/**
+	 * Intent: Compute the variance of the row.
+	 *
+	 * @return double
+	 * @throws SQLException
+	 */
+	private double computeVariance() throws SQLException {
+		return variance(getCount(), results.getDouble(6), results.getDouble(7));
+	}
+
+	/**
+	 * Intent: Compute the population variance from a count, sum and sum of
+	 * squares. Rounding can make it slightly negative when every value is
+	 * equal.
+	 *
+	 * @param count int number of values
+	 * @param sum double sum of the values
+	 * @param sumSquares double sum of the squares of the values
+	 * @return double
+	 */
+	static double variance(int count, double sum, double sumSquares) {
+
+		double mean = sum / count;
+		return Math.max(0, sumSquares / count - mean * mean);
+
+	}
+
+	/**
+	 * Intent: Round a value to two decimals.
+	 *
+	 * @param value double
+	 * @return float
+	 */
+	static float round(double value) {
+		return (float) (Math.round(value * 100) / 100.0);
+	}
+
+}
@@ -0,0 +1,57 @@
+package jgram.storage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Intent: Read the columns of the current row of a student grading data query
+ * with their own types. The columns are read from the open cursor so no row
+ * is copied.
+ */
+public final class StudentRow {
+
+	// Instance variable(s)
+	private final ResultSet results;
+
+	// Constructor(s)
+	StudentRow(ResultSet inputResults) {
+		results = inputResults;
+	}
+
+	public String getAssignmentName() throws SQLException {
+		return results.getString(5);
+	}
+
+	public String getAssignmentTitle() throws SQLException {
+		return results.getString(2);
+	}
+
+	public String getFeedback() throws SQLException {
+		return results.getString(9);
+	}
+
+	public int getGrade() throws SQLException {
+		return results.getInt(8);
+	}
+
+	public String getGrader() throws SQLException {
+		return results.getString(1);
+	}
+
+	public String getStudentFirstName() throws SQLException {
+		return results.getString(3);
+	}
+
+	public String getStudentLastName() throws SQLException {
+		return results.getString(4);
+	}
+
+	public float getTotalGrade() throws SQLException {
+		return results.getFloat(6);
+	}
+
+	public int getWeight() throws SQLException {
+		return results.getInt(7);
+	}
+
+}
@@ -0,0 +1,297 @@
+package jgram.task;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Intent: Admit Word documents to an ExecutorService only while the estimated
+ * heap cost of the documents being processed stays under a memory budget.
+ *
+ * Precondition1 (Executor): Document runs are executed by an ExecutorService
+ * that is owned by the caller.
+ *
+ * Postcondition1 (Estimate): The heap cost of a document is estimated from the
+ * compressed and uncompressed sizes of its zip entries without reading them.
+ * Postcondition2 (Budget): A document is admitted if its cost fits into the
+ * budget that is left. A document that is larger than the whole budget is
+ * admitted alone so that every document is eventually processed.
+ * Postcondition3 (Fill gaps): Documents that wait in submission order can be
+ * passed by smaller documents that fit into the budget that is left while a
+ * large document waits for memory to be released. The oldest document that
+ * was passed over is passed at most MAX_BYPASSES times. After that no newer
+ * document is admitted until it runs.
+ * Postcondition4 (Release): The cost of a document is released when its run
+ * completes, whether or not it completed normally.
+ * Postcondition5 (Bounded queue): At most a limited number of documents wait
+ * for admission. A Thread that submits a document waits while the queue is
+ * full, so a directory walk does not get ahead of grading.
+ *
+ * References:
+ * The ZIP File Format Specification. (n.d.). Retrieved from PKWARE: https://pkware.cachefly.net/webdocs/casestudies/APPNOTE.TXT
+ */
+public class AdmissionController {
+
+	// Class constant(s)
+	public static final String BUDGET_PROPERTY = "jgram.memoryBudget";
+	public static final int DEFAULT_WAITING_LIMIT = 64;
+	public static final int MAX_BYPASSES = 16;
+	private static final int XML_EXPANSION = 4;
+	private static final int ARCHIVE_ENTRY_EXPANSION = 12;
+	private static final long MEGABYTE = 1024 * 1024;
+
+	// Instance variable(s)
+	private ExecutorService executorService;
+	private long budget;
+	private long inFlight;
+	private int runningCount;
+	private Deque<Admission> waitingQueue;
+	private int waitingLimit;
+
+	// Constructor(s)
+	public AdmissionController(ExecutorService inputExecutorService,
+			long inputBudget) {
+		this(inputExecutorService, inputBudget, DEFAULT_WAITING_LIMIT);
+	}
+
+	public AdmissionController(ExecutorService inputExecutorService,
+			long inputBudget, int inputWaitingLimit) {
+		executorService = inputExecutorService;
+		budget = inputBudget;
+		waitingLimit = inputWaitingLimit;
+		waitingQueue = new ArrayDeque<>();
+	}
+
+	/**
+	 * Intent: Wait until every submitted document run has completed.
+	 *
+	 * @throws InterruptedException
+	 */
+	public synchronized void awaitIdle() throws InterruptedException {
+
+		while (runningCount > 0 || !waitingQueue.isEmpty()) {
+			wait();
+		}
+
+	}
+
+	/**
+	 * Intent: Return the memory budget in bytes. The budget can be set in
+	 * megabytes with the 'jgram.memoryBudget' system property. By default half
+	 * of the maximum heap size is used.
+	 *
+	 * @return long budget in bytes
+	 */
+	public static long defaultBudget() {
+
+		String property = System.getProperty(BUDGET_PROPERTY);
+		if (property != null) {
+			try {
+				return Long.parseLong(property.trim()) * MEGABYTE;
+			} catch (NumberFormatException e) {
+				synchronized(System.out) {
+					System.out.println("\nIgnoring invalid " + BUDGET_PROPERTY
+							+ ": " + property);
+				}
+			}
+		}
+
+		return Runtime.getRuntime().maxMemory() / 2;
+
+	}
+
+	/**
+	 * Intent: (Post2, Post3) Execute every waiting document run that fits into
+	 * the budget that is left.
+	 */
+	private synchronized void dispatch() {
+
+		// Oldest waiting document that does not fit
+		Admission passed = null;
+
+		Iterator<Admission> iterator = waitingQueue.iterator();
+		while (iterator.hasNext()) {
+
+			Admission admission = iterator.next();
+			boolean fits = inFlight + admission.cost <= budget;
+			if (!fits && runningCount > 0) {
+				if (passed == null) {
+					passed = admission;
+				}
+				continue;
+			}
+
+			// Post3 Fill gaps a limited number of times
+			if (passed != null) {
+				if (passed.bypassCount >= MAX_BYPASSES) {
+					break;
+				}
+				passed.bypassCount++;
+			}
+
+			iterator.remove();
+			inFlight += admission.cost;
+			runningCount++;
+			executorService.execute(admission);
+		}
+
+	}
+
+	/**
+	 * Intent: (Post1) Estimate the heap that is needed to process a Word
+	 * document.
+	 *
+	 * Postcondition1 (Package entries): The entries of a document on the
+	 * default file system are read from its central directory. XML parts are
+	 * expanded when they are parsed so their uncompressed size is weighted.
+	 * Postcondition2 (Archive entry): A document stored inside an archive is
+	 * estimated from its compressed size so that it does not need to be
+	 * extracted.
+	 * Postcondition3 (Unreadable): If the document cannot be read its file
+	 * size is used. The run reports the error when it reads the document.
+	 *
+	 * @param path Path of Word document
+	 * @return long estimated heap cost in bytes
+	 */
+	public static long estimateCost(Path path) {
+
+		try {
+
+			long fileSize = Files.size(path);
+
+			// Post2 Archive entry
+			if (path.getFileSystem() != FileSystems.getDefault()) {
+				return fileSize * ARCHIVE_ENTRY_EXPANSION;
+			}
+
+			// Post1 Package entries
+			long cost = fileSize;
+			try (ZipFile zipFile = new ZipFile(path.toFile())) {
+				Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				while (entries.hasMoreElements()) {
+					cost += estimateEntryCost(entries.nextElement());
+				}
+			}
+
+			return cost;
+
+		// Post3 Unreadable
+		} catch (IOException e) {
+			try {
+				return Files.size(path);
+			} catch (IOException sizeException) {
+				return 0;
+			}
+		}
+
+	}
+
+	/**
+	 * Intent: Estimate the heap that is needed to load one entry of a Word
+	 * document package.
+	 *
+	 * @param entry ZipEntry object
+	 * @return long estimated heap cost in bytes
+	 */
+	private static long estimateEntryCost(ZipEntry entry) {
+
+		long size = entry.getSize();
+		if (size < 0) {
+			size = Math.max(entry.getCompressedSize(), 0)
+					* ARCHIVE_ENTRY_EXPANSION;
+		}
+
+		if (entry.getName().endsWith(".xml")
+				|| entry.getName().endsWith(".rels")) {
+			return size * XML_EXPANSION;
+		}
+
+		return size;
+
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public synchronized long getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Intent: (Post4) Release the cost of a completed document run and admit
+	 * the documents that now fit.
+	 *
+	 * @param cost long cost of the completed run
+	 */
+	private synchronized void release(long cost) {
+
+		inFlight -= cost;
+		runningCount--;
+		dispatch();
+		notifyAll();
+
+	}
+
+	/**
+	 * Intent: Submit a document run with the estimated cost of its document.
+	 * The run is executed as soon as its cost fits into the budget. 
+	 * (Post5) Waits while the waiting queue is full. If the Thread is 
+	 * interrupted the run is still queued and the interrupt is kept.
+	 *
+	 * @param run Runnable that processes a document
+	 * @param cost long estimated heap cost in bytes
+	 */
+	public synchronized void submit(Runnable run, long cost) {
+
+		while (waitingQueue.size() >= waitingLimit) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		waitingQueue.add(new Admission(run, cost));
+		dispatch();
+
+	}
+
+	/**
+	 * Intent: A document run that releases its cost when it completes.
+	 */
+	private class Admission implements Runnable {
+
+		// Instance variable(s)
+		private Runnable run;
+		private long cost;
+		// Number of newer documents admitted while this one waited
+		private int bypassCount;
+
+		// Constructor(s)
+		private Admission(Runnable inputRun, long inputCost) {
+			run = inputRun;
+			cost = inputCost;
+		}
+
+		@Override
+		public void run() {
+			try {
+				run.run();
+			} finally {
+				release(cost);
+			}
+		}
+
+	}
+
+}
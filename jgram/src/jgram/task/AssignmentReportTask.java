@@ -5,13 +5,18 @@ import java.io.PrintWriter;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Scanner;
 
+import jgram.storage.CheckpointStatRow;
+import jgram.storage.GradeSketch;
 import jgram.storage.RecordManager;
+import jgram.storage.StatRow;
+import jgram.storage.StudentRow;
 
 /**
- * Intent: Provide the user with three different assignment reports obtained
+ * Intent: Provide the user with five different assignment reports obtained
  * from saved grading results.
  * 
  * Postcondition1 (All students for one assignment): The grading results for all
@@ -22,6 +27,13 @@ import jgram.storage.RecordManager;
  * 
  * Postcondition3 (Get assignment stats): The stats for all previously graded
  * assignments are saved to the file system as a txt file.
+ * 
+ * Postcondition4 (Get grade distribution): The percentiles and histogram of
+ * the total grades of each assignment, of each grader's section and of all
+ * assignments are saved to the file system as a txt file.
+ * 
+ * Postcondition5 (Get checkpoint stats): The stats of the grades of each 
+ * checkpoint of one assignment are saved to the file system as a txt file.
  *
  */
 public class AssignmentReportTask extends Task {
@@ -31,15 +43,15 @@ public class AssignmentReportTask extends Task {
 			+ "\n\t 1 : Assignment student grades " 
 			+ "\n\t 2 : Student grade data for all assignments"
 			+ "\n\t 3 : Assignment stats" 
-			+ "\n\t 4 : Exit"
+			+ "\n\t 4 : Grade distribution" 
+			+ "\n\t 5 : Assignment checkpoint stats" 
+			+ "\n\t 6 : Exit"
 			+ "\n\t\t (Example: 1): ";
 	
 	// Instance variable(s)
 	private PrintWriter outStream;
 	private Path reportPath;
 	private RecordManager rm;
-	
-	private List<String[]> rows;
 
 	public AssignmentReportTask() {
 		super();
@@ -66,6 +78,16 @@ public class AssignmentReportTask extends Task {
 		outStream = new PrintWriter(reportPath.toString());
 	}
 	
+	/**
+	 * Intent: Close and delete a report that could not be completed.
+	 */
+	private void discardReport() {
+		
+		outStream.close();
+		reportPath.toFile().delete();
+		
+	}
+	
 	/**
 	 * Intent: A description of the report task is displayed to the console.
 	 */
@@ -73,14 +95,19 @@ public class AssignmentReportTask extends Task {
 	public void displayHelp() {
 		
 		String help = "Assignment Report Task Help:"
-				+ "\n\n\tThe assignment report task provides 3 different "
+				+ "\n\n\tThe assignment report task provides 5 different "
 				+ "reports:\n"
 				+ "\n\t1. A report of all student grading data for one "
 				+ "assignment."
 				+ "\n\t2. A report of all assignment grading data for one "
 				+ "student."
 				+ "\n\t3. A report of assignment stats for all saved "
-				+ "assignments.";
+				+ "assignments."
+				+ "\n\t4. A report of the median, 10th and 90th percentile "
+				+ "and histogram of grades for each saved assignment, each "
+				+ "grader and all assignments."
+				+ "\n\t5. A report of the average, spread and number of "
+				+ "zero grades of each checkpoint of one assignment.";
 		
 		System.out.println(help);
 		
@@ -91,13 +118,11 @@ public class AssignmentReportTask extends Task {
 	 * 
 	 * Postcondition1 (Obtain assignment name): The assignment name is obtained
 	 * from the user.
-	 * Postcondition2 (Query RecordManager): The RecordManager has queried the
-	 * JGRAM database for past grading results and returned an ArrayList of
-	 * rows.
-	 * Postcondition3 (Obtain report path): The report path is determined for
+	 * Postcondition2 (Obtain report path): The report path is determined for
 	 * the text file.
-	 * Postcondition4 (Print report): A report is printed to a text file that 
-	 * contains the previous grading data.
+	 * Postcondition3 (Print report): The RecordManager queries the JGRAM 
+	 * database for past grading results and each row is printed to the text
+	 * file as it is read. If the query fails the report is deleted.
 	 * 
 	 * @throws FileNotFoundException
 	 * @throws SQLException
@@ -107,36 +132,37 @@ public class AssignmentReportTask extends Task {
 		// Post1 Obtain assignment name
 		String assignment = getAssignmentTitle();
 		
-		// Post2 Query RecordManager
+		// Post2 Obtain report path 
+		createReportPath(assignment);
+		
+		// Post3 Print report
+		outStream.println(assignment + " Assignment Report\n");
+		printStudentColumns();
 		rm.openConnection();
 		try {
-			rows = rm.selectAllStudents(assignment);
+			rm.visitAllStudents(assignment, this::printStudentRow);
 		} catch (SQLException e) {
+			discardReport();
 			throw new SQLException("\nERROR: " + e.getMessage() + ". \n\tIt's "
 					+ "possible no assignment could be found for the title you "
 					+ "entered.");
+		} finally {
+			rm.closeConnection();
 		}
-		rm.closeConnection();
-		
-		// Post3 Obtain report path 
-		createReportPath(assignment);
-		
-		// Post4 Print report
-		outStream.println(assignment + " Assignment Report\n");
-		printStudentReport();
-		outStream.close();
+		finishReport();
 		
 	}
 	
 	/**
 	 * Intent: Class Postcondition3 Get assignment stats
 	 * 
-	 * Postcondition1 (Query RecordManager): The RecordManager has queried the
-	 * JGRAM database for assignment stats and returned an ArrayList of rows.
-	 * Postcondition2 (Obtain report path): The report path is determined for
+	 * Postcondition1 (Obtain report path): The report path is determined for
 	 * the text file.
-	 * Postcondition3 (Print report): A report is printed to a text file that 
-	 * contains the assignment stats.
+	 * Postcondition2 (Print report): The RecordManager queries the JGRAM 
+	 * database for assignment stats and each row is printed to the text file
+	 * as it is read.
+	 * Postcondition3 (Test rows): If no stats were found the report is 
+	 * deleted.
 	 * 
 	 * @throws FileNotFoundException
 	 * @throws SQLException
@@ -144,23 +170,153 @@ public class AssignmentReportTask extends Task {
 	private void getAssignmentStats() 
 			throws FileNotFoundException, SQLException {
 		
-		// Post1 Query RecordManager
+		// Post1 Obtain report path 
+		createReportPath("assignment_stats");
+		
+		// Post2 Print report
+		outStream.println("Assignment Stats Report\n");
+		printStatsColumns();
+		int rowCount;
 		rm.openConnection();
-		rows = rm.selectAssignmentStats();
-		rm.closeConnection();
+		try {
+			rowCount = rm.visitAssignmentStats(this::printStatsRow);
+		} catch (SQLException e) {
+			discardReport();
+			throw e;
+		} finally {
+			rm.closeConnection();
+		}
 		
-		// Post2 Test rows
-		if (rows.isEmpty()) {
+		// Post3 Test rows
+		if (rowCount == 0) {
+			discardReport();
 			throw new SQLException("\nNo assignment stats were located.");
 		}
+		finishReport();
+		
+	}
+	
+	/**
+	 * Intent: Class Postcondition5 Get checkpoint stats
+	 * 
+	 * Postcondition1 (Obtain assignment name): The assignment name is obtained
+	 * from the user.
+	 * Postcondition2 (Obtain report path): The report path is determined for
+	 * the text file.
+	 * Postcondition3 (Print report): The RecordManager aggregates the grades
+	 * of the assignment by checkpoint id in one query and each checkpoint is
+	 * printed to the text file as it is read.
+	 * Postcondition4 (Test rows): If no checkpoints were found the report is
+	 * deleted.
+	 * 
+	 * @throws FileNotFoundException
+	 * @throws SQLException
+	 */
+	private void getCheckpointStats() 
+			throws FileNotFoundException, SQLException {
+		
+		// Post1 Obtain assignment name
+		String assignment = getAssignmentTitle();
 		
 		// Post2 Obtain report path 
-		createReportPath("assignment_stats");
+		createReportPath(assignment + "_checkpoints");
 		
 		// Post3 Print report
-		outStream.println("Assignment Stats Report\n");
-		printStatsReport();
+		outStream.println(assignment + " Checkpoint Stats Report\n");
+		printCheckpointColumns();
+		int rowCount;
+		rm.openConnection();
+		try {
+			rowCount = rm.visitCheckpointStats(assignment, 
+					this::printCheckpointRow);
+		} catch (SQLException e) {
+			discardReport();
+			throw e;
+		} finally {
+			rm.closeConnection();
+		}
+		
+		// Post4 Test rows
+		if (rowCount == 0) {
+			discardReport();
+			throw new SQLException("\nNo checkpoints could be found for "
+					+ "assignment: " + assignment);
+		}
+		finishReport();
+		
+	}
+	
+	/**
+	 * Intent: Close a completed report and notify the user on the console
+	 * of its location.
+	 */
+	private void finishReport() {
+		
 		outStream.close();
+		System.out.println("\nReport printed to: " + reportPath.toString());
+		
+	}
+	
+	/**
+	 * Intent: Class Postcondition4 Get grade distribution
+	 * 
+	 * Postcondition1 (Obtain report path): The report path is determined for
+	 * the text file.
+	 * Postcondition2 (Assignments): The RecordManager reads the saved grade
+	 * sketch of each assignment and its distribution is printed as it is 
+	 * read.
+	 * Postcondition3 (Test rows): If no sketches were found the report is 
+	 * deleted.
+	 * Postcondition4 (Sections): The sketches of the assignments of each 
+	 * grader are merged and printed, followed by the sketches of all 
+	 * assignments merged. No grading result is read again.
+	 * 
+	 * @throws FileNotFoundException
+	 * @throws SQLException
+	 */
+	private void getGradeDistribution() 
+			throws FileNotFoundException, SQLException {
+		
+		// Post1 Obtain report path 
+		createReportPath("grade_distribution");
+		
+		// Post2 Assignments
+		outStream.println("Grade Distribution Report\n");
+		printDistributionColumns("Assignment Title");
+		Map<String, GradeSketch> sections = new LinkedHashMap<>();
+		GradeSketch all = new GradeSketch();
+		int rowCount;
+		rm.openConnection();
+		try {
+			rowCount = rm.visitGradeSketches(row -> {
+				GradeSketch sketch = row.getSketch();
+				printDistributionRow(row.getAssignmentTitle(), sketch);
+				sections.computeIfAbsent(row.getGrader(), 
+						grader -> new GradeSketch()).merge(sketch);
+				all.merge(sketch);
+			});
+		} catch (SQLException e) {
+			discardReport();
+			throw e;
+		} finally {
+			rm.closeConnection();
+		}
+		
+		// Post3 Test rows
+		if (rowCount == 0) {
+			discardReport();
+			throw new SQLException("\nNo grade distributions were located.");
+		}
+		
+		// Post4 Sections
+		outStream.println();
+		printDistributionColumns("Grader");
+		for (Map.Entry<String, GradeSketch> section : sections.entrySet()) {
+			printDistributionRow(section.getKey(), section.getValue());
+		}
+		outStream.println();
+		printDistributionRow("All assignments", all);
+		finishReport();
 		
 	}
 	
@@ -209,13 +365,13 @@ public class AssignmentReportTask extends Task {
 	 * Postcondition1 (Obtain student name): The student's name is obtained
 	 * from the user and converted into an array with the last name at the
 	 * second element and the first name at the first element.
-	 * Postcondition2 (Query RecordManager): The RecordManager has queried the
-	 * JGRAM database for past grading results for one student and 
-	 * returned an ArrayList of rows.
-	 * Postcondition3 (Obtain report path): The report path is determined for
+	 * Postcondition2 (Obtain report path): The report path is determined for
 	 * the text file.
-	 * Postcondition4 (Print report): A report is printed to a text file that 
-	 * contains the previous grading data for one student.
+	 * Postcondition3 (Print report): The RecordManager queries the JGRAM 
+	 * database for past grading results for one student and each row is 
+	 * printed to the text file as it is read.
+	 * Postcondition4 (Test rows): If no grading results were found the report
+	 * is deleted.
 	 * 
 	 * @throws FileNotFoundException
 	 * @throws SQLException
@@ -226,26 +382,32 @@ public class AssignmentReportTask extends Task {
 		// Post1 Obtain student name
 		String[] studentName = getStudentName();
 		
-		// Post2 Query RecordManager
-		rm.openConnection();
-		rows = rm.selectStudentAssignments(studentName);
-		rm.closeConnection();
-		
-		// Test rows
-		if (rows.isEmpty()) {
-			throw new SQLException("\nNo assignment data could be found for"
-					+ " student: " + studentName[0] + " " + studentName[1]);
-		}
-		
-		// Post3 Obtain report path 
+		// Post2 Obtain report path 
 		createReportPath(studentName[1] + "_" + studentName[0]);
 		
-		// Post4 Print report
+		// Post3 Print report
 		outStream.println(studentName[0] + " " + studentName[1] 
 				+ " Assignment Report\n");
-		printStudentReport();
-		outStream.close();
+		printStudentColumns();
+		int rowCount;
+		rm.openConnection();
+		try {
+			rowCount = rm.visitStudentAssignments(studentName, 
+					this::printStudentRow);
+		} catch (SQLException e) {
+			discardReport();
+			throw e;
+		} finally {
+			rm.closeConnection();
+		}
 		
+		// Post4 Test rows
+		if (rowCount == 0) {
+			discardReport();
+			throw new SQLException("\nNo assignment data could be found for"
+					+ " student: " + studentName[0] + " " + studentName[1]);
+		}
+		finishReport();
 		
 	}
 	
@@ -272,10 +434,10 @@ public class AssignmentReportTask extends Task {
 	}
 
 	/**
-	 * Intent: Class Postcondition 1, 2, or 3 is performed based on user 
+	 * Intent: Class Postcondition 1, 2, 3, 4 or 5 is performed based on user
 	 * selection.
 	 * 
-	 * Postcondition4 (Handle Exceptions): All report method exceptions are 
+	 * Postcondition6 (Handle Exceptions): All report method exceptions are 
 	 * handled and the user is notified.
 	 */
 	@Override
@@ -312,8 +474,18 @@ public class AssignmentReportTask extends Task {
 							getAssignmentStats();
 							break;
 						
-						// Exit
+						// Post4 Get grade distribution
 						case "4":
+							getGradeDistribution();
+							break;
+						
+						// Post5 Get checkpoint stats
+						case "5":
+							getCheckpointStats();
+							break;
+						
+						// Exit
+						case "6":
 							keepGoing = false;
 							break;
 						
@@ -328,7 +500,7 @@ public class AssignmentReportTask extends Task {
 				}
 			} // End while
 			
-		// Post4 Handle exceptions	
+		// Post6 Handle exceptions	
 		} catch (Exception e) {
 			displayException(e, "Could not write report.");
 	
@@ -353,62 +525,133 @@ public class AssignmentReportTask extends Task {
 	}
 	
 	/**
-	 * Intent: Print all students grades for one assignment to a text file.
+	 * Intent: Print the column names of the checkpoint stats report.
+	 */
+	private void printCheckpointColumns() {
+		
+		String columns = String.format("%-10s  %-5s   %-7s   %-7s   %-7s   "
+				+ "%-7s   %-5s", "Checkpoint", "Count", "Average", "Std Dev", 
+				"Minimum", "Maximum", "Zeros");
+		outStream.println(columns);
+		
+	}
+	
+	/**
+	 * Intent: Print one row of the checkpoint stats report as it is read.
 	 * 
-	 * Postcondition1 (Columns): The column names are printed to the text
-	 * file.
-	 * Postcondition2 (Rows): The rows are printed to the text file.
-	 * Postcondition3 (Notify user): The user is notified on the console
-	 * that the report has been printed and the location of the report.
+	 * @param row CheckpointStatRow positioned on the row
+	 * @throws SQLException
 	 */
-	private void printStatsReport() {
+	private void printCheckpointRow(CheckpointStatRow row) 
+			throws SQLException {
+		
+		outStream.printf("%-10d  %-5d   %-7s   %-7s   %-7d   %-7d   %-5d%n", 
+				row.getCheckpointID(), row.getCount(), row.getAverage(), 
+				row.getStandardDeviation(), row.getMinimum(), 
+				row.getMaximum(), row.getZeroCount());
 		
-		// Post1 Columns
-		String columns = String.format("%-30s  %-5s   %-7s   %-7s   %-7s", 
-				"Assignment Title", "Count", "Minimum", "Maximum", "Average");
+	}
+	
+	/**
+	 * Intent: Print the column names of the grade distribution report. The
+	 * histogram has one column for each range of GradeSketch.HISTOGRAM_WIDTH
+	 * points.
+	 * 
+	 * @param label String name of the first column
+	 */
+	private void printDistributionColumns(String label) {
+		
+		StringBuilder columns = new StringBuilder(String.format(
+				"%-30s  %-5s   %-6s   %-6s   %-6s", label, "Count", "P10", 
+				"Median", "P90"));
+		int ranges = new GradeSketch().getHistogram().length;
+		for (int range = 0; range < ranges; range++) {
+			int low = range * GradeSketch.HISTOGRAM_WIDTH;
+			int high = range == ranges - 1 ? low + GradeSketch.HISTOGRAM_WIDTH
+					: low + GradeSketch.HISTOGRAM_WIDTH - 1;
+			columns.append(String.format("   %-6s", low + "-" + high));
+		}
 		outStream.println(columns);
 		
-		// Post2 Rows
-		for (String[] row : rows) {
-			String rowString = String.format("%-30s  %-5s   %-7s   %-7s   %-7s", 
-					row[0], row[1], row[2], row[3], row[4]);
-			outStream.println(rowString);
+	}
+	
+	/**
+	 * Intent: Print one row of the grade distribution report. A sketch with 
+	 * no grades is not printed.
+	 * 
+	 * @param label String assignment title or grader
+	 * @param sketch GradeSketch object
+	 */
+	private void printDistributionRow(String label, GradeSketch sketch) {
+		
+		if (sketch.getCount() == 0) {
+			return;
 		}
 		
-		// Post3 Notify user
-		System.out.println("\nReport printed to: " + reportPath.toString());
+		outStream.printf("%-30s  %-5d   %-6s   %-6s   %-6s", label, 
+				sketch.getCount(), sketch.quantile(0.1), sketch.quantile(0.5),
+				sketch.quantile(0.9));
+		for (int rangeCount : sketch.getHistogram()) {
+			outStream.printf("   %-6d", rangeCount);
+		}
+		outStream.println();
 		
 	}
 	
 	/**
-	 * Intent: Print all students grades for one assignment to a text file.
+	 * Intent: Print the column names of the assignment stats report.
+	 */
+	private void printStatsColumns() {
+		
+		String columns = String.format("%-30s  %-5s   %-7s   %-7s   %-7s   "
+				+ "%-8s   %-7s", "Assignment Title", "Count", "Minimum", 
+				"Maximum", "Average", "Variance", "Std Dev");
+		outStream.println(columns);
+		
+	}
+	
+	/**
+	 * Intent: Print one row of the assignment stats report as it is read.
 	 * 
-	 * Postcondition1 (Columns): The column names are printed to the text
-	 * file.
-	 * Postcondition2 (Rows): The rows are printed to the text file.
-	 * Postcondition3 (Notify user): The user is notified on the console
-	 * that the report has been printed and the location of the report.
+	 * @param row StatRow positioned on the row
+	 * @throws SQLException
+	 */
+	private void printStatsRow(StatRow row) throws SQLException {
+		
+		outStream.printf("%-30s  %-5d   %-7s   %-7s   %-7s   %-8s   %-7s%n", 
+				row.getAssignmentTitle(), row.getCount(), row.getMinimum(), 
+				row.getMaximum(), row.getAverage(), row.getVariance(), 
+				row.getStandardDeviation());
+		
+	}
+	
+	/**
+	 * Intent: Print the column names of a student grading data report.
 	 */
-	private void printStudentReport() {
+	private void printStudentColumns() {
 		
-		// Post1 Columns
 		String columns = String.format("%-10s   %-30s  %-13s   %-12s   %-30s   "
 				+ "%-11s   %-6s   %-5s   %s", 
 				"Grader", "Assignment Title", "Student First", "Student Last", 
 				"Assignment Name", "Total Grade", "Weight", "Grade", "Feedback");
 		outStream.println(columns);
 		
-		// Post2 Rows
-		for (String[] row : rows) {
-			String rowString = String.format("%-10s   %-30s  %-13s   %-12s   "
-					+ "%-30s   %-11s   %-6s   %-5s   %s", 
-					row[0], row[1], row[2], row[3], row[4], row[5], row[6], 
-					row[7], row[8]);
-			outStream.println(rowString);
-		}
-		
-		// Post3 Notify user
-		System.out.println("\nReport printed to: " + reportPath.toString());
+	}
+	
+	/**
+	 * Intent: Print one row of a student grading data report as it is read.
+	 * 
+	 * @param row StudentRow positioned on the row
+	 * @throws SQLException
+	 */
+	private void printStudentRow(StudentRow row) throws SQLException {
+		
+		outStream.printf("%-10s   %-30s  %-13s   %-12s   %-30s   %-11s   "
+				+ "%-6d   %-5d   %s%n", 
+				row.getGrader(), row.getAssignmentTitle(), 
+				row.getStudentFirstName(), row.getStudentLastName(), 
+				row.getAssignmentName(), row.getTotalGrade(), row.getWeight(), 
+				row.getGrade(), row.getFeedback());
 		
 	}
 
@@ -0,0 +1,266 @@
+package jgram.task;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Intent: Watch a directory tree for Word documents that are created or
+ * modified and hand each document to a consumer once it has stopped changing.
+ *
+ * Precondition1 (Directory): The directory exists on the default file system.
+ *
+ * Postcondition1 (Events): Create and modify events for Word documents in the
+ * directory and its subdirectories are collected. Subdirectories are watched
+ * as they are found and as they are created. 'GRADED' and hidden directories
+ * are not watched, as when documents are found. Hidden lock files are
+ * ignored.
+ * Postcondition2 (Debounce): A document is handed to the consumer once no
+ * event has been received for it for the debounce interval. Word saves a
+ * document with several writes so each save is handed over once.
+ * Postcondition3 (Overflow): If events were lost, the directory tree is walked
+ * again and every document in it is treated as modified.
+ * Postcondition4 (Stop): The watcher stops when it is closed.
+ *
+ * References:
+ * Watching a Directory for Changes. (n.d.). Retrieved from The Java Tutorials: https://docs.oracle.com/javase/tutorial/essential/io/notification.html
+ */
+public class DirectoryWatcher implements Runnable, Closeable {
+
+	// Class constant(s)
+	public static final long DEFAULT_DEBOUNCE_MILLIS = 2000;
+	private static final long POLL_MILLIS = 100;
+
+	// Instance variable(s)
+	private Path directory;
+	private WatchService watchService;
+	// Directory of each registered watch key
+	private Map<WatchKey, Path> keyMap;
+	private long debounceMillis;
+	private Consumer<Path> consumer;
+	private Map<Path, Long> pendingMap;
+	private volatile boolean keepGoing;
+
+	// Constructor(s)
+	public DirectoryWatcher(Path inputDirectory, long inputDebounceMillis,
+			Consumer<Path> inputConsumer) throws IOException {
+
+		directory = inputDirectory;
+		debounceMillis = inputDebounceMillis;
+		consumer = inputConsumer;
+		pendingMap = new LinkedHashMap<>();
+		keyMap = new HashMap<>();
+		keepGoing = true;
+
+		watchService = directory.getFileSystem().newWatchService();
+		registerTree(directory, 0, false);
+	}
+
+	/**
+	 * Intent: (Post4) Stop watching the directory.
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		keepGoing = false;
+		watchService.close();
+	}
+
+	/**
+	 * Intent: (Post1) Record the events of a watch key as pending documents.
+	 *
+	 * @param key WatchKey object
+	 * @param now long current time in milliseconds
+	 * @throws IOException
+	 */
+	private void collectEvents(WatchKey key, long now) throws IOException {
+
+		Path keyDirectory = keyMap.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+
+			// Post3 Overflow
+			if (event.kind() == OVERFLOW) {
+				registerTree(directory, now, true);
+				continue;
+			}
+			if (keyDirectory == null) {
+				continue;
+			}
+
+			Path path = keyDirectory.resolve((Path) event.context());
+			if (event.kind() == ENTRY_CREATE
+					&& Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+				// Documents can be moved in with a new directory
+				registerTree(path, now, true);
+			} else if (Task.isDocument(path)) {
+				markPending(path, now);
+			}
+		}
+
+		// Forget directories that were deleted
+		if (!key.reset()) {
+			keyMap.remove(key);
+		}
+
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Intent: Restart the debounce interval of a document.
+	 *
+	 * @param path Path of the document
+	 * @param now long current time in milliseconds
+	 */
+	private void markPending(Path path, long now) {
+		pendingMap.remove(path);
+		pendingMap.put(path, now);
+	}
+
+	/**
+	 * Intent: (Post1) Register a directory and the subdirectories below it
+	 * with the watch service. Registering a directory again keeps its key.
+	 *
+	 * @param start Path of the first directory
+	 * @param now long current time in milliseconds
+	 * @param markDocuments boolean true if the documents that are found are
+	 * treated as modified
+	 * @throws IOException
+	 */
+	private void registerTree(Path start, long now, boolean markDocuments)
+			throws IOException {
+
+		Files.walkFileTree(start, new SimpleFileVisitor<>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir,
+					BasicFileAttributes attributes) throws IOException {
+
+				if (!dir.equals(directory)
+						&& DocumentFinder.isSkippedDirectory(dir)) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				keyMap.put(dir.register(watchService, ENTRY_CREATE,
+						ENTRY_MODIFY), dir);
+
+				return FileVisitResult.CONTINUE;
+
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file,
+					BasicFileAttributes attributes) {
+
+				if (markDocuments && attributes.isRegularFile()
+						&& Task.isDocument(file)) {
+					markPending(file, now);
+				}
+
+				return FileVisitResult.CONTINUE;
+
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file,
+					IOException e) {
+				// The file was removed while the tree was walked
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+
+	}
+
+	/**
+	 * Intent: (Post2) Hand each pending document that has not changed for the
+	 * debounce interval to the consumer.
+	 *
+	 * @param now long current time in milliseconds
+	 */
+	private void releaseSettled(long now) {
+
+		Iterator<Map.Entry<Path, Long>> iterator = pendingMap.entrySet()
+				.iterator();
+		while (iterator.hasNext()) {
+
+			Map.Entry<Path, Long> entry = iterator.next();
+
+			// Pending documents are ordered by their last event
+			if (now - entry.getValue() < debounceMillis) {
+				break;
+			}
+			iterator.remove();
+
+			if (Files.isRegularFile(entry.getKey())) {
+				consumer.accept(entry.getKey());
+			}
+		}
+
+	}
+
+	/**
+	 * Intent: Watch the directory until the watcher is closed.
+	 *
+	 * Postcondition1 (Events): Events are polled and collected.
+	 * Postcondition2 (Debounce): Settled documents are handed to the consumer.
+	 * Postcondition3 (Stop): The loop ends when the watcher is closed or the
+	 * Thread is interrupted. Errors are reported to the console.
+	 */
+	@Override
+	public void run() {
+
+		try {
+
+			while (keepGoing) {
+
+				// Post1 Events
+				WatchKey key = watchService.poll(POLL_MILLIS,
+						TimeUnit.MILLISECONDS);
+				long now = System.currentTimeMillis();
+				if (key != null) {
+					collectEvents(key, now);
+				}
+
+				// Post2 Debounce
+				releaseSettled(now);
+			}
+
+		// Post3 Stop
+		} catch (ClosedWatchServiceException e) {
+			// Watcher was closed
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+		} catch (IOException e) {
+			synchronized(System.out) {
+				System.out.println("\nERROR: " + e.getMessage());
+				System.out.println("\tStopped watching: " + directory);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,229 @@
+package jgram.task;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Intent: Find the Word documents of a directory tree and hand each document
+ * to a consumer as soon as it is found.
+ *
+ * Precondition1 (Root): The root directory exists. It can be a directory of
+ * the default file system or the root of an archive.
+ *
+ * Postcondition1 (Walk): Nested directories such as course, section and
+ * assignment directories are walked one entry at a time so the entries of a
+ * directory are never collected in memory.
+ * Postcondition2 (Skipped directories): 'GRADED' directories and hidden
+ * directories are not walked so that graded copies are not graded again.
+ * Postcondition3 (Patterns): Documents are kept if they match an include
+ * pattern, or if there are no include patterns, and do not match an exclude
+ * pattern. Patterns are globs that are matched against the path relative to
+ * the root directory. Exclude patterns start with '!'.
+ * Postcondition4 (Consumer): Each document that is kept is handed to the
+ * consumer while the walk continues.
+ * Postcondition5 (Unique names): Results are stored by the file name of
+ * their document, so a document is only kept if no other document with the
+ * same file name was found in another directory. The duplicate is reported
+ * and is not graded.
+ *
+ * References:
+ * Walking the File Tree. (n.d.). Retrieved from The Java Tutorials: https://docs.oracle.com/javase/tutorial/essential/io/walk.html
+ */
+public class DocumentFinder extends SimpleFileVisitor<Path> {
+
+	// Class constant(s)
+	public static final String GRADED_DIRECTORY = "GRADED";
+	private static final String EXCLUDE_PREFIX = "!";
+
+	// Instance variable(s)
+	private Path root;
+	private List<PathMatcher> includeList;
+	private List<PathMatcher> excludeList;
+	// First document found with each file name
+	private Map<String, Path> nameMap;
+	private Consumer<Path> consumer;
+	private int documentCount;
+
+	// Constructor(s)
+	public DocumentFinder(Path inputRoot, String patterns) {
+
+		root = inputRoot;
+		nameMap = new ConcurrentHashMap<>();
+		includeList = new ArrayList<>();
+		excludeList = new ArrayList<>();
+
+		// Post3 Patterns
+		FileSystem fileSystem = root.getFileSystem();
+		for (String pattern : patterns.trim().split("\\s+")) {
+			if (pattern.isEmpty()) {
+				continue;
+			}
+			if (pattern.startsWith(EXCLUDE_PREFIX)) {
+				excludeList.add(fileSystem.getPathMatcher("glob:"
+						+ pattern.substring(EXCLUDE_PREFIX.length())));
+			} else {
+				includeList.add(fileSystem.getPathMatcher("glob:" + pattern));
+			}
+		}
+	}
+
+	/**
+	 * Intent: (Post1) Walk the directory tree and return the number of
+	 * documents that were handed to the consumer.
+	 *
+	 * @param inputConsumer Consumer that receives each document
+	 * @return int
+	 * @throws IOException
+	 */
+	public int find(Consumer<Path> inputConsumer) throws IOException {
+
+		consumer = inputConsumer;
+		documentCount = 0;
+		Files.walkFileTree(root, this);
+
+		return documentCount;
+
+	}
+
+	/**
+	 * Intent: (Post3, Post5) Test if a document is kept by the patterns and
+	 * its file name has not been found in another directory. Documents that
+	 * are created after the walk are tested in the same way.
+	 *
+	 * @param file Path of the document
+	 * @return boolean
+	 */
+	public boolean keep(Path file) {
+
+		if (!Task.isDocument(file)) {
+			return false;
+		}
+
+		// Post3 Patterns
+		Path relativePath = root.relativize(file);
+		if ((!includeList.isEmpty() && !matchesAny(includeList, relativePath))
+				|| matchesAny(excludeList, relativePath)) {
+			return false;
+		}
+
+		// Post5 Unique names
+		Path first = nameMap.putIfAbsent(file.getFileName().toString(),
+				file);
+		if (first != null && !first.equals(file)) {
+			synchronized(System.out) {
+				System.out.println("\nERROR: Duplicate document name: " + file
+						+ "\n\tAlready found: " + first
+						+ "\n\tResults are stored by file name, so only the "
+						+ "first document is graded.");
+			}
+			return false;
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Intent: Test if a path relative to the root directory matches any of the
+	 * matchers in a list.
+	 *
+	 * @param matcherList List of PathMatcher objects
+	 * @param relativePath Path relative to the root directory
+	 * @return boolean
+	 */
+	private static boolean matchesAny(List<PathMatcher> matcherList,
+			Path relativePath) {
+
+		for (PathMatcher matcher : matcherList) {
+			if (matcher.matches(relativePath)) {
+				return true;
+			}
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Intent: (Post2) Skip 'GRADED' directories, hidden directories and
+	 * directories that match an exclude pattern.
+	 */
+	@Override
+	public FileVisitResult preVisitDirectory(Path directory,
+			BasicFileAttributes attributes) {
+
+		if (directory.equals(root) || directory.getFileName() == null) {
+			return FileVisitResult.CONTINUE;
+		}
+
+		if (isSkippedDirectory(directory)
+				|| matchesAny(excludeList, root.relativize(directory))) {
+			return FileVisitResult.SKIP_SUBTREE;
+		}
+
+		return FileVisitResult.CONTINUE;
+
+	}
+
+	/**
+	 * Intent: Test if a directory holds graded copies or is hidden so that
+	 * its documents are never graded.
+	 *
+	 * @param directory Path of the directory
+	 * @return boolean
+	 */
+	static boolean isSkippedDirectory(Path directory) {
+
+		if (directory.getFileName() == null) {
+			return false;
+		}
+
+		String name = directory.getFileName().toString();
+		return name.equals(GRADED_DIRECTORY) || name.startsWith(".")
+				|| name.startsWith("__MACOSX");
+
+	}
+
+	/**
+	 * Intent: (Post4) Hand a document to the consumer if it is kept.
+	 */
+	@Override
+	public FileVisitResult visitFile(Path file,
+			BasicFileAttributes attributes) {
+
+		if (attributes.isRegularFile() && keep(file)) {
+			documentCount++;
+			consumer.accept(file);
+		}
+
+		return FileVisitResult.CONTINUE;
+
+	}
+
+	/**
+	 * Intent: Report a file or directory that could not be read and continue
+	 * the walk.
+	 */
+	@Override
+	public FileVisitResult visitFileFailed(Path file, IOException e) {
+
+		synchronized(System.out) {
+			System.out.println("\nCould not read: " + file);
+		}
+
+		return FileVisitResult.CONTINUE;
+
+	}
+
+}
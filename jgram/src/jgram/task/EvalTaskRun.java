@@ -2,20 +2,30 @@ package jgram.task;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
 
 import jgram.assessment.Document;
+import jgram.assessment.GradedArchive;
+import jgram.assessment.Result;
 import jgram.exceptions.InvalidCommentException;
 import jgram.security.Secret;
 import jgram.storage.Assignment;
+import jgram.storage.ResultWriter;
 
 public class EvalTaskRun extends TaskRun {
 	
 	// Class variable(s)
 	private static Assignment assignment;
 	private static int docNumber = 0;
+	private static int unchangedNumber = 0;
 	
 	// Instance variable(s)
 	private Document document;	
+	private GradedArchive gradedArchive;
+	private ResultWriter resultWriter;
+	// A watched document replaces its previous result when graded again
+	private boolean watched;
 
 	public EvalTaskRun(Assignment inputAssignment, Path inputPath, 
 			Secret inputSecret) {
@@ -24,6 +34,46 @@ public class EvalTaskRun extends TaskRun {
 		assignment = inputAssignment;
 	}
 	
+	public EvalTaskRun(Assignment inputAssignment, Path inputPath, 
+			Secret inputSecret, GradedArchive inputArchive) {
+		
+		this(inputAssignment, inputPath, inputSecret);
+		gradedArchive = inputArchive;
+	}
+	
+	public EvalTaskRun(Assignment inputAssignment, Path inputPath, 
+			Secret inputSecret, GradedArchive inputArchive, 
+			ResultWriter inputWriter) {
+		
+		this(inputAssignment, inputPath, inputSecret, inputArchive);
+		resultWriter = inputWriter;
+	}
+	
+	public EvalTaskRun(Assignment inputAssignment, Path inputPath, 
+			Secret inputSecret, ResultWriter inputWriter) {
+		
+		this(inputAssignment, inputPath, inputSecret);
+		resultWriter = inputWriter;
+		watched = true;
+	}
+	
+	/**
+	 * Intent: Describe where invalid data was found in a comment's text or 
+	 * return an empty String if the location is not known.
+	 * 
+	 * @param offset int offset of the invalid data in the comment text
+	 * @return String
+	 */
+	private static String describeOffset(int offset) {
+		
+		if (offset < 0) {
+			return "";
+		}
+		
+		return " at character " + (offset + 1);
+		
+	}
+	
 	/**
 	 * Intent: Display invalid comment or list of invalid comments determined
 	 * from exception thrown by Comment class.
@@ -53,7 +103,8 @@ public class EvalTaskRun extends TaskRun {
 				
 				System.out.println("Please check the following: ");
 				int id = e.getCommentID() + 1;
-				System.out.println("\tComment #" + id);
+				System.out.println("\tComment #" + id 
+						+ describeOffset(e.getErrorOffset()));
 			}
 			
 			// Check if exception has a list of invalid comments
@@ -61,9 +112,12 @@ public class EvalTaskRun extends TaskRun {
 				
 				System.out.println("Please check the following: ");
 				// Display invalid comment numbers
-				for (int id : e.getInvalidCommentList()) {
-					id += 1;
-					System.out.println("\tComment #" + id);
+				List<Integer> offsetList = e.getErrorOffsetList();
+				for (int i = 0; i < e.getInvalidCommentList().size(); i++) {
+					int id = e.getInvalidCommentList().get(i) + 1;
+					int offset = offsetList == null ? -1 : offsetList.get(i);
+					System.out.println("\tComment #" + id 
+							+ describeOffset(offset));
 				}
 			}
 		}
@@ -103,22 +157,44 @@ public class EvalTaskRun extends TaskRun {
 		
 	}
 	
+	/**
+	 * Intent: Display SQLException message when a result could not be saved.
+	 * 
+	 * @param e
+	 */
+	private void displaySQLException(SQLException e) {
+		
+		synchronized(System.out) {
+			System.out.println("\nERROR: " + e.getMessage());
+			System.out.println("\n\tCould not save result: " 
+					+ getPath().getFileName());
+		}
+		
+	}
+	
 	/**
 	 * Intent: Evaluate one assignment document by grading available data
 	 * present in the document's comments, encoding the result as a hash
 	 * string and writing the hash string to a file.
 	 * 
 	 * Postcondition1 (Document): A new Document object is created that needs 
-	 * to be graded.
-	 * Postcondition2 (Parse document): Document is parsed for grading data.
-	 * Postcondition3 (Evaluate assignment): Document is evaluated and total
+	 * to be graded. Graded copies of documents read from an archive are 
+	 * written to the graded archive.
+	 * Postcondition2 (Unchanged document): A fingerprint of the document's
+	 * comments is created. If it matches the fingerprint of a previous 
+	 * grading and the graded copy still exists, the previous result is reused
+	 * and the document is not graded again.
+	 * Postcondition3 (Parse document): Document is parsed for grading data.
+	 * Postcondition4 (Evaluate assignment): Document is evaluated and total
 	 * grade is calculated.
-	 * Postcondition4 (Create graded assignment): A copy of the assignment is 
-	 * created and the results of the graded assignment are appended to the
-	 * end of the assignment copy.
-	 * Postcondition5 (Store result data): The grading result and grade mapping
-	 * is stored so that it may be saved as a later time.
-	 * Postcondition6 (Handle exceptions): Exceptions are reported to the 
+	 * Postcondition5 (Create graded assignment): The hash string of the 
+	 * result is created. A copy of the assignment is created, the results of
+	 * the graded assignment are appended to the end of the assignment copy
+	 * and the hash string is stored in the copy.
+	 * Postcondition6 (Store result data): The grading result and grade mapping
+	 * is stored so that it may be saved as a later time. If a ResultWriter
+	 * was provided the result is saved as soon as it is graded.
+	 * Postcondition7 (Handle exceptions): Exceptions are reported to the 
 	 * console and control returns to caller.
 	 */
 	@Override
@@ -128,26 +204,37 @@ public class EvalTaskRun extends TaskRun {
 			
 			// Post1 Document
 			document = new Document(getPath());
+			document.setGradedArchive(gradedArchive);
+			
+			// Post2 Unchanged document
+			if (reusePreviousResult()) {
+				storeResult(false);
+				return;
+			}
 			
-			// Post2 Parse document
+			// Post3 Parse document
 			parseDocument();
 			
-			// Post3 Evaluate assignment
+			// Post4 Evaluate assignment
 			document.calculateResult();
 						
-			// Post4 Create graded assignment
+			// Post5 Create graded assignment
+			document.createHashString(getSecret());
 			document.createGradedAssignment();
 			
-			// Post5 Store result data
-			storeResult();
+			// Post6 Store result data
+			storeResult(true);
 		
-		// Post6 Handle exceptions
+		// Post7 Handle exceptions
 		} catch (IOException e) {
 			displayIOException(e);
 			
 		} catch (InvalidCommentException e) {
 			displayInvalidCommentException(e);
-					
+		
+		} catch (SQLException e) {
+			displaySQLException(e);
+			
 		}
 	}
 	
@@ -175,7 +262,7 @@ public class EvalTaskRun extends TaskRun {
 		// Post2 Grade mapping
 		document.parseGradeMapping();
 		// Set default grade mapping if one is not provided in the comments
-		if (document.getGradeMapping().getLimits().isEmpty()) {
+		if (document.getGradeMapping().isEmpty()) {
 			document.setDefaultGradeMapping();
 		}
 		
@@ -190,53 +277,123 @@ public class EvalTaskRun extends TaskRun {
 	}
 	
 	/**
-	 * Intent: Reset document number class variable to 0.
+	 * Intent: Return the number of documents that were not graded again 
+	 * because they have not changed since they were last graded.
+	 * 
+	 * @return int
 	 */
-	public void resetDocNumber() {
+	public static int getUnchangedNumber() {
+		return unchangedNumber;
+	}
+	
+	/**
+	 * Intent: Reset document number and unchanged document number class 
+	 * variables to 0.
+	 */
+	public static void resetDocNumber() {
 		docNumber = 0;
+		unchangedNumber = 0;
 	}
 	
 	/**
-	 * Intent: Create and store a hash string for tamper detection.
+	 * Intent: Determine if the result of a previous grading of the document
+	 * can be reused.
 	 * 
-	 * Postcondition1 (Create hash string): A hash string is created that 
-	 * encodes all of the grading result data contained in a document.
+	 * Postcondition1 (Fingerprint): A fingerprint of the document's comments
+	 * is created.
+	 * Postcondition2 (Previous result): The previous result is restored if 
+	 * the fingerprints match and its hash string was signed with the secret.
+	 * Postcondition3 (Graded copy): The graded copy of the previous grading
+	 * is kept.
+	 * 
+	 * @return boolean value that indicates if the previous result was reused
+	 * @throws IOException
+	 */
+	private boolean reusePreviousResult() throws IOException {
+		
+		// Post1 Fingerprint
+		document.createFingerprint();
+		
+		// Post2 Previous result
+		String filename = getPath().getFileName().toString();
+		Result previousResult;
+		synchronized(assignment) {
+			previousResult = assignment.getPreviousResult(filename);
+		}
+		if (!document.restorePreviousResult(previousResult, getSecret())) {
+			return false;
+		}
+		
+		// Post3 Graded copy
+		return document.retainGradedAssignment();
+		
+	}
+	
+	/**
+	 * Intent: Store the result of a document and its hash string for tamper
+	 * detection.
+	 * 
+	 * Postcondition1 (Hash string): The hash string of a graded result was
+	 * created before its graded copy was written. The hash string of a reused
+	 * result is kept.
 	 * Postcondition2 (Assignment data): Result and grade mapping assignment
 	 * data is stored so that it may be saved to the JGRAM database at a later 
 	 * time. It is synchronized on the assignment object so that only one Thread
-	 * modifies the Assignment at a time.
+	 * modifies the Assignment at a time. A document that is graded again 
+	 * while its directory is watched replaces its previous result. If a 
+	 * ResultWriter was provided, the Assignment keeps a summary of the result
+	 * without its checkpoints.
 	 * Postcondition3 (Document number): The document number is incremented 
 	 * to track the number of assignments processed.
 	 * Postcondition4 (Grade mapping): A grade mapping is saved from the first
 	 * document. An assignment only has one grade mapping so no further mappings
 	 * need to be considered.
-	 * Postcondition5 (Notify user): The user is notified that the current 
+	 * Postcondition5 (Save result): If a ResultWriter was provided, a graded
+	 * result is queued to be written to the JGRAM database.
+	 * Postcondition6 (Notify user): The user is notified that the current 
 	 * result has been graded on the console.
 	 * 
-	 * @param document
-	 * @throws IOException 
+	 * @param graded boolean value that indicates if the document was graded
+	 * or if a previous result was reused
+	 * @throws SQLException
 	 */
-	private void storeResult() 
-			throws IOException {
+	private void storeResult(boolean graded) throws SQLException {
 		
-				
-		// Post1 Create hash string
-		document.createHashString(getSecret());
+		// Post1 Hash string was created by run or restored with the result
 		
 		// Post2 Assignment data synchronized
+		Result result = document.getResult();
 		synchronized(assignment) {
 			
 			// Post3 Document number
 			docNumber++;
+			if (!graded) {
+				unchangedNumber++;
+			}
+			
+			Result stored = resultWriter == null ? result 
+					: result.createSummary();
+			if (!watched) {
+				assignment.addResult(stored);
+			} else {
+				assignment.replaceResult(stored);
+				assignment.setPreviousResult(stored);
+			}
 			
-			assignment.addResult(document.getResult());
 			// Post4 Grade mapping
 			if (docNumber == 1) {
 				assignment.setGradeMapping(document.getGradeMapping());
 			}
 		}
 		
-		//Post5 Notify user
-		System.out.println("\nGraded Document: " + getPath().getFileName());
+		// Post5 Save result
+		if (graded && resultWriter != null) {
+			resultWriter.submit(result);
+		}
+		
+		//Post6 Notify user
+		String status = graded ? "Graded" : "Unchanged";
+		System.out.println("\n" + status + " Document: " 
+				+ getPath().getFileName());
 	}
 }
@@ -1,14 +1,18 @@
 package jgram.task;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 
+import jgram.assessment.GradedArchive;
+import jgram.security.JWT;
 import jgram.storage.Assignment;
 import jgram.storage.RecordManager;
+import jgram.storage.ResultWriter;
 
 /**
  * Intent: Calculate and output the grade for an assignment.
@@ -28,7 +32,13 @@ public class EvaluationTask extends Task {
 	
 	// Instance variable(s)
 	private RecordManager recordManager;
+	private ResultWriter resultWriter;
 	private Assignment assignment;
+	private GradedArchive gradedArchive;
+	private boolean watchMode;
+	
+	// Watched document in progress and whether it must be graded again
+	private final Map<Path, Boolean> watchedRuns = new HashMap<>();
 	
 	// Constructor(s)
 	public EvaluationTask() {
@@ -39,6 +49,31 @@ public class EvaluationTask extends Task {
 		super(userSecret, inputKeyboard);
 	}
 	
+	public EvaluationTask(String userSecret, Scanner inputKeyboard, 
+			boolean watch) {
+		super(userSecret, inputKeyboard);
+		watchMode = watch;
+	}
+	
+	/**
+	 * Intent: Close the graded archive and the source archive if they were
+	 * opened. Errors are reported to the console.
+	 */
+	private void closeArchives() {
+		
+		try {
+			if (gradedArchive != null) {
+				gradedArchive.close();
+				gradedArchive = null;
+			}
+			closeArchive();
+			
+		} catch (IOException e) {
+			displayException(e, "Could not close archive.");
+		}
+		
+	}
+	
 	/**
 	 * Intent: Create Assignment object.
 	 * 
@@ -54,7 +89,7 @@ public class EvaluationTask extends Task {
 		// Post1 Define data
 		String grader = System.getProperty("user.name");
 		String title = retrieveAssignmentTitle();
-		String location = getWorkingDirectory().toString();
+		String location = getSourceLocation();
 		
 		// Post2 Create Assignment
 		assignment = new Assignment(grader, title, location);
@@ -76,7 +111,12 @@ public class EvaluationTask extends Task {
 				+ "\n\tassignment's total grade. A table of checkpoints and the " 
 				+ "\n\tfinal grade is appended to a copy of the Word document " 
 				+ "\n\tassignment which is created and saved in the same " 
-				+ "\n\tdirectory as the assignment.\n";
+				+ "\n\tdirectory as the assignment. A .zip archive can be "
+				+ "\n\tgraded without extracting it and the graded copies "
+				+ "\n\tare saved to a 'GRADED_' archive next to it. In watch "
+				+ "\n\tmode the directory is watched and each document is "
+				+ "\n\tgraded and saved shortly after it is created or "
+				+ "\n\tmodified until ENTER is pressed.\n";
 		
 		System.out.println(help);	
 		
@@ -89,59 +129,94 @@ public class EvaluationTask extends Task {
 	 * a RecordManager object is created for writing records.
 	 * Postcondition2 (Create ExecutorService): An ExecutorService object is
 	 * created to handle the execution of a task run as a new thread on each 
-	 * file on up to 5 files at a time.
-	 * Postcondition3 (Evaluate each document): Each document is evaluated in
+	 * file. Documents are admitted while their estimated heap cost fits into
+	 * the memory budget.
+	 * Postcondition3 (Evaluate each document): Each document is queued as 
+	 * soon as it is found in the working source. Each document is evaluated in
 	 * a new thread and a grade is calculated and a hash string of encoded 
-	 * results has been created and stored.
+	 * results has been created and stored. Each graded result is handed to a
+	 * ResultWriter that saves it in small batches while grading continues, so
+	 * the results graded before a crash are kept.
 	 * Postocndition4 (Reset document number): The TaskRun class document
 	 * number is reset to zero for multiple assignment grading tasks.
-	 * Postcondition5 (Write assignment): Assignment record which contains
-	 * all of the grading results is written to the JGRAM database.
+	 * Postcondition5 (Write assignment): The results of the assignment are
+	 * signed as one batch. The Assignment record is written to the JGRAM 
+	 * database and the records of documents that were removed are deleted.
+	 * The saved results are kept. If filter patterns selected the documents,
+	 * the previous results of the documents that were not graded are kept 
+	 * and signed with the graded results, and no record is deleted.
 	 * Postcondition6 (Handle exceptions): Exceptions are reported to the 
 	 * console and control returns to caller.
+	 * Postcondition7 (Close archives): The graded archive and the source 
+	 * archive are closed.
 	 */
 	@Override
 	public void performTask() {
 		
+		if (watchMode) {
+			performWatchTask();
+			return;
+		}
+		
 		// Notice on overwritten graded files
 		System.out.println("\nIMPORTANT: Any previously graded assignments "
-		+ "will be overwritten.");
+		+ "that have changed will be overwritten.");
 		
 		try {
 		
 			//Post1 Preparation
 			prep();
+			recordManager.openConnection();
+			resultWriter = new ResultWriter(recordManager);
 			
-			// Post2 Create ExecutorService
-			ExecutorService executorService = getExecutorService();
-			
-			// Post3 Evaluate each document
-			EvalTaskRun taskRun = null;
-			for (Path path : getFileList()) {
+			// Post2 Create ExecutorService and Post3 Evaluate each document
+			int documentCount;
+			try {
+				documentCount = forEachDocument(path -> {
 					
-				taskRun = new EvalTaskRun(assignment, path, 
-						getSecret());
+					EvalTaskRun taskRun = new EvalTaskRun(assignment, path, 
+							getSecret(), gradedArchive, resultWriter);
+					
+					submitDocument(path, taskRun);
+					
+				});
 				
-				executorService.execute(taskRun);
-				incrementThreadCount();
+				// Block until every admitted document has been evaluated and 
+				// shut down executor service
+				awaitDocuments();
 				
-			} 
+			} finally {
+				// Wait until the queued results are saved
+				resultWriter.close();
+			}
+			
+			// Return to main menu if no documents were found
+			if (documentCount == 0) {
+				throw new FileNotFoundException("\nNo Word documents were "
+						+ "found.");
+			}
 			
-			// Shut down executor service and block until thread 
-			// execution is complete
-			executorService.shutdown();
-			executorService.awaitTermination(Long.MAX_VALUE, 
-					TimeUnit.NANOSECONDS);
+			int unchanged = EvalTaskRun.getUnchangedNumber();
 			
 			// Post4 Reset document number
-			taskRun.resetDocNumber();
+			EvalTaskRun.resetDocNumber();
 			
 			// Post5 Write assignment
+			if (hasFilters()) {
+				assignment.keepPreviousResults();
+			}
+			assignment.signResults(JWT.forSecret(getSecret()));
 			writeAssignmentData();
 						
-			System.out.println("\nFINISHED GRADING. Check 'GRADED' directory "
-					+ "for graded assignments."
-					+ "\nAssignment grading results have been SAVED.");
+			String output = gradedArchive == null ? "'GRADED' directory"
+					: gradedArchive.getArchivePath().toString();
+			System.out.println("\nFINISHED GRADING. Check " + output
+					+ " for graded assignments."
+					+ "\nUnchanged assignments skipped: " + unchanged
+					+ "\nAssignment grading results have been SAVED."
+					+ "\nResults: " + recordManager.getResultChanges()
+					+ "\nCheckpoints: " 
+					+ recordManager.getCheckpointChanges());
 		
 		// Post6 Handle exceptions
 		} catch (SQLException e) {
@@ -149,29 +224,202 @@ public class EvaluationTask extends Task {
 		
 		} catch (Exception e) {
 			displayException(e, "Could not grade any assignments.");
+		
+		// Post7 Close archives
+		} finally {
+			closeArchives();
+		}
+	}
+	
+	/**
+	 * Intent: Grade the documents of the working directory and keep grading
+	 * documents as they are created or modified until the user stops 
+	 * watching. Work is spread over the time graders spend saving comments
+	 * instead of being done in one batch at the end.
+	 * 
+	 * Postcondition1 (Preparation): The working directory, Assignment and 
+	 * RecordManager are prepared. The directory can be empty.
+	 * Postcondition2 (Open connection): A connection to the JGRAM database
+	 * stays open and a ResultWriter saves each result soon after it is 
+	 * graded.
+	 * Postcondition3 (Watch): A DirectoryWatcher queues each document that 
+	 * is created or modified once it has stopped changing. The document is
+	 * kept by the same filter patterns and unique file names as the 
+	 * documents of the initial pass. The watcher is registered before the
+	 * initial pass so that no document saved during the pass is missed.
+	 * Postcondition4 (Initial pass): The documents already in the directory
+	 * are queued. Unchanged documents are skipped.
+	 * Postcondition5 (Stop): When the user presses ENTER, or watching 
+	 * fails, the watcher is closed, queued documents are finished, the 
+	 * results are signed as one batch and the connection is closed.
+	 * Postcondition6 (Handle exceptions): Exceptions are reported to the 
+	 * console and control returns to caller.
+	 */
+	private void performWatchTask() {
+		
+		DirectoryWatcher watcher = null;
+		Thread watchThread = null;
+		try {
+			
+			// Post1 Preparation
+			prep();
+			
+			// Post2 Open connection
+			recordManager.openConnection();
+			resultWriter = new ResultWriter(recordManager);
+			
+			// Post3 Watch
+			DocumentFinder finder = getDocumentFinder();
+			watcher = new DirectoryWatcher(
+					getWorkingDirectory(), 
+					DirectoryWatcher.DEFAULT_DEBOUNCE_MILLIS, 
+					path -> {
+						if (finder.keep(path)) {
+							queueDocument(path);
+						}
+					});
+			watchThread = new Thread(watcher);
+			watchThread.start();
+			
+			// Post4 Initial pass
+			forEachDocument(this::queueDocument);
+			
+			synchronized(System.out) {
+				System.out.println("\nWATCHING: " + getWorkingDirectory()
+						+ "\nPress ENTER to stop watching.");
+			}
+			getKeyboard().nextLine();
+			
+		// Post6 Handle exceptions
+		} catch (SQLException e) {
+			displayException(e, "Could not save grading results.");
+		
+		} catch (Exception e) {
+			displayException(e, "Could not watch assignments.");
+			
+		} finally {
+			
+			// Post5 Stop
+			stopWatching(watcher, watchThread);
+			closeArchives();
+		}
+		
+	}
+	
+	/**
+	 * Intent: Stop watching the working directory and save the results of 
+	 * the documents that were queued. Runs whether or not watching ended 
+	 * normally so that no Thread is left running.
+	 * 
+	 * Postcondition1 (Watcher): The watcher is closed and its Thread is 
+	 * joined so that no more documents are queued.
+	 * Postcondition2 (Queued documents): The queued documents are finished 
+	 * and the ResultWriter is closed once they are saved.
+	 * Postcondition3 (Signed results): If the results were saved, they are
+	 * signed as one batch.
+	 * Postcondition4 (Close connection): The connection is closed. Errors 
+	 * are reported to the console.
+	 * 
+	 * @param watcher DirectoryWatcher object or null if it was not created
+	 * @param watchThread Thread of the watcher or null
+	 */
+	private void stopWatching(DirectoryWatcher watcher, Thread watchThread) {
+		
+		try {
+			
+			try {
+				
+				// Post1 Watcher
+				if (watcher != null) {
+					watcher.close();
+					watchThread.join();
+				}
+				
+				// Post2 Queued documents
+				awaitDocuments();
+				
+			} finally {
+				if (resultWriter != null) {
+					resultWriter.close();
+				}
+			}
+			
+			// Post3 Signed results
+			if (resultWriter != null) {
+				EvalTaskRun.resetDocNumber();
+				assignment.signResults(JWT.forSecret(getSecret()));
+				recordManager.writeMerkleTree();
+				
+				System.out.println("\nSTOPPED WATCHING. Assignment grading "
+						+ "results were SAVED as they were graded."
+						+ "\nResults: " + recordManager.getResultChanges()
+						+ "\nCheckpoints: " 
+						+ recordManager.getCheckpointChanges());
+			}
+			
+		} catch (SQLException e) {
+			displayException(e, "Could not save grading results.");
+			
+		} catch (IOException e) {
+			displayException(e, "Could not stop watching assignments.");
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			displayException(e, "Stopped before all assignments were "
+					+ "graded.");
+			
+		} finally {
+			
+			// Post4 Close connection
+			try {
+				if (recordManager != null) {
+					recordManager.closeConnection();
+				}
+			} catch (SQLException e) {
+				displayException(e, "Could not close the JGRAM database.");
+			}
 		}
+		
 	}
 	
 	/**
 	 * Intent: Run several operations to prepare for EvaluationTask execution.
 	 * 
-	 * Postcondition1 (Create file list): A list of files that need to be 
-	 * evaluated for grading data is created.
+	 * Postcondition1 (Working source): The working source and the patterns 
+	 * that select the documents to grade are obtained. In watch mode the 
+	 * working source must be a directory.
 	 * Postcondition2 (Assignment title): The title of the assignment to be 
 	 * graded is obtained and stored.
 	 * Postcondition3 (Grader): The username of the grader is stored.
 	 * Postcondition4 (Create RecordManager): A RecordManager object has been 
 	 * created.
+	 * Postcondition5 (Previous results): The results of a previous grading of
+	 * the assignment are read so that unchanged documents can be skipped.
+	 * Postcondition6 (Graded archive): If the assignments are read from an 
+	 * archive, a graded archive is created next to it to hold the graded 
+	 * copies.
 	 * 
 	 * @throws IOException
 	 */
 	@Override
 	public void prep() throws IOException {
 		
-		// Post1 Create file list
+		// Post1 Working source
 		System.out.println("\nChoose a directory that contains Word documents "
 				+ "that require grading.");
-		getDirectoryAndFileList();
+		if (watchMode) {
+			getDirectory();
+			if (getWorkingDirectory() == null) {
+				throw new FileNotFoundException("\nNo directory was "
+						+ "selected.");
+			}
+			if (getArchivePath() != null) {
+				throw new IOException("\nAn archive cannot be watched. "
+						+ "Please choose a directory.");
+			}
+		} else {
+			getDirectoryAndFilters();
+		}
 		
 		// Post2 Create Assignment
 		createAssignment();
@@ -179,6 +427,84 @@ public class EvaluationTask extends Task {
 		// Post3 Create RecordManager
 		recordManager = new RecordManager(assignment);
 		
+		// Post5 Previous results
+		readPreviousResults();
+		
+		// Post6 Graded archive
+		Path archivePath = getArchivePath();
+		if (archivePath != null) {
+			gradedArchive = new GradedArchive(archivePath.resolveSibling(
+					"GRADED_" + archivePath.getFileName()));
+		}
+		
+	}
+	
+	/**
+	 * Intent: Queue a document to be graded and saved while the working 
+	 * directory is watched. A document that is saved again while it is 
+	 * queued or graded is graded once more after the current run, so that 
+	 * two runs never write the same graded copy at once.
+	 * 
+	 * Postcondition1 (Merge): If the document already has a run, one more 
+	 * run is requested and nothing is submitted.
+	 * Postcondition2 (Submit): Otherwise a run is submitted that grades the
+	 * document until no more runs are requested. A failed run is reported 
+	 * so that later saves of the document are still graded.
+	 * 
+	 * @param path Path of the document
+	 */
+	private void queueDocument(Path path) {
+		
+		// Post1 Merge
+		synchronized(watchedRuns) {
+			if (watchedRuns.containsKey(path)) {
+				watchedRuns.put(path, true);
+				return;
+			}
+			watchedRuns.put(path, false);
+		}
+		
+		// Post2 Submit
+		submitDocument(path, () -> {
+			boolean again;
+			do {
+				try {
+					new EvalTaskRun(assignment, path, getSecret(), 
+							resultWriter).run();
+				} catch (RuntimeException e) {
+					displayException(e, "Could not grade " + path + ".");
+				}
+				synchronized(watchedRuns) {
+					again = watchedRuns.get(path);
+					if (again) {
+						watchedRuns.put(path, false);
+					} else {
+						watchedRuns.remove(path);
+					}
+				}
+			} while (again);
+		});
+		
+	}
+	
+	/**
+	 * Intent: Read the results of a previous grading of the assignment from
+	 * the JGRAM database and store them in the Assignment object. If they
+	 * cannot be read, every document is graded.
+	 */
+	private void readPreviousResults() {
+		
+		try {
+			recordManager.openConnection();
+			assignment.setPreviousResultMap(recordManager
+					.selectPreviousResults());
+			recordManager.closeConnection();
+			
+		} catch (SQLException e) {
+			System.out.println("\nCould not read previous grading results. "
+					+ "All assignments will be graded.");
+		}
+		
 	}
 	
 	/**
@@ -201,6 +527,13 @@ public class EvaluationTask extends Task {
 		assignment = inputAssignment;
 	}
 	
+	/**
+	 * Intent: Set GradedArchive instance variable.
+	 */
+	public void setGradedArchive(GradedArchive inputArchive) {
+		gradedArchive = inputArchive;
+	}
+	
 	/**
 	 * Intent: Set RecordManager instance variable.
 	 */
@@ -211,21 +544,21 @@ public class EvaluationTask extends Task {
 	/**
 	 * Intent: Write assignment data to JGRAM database.
 	 * 
-	 * Postcondition1 (Open connection): A connection to the JGRAM database is
-	 * established.
-	 * Postcondition2 (Write data): Assignment data is written to tables in the
-	 * JGRAM database.
-	 * Postcondition3 (Close connection): The connection to the JGRAM database
+	 * Precondition1 (Open connection): The connection to the JGRAM database
+	 * was opened before grading and every graded result was saved by the
+	 * ResultWriter.
+	 * 
+	 * Postcondition1 (Write data): Assignment data is written to tables in the
+	 * JGRAM database. The saved results match the current results and are 
+	 * kept.
+	 * Postcondition2 (Close connection): The connection to the JGRAM database
 	 * is closed.
 	 * 
 	 * @throws SQLException
 	 */
 	private void writeAssignmentData() throws SQLException {
 		
-		// Post1 Open connection
-		recordManager.openConnection();
-		
-		// Post2 Write data
+		// Post1 Write data
 		recordManager.writeAssignmentData();
 		
 		// Post2 Close connection
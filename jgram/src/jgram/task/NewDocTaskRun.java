@@ -119,7 +119,7 @@ public class NewDocTaskRun extends TaskRun {
 		}
 		
 		// Post2 GradeMapping data
-		if (!document.getGradeMapping().getLimits().isEmpty()) {
+		if (!document.getGradeMapping().isEmpty()) {
 			
 			sb.append("\nFOUND grade mapping data.");
 		}
@@ -1,10 +1,8 @@
 package jgram.task;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Path;
 import java.util.Scanner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 
 public class NewDocumentTask extends Task {
 	
@@ -40,12 +38,13 @@ public class NewDocumentTask extends Task {
 	 * This task is used to determine if an assignment is ready to be graded
 	 * by an instructor.
 	 * 
-	 * Postcondition1 (Preparation): A list of valid files is created.
+	 * Postcondition1 (Preparation): The working source is obtained.
 	 * Postcondition2 (Create ExecutorService): An ExecutorService object is
 	 * created to handle the execution of a task run as a new thread on each 
-	 * file on up to 5 files at a time.
-	 * Postcondition3 (Document loop): All valid documents are stored in a list
-	 * and each document is ready for validation.
+	 * file. Documents are admitted while their estimated heap cost fits into
+	 * the memory budget.
+	 * Postcondition3 (Document loop): Each valid document is ready for 
+	 * validation as soon as it is found in the working source.
 	 * Postcondition4 (Task run in a new thread): The new document task run
 	 * is executed in a separate thread.
 	 * 
@@ -58,26 +57,34 @@ public class NewDocumentTask extends Task {
 			// Post1 Preparation
 			prep();
 			
-			// Post2 Create ExecutorService
-			ExecutorService executorService = getExecutorService();
-			
-			// Post3 Document loop
-			for (Path path : getFileList()) {
+			// Post2 Create ExecutorService and Post3 Document loop
+			int documentCount = forEachDocument(path -> {
 				
 				// Post4 Task run in a new thread
 				NewDocTaskRun taskRun = new NewDocTaskRun(path);
-				executorService.execute(taskRun);
-				incrementThreadCount();
+				submitDocument(path, taskRun);
 					
-			}
+			});
+			
+			awaitDocuments();
 			
-			executorService.shutdown();
-			executorService.awaitTermination(Long.MAX_VALUE, 
-					TimeUnit.NANOSECONDS);
+			// Return to main menu if no documents were found
+			if (documentCount == 0) {
+				throw new FileNotFoundException("\nNo Word documents were "
+						+ "found.");
+			}
 				
 		} catch (Exception e) {
 			displayException(e, "Could not process files in directory.");
 		
+		} finally {
+			
+			// Close archive if one was opened
+			try {
+				closeArchive();
+			} catch (IOException e) {
+				displayException(e, "Could not close archive.");
+			}
 		}
 		
 	}
@@ -85,18 +92,18 @@ public class NewDocumentTask extends Task {
 	/**
 	 * Intent: Run several operations to prepare for NewDocumentTask execution.
 	 * 
-	 * Postcondition1 (Create file list): A list of files that need to be 
-	 * tested for grading data is created.
+	 * Postcondition1 (Working source): The working source and the patterns 
+	 * that select the documents to test for grading data are obtained.
 	 * 
 	 * @throws IOException
 	 */
 	@Override
 	public void prep() throws IOException {
 		
-		// Post1 Create file list
+		// Post1 Working source
 		System.out.println("\nChoose a directory that contains Word documents "
 				+ "that require validation.");
-		getDirectoryAndFileList();
+		getDirectoryAndFilters();
 	}
 	
 }
@@ -7,12 +7,18 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.TreeSet;
 
+import io.jsonwebtoken.JwtException;
+import jgram.assessment.GradedDocumentWriter;
+import jgram.assessment.Result;
+import jgram.security.JWT;
+import jgram.storage.Assignment;
 import jgram.storage.RecordManager;
 
 /**
@@ -24,6 +30,9 @@ import jgram.storage.RecordManager;
  * Postcondition1 (Task performed for all files): All files are evaluated for
  * modifications and a report on each file is output to the sub-directory 
  * 'GRADED' and it titled 'report.txt'.
+ * Postcondition2 (Signed results): The graded files are compared as one set
+ * with the signed Merkle root of their assignment, so that graded documents
+ * that were removed or added are reported.
  *
  */
 public class TamperTask extends Task {
@@ -32,22 +41,44 @@ public class TamperTask extends Task {
 	private PrintWriter outStream;
 	private String reportFilename;
 	private Map<Path, String> pathHashMap;
+	private List<Result> auditedResults;
 	private RecordManager rm;
 	
 	// Constructor(s)
 	public TamperTask() {
 		super();
 		pathHashMap = new HashMap<>();
+		auditedResults = new ArrayList<>();
 		rm = new RecordManager();
 	}
 	
 	public TamperTask(String userSecret, Scanner inputKeyboard) {
 		super(userSecret, inputKeyboard);
 		pathHashMap = new HashMap<>();
+		auditedResults = new ArrayList<>();
 		rm = new RecordManager();
 		
 	}
 	
+	/**
+	 * Intent: Add the signed result of a graded file to the results that are
+	 * compared with the signed root of the assignment.
+	 * 
+	 * @param assignmentName String original file name
+	 * @param hashString String signed result or null if none was found
+	 */
+	private void addAuditedResult(String assignmentName, String hashString) {
+		
+		if (hashString == null) {
+			return;
+		}
+		
+		Result result = new Result(hashString);
+		result.setAssignmentName(assignmentName);
+		auditedResults.add(result);
+		
+	}
+	
 	/**
 	 * Intent: Create a list of graded file names.
 	 * 
@@ -138,10 +169,14 @@ public class TamperTask extends Task {
 	 * RecordManager object is created for retrieving records.
 	 * Postcondition2 (Create ExecutorService): An ExecutorService object is
 	 * created to handle the execution of a task run as a new thread on each 
-	 * file on up to 5 files at a time.
+	 * file. Documents are admitted while their estimated heap cost fits into
+	 * the memory budget.
 	 * Postcondition3 (Map loop): All documents found at a path have been
 	 * iterated on and the task operations have been executed if applicable. 
-	 * Postcondition4 (Handle exceptions): Exceptions are reported to the 
+	 * Postcondition4 (Signed results): The graded documents are compared as
+	 * a set with the signed root of their assignment once every document has
+	 * been tested.
+	 * Postcondition5 (Handle exceptions): Exceptions are reported to the 
 	 * console and control returns to the caller.
 	 */
 	@Override
@@ -152,26 +187,23 @@ public class TamperTask extends Task {
 			// Post1 Preparation
 			prep();
 			
-			// Post2 Create ExecutorService
-			ExecutorService executorService = getExecutorService();
-						
-			// Post3 Map Loop
+			// Post2 Create ExecutorService and Post3 Map Loop
 			for (Map.Entry<Path, String> entry : pathHashMap.entrySet()) {
 				
 				TamperTaskRun taskRun = new TamperTaskRun(outStream, 
 						entry.getValue(), entry.getKey(), getSecret());
 				
-				executorService.execute(taskRun);
-				incrementThreadCount();
+				submitDocument(entry.getKey(), taskRun);
 			}
 			
-			// Shut down executor service and block until thread 
-			// execution is complete
-			executorService.shutdown();
-			executorService.awaitTermination(Long.MAX_VALUE, 
-					TimeUnit.NANOSECONDS);
+			// Block until every admitted document has been tested and shut 
+			// down executor service
+			awaitDocuments();
+			
+			// Post4 Signed results
+			verifySignedResults();
 		
-		// Post4 Handle exceptions
+		// Post5 Handle exceptions
 		} catch (Exception e) {
 			displayException(e, "Could not determine tamper status.");
 			
@@ -186,6 +218,13 @@ public class TamperTask extends Task {
 			if (reportFilename != null) {
 				System.out.println("\nReport written to: " + reportFilename);
 			}
+			
+			// Close archive if one was opened
+			try {
+				closeArchive();
+			} catch (IOException e) {
+				displayException(e, "Could not close archive.");
+			}
 		}
 		
 	}
@@ -198,12 +237,15 @@ public class TamperTask extends Task {
 	 * the nested 'GRADED' sub-directory for the tamper task.
 	 * Postcondition3 (File list): A list of valid graded files is created.
 	 * Postcondition4 (PrintWriter): A PrinterWriter object is created with
-	 * the name of the report file.
+	 * the name of the report file. The report of a graded archive is written
+	 * next to the archive.
 	 * Postcondition5 (Extract a list of file names): A list of original
 	 * previously graded file names is extracted from the Task file list and
 	 * stored in a map with associated graded file paths.
 	 * Postcondition6 (Retrieve hash strings): A map of hash strings associated
-	 * with previously graded file names is created.
+	 * with previously graded file names is created. Graded files that store
+	 * their own hash string are mapped to null and are verified without the
+	 * JGRAM database.
 	 * 
 	 * @throws IOException
 	 * @throws ClassNotFoundException 
@@ -214,7 +256,8 @@ public class TamperTask extends Task {
 		SQLException {
 		
 		// Post1 Working directory
-		System.out.println("\nChoose a directory with graded Word documents.");
+		System.out.println("\nChoose a directory with graded Word documents "
+				+ "or a 'GRADED_' archive.");
 		getDirectory();
 		
 		// Post2 Graded
@@ -229,7 +272,9 @@ public class TamperTask extends Task {
 		}
 		
 		// Post4 PrintWriter
-		reportFilename = getReportFilename(getWorkingDirectory());
+		Path reportDirectory = getArchivePath() == null ? getWorkingDirectory()
+				: getArchivePath().toAbsolutePath().getParent();
+		reportFilename = getReportFilename(reportDirectory);
 		outStream = new PrintWriter(reportFilename);
 		
 		// Post5 Extract a list of file names
@@ -251,30 +296,51 @@ public class TamperTask extends Task {
 	 * Intent: Create a map of previously saved hash strings associated with
 	 * specific files.
 	 * 
-	 * Postcondition1 (RecordManager): A  connection to the JGRAM database is 
-	 * opened.
-	 * Postcondition2 (Retrieve map): A hash map is created and contains the
-	 * graded file path reference as a key and the associated hash string as a
-	 * value.
-	 * Postcondition3 (Close connection): The connection to the JGRAM database
+	 * Postcondition1 (Signed result): Graded files that store a hash string
+	 * in the document are added to the map with a null hash string. The 
+	 * TamperTaskRun reads the hash string from the document. Every hash 
+	 * string that is found is kept to compare with the signed root.
+	 * Postcondition2 (RecordManager): If any graded file does not store a 
+	 * hash string, a connection to the JGRAM database is opened.
+	 * Postcondition3 (Retrieve map): The graded file path references of the
+	 * remaining files and their associated hash strings are added to the map.
+	 * Postcondition4 (Close connection): The connection to the JGRAM database
 	 * is closed.
 	 * 
 	 * @param fileMap
 	 * @throws SQLException 
-	 * @throws FileNotFoundException
 	 * @throws IOException
-	 * @throws ClassNotFoundException
 	 */
 	private void retrieveHashString(Map<String, Path> fileMap) 
-			throws SQLException {
+			throws SQLException, IOException {
 		
-		// Post1 RecordManager
+		// Post1 Signed result
+		Map<String, Path> unsignedFileMap = new HashMap<>();
+		for (Map.Entry<String, Path> entry : fileMap.entrySet()) {
+			String hashString = GradedDocumentWriter.readSignedResult(
+					entry.getValue());
+			if (hashString != null) {
+				pathHashMap.put(entry.getValue(), null);
+				addAuditedResult(entry.getKey(), hashString);
+			} else {
+				unsignedFileMap.put(entry.getKey(), entry.getValue());
+			}
+		}
+		if (unsignedFileMap.isEmpty()) {
+			return;
+		}
+		
+		// Post2 RecordManager
 		rm.openConnection();
 		
-		// Post2 Retrieve map
-		pathHashMap = rm.createPathHashMap(fileMap);
+		// Post3 Retrieve map
+		pathHashMap.putAll(rm.createPathHashMap(unsignedFileMap));
+		for (Map.Entry<String, Path> entry : unsignedFileMap.entrySet()) {
+			addAuditedResult(entry.getKey(), pathHashMap.get(
+					entry.getValue()));
+		}
 		
-		// Post3 Close connection
+		// Post4 Close connection
 		rm.closeConnection();
 		
 	}
@@ -290,14 +356,15 @@ public class TamperTask extends Task {
 	
 	/**
 	 * Intent: Adjust the working directory for the 'GRADED' sub-directory. 
-	 * If the working directory is null, no changes are made.
+	 * If the working directory is null or is a graded archive, no changes are 
+	 * made.
 	 * If 'GRADED' is not found through new FileNotFoundException.
 	 * 
 	 * @throws FileNotFoundException
 	 */
 	public void testTamperPath() throws FileNotFoundException {
 		
-		if (getWorkingDirectory() != null) {
+		if (getWorkingDirectory() != null && getArchivePath() == null) {
 			setWorkingDirectory(Paths.get(getWorkingDirectory().toString(), 
 					"GRADED"));
 			// Determine if assignments have been graded
@@ -307,5 +374,164 @@ public class TamperTask extends Task {
 			}
 		}
 	}
+	
+	/**
+	 * Intent: Return the title of the signed assignment that most of the 
+	 * audited results were graded in, or null if none was signed.
+	 * 
+	 * @return String assignment title or null
+	 * @throws SQLException
+	 */
+	private String selectSignedAssignmentTitle() throws SQLException {
+		
+		Map<String, Integer> titleCounts = new HashMap<>();
+		String signedTitle = null;
+		for (Result result : auditedResults) {
+			String title = rm.selectSignedAssignmentTitle(
+					result.getAssignmentName());
+			if (title != null && titleCounts.merge(title, 1, Integer::sum) 
+					> titleCounts.getOrDefault(signedTitle, 0)) {
+				signedTitle = title;
+			}
+		}
+		
+		return signedTitle;
+		
+	}
+	
+	/**
+	 * Intent: Compare the graded documents with the signed Merkle root of the
+	 * assignment they were graded in and write the comparison to the report.
+	 * 
+	 * Postcondition1 (Signed assignment): The assignment is the signed 
+	 * assignment that most graded documents belong to. Nothing is compared if
+	 * no assignment was signed.
+	 * Postcondition2 (Single documents): The signed result of each graded
+	 * document is verified with the inclusion proof of the stored result of
+	 * the same name. A document without a stored result is extra and a 
+	 * document whose signed result is not in the tree is changed.
+	 * Postcondition3 (Document set): The signed results of all graded 
+	 * documents are verified against the signed root. Stored results without
+	 * a graded document are missing.
+	 * Postcondition4 (Report): The comparison is written to the report.
+	 * 
+	 * @throws SQLException
+	 */
+	private void verifySignedResults() throws SQLException {
+		
+		if (auditedResults.isEmpty()) {
+			return;
+		}
+		
+		rm.openConnection();
+		try {
+			
+			// Post1 Signed assignment
+			String title = selectSignedAssignmentTitle();
+			if (title == null) {
+				writeSignedResultsReport(null, true, List.of(), List.of(), 
+						List.of());
+				return;
+			}
+			Assignment assignment = new Assignment(null, title, null);
+			rm.setAssignment(assignment);
+			assignment.setSignedRoot(rm.selectSignedRoot());
+			Map<String, Result> signedResults = rm.selectPreviousResults();
+			JWT jwt = JWT.forSecret(getSecret());
+			
+			// Post2 Single documents
+			TreeSet<String> missing = new TreeSet<>(signedResults.keySet());
+			List<String> extra = new ArrayList<>();
+			List<String> changed = new ArrayList<>();
+			boolean isSetSigned;
+			try {
+				for (Result result : auditedResults) {
+					Result signedResult = signedResults.get(
+							result.getAssignmentName());
+					missing.remove(result.getAssignmentName());
+					if (signedResult == null) {
+						extra.add(result.getAssignmentName());
+						continue;
+					}
+					result.setProof(signedResult.getProof());
+					if (!assignment.verifyResult(jwt, result)) {
+						changed.add(result.getAssignmentName());
+					}
+				}
+				
+				// Post3 Document set
+				isSetSigned = assignment.verifyResults(jwt, auditedResults);
+				
+			} catch (JwtException e) {
+				isSetSigned = false;
+			}
+			
+			// Post4 Report
+			extra.sort(null);
+			changed.sort(null);
+			writeSignedResultsReport(title, isSetSigned, 
+					new ArrayList<>(missing), extra, changed);
+			
+		} finally {
+			rm.closeConnection();
+		}
+		
+	}
+	
+	/**
+	 * Intent: (verifySignedResults Post4) Write the comparison of the graded
+	 * documents with the signed root to the report.
+	 * 
+	 * @param title String assignment title or null if none was signed
+	 * @param isSetSigned boolean that indicates if the documents are the 
+	 * signed results
+	 * @param missing List of signed results without a graded document
+	 * @param extra List of graded documents without a signed result
+	 * @param changed List of graded documents that were not signed
+	 */
+	private void writeSignedResultsReport(String title, boolean isSetSigned,
+			List<String> missing, List<String> extra, List<String> changed) {
+		
+		synchronized(outStream) {
+			
+			outStream.println("\n---------------------------------"
+					+ "[ SIGNED RESULTS ]----------------------------\n");
+			
+			if (title == null) {
+				outStream.println("No signed results were found for the "
+						+ "graded documents.");
+				return;
+			}
+			
+			outStream.println("Assignment Title: " + title);
+			String status = "\nSigned Results Status: ";
+			if (isSetSigned) {
+				status += "\n\tPASSED signed root comparison";
+			} else {
+				status += "\n\tFAILED signed root comparison";
+			}
+			outStream.println(status);
+			
+			if (!missing.isEmpty()) {
+				outStream.println("\nMissing Documents: \n\t" 
+						+ String.join("\n\t", missing));
+			}
+			if (!extra.isEmpty()) {
+				outStream.println("\nExtra Documents: \n\t" 
+						+ String.join("\n\t", extra));
+			}
+			if (!changed.isEmpty()) {
+				outStream.println("\nChanged Documents: \n\t" 
+						+ String.join("\n\t", changed));
+			}
+			
+		}
+		
+		synchronized(System.out) {
+			System.out.println("\nSIGNED RESULTS "
+					+ (isSetSigned ? "MATCH" : "DO NOT MATCH") + ": " + title);
+		}
+		
+	}
 
 }
@@ -6,6 +6,7 @@ import java.nio.file.Path;
 
 import jgram.assessment.Document;
 import jgram.assessment.GradeMapping;
+import jgram.assessment.GradedDocumentWriter;
 import jgram.assessment.Result;
 import jgram.exceptions.InvalidCheckpointException;
 import jgram.exceptions.InvalidCommentException;
@@ -15,6 +16,9 @@ import jgram.security.Secret;
 
 public class TamperTaskRun extends TaskRun {
 	
+	// Class constant(s)
+	private static final String GRADED_PREFIX = "GRADED_";
+	
 	// Class variable(s)
 	private static PrintWriter outStream;
 	
@@ -32,6 +36,23 @@ public class TamperTaskRun extends TaskRun {
 		hashString = inputHash;
 	}
 	
+	/**
+	 * Intent: Compare the assignment name the previous result was signed for
+	 * with the assignment name of the current document. A result that was 
+	 * signed before assignment names were signed has no assignment name and
+	 * is not compared.
+	 * 
+	 * @return boolean value that indicates assignment name equality
+	 */
+	private boolean compareAssignmentNames() {
+		
+		String previousName = previousDocument.getResult().getAssignmentName();
+		
+		return previousName == null || previousName.equals(
+				currentDocument.getResult().getAssignmentName());
+		
+	}
+	
 	/**
 	 * Intent: Compare two grade mappings from previous and current documents 
 	 * and determine if they are equal.
@@ -46,7 +67,8 @@ public class TamperTaskRun extends TaskRun {
 		GradeMapping currentGradeMap = currentDocument.getGradeMapping();
 		boolean isGradeMapEqual = true;
 		
-		if (!(previousGradeMap.equals(currentGradeMap))) {
+		// Grade mappings are interned so equal grade mappings are the same
+		if (previousGradeMap != currentGradeMap) {
 			isGradeMapEqual = false;
 		}
 		
@@ -91,10 +113,7 @@ public class TamperTaskRun extends TaskRun {
 	private void displayException(Exception e) {
 			
 		// Post1 Obtain file name from original
-		String filename = previousDocument
-				.getAssignmentName()
-				.getFileName()
-				.toString();
+		String filename = getPath().getFileName().toString();
 		
 		// Post2 Synchronized
 		synchronized(System.out) {
@@ -111,6 +130,23 @@ public class TamperTaskRun extends TaskRun {
 		
 	}
 	
+	/**
+	 * Intent: Return the name of the assignment that was graded from the file
+	 * name of the graded document.
+	 * 
+	 * @return String assignment name
+	 */
+	private String retrieveAssignmentName() {
+		
+		String filename = getPath().getFileName().toString();
+		if (filename.startsWith(GRADED_PREFIX)) {
+			filename = filename.substring(GRADED_PREFIX.length());
+		}
+		
+		return filename;
+		
+	}
+	
 	/**
 	 * Intent: Retrieve current document grading result data.
 	 * 
@@ -134,7 +170,7 @@ public class TamperTaskRun extends TaskRun {
 		// Grade mapping
 		currentDocument.parseGradeMapping();
 		// Set default grade mapping if one is not provided in the comments
-		if (currentDocument.getGradeMapping().getLimits().isEmpty()) {
+		if (currentDocument.getGradeMapping().isEmpty()) {
 			currentDocument.setDefaultGradeMapping();
 		}
 		
@@ -146,13 +182,18 @@ public class TamperTaskRun extends TaskRun {
 			throw new InvalidCommentException(message);
 		}
 		
-		// Result
+		// Result of the assignment the graded document was created for
 		currentDocument.calculateResult();
+		currentDocument.getResult().setAssignmentName(
+				retrieveAssignmentName());
 	}
 	
 	/**
 	 * Intent: Retrieve previous document grading result data.
 	 * 
+	 * Precondition1 (Hash string): The hash string of the previous result was
+	 * retrieved from the JGRAM database or is stored in the graded document.
+	 * 
 	 * Postcondition1 (Previous document creation): A Document object is created
 	 * to represent the results from a previously grading attempt.
 	 * Postcondition2 (Result): A Result object is created to store the
@@ -174,27 +215,53 @@ public class TamperTaskRun extends TaskRun {
 		previousDocument = new Document(getPath());
 		
 		// Post2 Result
-		Result result = new Result(hashString);
+		Result result = new Result(retrieveHashString());
 		previousDocument.setResult(result);
 		
 		// Post3 Decode hash string
-		JWT jwt = new JWT(getSecret());
+		JWT jwt = JWT.forSecret(getSecret());
 		jwt.decode(previousDocument);
 
 		
 	}
 	
+	/**
+	 * Intent: Return the hash string of the previous result. If no hash 
+	 * string was retrieved from the JGRAM database, the hash string that is 
+	 * stored in the graded document is used.
+	 * 
+	 * @return String hash string
+	 * @throws IOException if no hash string was found
+	 */
+	private String retrieveHashString() throws IOException {
+		
+		if (hashString == null) {
+			hashString = GradedDocumentWriter.readSignedResult(getPath());
+		}
+		if (hashString == null) {
+			throw new IOException("No signed result was found in file.");
+		}
+		
+		return hashString;
+		
+	}
+	
 	/**
 	 * Intent: Tamper test document found at path parameter and write results
 	 * to report.txt.
 	 * 
-	 * Postcondition1 (Previous result): A new document is created that 
-	 * represents previous results and previous hash string has been retrieved 
-	 * and stored.
-	 * Postcondition2 (Current result): The current document is evaluated for
-	 * comments, a grade mapping, checkpoints and a result is determined.
-	 * Postcondition3 (Comparison): The previous document and current document
-	 * are compared.
+	 * Postcondition1 (Current result): The current document is evaluated for
+	 * comments, a grade mapping, checkpoints and a result is determined. The
+	 * assignment name of the result is the file name of the graded document
+	 * without its 'GRADED_' prefix.
+	 * Postcondition2 (Digest): If the digest signed with the previous hash 
+	 * string matches the digest of the current result, assignment name and 
+	 * grade mapping, the document passes without decoding the previous 
+	 * result.
+	 * Postcondition3 (Comparison): Otherwise a new document is created that
+	 * represents previous results from the decoded previous hash string, and
+	 * the assignment names, grade mappings and results of the previous 
+	 * document and current document are compared.
 	 * Postcondition4 (Report): A report is written to a file in the 'GRADED'
 	 * sub-directory called 'report.txt'.
 	 * Postcondition5 (Handle exceptions for specific files): Exceptions have 
@@ -206,13 +273,23 @@ public class TamperTaskRun extends TaskRun {
 		
 		try {
 			
-			// Post1 Previous result
-			retrievePreviousDocument();
-			
-			// Post2 Current result
+			// Post1 Current result
 			retrieveCurrentDocument();
 			
+			// Post2 Digest
+			JWT jwt = JWT.forSecret(getSecret());
+			if (jwt.verifyDigest(retrieveHashString(), 
+					currentDocument.getResult(), 
+					currentDocument.getGradeMapping())) {
+				writeReport(true, true, true, getPath());
+				return;
+			}
+			
 			// Post3 Comparison of results
+			retrievePreviousDocument();
+			
+			// Assignment name
+			boolean isNameEqual = compareAssignmentNames();
 			
 			// GradeMapping
 			boolean isGradeMapEqual = compareGradeMaps();
@@ -221,7 +298,8 @@ public class TamperTaskRun extends TaskRun {
 			boolean isResultEqual = compareResults();
 			
 			// Post4 Report
-			writeReport(isGradeMapEqual, isResultEqual, getPath());
+			writeReport(isNameEqual, isGradeMapEqual, isResultEqual, 
+					getPath());
 		
 		// Post5 Handle exceptions for specific files
 		} catch (Exception e) {
@@ -232,8 +310,9 @@ public class TamperTaskRun extends TaskRun {
 	/**
 	 * Intent: Print a report of tamper test results.
 	 * 
-	 * Precondition1 (GradeMapping and Result): Both grade mappings and results
-	 * have been compared in the previous and current documents.
+	 * Precondition1 (Assignment name, GradeMapping and Result): The assignment
+	 * names, grade mappings and results have been compared in the previous 
+	 * and current documents.
 	 * 
 	 * Postconidtion1 (Synchronized): All output operations are synchronized
 	 * across executing Threads.
@@ -243,12 +322,13 @@ public class TamperTaskRun extends TaskRun {
 	 * Postcondition3 (Comparison results): Result of comparisons have been
 	 * written to a file in the 'GRADED' sub-directory called 'reports.txt'.
 	 * 
+	 * @param isNameEqual boolean that indicates if assignment names are equal
 	 * @param isGradeMapEqual boolean that indicates if grade mappings are equal
 	 * @param isResultEqual boolean that indicates if results are equal
 	 * @param path Path object to determine where report should be written.
 	 */
-	private void writeReport( boolean isGradeMapEqual, boolean isResultEqual, 
-			Path path) throws IOException {
+	private void writeReport(boolean isNameEqual, boolean isGradeMapEqual, 
+			boolean isResultEqual, Path path) throws IOException {
 		
 		// Post1 Synchronized
 		synchronized(outStream) {
@@ -262,6 +342,16 @@ public class TamperTaskRun extends TaskRun {
 			String status = "\nTamper Status: ";
 			String gradeMapping = "";
 			String resultTable = "";
+			String assignmentName = "";
+			
+			// Assignment name
+			if (!isNameEqual) {
+				status += "\n\tFAILED assignment name comparison";
+				assignmentName = "Signed Assignment Name: " 
+					+ previousDocument.getResult().getAssignmentName()
+					+ "\nCurrent Assignment Name: "
+					+ currentDocument.getResult().getAssignmentName() + "\n";
+			}
 			
 			// Grade mapping
 			if (!isGradeMapEqual) {
@@ -282,7 +372,7 @@ public class TamperTaskRun extends TaskRun {
 			}
 			
 			// Passed modification tests
-			if (isGradeMapEqual && isResultEqual) {
+			if (isNameEqual && isGradeMapEqual && isResultEqual) {
 				status += "\n\tPASSED all comparisons";
 				gradeMapping = "\nGrade Mapping: \n" 
 						+ currentDocument.getGradeMapping();
@@ -293,6 +383,9 @@ public class TamperTaskRun extends TaskRun {
 			
 			// Post3 Comparison results
 			outStream.println(status);
+			if (!isNameEqual) {
+				outStream.println(assignmentName);
+			}
 			outStream.println(gradeMapping);
 			outStream.println(resultTable);
 			
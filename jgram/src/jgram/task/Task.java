@@ -2,6 +2,8 @@ package jgram.task;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -10,9 +12,8 @@ import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import jgram.security.Secret;
 
@@ -26,11 +27,19 @@ import jgram.security.Secret;
  */
 public abstract class Task {
 	
+	// Class constant(s)
+	private static final String ARCHIVE_EXTENSION = ".zip";
+	
 	// Instance variable(s)
 	private Secret secret;
 	private List<Path> fileList;
 	private Path workingDirectory;
+	private Path archivePath;
+	private FileSystem archiveFileSystem;
+	private String filterPatterns = "";
+	private DocumentFinder documentFinder;
 	private ExecutorService executorService;
+	private AdmissionController admissionController;
 	private int threadCount;
 	private Scanner keyboard;
 
@@ -38,11 +47,15 @@ public abstract class Task {
 	public Task() {
 		fileList = new ArrayList<>();
 		executorService = Executors.newFixedThreadPool(10);
+		admissionController = new AdmissionController(executorService, 
+				AdmissionController.defaultBudget());
 	}
 	
 	public Task(Scanner inputKeyboard) {
 		fileList = new ArrayList<>();
 		executorService = Executors.newFixedThreadPool(10);
+		admissionController = new AdmissionController(executorService, 
+				AdmissionController.defaultBudget());
 		keyboard = inputKeyboard;
 	}
 	
@@ -50,50 +63,66 @@ public abstract class Task {
 		secret = new Secret(userSecret);
 		fileList = new ArrayList<>();
 		executorService = Executors.newFixedThreadPool(10);
+		admissionController = new AdmissionController(executorService, 
+				AdmissionController.defaultBudget());
 		keyboard = inputKeyboard;
 	}
 	
 	/**
-	 * Intent: To retrieve all directories found at path provided as user
+	 * Intent: Wait until every document that was submitted has been processed
+	 * and shut down the ExecutorService.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void awaitDocuments() throws InterruptedException {
+		
+		admissionController.awaitIdle();
+		executorService.shutdown();
+		executorService.awaitTermination(Long.MAX_VALUE, 
+				TimeUnit.NANOSECONDS);
+		
+	}
+	
+	/**
+	 * Intent: Close the archive that was opened as the working source. Nothing
+	 * happens if the working source is a directory.
+	 * 
+	 * @throws IOException
+	 */
+	public void closeArchive() throws IOException {
+		
+		if (archiveFileSystem != null) {
+			archiveFileSystem.close();
+			archiveFileSystem = null;
+		}
+		
+	}
+	
+	/**
+	 * Intent: To retrieve all documents found at path provided as user
 	 * input.
 	 * 
 	 * Precondition1 (Selected task): User has selected a task that requires
 	 * a list of files to execute on.
 	 * 
-	 * Postcondition1 (Filter Predicate interface object): A Predicate interface
-	 * object is created for use with stream filter method and tests for
-	 * file names that end with ".docx".
-	 * Postcondition2 (Filter Predicate interface object): A Predicate interface
-	 * object is created for use with stream filter method and tests for
-	 * file names that start with "~".  
-	 * Postcondition3 (Create Path stream and store valid documents): A Path
-	 * stream is created and valid Path files are extracted from the stream
-	 * and stored in fileList.
+	 * Postcondition1 (Find documents): The working source and its nested 
+	 * directories are walked with a DocumentFinder that keeps Word documents
+	 * that are not hidden and that match the filter patterns.
+	 * Postcondition2 (Store valid documents): The documents that are found 
+	 * are stored in fileList.
 	 * 
 	 * @throws IOException
 	 */
 	public void createFileList() throws IOException {
 		
+		// Post2 Store valid documents
+		fileList = new ArrayList<>();
+		
 		// Valid path has been entered
 		if (workingDirectory != null) {
 			
-			// Post1 Filter Predicate interface object
-			Predicate<Path> isDocx = (p -> {
-				String name = p.getName(p.getNameCount() - 1).toString();
-				return name.endsWith(".docx");
-			});
-			
-			// Post2 Filter Predicate interface object
-			Predicate<Path> isNotHidden = (p -> {
-				String name = p.getName(p.getNameCount() - 1).toString();
-				return !name.startsWith("~");
-			});
-			
-			// Post3 Create Path stream and store valid documents in file list
-			Stream<Path> pathStream = Files.list(workingDirectory);
-			fileList = pathStream.filter(isDocx.and(isNotHidden))
-					.collect(Collectors.toList());
-			pathStream.close();
+			// Post1 Find documents
+			getDocumentFinder().find(fileList::add);
 		
 		} // End outer if
 		
@@ -132,11 +161,44 @@ public abstract class Task {
 	abstract public void displayHelp();
 	
 	/**
-	 * Obtain a Path from the user that represents a directory path on their
-	 * file system.
+	 * Intent: Hand each document of the working source to the action 
+	 * parameter and return the number of documents.
+	 * 
+	 * Postcondition1 (File list): If a file list has been created, each of 
+	 * its documents is handed to the action.
+	 * Postcondition2 (Streaming discovery): Otherwise the working source is 
+	 * walked and each document is handed to the action as soon as it is 
+	 * found so that work on the first documents overlaps with the walk.
+	 * 
+	 * @param action Consumer that receives each document
+	 * @return int number of documents
+	 * @throws IOException
+	 */
+	public int forEachDocument(Consumer<Path> action) throws IOException {
+		
+		// Post1 File list
+		if (!fileList.isEmpty()) {
+			fileList.forEach(action);
+			return fileList.size();
+		}
+		
+		if (workingDirectory == null) {
+			return 0;
+		}
+		
+		// Post2 Streaming discovery
+		return getDocumentFinder().find(action);
+		
+	}
+	
+	/**
+	 * Obtain a Path from the user that represents a directory path or a zip
+	 * archive of Word documents on their file system.
 	 * 
 	 * Postcondition1 (User input collected): The user has entered a directory
-	 * path and it has been validated.
+	 * path or archive path and it has been validated. An archive is opened 
+	 * as a zip file system and its root becomes the working directory so that
+	 * its documents are read without being extracted.
 	 * Postcondtion2 (Handle invalid input): The user has entered an invalid 
 	 * directory path and has been notified on the console. The user is given 
 	 * the choice to enter another directory path or exit.
@@ -153,7 +215,7 @@ public abstract class Task {
 		boolean keepGoing = true;
 		while (notADirectory && keepGoing) {
 								
-			System.out.println("Enter a directory: "
+			System.out.println("Enter a directory or a .zip archive: "
 					+ "\n\t(Example: /Users/username/Documents/Assignments/):");
 			String input = keyboard.nextLine();
 			
@@ -163,6 +225,16 @@ public abstract class Task {
 			if (Files.isDirectory(path)) {
 				notADirectory = false;
 			
+			// Post1 Archive
+			} else if (isArchive(path)) {
+				try {
+					path = openArchive(path);
+					notADirectory = false;
+				} catch (IOException e) {
+					System.out.println("\nCould not open archive: " 
+							+ e.getMessage());
+				}
+			
 			// Post2 Handle invalid input	
 			} else if (input.equals("0")) {
 				path = null;
@@ -180,25 +252,75 @@ public abstract class Task {
 		
 		// Post1 User input collected
 		workingDirectory = path;
+		documentFinder = null;
 		
 	}
 	
 	/**
-	 * Intent: Get working directory and create a list of valid Word files found
-	 * in working directory. Throws FileNotFoundException is no valid files
-	 * are found.
-	 * @throws IOException
+	 * Intent: Get working directory and the filter patterns that select the
+	 * documents in it. Throws FileNotFoundException if no directory was 
+	 * selected.
+	 * 
+	 * @throws FileNotFoundException
 	 */
-	public void getDirectoryAndFileList() throws IOException {
-		// Post1 Create file list
+	public void getDirectoryAndFilters() throws FileNotFoundException {
+		
 		getDirectory();
-		createFileList();
-			
-		// Return to main menu if file list was not found
-		if (getFileList().isEmpty()) {
-			throw new FileNotFoundException("\nNo Word documents were "
-					+ "found.");
+		
+		// Return to main menu if no directory was selected
+		if (workingDirectory == null) {
+			throw new FileNotFoundException("\nNo directory was selected.");
 		}
+		
+		getFilters();
+		
+	}
+	
+	/**
+	 * Intent: Obtain glob patterns from the user that select which documents
+	 * of the working source are used. Patterns are matched against the path
+	 * of a document relative to the working source and exclude patterns 
+	 * start with '!'. An empty answer selects every document.
+	 */
+	public void getFilters() {
+		
+		System.out.println("\nEnter patterns of documents to include or "
+				+ "exclude (prefix '!') \n\tor press ENTER to use every "
+				+ "document: \n\t(Example: section1/** !**/drafts/**):");
+		filterPatterns = keyboard.nextLine().trim();
+		documentFinder = null;
+		
+	}
+	
+	/**
+	 * Intent: Return the path of the archive that is the working source or
+	 * null if the working source is a directory.
+	 * 
+	 * @return Path object
+	 */
+	public Path getArchivePath() {
+		return archivePath;
+	}
+	
+	public AdmissionController getAdmissionController() {
+		return admissionController;
+	}
+	
+	/**
+	 * Intent: Return the DocumentFinder of the working source and the filter
+	 * patterns. The same finder is returned until either of them changes so
+	 * that documents found later are tested against the names it found.
+	 * 
+	 * @return DocumentFinder object
+	 */
+	public DocumentFinder getDocumentFinder() {
+		
+		if (documentFinder == null) {
+			documentFinder = new DocumentFinder(workingDirectory, 
+					filterPatterns);
+		}
+		return documentFinder;
+		
 	}
 	
 	public ExecutorService getExecutorService() {
@@ -217,6 +339,22 @@ public abstract class Task {
 		return secret;
 	}
 	
+	/**
+	 * Intent: Return a String that describes where the working source is 
+	 * located on the file system.
+	 * 
+	 * @return String
+	 */
+	public String getSourceLocation() {
+		
+		if (archivePath != null) {
+			return archivePath.toString();
+		}
+		
+		return workingDirectory.toString();
+		
+	}
+	
 	public synchronized int getThreadCount() {
 		return threadCount;
 	}
@@ -229,6 +367,96 @@ public abstract class Task {
 		threadCount++;
 	}
 	
+	/**
+	 * Intent: Submit the run that processes a document. The run is executed 
+	 * once the estimated heap cost of the document fits into the memory 
+	 * budget so that large documents are not loaded all at once.
+	 * 
+	 * Postcondition1 (Estimate): The heap cost of the document is estimated.
+	 * Postcondition2 (Admission): The run is handed to the admission 
+	 * controller and the thread count is incremented.
+	 * 
+	 * @param path Path of the document
+	 * @param run Runnable that processes the document
+	 */
+	public void submitDocument(Path path, Runnable run) {
+		
+		// Post1 Estimate
+		long cost = AdmissionController.estimateCost(path);
+		
+		// Post2 Admission
+		admissionController.submit(run, cost);
+		incrementThreadCount();
+		
+	}
+	
+	/**
+	 * Intent: Test if a path is a zip archive, such as the bulk download of
+	 * assignment submissions from a learning management system.
+	 * 
+	 * @param path
+	 * @return boolean
+	 */
+	public static boolean isArchive(Path path) {
+		
+		String name = path.getFileName() == null ? "" 
+				: path.getFileName().toString().toLowerCase();
+		
+		return Files.isRegularFile(path) && name.endsWith(ARCHIVE_EXTENSION);
+		
+	}
+	
+	/**
+	 * Intent: Test if a path names a Word document that can be graded. Word 
+	 * creates hidden lock files that start with "~" while a document is open
+	 * so they are excluded.
+	 * 
+	 * Postcondition1 (Word document): The file name ends with ".docx".
+	 * Postcondition2 (Not hidden): The file name does not start with "~".
+	 * 
+	 * @param path
+	 * @return boolean
+	 */
+	public static boolean isDocument(Path path) {
+		
+		if (path.getNameCount() == 0) {
+			return false;
+		}
+		String name = path.getName(path.getNameCount() - 1).toString();
+		
+		// Post1 Word document and Post2 Not hidden
+		return name.endsWith(".docx") && !name.startsWith("~");
+		
+	}
+	
+	/**
+	 * Intent: Open a zip archive as a read-only file system and return its
+	 * root directory. Documents in the archive are streamed from the archive
+	 * when they are read.
+	 * 
+	 * Postcondition1 (Close previous): Any previously opened archive is 
+	 * closed.
+	 * Postcondition2 (Zip file system): The archive is opened as a zip file 
+	 * system.
+	 * 
+	 * @param path Path of zip archive
+	 * @return Path of archive root directory
+	 * @throws IOException
+	 */
+	public Path openArchive(Path path) throws IOException {
+		
+		// Post1 Close previous
+		closeArchive();
+		
+		// Post2 Zip file system
+		archiveFileSystem = FileSystems.newFileSystem(path, 
+				(ClassLoader) null);
+		archivePath = path;
+		
+		return archiveFileSystem.getRootDirectories().iterator().next();
+		
+	}
+	
 	/**
 	 * Intent: Performs task specific to subclass implementation.
 	 * Precondition1 (Task Selection)
@@ -243,10 +471,29 @@ public abstract class Task {
 	 */
 	abstract public void prep() throws Exception;
 	
+	/**
+	 * Intent: Return true if filter patterns select only some documents of 
+	 * the working source.
+	 * 
+	 * @return boolean
+	 */
+	public boolean hasFilters() {
+		return !filterPatterns.isEmpty();
+	}
+	
+	public void setAdmissionController(AdmissionController controller) {
+		admissionController = controller;
+	}
+	
 	public void setFileList(List<Path> paths) {
 		fileList = paths;
 	}
 	
+	public void setFilterPatterns(String patterns) {
+		filterPatterns = patterns;
+		documentFinder = null;
+	}
+	
 	public void setKeyboard(Scanner inputKeyboard) {
 		keyboard = inputKeyboard;
 	}
@@ -257,6 +504,7 @@ public abstract class Task {
 	
 	public void setWorkingDirectory(Path path) {
 		workingDirectory = path;
+		documentFinder = null;
 	}
 	
 }
@@ -0,0 +1,192 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import jgram.task.AdmissionController;
+
+class AdmissionControllerTest {
+
+	/**
+	 * Test the estimateCost method of the AdmissionController class.
+	 */
+	@Test
+	void testEstimateCost() {
+
+		Path path = TestUtilities.returnPath("eval/eval-task-test-valid.docx");
+
+		try {
+			assertTrue(AdmissionController.estimateCost(path)
+					> Files.size(path));
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+
+	}
+
+	/**
+	 * Test that the budget is not exceeded, that a small document fills the
+	 * gap left by a large document and that a document larger than the budget
+	 * is admitted alone.
+	 */
+	@Test
+	void testSubmit() {
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		AdmissionController controller = new AdmissionController(
+				executorService, 100);
+		List<String> startList = new CopyOnWriteArrayList<>();
+		CountDownLatch firstLatch = new CountDownLatch(1);
+
+		try {
+
+			// First large document holds most of the budget
+			controller.submit(() -> {
+				startList.add("large1");
+				await(firstLatch);
+			}, 80);
+			controller.submit(() -> startList.add("large2"), 80);
+			controller.submit(() -> startList.add("small"), 10);
+
+			// Assert small document passed the waiting large document
+			waitFor(() -> startList.contains("small"));
+			assertEquals(List.of("large1", "small"), startList);
+			assertTrue(controller.getInFlight() <= controller.getBudget());
+
+			// Assert waiting large document runs once memory is released
+			firstLatch.countDown();
+			controller.submit(() -> startList.add("oversized"), 500);
+			controller.awaitIdle();
+			assertEquals(4, startList.size());
+			assertEquals(0, controller.getInFlight());
+
+			executorService.shutdown();
+			executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+		} catch (InterruptedException e) {
+			fail(e.getMessage());
+		}
+
+	}
+
+	/**
+	 * Test that a document that is passed over is passed at most 
+	 * MAX_BYPASSES times by smaller documents.
+	 */
+	@Test
+	void testSubmitBypassLimit() {
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		AdmissionController controller = new AdmissionController(
+				executorService, 100);
+		List<String> startList = new CopyOnWriteArrayList<>();
+		CountDownLatch firstLatch = new CountDownLatch(1);
+
+		try {
+
+			// A large document waits for the first large document
+			controller.submit(() -> {
+				startList.add("large1");
+				await(firstLatch);
+			}, 80);
+			controller.submit(() -> startList.add("large2"), 80);
+
+			// Small documents pass it until the limit is reached
+			int smallCount = AdmissionController.MAX_BYPASSES + 1;
+			for (int i = 0; i < smallCount; i++) {
+				String name = "small" + i;
+				controller.submit(() -> startList.add(name), 1);
+			}
+			waitFor(() -> startList.size() > AdmissionController
+					.MAX_BYPASSES);
+			Thread.sleep(100);
+			assertEquals(AdmissionController.MAX_BYPASSES + 1, 
+					startList.size());
+			assertFalse(startList.contains("small" + (smallCount - 1)));
+
+			// Assert the large document runs before the last small document
+			firstLatch.countDown();
+			controller.awaitIdle();
+			assertTrue(startList.indexOf("large2") 
+					< startList.indexOf("small" + (smallCount - 1)));
+
+			executorService.shutdown();
+			executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+		} catch (InterruptedException e) {
+			fail(e.getMessage());
+		}
+
+	}
+
+	/**
+	 * Test that submit waits while the waiting queue is full.
+	 */
+	@Test
+	void testSubmitWaitingLimit() {
+
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		AdmissionController controller = new AdmissionController(
+				executorService, 100, 1);
+		CountDownLatch firstLatch = new CountDownLatch(1);
+		CountDownLatch submittedLatch = new CountDownLatch(1);
+
+		try {
+
+			// One document runs and one waits
+			controller.submit(() -> await(firstLatch), 100);
+			controller.submit(() -> {}, 100);
+
+			// Assert the next submit waits for a free place in the queue
+			Thread submitter = new Thread(() -> {
+				controller.submit(() -> {}, 100);
+				submittedLatch.countDown();
+			});
+			submitter.start();
+			assertFalse(submittedLatch.await(200, TimeUnit.MILLISECONDS));
+
+			firstLatch.countDown();
+			assertTrue(submittedLatch.await(10, TimeUnit.SECONDS));
+			submitter.join();
+			controller.awaitIdle();
+
+			executorService.shutdown();
+			executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+		} catch (InterruptedException e) {
+			fail(e.getMessage());
+		}
+
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitFor(BooleanSupplier condition)
+			throws InterruptedException {
+		for (int i = 0; i < 1000 && !condition.getAsBoolean(); i++) {
+			Thread.sleep(10);
+		}
+	}
+
+}
@@ -14,6 +14,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -21,6 +22,10 @@ import jgram.task.AssignmentReportTask;
 
 public class AssignmentReportTaskTest {
 	
+	// Copy of the test database and directory of the reports
+	@TempDir
+	Path tempDir;
+	
 	/**
 	 * Intent: Mock AssignmentReportTask methods: prep, getReportSelection,
 	 * getAssignmentName
@@ -51,7 +56,7 @@ public class AssignmentReportTaskTest {
 					if (count == 1) {
 						return selectionNum;
 					}
-					return "4";
+					return "6";
 				}
 				
 			}).when(reportTask).getReportSelection();
@@ -79,12 +84,11 @@ public class AssignmentReportTaskTest {
 				"Assignment 2: Loop Basics", "1");
 		
 		// Set working directory
-		Path resourceDir = TestUtilities.returnAssignmentDir("report/test.txt");
+		Path resourceDir = tempDir;
 		reportTask.setWorkingDirectory(resourceDir);
 		
 		// Set database URL
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		reportTask.getRecordManager().setURL(dbPath);
 		
 		// Run task
@@ -122,6 +126,112 @@ public class AssignmentReportTaskTest {
 		}
 	}
 	
+	/**
+	 * Intent: Test performTask method of AssignmentReportTask class. The report
+	 * selection is set to 5 to retrieve the checkpoint stats of one 
+	 * assignment.
+	 */
+	@Test
+	void testPerformTaskCheckpoints() {
+		
+		// Create new AssignmentReportTask object
+		AssignmentReportTask reportTask = createMocks(
+				"Assignment 1: Array Basics", "5");
+		
+		// Set working directory
+		Path resourceDir = tempDir;
+		reportTask.setWorkingDirectory(resourceDir);
+		
+		// Set database URL
+		String dbPath = TestUtilities.copyDatabase(tempDir);
+		reportTask.getRecordManager().setURL(dbPath);
+		
+		// Run task
+		reportTask.performTask();
+		
+		// Assert report exists
+		String reportFileString = resourceDir.toString() 
+				+ "/REPORT_Assignment 1: Array Basics_checkpoints.txt";
+		File reportFile = new File(reportFileString);
+		assertTrue(reportFile.exists());
+		
+		// Report contents
+		try {
+			Path reportFilePath = reportFile.toPath();
+			byte[] encoded;
+			encoded = Files.readAllBytes(reportFilePath);
+			String report = new String(encoded, StandardCharsets.UTF_8);
+		
+			// Assert report contains a title
+			assertTrue(report.contains(
+					"Assignment 1: Array Basics Checkpoint Stats Report"));
+			
+			// Assert columns
+			assertTrue(report.contains("Checkpoint"));
+			assertTrue(report.contains("Average"));
+			assertTrue(report.contains("Std Dev"));
+			assertTrue(report.contains("Zeros"));
+			
+		} catch (IOException e) {
+			fail("Could not read report file.");
+		}
+	}
+	
+	/**
+	 * Intent: Test performTask method of AssignmentReportTask class. The report
+	 * selection is set to 4 to retrieve the grade distribution of all 
+	 * assignments.
+	 */
+	@Test
+	void testPerformTaskDistribution() {
+		
+		// Create new AssignmentReportTask object
+		AssignmentReportTask reportTask = createMocks("", "4");
+		
+		// Set working directory
+		Path resourceDir = tempDir;
+		reportTask.setWorkingDirectory(resourceDir);
+		
+		// Set database URL
+		String dbPath = TestUtilities.copyDatabase(tempDir);
+		reportTask.getRecordManager().setURL(dbPath);
+		
+		// Run task
+		reportTask.performTask();
+		
+		// Assert report exists
+		String reportFileString = resourceDir.toString() 
+				+ "/REPORT_grade_distribution.txt";
+		File reportFile = new File(reportFileString);
+		assertTrue(reportFile.exists());
+		
+		// Report contents
+		try {
+			Path reportFilePath = reportFile.toPath();
+			byte[] encoded;
+			encoded = Files.readAllBytes(reportFilePath);
+			String report = new String(encoded, StandardCharsets.UTF_8);
+		
+			// Assert report contains a title
+			assertTrue(report.contains("Grade Distribution Report"));
+			
+			// Assert columns
+			assertTrue(report.contains("Assignment Title"));
+			assertTrue(report.contains("Grader"));
+			assertTrue(report.contains("Median"));
+			assertTrue(report.contains("P10"));
+			assertTrue(report.contains("P90"));
+			assertTrue(report.contains("90-100"));
+			
+			// Assert merged rows
+			assertTrue(report.contains("Assignment 1: Array Basics"));
+			assertTrue(report.contains("All assignments"));
+			
+		} catch (IOException e) {
+			fail("Could not read report file.");
+		}
+	}
+	
 	/**
 	 * Intent: Test performTask method of AssignmentReportTask class. The report
 	 * selection is set to 3 to retrieve all assignment stats.
@@ -133,12 +243,11 @@ public class AssignmentReportTaskTest {
 		AssignmentReportTask reportTask = createMocks("", "3");
 		
 		// Set working directory
-		Path resourceDir = TestUtilities.returnAssignmentDir("report/test.txt");
+		Path resourceDir = tempDir;
 		reportTask.setWorkingDirectory(resourceDir);
 		
 		// Set database URL
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		reportTask.getRecordManager().setURL(dbPath);
 		
 		// Run task
@@ -188,12 +297,11 @@ public class AssignmentReportTaskTest {
 		doReturn(name).when(reportTask).getStudentName();
 		
 		// Set working directory
-		Path resourceDir = TestUtilities.returnAssignmentDir("report/test.txt");
+		Path resourceDir = tempDir;
 		reportTask.setWorkingDirectory(resourceDir);
 		
 		// Set database URL
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		reportTask.getRecordManager().setURL(dbPath);
 		
 		// Run task
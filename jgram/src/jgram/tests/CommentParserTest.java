@@ -0,0 +1,85 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import jgram.assessment.CommentParser;
+
+class CommentParserTest {
+
+	/**
+	 * Test that ')' and ']' characters in feedback are part of the feedback.
+	 */
+	@Test
+	void testFeedbackBrackets() {
+
+		CommentParser parser = new CommentParser("CHECKPOINT(WEIGHT=3, "
+				+ "FEEDBACK=[Call f(x) on a[0] ] then return], GRADE=b+)");
+
+		assertTrue(parser.hasCheckpoint());
+		assertEquals(-1, parser.getCheckpointErrorOffset());
+		assertEquals(3, parser.getWeight());
+		assertEquals("B+", parser.getGradeLetter());
+		assertEquals("Call f(x) on a[0] ] then return", parser.getFeedback());
+
+	}
+
+	/**
+	 * Test that the offset of invalid data is reported and that the rest of
+	 * the text is still parsed.
+	 */
+	@Test
+	void testErrorOffset() {
+
+		String text = "CHECKPOINT(WEIGHT=x, GRADE=90) GRADEMAPPING(A=95, G=10)";
+		CommentParser parser = new CommentParser(text);
+
+		assertTrue(parser.hasCheckpoint());
+		assertEquals(text.indexOf("x"), parser.getCheckpointErrorOffset());
+		assertTrue(parser.hasGradeMapping());
+		assertEquals(text.indexOf("G=10"),
+				parser.getGradeMappingErrorOffset());
+
+		// Unclosed feedback
+		text = "CHECKPOINT(WEIGHT=1, GRADE=1, FEEDBACK=[Open";
+		parser = new CommentParser(text);
+		assertEquals(text.indexOf("["), parser.getCheckpointErrorOffset());
+
+	}
+
+	/**
+	 * Test that a comment with a checkpoint and a grade mapping is parsed and
+	 * that a second checkpoint is reported.
+	 */
+	@Test
+	void testMultipleBlocks() {
+
+		CommentParser parser = new CommentParser("Note: GRADEMAPPING( A+=97, "
+				+ "a=95 ) and CHECKPOINT ( weight=2,grade=88,feedback=[Ok])");
+
+		assertTrue(parser.hasGradeMapping());
+		assertEquals(-1, parser.getGradeMappingErrorOffset());
+		assertEquals(2, parser.getGradeCount());
+		assertEquals("A", parser.getLetter(1));
+		assertEquals(95, parser.getNumber(1));
+		assertEquals(2, parser.getWeight());
+		assertEquals(88, parser.getGrade());
+		assertNull(parser.getGradeLetter());
+
+		String text = "CHECKPOINT(WEIGHT=1, GRADE=1) CHECKPOINT(WEIGHT=2, "
+				+ "GRADE=2)";
+		parser = new CommentParser(text);
+		assertEquals(text.lastIndexOf("CHECKPOINT"),
+				parser.getCheckpointErrorOffset());
+
+		// Keywords that do not start a block are ignored
+		parser = new CommentParser("The CHECKPOINT is graded.");
+		assertFalse(parser.hasCheckpoint());
+
+	}
+
+}
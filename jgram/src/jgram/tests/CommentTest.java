@@ -39,8 +39,7 @@ class CommentTest {
 		
 		Comment comment = new Comment("0", "Nikki Tebaldi", 
 				"CHECKPOINT(WEIGHT=3, GRADE=100, FEEDBACK=[Excellent work.])");
-		GradeMapping gradeMapping = new GradeMapping();
-		gradeMapping.setDefaultGradeMapping();
+		GradeMapping gradeMapping = GradeMapping.DEFAULT;
 		
 		try {
 			
@@ -70,8 +69,7 @@ class CommentTest {
 		try {
 			GradeMapping gradeMapping1 = null;
 			gradeMapping1 = comment.extractGradeMapping();
-			GradeMapping gradeMapping2 = new GradeMapping();
-			gradeMapping2.setDefaultGradeMapping();
+			GradeMapping gradeMapping2 = GradeMapping.DEFAULT;
 			assertEquals(gradeMapping2, gradeMapping1);
 			
 		} catch (InvalidCommentException e) {
@@ -94,7 +92,7 @@ class CommentTest {
 					+ "FEEDBACK=[Excellent work.])");
 			
 			// Create a grade mapping
-			GradeMapping gradeMapping = new GradeMapping();
+			GradeMapping gradeMapping = GradeMapping.EMPTY;
 			
 			// Try to extract invalid checkpoint
 			comment.extractCheckpoint(gradeMapping);
@@ -0,0 +1,116 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import jgram.task.DirectoryWatcher;
+
+class DirectoryWatcherTest {
+
+	/**
+	 * Test that a document that is written several times is handed over once
+	 * after it stops changing and that hidden lock files are ignored.
+	 */
+	@Test
+	void testRun() {
+
+		Path resourceDocument = TestUtilities
+				.returnPath("eval/eval-task-test-valid.docx");
+		BlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+
+		try {
+
+			Path directory = Files.createTempDirectory("jgram");
+			DirectoryWatcher watcher = new DirectoryWatcher(directory, 500,
+					queue::add);
+			Thread watchThread = new Thread(watcher);
+			watchThread.start();
+
+			// Save a document several times and create a lock file
+			Path document = directory.resolve("last_first_a1.docx");
+			for (int i = 0; i < 3; i++) {
+				Files.copy(resourceDocument, document,
+						StandardCopyOption.REPLACE_EXISTING);
+				Thread.sleep(50);
+			}
+			Files.copy(resourceDocument,
+					directory.resolve("~$st_first_a1.docx"));
+
+			// Assert document is handed over once
+			assertEquals(document, queue.poll(10, TimeUnit.SECONDS));
+			assertNull(queue.poll(1, TimeUnit.SECONDS));
+
+			watcher.close();
+			watchThread.join();
+
+		} catch (IOException | InterruptedException e) {
+			fail(e.getMessage());
+		}
+
+	}
+
+	/**
+	 * Test that documents in subdirectories, including subdirectories that
+	 * are created while watching, are handed over and that documents in
+	 * 'GRADED' directories are ignored.
+	 */
+	@Test
+	void testRunSubdirectories() {
+
+		Path resourceDocument = TestUtilities
+				.returnPath("eval/eval-task-test-valid.docx");
+		BlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+
+		try {
+
+			Path directory = Files.createTempDirectory("jgram");
+			Path existing = Files.createDirectories(
+					directory.resolve("section1/week1"));
+			DirectoryWatcher watcher = new DirectoryWatcher(directory, 500,
+					queue::add);
+			Thread watchThread = new Thread(watcher);
+			watchThread.start();
+
+			// Save documents in an existing and a new subdirectory
+			Path document1 = existing.resolve("last_first_a1.docx");
+			Files.copy(resourceDocument, document1);
+			Path created = Files.createDirectories(
+					directory.resolve("section2/week1"));
+			Path document2 = created.resolve("last_first_a2.docx");
+			Files.copy(resourceDocument, document2);
+			Path graded = Files.createDirectories(existing.resolve("GRADED"));
+			Files.copy(resourceDocument,
+					graded.resolve("GRADED_last_first_a1.docx"));
+
+			// Assert both documents are handed over once
+			Set<Path> handedOver = new HashSet<>();
+			handedOver.add(queue.poll(10, TimeUnit.SECONDS));
+			handedOver.add(queue.poll(10, TimeUnit.SECONDS));
+			assertTrue(handedOver.contains(document1));
+			assertTrue(handedOver.contains(document2));
+			assertNull(queue.poll(1, TimeUnit.SECONDS));
+
+			watcher.close();
+			watchThread.join();
+
+		} catch (IOException | InterruptedException e) {
+			fail(e.getMessage());
+		}
+
+	}
+
+}
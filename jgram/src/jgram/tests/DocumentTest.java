@@ -1,25 +1,31 @@
 package jgram.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.poi.xwpf.usermodel.XWPFTableRow;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import jgram.assessment.Checkpoint;
 import jgram.assessment.Comment;
 import jgram.assessment.Document;
 import jgram.assessment.GradeMapping;
+import jgram.assessment.GradedArchive;
 import jgram.assessment.JustInTimeEvaluator;
 import jgram.assessment.Result;
 import jgram.exceptions.InvalidCheckpointException;
@@ -28,6 +34,10 @@ import jgram.security.Secret;
 
 class DocumentTest {
 	
+	// Directory of the copied test documents
+	@TempDir
+	Path tempDir;
+	
 	/**
 	 * Intent: Create a Document object.
 	 * @param document
@@ -55,8 +65,8 @@ class DocumentTest {
 	void testCreateGradedAssignment() {
 		
 		// Locate test assignment file
-		Path resourceDocument = TestUtilities
-				.returnPath("document/document-test.docx");
+		Path resourceDocument = TestUtilities.copyResources("document", 
+				tempDir).resolve("document-test.docx");
 		
 		// Create a secret object to use for hash string creation
 		Secret secret = new Secret("secret");
@@ -99,6 +109,61 @@ class DocumentTest {
 		
 	}
 	
+	/**
+	 * Test that an assignment read from an archive is graded without being 
+	 * extracted and that the graded copy is written to the graded archive.
+	 */
+	@Test
+	void testCreateGradedAssignmentInArchive() {
+		
+		// Locate test assignment file
+		Path resourceDocument = TestUtilities
+				.returnPath("document/document-test.docx");
+		Secret secret = new Secret("secret");
+		
+		try {
+			
+			// Create an archive that contains the test assignment
+			Path directory = Files.createTempDirectory("jgram");
+			Path archive = directory.resolve("submissions.zip");
+			Path gradedArchivePath = directory
+					.resolve("GRADED_submissions.zip");
+			try (FileSystem zipFileSystem = FileSystems.newFileSystem(archive,
+					Map.of("create", "true"))) {
+				Files.copy(resourceDocument, 
+						zipFileSystem.getPath("document-test.docx"));
+			}
+			
+			// Grade the assignment in the archive
+			try (FileSystem zipFileSystem = FileSystems.newFileSystem(archive,
+					(ClassLoader) null);
+					GradedArchive gradedArchive = 
+							new GradedArchive(gradedArchivePath)) {
+				
+				Document document = new Document(
+						zipFileSystem.getPath("document-test.docx"));
+				document.setGradedArchive(gradedArchive);
+				createDocument(document, secret);
+				assertFalse(document.getCheckpointList().isEmpty());
+			}
+			
+			// Assert graded archive contains table
+			Path gradedFile = directory.resolve("GRADED_document-test.docx");
+			try (FileSystem zipFileSystem = FileSystems.newFileSystem(
+					gradedArchivePath, (ClassLoader) null)) {
+				Files.copy(zipFileSystem.getPath("GRADED_document-test.docx"),
+						gradedFile);
+			}
+			List<XWPFTableRow> rows = TestUtilities
+					.createRowsFromTable(gradedFile.toFile());
+			assertEquals("C#", rows.get(0).getCell(0).getText());
+			
+		} catch (IOException | InvalidCommentException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
 	@Test
 	void testGetResultTableString() {
 		
@@ -243,6 +308,52 @@ class DocumentTest {
 		
 	}
 	
+	/**
+	 * Test that the comments of a document whose comments part is not stored
+	 * in 'word/comments.xml' are read by the XWPF comment source.
+	 */
+	@Test
+	void testParseCommentsRemapped() {
+		
+		try {
+			
+			// Copy the test assignment and rename its comments part
+			Path resourceDocument = TestUtilities
+					.returnPath("document/document-test.docx");
+			Path remappedDocument = tempDir.resolve("document-remapped.docx");
+			Files.copy(resourceDocument, remappedDocument);
+			try (FileSystem zipFileSystem = FileSystems.newFileSystem(
+					remappedDocument, (ClassLoader) null)) {
+				Files.move(zipFileSystem.getPath("word/comments.xml"), 
+						zipFileSystem.getPath("word/remarks.xml"));
+				for (String part : new String[] {"[Content_Types].xml", 
+						"word/_rels/document.xml.rels"}) {
+					Path partPath = zipFileSystem.getPath(part);
+					String xml = Files.readString(partPath)
+							.replace("comments.xml\"", "remarks.xml\"");
+					Files.writeString(partPath, xml);
+				}
+			}
+			
+			// Parse both documents for comments
+			Document expected = new Document(resourceDocument);
+			expected.parseComments();
+			Document document = new Document(remappedDocument);
+			document.parseComments();
+			document.createFingerprint();
+			
+			assertFalse(document.getCommentList().isEmpty());
+			assertTrue(Arrays.deepEquals(expected.getCommentList().toArray(),
+					document.getCommentList().toArray()));
+			
+		} catch (IOException e) {
+			fail(e.getMessage());
+		} catch (InvalidCommentException e) {
+			fail("Invalid comment detected.");
+		}
+		
+	}
+	
 	/**
 	 * Test that a GradeMapping objects is created when 
 	 * Document.parseGradeMapping is called.
@@ -262,8 +373,7 @@ class DocumentTest {
 			document.parseGradeMapping();
 			
 			// Create a default grade mapping for comparison
-			GradeMapping gradeMapping = new GradeMapping();
-			gradeMapping.setDefaultGradeMapping();
+			GradeMapping gradeMapping = GradeMapping.DEFAULT;
 			
 			assertEquals(gradeMapping, document.getGradeMapping());
 		
@@ -2,6 +2,7 @@ package jgram.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -10,17 +11,25 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.poi.xwpf.usermodel.XWPFTableRow;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import jgram.assessment.Result;
 import jgram.security.Secret;
 import jgram.storage.Assignment;
 import jgram.task.EvalTaskRun;
 
 public class EvalTaskRunTest {
 	
+	// Directory of the copied test documents
+	@TempDir
+	Path tempDir;
+	
 	
 	/**
 	 * Intent: Run task using appropriate input data for test comparison of 
@@ -44,6 +53,55 @@ public class EvalTaskRunTest {
 
 	}
 
+	/**
+	 * Intent: Test that a document whose comments have not changed since it 
+	 * was graded is not graded again and that its previous result is reused.
+	 */
+	@Test
+	void testRunUnchanged() {
+		
+		Secret secret = new Secret("secret");
+		try {
+			
+			// Copy test assignment file to a new directory
+			Path resourceDocument = TestUtilities
+					.returnPath("eval/eval-task-test-valid.docx");
+			Path document = Files.createTempDirectory("jgram")
+					.resolve("eval-task-test-valid.docx");
+			Files.copy(resourceDocument, document);
+			
+			// Grade document
+			Assignment first = runTask(document);
+			Result previousResult = first.getResultList().get(0);
+			assertNotNull(previousResult.getFingerprint());
+			
+			// Grade document again with the previous result
+			Assignment second = new Assignment("testUser", 
+					"Eval Task Run Test", "/jgram/tests/");
+			second.setPreviousResultMap(Map.of("eval-task-test-valid.docx", 
+					previousResult));
+			Path gradedPath = document.resolveSibling("GRADED")
+					.resolve("GRADED_eval-task-test-valid.docx");
+			FileTime modified = Files.getLastModifiedTime(gradedPath);
+			EvalTaskRun evalTask = new EvalTaskRun(second, document, secret);
+			EvalTaskRun.resetDocNumber();
+			evalTask.run();
+			
+			// Assert previous result was reused
+			assertEquals(1, EvalTaskRun.getUnchangedNumber());
+			EvalTaskRun.resetDocNumber();
+			Result result = second.getResultList().get(0);
+			assertEquals(previousResult.getHashString(), result.getHashString());
+			assertEquals(previousResult, result);
+			assertEquals(8, second.getGradeMapping().getLimits().size());
+			assertEquals(modified, Files.getLastModifiedTime(gradedPath));
+			
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
 	/**
 	 * Intent: Test run method of EvalTaskRun class with invalid grading data.
 	 * Assert that 'GRADED' sub-directory exists, graded invalid document
@@ -53,8 +111,8 @@ public class EvalTaskRunTest {
 	void testRuninValid() {
 		
 		// Locate test assignment file
-		Path resourceDocument = TestUtilities
-				.returnPath("eval/eval-task-test-invalid.docx");
+		Path resourceDocument = TestUtilities.copyResources("eval", tempDir)
+				.resolve("eval-task-test-invalid.docx");
 		
 		// Run task and get assignment output 
 		Assignment assignment = runTask(resourceDocument);
@@ -86,8 +144,8 @@ public class EvalTaskRunTest {
 	void testRunValid() {
 		
 		// Locate test assignment file
-		Path resourceDocument = TestUtilities
-				.returnPath("eval/eval-task-test-valid.docx");
+		Path resourceDocument = TestUtilities.copyResources("eval", tempDir)
+				.resolve("eval-task-test-valid.docx");
 		
 		// Run task and get assignment output 
 		Assignment assignment = runTask(resourceDocument);
@@ -9,14 +9,20 @@ import static org.mockito.Mockito.spy;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import jgram.assessment.Result;
+import jgram.security.JWT;
 import jgram.security.Secret;
 import jgram.storage.Assignment;
 import jgram.storage.RecordManager;
@@ -24,6 +30,10 @@ import jgram.task.EvaluationTask;
 
 public class EvaluationTaskTest {
 	
+	// Directory of the copied test documents and database
+	@TempDir
+	Path tempDir;
+	
 	private EvaluationTask performTask(Path resourceDir) {
 		
 		// Change System.in to point to input
@@ -63,8 +73,7 @@ public class EvaluationTaskTest {
 		
 		// Set Record Manager (including test database)
 		RecordManager rm = new RecordManager(assignment);
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		rm.setURL(dbPath);
 		evalTask.setRecordManager(rm);
 
@@ -84,8 +93,7 @@ public class EvaluationTaskTest {
 		
 		// RecordManager
 		RecordManager rm = new RecordManager();
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		rm.setURL(dbPath);
 		
 		// Select all students from assignment
@@ -113,8 +121,7 @@ public class EvaluationTaskTest {
 	void testPerformTask() {
 		
 		// Locate test assignment file
-		Path resourceDir = TestUtilities
-				.returnAssignmentDir("eval/eval-task-test-valid.docx");
+		Path resourceDir = TestUtilities.copyResources("eval", tempDir);
 		
 		// Perform task
 		EvaluationTask task = performTask(resourceDir);
@@ -140,5 +147,124 @@ public class EvaluationTaskTest {
 		assertEquals("Okay job", rows.get(0)[8]);
 		
 	}
+	
+	/**
+	 * Intent: Test that grading only the documents that match filter patterns
+	 * keeps the results of the other documents and signs them with the 
+	 * graded results.
+	 */
+	@Test
+	void testPerformTaskFiltered() {
+		
+		try {
+			
+			// Copy the test assignment into two sections
+			Path resourceDir = TestUtilities.copyResources("eval", tempDir);
+			Path directory = tempDir.resolve("course");
+			for (String section : new String[] {"sectionA", "sectionB"}) {
+				Files.createDirectories(directory.resolve(section));
+				Files.copy(resourceDir.resolve("eval-task-test-valid.docx"),
+						directory.resolve(section).resolve(section 
+								+ "_student_a1.docx"));
+			}
+			
+			// Grade both sections and then only the first section
+			performFilteredTask(directory, "");
+			performFilteredTask(directory, "sectionA/**");
+			
+			// Assert the results of both sections are kept
+			Assignment signed = new Assignment("testUser", 
+					"Eval Task Filter Test", "/jgram/test/");
+			RecordManager rm = new RecordManager(signed);
+			rm.setURL(TestUtilities.copyDatabase(tempDir));
+			rm.openConnection();
+			Map<String, Result> stored = rm.selectPreviousResults();
+			signed.setSignedRoot(rm.selectSignedRoot());
+			rm.closeConnection();
+			assertEquals(2, stored.size());
+			
+			// Assert the signed root covers the results of both sections
+			assertTrue(signed.verifyResults(JWT.forSecret(
+					new Secret("secret")), new ArrayList<>(stored.values())));
+			
+		} catch (IOException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Test that only the first of two documents with the same file name in 
+	 * different directories is graded, so that they do not replace each 
+	 * other's result.
+	 */
+	@Test
+	void testPerformTaskDuplicateNames() {
+		
+		try {
+			
+			// Copy the test assignment into two sections with one name
+			Path resourceDir = TestUtilities.copyResources("eval", tempDir);
+			Path directory = tempDir.resolve("course");
+			for (String section : new String[] {"sectionA", "sectionB"}) {
+				Files.createDirectories(directory.resolve(section));
+				Files.copy(resourceDir.resolve("eval-task-test-valid.docx"),
+						directory.resolve(section).resolve(
+								"student_a1.docx"));
+			}
+			
+			performFilteredTask(directory, "");
+			
+			// Assert one result and one graded copy
+			Assignment stored = new Assignment("testUser", 
+					"Eval Task Filter Test", "/jgram/test/");
+			RecordManager rm = new RecordManager(stored);
+			rm.setURL(TestUtilities.copyDatabase(tempDir));
+			rm.openConnection();
+			assertEquals(1, rm.selectPreviousResults().size());
+			rm.closeConnection();
+			try (Stream<Path> pathStream = Files.walk(directory)) {
+				assertEquals(1, pathStream.filter(path -> path.getFileName()
+						.toString().equals("GRADED_student_a1.docx"))
+						.count());
+			}
+			
+		} catch (IOException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Intent: Grade the documents of a directory that match filter patterns.
+	 * 
+	 * @param directory
+	 * @param filters
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	private void performFilteredTask(Path directory, String filters) 
+			throws IOException, SQLException {
+		
+		EvaluationTask evalTask = spy(EvaluationTask.class);
+		doNothing().when(evalTask).prep();
+		evalTask.setSecret(new Secret("secret"));
+		evalTask.setWorkingDirectory(directory);
+		evalTask.setFilterPatterns(filters);
+		
+		// Assignment with the results of the previous grading
+		Assignment assignment = new Assignment("testUser", 
+				"Eval Task Filter Test", "/jgram/test/");
+		RecordManager rm = new RecordManager(assignment);
+		rm.setURL(TestUtilities.copyDatabase(tempDir));
+		rm.openConnection();
+		assignment.setPreviousResultMap(rm.selectPreviousResults());
+		rm.closeConnection();
+		evalTask.setAssignment(assignment);
+		evalTask.setRecordManager(rm);
+		
+		evalTask.performTask();
+		
+	}
 
 }
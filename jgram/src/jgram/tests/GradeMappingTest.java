@@ -2,6 +2,7 @@ package jgram.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -22,8 +23,7 @@ class GradeMappingTest {
 	@Test
 	void testEquals() {
 		
-		GradeMapping gradeMapping1 = new GradeMapping();
-		gradeMapping1.setDefaultGradeMapping();
+		GradeMapping gradeMapping1 = GradeMapping.DEFAULT;
 		
 		Comment comment = new Comment("3", "Nikki Tebaldi", 
 				"GRADEMAPPING(A+=97, A=95, A-=93, B+=87, B=85, B-=83, C+=77, "
@@ -38,6 +38,32 @@ class GradeMappingTest {
 		}
 	}
 	
+	/**
+	 * Test that grade mappings with the same grades share one instance and
+	 * that letter grades are found in any case.
+	 */
+	@Test
+	void testIntern() {
+		
+		try {
+			GradeMapping gradeMapping1 = new GradeMapping.Builder()
+					.setGrade("b", 85)
+					.setGrade("A+", 97)
+					.build();
+			GradeMapping gradeMapping2 = GradeMapping.parse("A+ = 97\nB  = 85");
+			
+			assertSame(gradeMapping1, gradeMapping2);
+			assertEquals(85, gradeMapping1.getGrade("b"));
+			assertEquals(-1, gradeMapping1.getGrade("F"));
+			assertEquals(-1, gradeMapping1.getGrade("F+"));
+			assertEquals("A+ = 97\nB  = 85\n", gradeMapping1.toString());
+			
+		} catch (InvalidGradeMappingException e) {
+			fail("Invalid grade mapping detected.");
+		}
+		
+	}
+	
 	/**
 	 * Test that InvalidGradeMappingException is thrown when invalid
 	 * data is added to a GradeMapping object.
@@ -47,17 +73,18 @@ class GradeMappingTest {
 		
 		assertThrows(InvalidGradeMappingException.class, () -> {
 			// Create grade mapping
-			GradeMapping gradeMapping = new GradeMapping();
-			gradeMapping.setGrade("A+", 97);
-			gradeMapping.setGrade("A", 95);
-			gradeMapping.setGrade("A-", 93);
-			gradeMapping.setGrade("B+", 102);
-			gradeMapping.setGrade("B", 85);
-			gradeMapping.setGrade("B-", 83);
-			gradeMapping.setGrade("C+", 77);
-			gradeMapping.setGrade("C", 75);
-			gradeMapping.setGrade("C-", 73);
-			gradeMapping.setGrade("Z", 67);
+			new GradeMapping.Builder()
+				.setGrade("A+", 97)
+				.setGrade("A", 95)
+				.setGrade("A-", 93)
+				.setGrade("B+", 102)
+				.setGrade("B", 85)
+				.setGrade("B-", 83)
+				.setGrade("C+", 77)
+				.setGrade("C", 75)
+				.setGrade("C-", 73)
+				.setGrade("Z", 67)
+				.build();
 		});
 		
 	}
@@ -69,8 +96,7 @@ class GradeMappingTest {
 	@Test
 	void testNotEquals() {
 		
-		GradeMapping gradeMapping1 = new GradeMapping();
-		gradeMapping1.setDefaultGradeMapping();
+		GradeMapping gradeMapping1 = GradeMapping.DEFAULT;
 		
 		Comment comment = new Comment("3", "Nikki Tebaldi", 
 				"GRADEMAPPING(A+=100, A=95, A-=93, B+=87, B=85, B-=83, C+=77, "
@@ -91,8 +117,7 @@ class GradeMappingTest {
 	@Test
 	void testToString() {
 		
-		GradeMapping gradeMapping1 = new GradeMapping();
-		gradeMapping1.setDefaultGradeMapping();
+		GradeMapping gradeMapping1 = GradeMapping.DEFAULT;
 		
 		Comment comment = new Comment("3", "Nikki Tebaldi", 
 				"GRADEMAPPING(A+=97, A=95, A-=93, B+=87, B=85, B-=83, C+=77, "
@@ -0,0 +1,150 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import jgram.storage.GradeSketch;
+
+class GradeSketchTest {
+
+	/**
+	 * Intent: Create a sketch of the grades from first to last.
+	 */
+	private GradeSketch createSketch(int first, int last) {
+
+		GradeSketch sketch = new GradeSketch();
+		for (int grade = first; grade <= last; grade++) {
+			sketch.add(grade);
+		}
+
+		return sketch;
+
+	}
+
+	/**
+	 * Intent: Test that a sketch is decoded to the same grades it was encoded
+	 * with and that invalid bytes are rejected.
+	 */
+	@Test
+	void testEncodeDecode() {
+
+		GradeSketch sketch = createSketch(50, 100);
+		sketch.add(82.25);
+		GradeSketch decoded = GradeSketch.decode(sketch.encode());
+
+		assertEquals(sketch.getCount(), decoded.getCount());
+		assertEquals(sketch.quantile(0.5), decoded.quantile(0.5));
+		assertArrayEquals(sketch.getHistogram(), decoded.getHistogram());
+
+		// Only the non-empty bins are encoded
+		assertEquals(5 + 52 * 6, sketch.encode().length);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> GradeSketch.decode(new byte[] {1, 0, 0}));
+
+	}
+
+	/**
+	 * Intent: Test the histogram ranges. The maximum grade is counted in the
+	 * last range.
+	 */
+	@Test
+	void testGetHistogram() {
+
+		int[] histogram = createSketch(0, 100).getHistogram();
+
+		assertEquals(10, histogram.length);
+		assertEquals(10, histogram[0]);
+		assertEquals(10, histogram[8]);
+		assertEquals(11, histogram[9]);
+
+	}
+
+	/**
+	 * Intent: Test that a grade is counted in the printed range it falls in,
+	 * so a grade just below a range is not rounded into it.
+	 */
+	@Test
+	void testGetHistogramEdges() {
+
+		GradeSketch sketch = new GradeSketch();
+		sketch.add(89.95);
+		sketch.add(89.99);
+		sketch.add(90);
+		sketch.add(85.2f);
+
+		int[] histogram = sketch.getHistogram();
+		assertEquals(3, histogram[8]);
+		assertEquals(1, histogram[9]);
+		assertEquals(85.2f, sketch.quantile(0.25));
+
+	}
+
+	/**
+	 * Intent: Test that merged sketches equal the sketch of all their grades.
+	 */
+	@Test
+	void testMerge() {
+
+		GradeSketch sectionA = createSketch(0, 49);
+		GradeSketch sectionB = createSketch(50, 100);
+		sectionA.merge(sectionB);
+		GradeSketch all = createSketch(0, 100);
+
+		assertEquals(all.getCount(), sectionA.getCount());
+		assertArrayEquals(all.encode(), sectionA.encode());
+
+	}
+
+	/**
+	 * Intent: Test that removing grades leaves the sketch of the remaining
+	 * grades and that a grade that was never added is ignored.
+	 */
+	@Test
+	void testRemove() {
+
+		GradeSketch sketch = createSketch(1, 100);
+		for (int grade = 51; grade <= 100; grade++) {
+			sketch.remove(grade);
+		}
+		sketch.remove(75);
+
+		GradeSketch expected = createSketch(1, 50);
+		assertEquals(expected.getCount(), sketch.getCount());
+		assertArrayEquals(expected.encode(), sketch.encode());
+
+	}
+
+	/**
+	 * Intent: Test nearest-rank quantiles and that they are rounded down to a
+	 * bin.
+	 */
+	@Test
+	void testQuantile() {
+
+		GradeSketch sketch = createSketch(1, 100);
+
+		assertEquals(10.0f, sketch.quantile(0.1));
+		assertEquals(50.0f, sketch.quantile(0.5));
+		assertEquals(90.0f, sketch.quantile(0.9));
+		assertEquals(1.0f, sketch.quantile(0));
+		assertEquals(100.0f, sketch.quantile(1));
+
+		// Grades are counted to a tenth of a point
+		GradeSketch fractions = new GradeSketch();
+		fractions.add(89.27);
+		assertEquals(89.2f, fractions.quantile(0.5));
+
+		// Grades outside of the range are counted at its ends
+		fractions.add(120);
+		assertEquals(100.0f, fractions.quantile(1));
+
+		assertTrue(Float.isNaN(new GradeSketch().quantile(0.5)));
+
+	}
+
+}
@@ -0,0 +1,204 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.junit.jupiter.api.Test;
+
+import jgram.assessment.GradedDocumentWriter;
+
+class GradedDocumentWriterTest {
+
+	/**
+	 * Test that the fragment is inserted before the body's section properties
+	 * and not before section properties nested in a paragraph.
+	 */
+	@Test
+	void testFindInsertIndex() {
+
+		String body = "<w:body><w:p><w:pPr><w:sectPr/></w:pPr></w:p>"
+				+ "<w:sectPr w:rsidR=\"1\"><w:sectPrChange/></w:sectPr>"
+				+ "</w:body>";
+		assertEquals(body.indexOf("<w:sectPr w:rsidR"),
+				GradedDocumentWriter.findInsertIndex(body));
+
+		String noSection = "<w:body><w:p><w:pPr><w:sectPr/></w:pPr></w:p>"
+				+ "</w:body>";
+		assertEquals(noSection.indexOf("</w:body>"),
+				GradedDocumentWriter.findInsertIndex(noSection));
+
+		assertEquals(-1, GradedDocumentWriter.findInsertIndex("<x:body/>"));
+
+	}
+
+	/**
+	 * Test that the signed result is stored in a related custom XML part that
+	 * is replaced when a graded copy is written again and that the graded
+	 * copy can still be opened.
+	 */
+	@Test
+	void testSignedResult() {
+
+		Path source = TestUtilities.returnPath("document/document-test.docx");
+		String fragment = "<w:p><w:r><w:t>Result</w:t></w:r></w:p>";
+
+		try {
+
+			Path directory = Files.createTempDirectory("jgram");
+			Path target = directory.resolve("GRADED_document-test.docx");
+			Path regraded = directory.resolve("GRADED_GRADED_document-test.docx");
+			assertNull(GradedDocumentWriter.readSignedResult(source));
+
+			GradedDocumentWriter writer = new GradedDocumentWriter(source);
+			writer.setSignedResult("SnJlc3VsdA");
+			assertTrue(writer.write(fragment, target));
+			assertEquals("SnJlc3VsdA", 
+					GradedDocumentWriter.readSignedResult(target));
+
+			writer = new GradedDocumentWriter(target);
+			writer.setSignedResult("eyJ.e30.c2ln");
+			assertTrue(writer.write(fragment, regraded));
+			assertEquals("eyJ.e30.c2ln", 
+					GradedDocumentWriter.readSignedResult(regraded));
+
+			// Assert the part is related once and has one content type
+			try (ZipFile graded = new ZipFile(regraded.toFile())) {
+				String relationships = new String(graded.getInputStream(
+						graded.getEntry("word/_rels/document.xml.rels"))
+						.readAllBytes(), StandardCharsets.UTF_8);
+				String contentTypes = new String(graded.getInputStream(
+						graded.getEntry("[Content_Types].xml"))
+						.readAllBytes(), StandardCharsets.UTF_8);
+				assertEquals(relationships.indexOf(GradedDocumentWriter
+						.RESULT_ENTRY), relationships.lastIndexOf(
+								GradedDocumentWriter.RESULT_ENTRY));
+				assertEquals(contentTypes.indexOf(GradedDocumentWriter
+						.RESULT_ENTRY), contentTypes.lastIndexOf(
+								GradedDocumentWriter.RESULT_ENTRY));
+				assertTrue(relationships.contains(
+						GradedDocumentWriter.RESULT_RELATIONSHIP_TYPE));
+			}
+			try (XWPFDocument document = new XWPFDocument(
+					Files.newInputStream(regraded))) {
+				assertEquals(1, document.getPackagePart()
+						.getRelationshipsByType(GradedDocumentWriter
+								.RESULT_RELATIONSHIP_TYPE).size());
+			}
+
+		} catch (IOException | InvalidFormatException e) {
+			fail("Could not write graded document.");
+		}
+
+	}
+
+	/**
+	 * Test that unchanged entries are copied as raw compressed data and that
+	 * the fragment is readable as the last table of the graded copy.
+	 */
+	@Test
+	void testWrite() {
+
+		Path source = TestUtilities.returnPath("document/document-test.docx");
+
+		try {
+
+			Path target = Files.createTempDirectory("jgram")
+					.resolve("GRADED")
+					.resolve("GRADED_document-test.docx");
+
+			String fragment = "<w:tbl><w:tblPr/><w:tr><w:tc><w:p><w:r>"
+					+ "<w:t>C#</w:t></w:r></w:p></w:tc></w:tr></w:tbl>";
+			GradedDocumentWriter writer = new GradedDocumentWriter(source);
+			assertTrue(writer.write(fragment, target));
+
+			// Assert unchanged entries are byte for byte copies
+			try (ZipFile original = new ZipFile(source.toFile());
+					ZipFile graded = new ZipFile(target.toFile())) {
+
+				Enumeration<ZipArchiveEntry> entries = original.getEntries();
+				while (entries.hasMoreElements()) {
+
+					ZipArchiveEntry entry = entries.nextElement();
+					ZipArchiveEntry copy = graded.getEntry(entry.getName());
+					if (entry.getName().equals(
+							GradedDocumentWriter.DOCUMENT_ENTRY)) {
+						continue;
+					}
+
+					try (InputStream expected = original
+								.getRawInputStream(entry);
+							InputStream actual = graded
+								.getRawInputStream(copy)) {
+						assertArrayEquals(expected.readAllBytes(),
+								actual.readAllBytes(), entry.getName());
+					}
+				}
+			}
+
+			// Assert graded copy contains table
+			List<XWPFTableRow> rows = TestUtilities
+					.createRowsFromTable(target.toFile());
+			assertEquals("C#", rows.get(0).getCell(0).getText());
+
+		} catch (IOException e) {
+			fail("Could not write graded document.");
+		}
+
+	}
+
+	/**
+	 * Test that an existing graded copy is replaced and that no temporary 
+	 * file is left next to it.
+	 */
+	@Test
+	void testWriteReplacesTarget() {
+
+		Path source = TestUtilities.returnPath("document/document-test.docx");
+
+		try {
+
+			Path directory = Files.createTempDirectory("jgram");
+			Path target = directory.resolve("GRADED_document-test.docx");
+			Files.writeString(target, "partial copy");
+
+			String fragment = "<w:tbl><w:tblPr/><w:tr><w:tc><w:p><w:r>"
+					+ "<w:t>C#</w:t></w:r></w:p></w:tc></w:tr></w:tbl>";
+			GradedDocumentWriter writer = new GradedDocumentWriter(source);
+			assertTrue(writer.write(fragment, target));
+
+			// Assert the target is the only file
+			try (Stream<Path> files = Files.list(directory)) {
+				assertEquals(List.of(target), 
+						files.collect(Collectors.toList()));
+			}
+
+			// Assert graded copy contains table
+			List<XWPFTableRow> rows = TestUtilities
+					.createRowsFromTable(target.toFile());
+			assertEquals("C#", rows.get(0).getCell(0).getText());
+
+		} catch (IOException e) {
+			fail("Could not write graded document.");
+		}
+
+	}
+
+}
@@ -1,15 +1,27 @@
 package jgram.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 
+import javax.xml.bind.DatatypeConverter;
+
 import org.junit.jupiter.api.Test;
 
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import jgram.assessment.Checkpoint;
 import jgram.assessment.Comment;
 import jgram.assessment.Document;
 import jgram.assessment.GradeMapping;
@@ -19,9 +31,13 @@ import jgram.exceptions.InvalidCommentException;
 import jgram.exceptions.InvalidGradeMappingException;
 import jgram.security.JWT;
 import jgram.security.Secret;
+import jgram.security.SignedResult;
 
 class JWTTest {
 	
+	// Class constant(s)
+	private static final String CLAIM_TOTAL_GRADE = "TotalGrade";
+	
 	/**
 	 * Test that the JWT class correctly encodes and then can decode a hash
 	 * string.
@@ -60,8 +76,7 @@ class JWTTest {
 			
 			// Set the comments list and a grade mapping
 			document1.setCommentList(documentComments);
-			GradeMapping gradeMapping = new GradeMapping();
-			gradeMapping.setDefaultGradeMapping();
+			GradeMapping gradeMapping = GradeMapping.DEFAULT;
 			document1.setGradeMapping(gradeMapping);
 			
 			// Parse the document for checkpoints and calculate total grade
@@ -99,4 +114,147 @@ class JWTTest {
 		
 	}
 
+	/**
+	 * Test that hash strings in the compact binary form are decoded, are 
+	 * smaller than the same result signed as a JWT and are rejected when they
+	 * are changed.
+	 */
+	@Test
+	void testSignCompact() {
+		
+		Secret secret = new Secret("c2VjcmV0LWtleS1mb3ItdGVzdHM=");
+		JWT jwt = JWT.forSecret(secret);
+		
+		try {
+			
+			List<Checkpoint> checkpoints = new ArrayList<>();
+			checkpoints.add(new Checkpoint(3, 85, "Watch the loop’s [bounds].", 
+					0));
+			checkpoints.add(new Checkpoint(7, 100, "", 12));
+			Result result = new Result(checkpoints, 95.5f);
+			
+			String hashString = jwt.sign(result, GradeMapping.DEFAULT);
+			String claims = jwt.signClaims(result, GradeMapping.DEFAULT);
+			assertEquals(-1, hashString.indexOf('.'));
+			assertTrue(hashString.length() < claims.length() / 2);
+			
+			// Both forms decode to the same result
+			SignedResult compact = jwt.verify(hashString);
+			SignedResult legacy = jwt.verify(claims);
+			assertTrue(result.equals(compact.getResult()));
+			assertTrue(result.equals(legacy.getResult()));
+			assertEquals(95.5f, compact.getResult().getTotalGrade());
+			assertEquals(12, compact.getResult().getCheckpointList().get(1)
+					.getID());
+			assertSame(GradeMapping.DEFAULT, compact.getGradeMapping());
+			assertSame(GradeMapping.DEFAULT, legacy.getGradeMapping());
+			
+			// A changed byte, a truncated hash string and another secret are
+			// rejected
+			byte[] bytes = Base64.getUrlDecoder().decode(hashString);
+			bytes[10] ^= 1;
+			String tampered = Base64.getUrlEncoder().withoutPadding()
+					.encodeToString(bytes);
+			assertThrows(JwtException.class, () -> jwt.verify(tampered));
+			assertThrows(JwtException.class, () -> jwt.verify(
+					hashString.substring(0, 20)));
+			assertThrows(JwtException.class, () -> JWT.forSecret(
+					new Secret("b3RoZXI=")).verify(hashString));
+			
+		} catch (InvalidCheckpointException e) {
+			fail("Invalid checkpoints created.");
+			
+		} catch (InvalidGradeMappingException e) {
+			fail("Invalid grade mapping detected.");
+		}
+		
+	}
+
+	/**
+	 * Test that the digest signed with a compact hash string matches only an
+	 * equal result graded with the same grade mapping.
+	 */
+	@Test
+	void testVerifyDigest() {
+		
+		JWT jwt = JWT.forSecret(new Secret("c2VjcmV0LWtleS1mb3ItdGVzdHM="));
+		
+		try {
+			
+			List<Checkpoint> checkpoints = new ArrayList<>();
+			checkpoints.add(new Checkpoint(3, 85, "Good.", 1));
+			checkpoints.add(new Checkpoint(5, 70, "Check bounds.", 2));
+			Result result = new Result(checkpoints, 75.625f);
+			String hashString = jwt.sign(result, GradeMapping.DEFAULT);
+			
+			// An equal result that was built again matches
+			List<Checkpoint> current = new ArrayList<>();
+			current.add(new Checkpoint(3, 85, "Good.", 1));
+			current.add(new Checkpoint(5, 70, "Check bounds.", 2));
+			assertTrue(jwt.verifyDigest(hashString, 
+					new Result(current, 75.625f), GradeMapping.DEFAULT));
+			
+			// Changed feedback, order or grade mapping does not match
+			current.set(1, new Checkpoint(5, 70, "Check bounds!", 2));
+			assertFalse(jwt.verifyDigest(hashString, 
+					new Result(current, 75.625f), GradeMapping.DEFAULT));
+			List<Checkpoint> reordered = new ArrayList<>(checkpoints);
+			Collections.reverse(reordered);
+			assertFalse(jwt.verifyDigest(hashString, 
+					new Result(reordered, 75.625f), GradeMapping.DEFAULT));
+			assertFalse(jwt.verifyDigest(hashString, result, 
+					GradeMapping.EMPTY));
+			
+			// A JWT hash string has no digest and a changed signature is 
+			// rejected
+			assertFalse(jwt.verifyDigest(jwt.signClaims(result, 
+					GradeMapping.DEFAULT), result, GradeMapping.DEFAULT));
+			String tampered = hashString.substring(0, hashString.length() - 2)
+					+ (hashString.endsWith("AA") ? "BA" : "AA");
+			assertThrows(JwtException.class, () -> jwt.verifyDigest(tampered, 
+					result, GradeMapping.DEFAULT));
+			
+		} catch (InvalidCheckpointException e) {
+			fail("Invalid checkpoints created.");
+		}
+		
+	}
+
+	/**
+	 * Test that hash strings signed by the JWT parser before signing keys were
+	 * cached are verified and that a changed hash string is rejected.
+	 */
+	@Test
+	void testVerify() {
+		
+		Secret secret = new Secret("c2VjcmV0LWtleS1mb3ItdGVzdHM=");
+		JWT jwt = JWT.forSecret(secret);
+		assertSame(jwt, JWT.forSecret(new Secret(secret.getSecretString())));
+		
+		// Hash string signed by the JWT library
+		String legacy = Jwts.builder()
+				.setSubject(secret.getSubject())
+				.claim(CLAIM_TOTAL_GRADE, 91.5)
+				.signWith(SignatureAlgorithm.HS256, 
+						DatatypeConverter.parseBase64Binary(
+								secret.getSecretString()))
+				.compact();
+		assertEquals(91.5, jwt.verifyClaims(legacy).get(CLAIM_TOTAL_GRADE));
+		
+		// Hash string signed with the cached signing key
+		Result result = new Result(new ArrayList<>(), 80);
+		String hashString = jwt.signClaims(result, GradeMapping.DEFAULT);
+		assertEquals(hashString.substring(0, hashString.indexOf('.')),
+				legacy.substring(0, legacy.indexOf('.')));
+		assertEquals(80.0, jwt.verifyClaims(hashString).get(CLAIM_TOTAL_GRADE));
+		
+		// Changed claims and another secret are rejected
+		String tampered = legacy.substring(0, legacy.lastIndexOf('.')) 
+				+ hashString.substring(hashString.lastIndexOf('.'));
+		assertThrows(JwtException.class, () -> jwt.verifyClaims(tampered));
+		assertThrows(JwtException.class, () -> JWT.forSecret(
+				new Secret("b3RoZXI=")).verifyClaims(hashString));
+		
+	}
+
 }
@@ -41,4 +41,17 @@ class JustInTimeEvaluatorTest {
 		
 	}
 
+	/**
+	 * Test that an assignment without checkpoints has a total grade of 0.
+	 */
+	@Test
+	void testEvaluateEmpty() {
+		
+		JustInTimeEvaluator jitEval = new JustInTimeEvaluator(
+				new ArrayList<>());
+		
+		assertEquals(0, jitEval.evaluate().getTotalGrade());
+		
+	}
+
 }
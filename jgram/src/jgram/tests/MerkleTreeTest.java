@@ -0,0 +1,112 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.JwtException;
+
+import jgram.assessment.Result;
+import jgram.security.JWT;
+import jgram.security.MerkleTree;
+import jgram.security.Secret;
+import jgram.storage.Assignment;
+
+class MerkleTreeTest {
+
+	/**
+	 * Create a result with an assignment name and a hash string.
+	 */
+	private Result createResult(String name, String hashString) {
+
+		Result result = new Result(hashString);
+		result.setAssignmentName(name);
+
+		return result;
+
+	}
+
+	/**
+	 * Test that the proof of every leaf leads to the root for trees with an
+	 * odd and even number of leaves and that a changed leaf does not.
+	 */
+	@Test
+	void testProof() {
+
+		for (int count = 1; count <= 9; count++) {
+
+			List<byte[]> leaves = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				leaves.add(MerkleTree.hashLeaf("doc" + i + ".docx", "hash" + i));
+			}
+			MerkleTree tree = new MerkleTree(leaves);
+
+			for (int i = 0; i < count; i++) {
+				String proof = tree.getProof(i);
+				assertEquals(count, MerkleTree.readLeafCount(proof));
+				assertArrayEquals(tree.getRoot(),
+						MerkleTree.rootFromProof(leaves.get(i), proof));
+				assertFalse(Arrays.equals(tree.getRoot(),
+						MerkleTree.rootFromProof(MerkleTree.hashLeaf(
+								"doc" + i + ".docx", "changed"), proof)));
+			}
+		}
+
+		List<byte[]> leaves = List.of(MerkleTree.hashLeaf("a", "b"));
+		assertThrows(IllegalArgumentException.class, () -> MerkleTree
+				.rootFromProof(leaves.get(0), "AAAA"));
+
+	}
+
+	/**
+	 * Test that signed results detect a changed, added or removed result and
+	 * that one result is verified with its proof.
+	 */
+	@Test
+	void testSignResults() {
+
+		JWT jwt = JWT.forSecret(new Secret("c2VjcmV0LWtleS1mb3ItdGVzdHM="));
+		Assignment assignment = new Assignment("grader", "Merkle", "/tmp");
+		for (int i = 4; i >= 0; i--) {
+			assignment.addResult(createResult("doc" + i + ".docx", "hash" + i));
+		}
+		assignment.signResults(jwt);
+		assertNotNull(assignment.getSignedRoot());
+
+		List<Result> results = new ArrayList<>(assignment.getResultList());
+		assertEquals("doc0.docx", results.get(0).getAssignmentName());
+		assertTrue(assignment.verifyResults(jwt, results));
+		for (Result result : results) {
+			assertTrue(assignment.verifyResult(jwt, result));
+		}
+
+		// Changed result
+		List<Result> changed = new ArrayList<>(results);
+		changed.set(2, createResult("doc2.docx", "hash2-changed"));
+		assertFalse(assignment.verifyResults(jwt, changed));
+		Result forged = createResult("doc2.docx", "hash2-changed");
+		forged.setProof(results.get(2).getProof());
+		assertFalse(assignment.verifyResult(jwt, forged));
+
+		// Removed and added results
+		assertFalse(assignment.verifyResults(jwt, results.subList(0, 4)));
+		List<Result> added = new ArrayList<>(results);
+		added.add(createResult("doc5.docx", "hash5"));
+		assertFalse(assignment.verifyResults(jwt, added));
+
+		// Another secret
+		assertThrows(JwtException.class, () -> assignment.verifyResults(
+				JWT.forSecret(new Secret("b3RoZXI=")), results));
+
+	}
+
+}
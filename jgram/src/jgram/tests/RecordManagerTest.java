@@ -1,27 +1,39 @@
 package jgram.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import jgram.assessment.Checkpoint;
 import jgram.assessment.GradeMapping;
 import jgram.assessment.Result;
 import jgram.exceptions.InvalidCheckpointException;
 import jgram.storage.Assignment;
+import jgram.storage.GradeSketch;
 import jgram.storage.RecordManager;
 
 public class RecordManagerTest {
 	
+	// Directory of the copy of the test database
+	@TempDir
+	Path tempDir;
+	
 	private Assignment createAssignment() throws InvalidCheckpointException {
 				
 		// Create Result
@@ -46,8 +58,7 @@ public class RecordManagerTest {
 		result.extractStudentName();
 		
 		// Create GradeMapping
-		GradeMapping gm = new GradeMapping();
-		gm.setDefaultGradeMapping();
+		GradeMapping gm = GradeMapping.DEFAULT;
 		
 		// Create Assignment
 		Assignment assignment = new Assignment("testUser", 
@@ -90,6 +101,254 @@ public class RecordManagerTest {
 		
 	}
 	
+	/**
+	 * Intent: Test that openConnection migrates the schema of the database to
+	 * the latest version with indexes and cascading foreign keys.
+	 */
+	@Test
+	void testOpenConnection() {
+		
+		// RecordManager
+		RecordManager rm = new RecordManager();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
+		rm.setURL(dbPath);
+		
+		try {
+			
+			// Migrate twice
+			rm.openConnection();
+			rm.closeConnection();
+			rm.openConnection();
+			rm.closeConnection();
+			
+			Connection connection = DriverManager.getConnection(dbPath);
+			Statement statement = connection.createStatement();
+			
+			// Version
+			ResultSet results = statement.executeQuery("PRAGMA "
+					+ "user_version;");
+			assertEquals(9, results.getInt(1));
+			results.close();
+			
+			// Indexes
+			results = statement.executeQuery("SELECT count(*) FROM "
+					+ "sqlite_master WHERE type = 'index' AND name IN "
+					+ "('Assignment_title', 'Result_name_hash', "
+					+ "'Result_assignment_name', 'Result_student', "
+					+ "'Checkpoint_result', 'GradeMapping_assignment');");
+			assertEquals(6, results.getInt(1));
+			results.close();
+			
+			// No backup of duplicate results
+			results = statement.executeQuery("SELECT count(*) FROM "
+					+ "sqlite_master WHERE name = 'DuplicateResult';");
+			assertEquals(0, results.getInt(1));
+			results.close();
+			
+			// Cascading delete of an assignment
+			statement.executeUpdate("PRAGMA foreign_keys = ON;");
+			connection.setAutoCommit(false);
+			statement.executeUpdate("DELETE FROM Assignment;");
+			results = statement.executeQuery("SELECT (SELECT count(*) FROM "
+					+ "Result) + (SELECT count(*) FROM Checkpoint) + (SELECT "
+					+ "count(*) FROM GradeMapping);");
+			assertEquals(0, results.getInt(1));
+			results.close();
+			connection.rollback();
+			
+			// Close resources
+			statement.close();
+			connection.close();
+			
+		} catch (SQLException e) {
+			fail("Could not migrate database schema.");
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test that migrating a database with duplicate results keeps the
+	 * latest result and moves the older one with its checkpoints to the 
+	 * backup tables.
+	 */
+	@Test
+	void testOpenConnectionDuplicates() {
+		
+		String dbPath = TestUtilities.copyDatabase(tempDir);
+		
+		try {
+			
+			// Grade a document of the unmigrated database again
+			Connection connection = DriverManager.getConnection(dbPath);
+			Statement statement = connection.createStatement();
+			statement.executeUpdate("INSERT INTO Result (result_id, "
+					+ "student_fname, student_lname, assignment_name, "
+					+ "total_grade, hash_string, a_id) SELECT 100, "
+					+ "student_fname, student_lname, assignment_name, "
+					+ "total_grade, 'regraded', a_id FROM Result WHERE "
+					+ "result_id = 1;");
+			statement.close();
+			connection.close();
+			
+			// Migrate
+			RecordManager rm = new RecordManager();
+			rm.setURL(dbPath);
+			rm.openConnection();
+			rm.closeConnection();
+			
+			// Assert the latest result was kept
+			connection = DriverManager.getConnection(dbPath);
+			statement = connection.createStatement();
+			ResultSet results = statement.executeQuery("SELECT "
+					+ "Result.hash_string FROM Result JOIN DuplicateResult "
+					+ "USING (a_id, assignment_name);");
+			assertTrue(results.next());
+			assertEquals("regraded", results.getString(1));
+			assertFalse(results.next());
+			results.close();
+			
+			// Assert the older result and its checkpoints were kept
+			results = statement.executeQuery("SELECT (SELECT count(*) FROM "
+					+ "DuplicateResult WHERE result_id = 1), (SELECT count(*) "
+					+ "FROM DuplicateCheckpoint WHERE r_id = 1);");
+			assertEquals(1, results.getInt(1));
+			assertEquals(3, results.getInt(2));
+			results.close();
+			
+			// Close resources
+			statement.close();
+			connection.close();
+			
+		} catch (SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test that persistResult writes a result as soon as it is graded
+	 * and replaces the result when the document is graded again.
+	 */
+	@Test
+	void testPersistResult() {
+		
+		try {
+			
+			// Create an assignment that has not been written
+			Assignment assignment = createAssignment();
+			Assignment watched = new Assignment("testUser", 
+					"Record Manager Watch Test", "/jgram/test/");
+			Result result = assignment.getResultList().get(0);
+			result.setAssignmentName("last_first_watch.docx");
+			watched.setGradeMapping(assignment.getGradeMapping());
+			RecordManager rm = new RecordManager(watched);
+			rm.setURL(TestUtilities.copyDatabase(tempDir));
+			
+			// Persist the result twice
+			rm.openConnection();
+			rm.persistResult(result);
+			result.setHashString("regraded");
+			rm.persistResult(result);
+			Map<String, Result> previousResultMap = rm.selectPreviousResults();
+			ArrayList<String[]> rows = rm.selectAllStudents(
+					"Record Manager Watch Test");
+			rm.closeConnection();
+			
+			// Assert one result with its checkpoints was saved
+			assertEquals(1, previousResultMap.size());
+			assertEquals("regraded", previousResultMap
+					.get("last_first_watch.docx").getHashString());
+			assertEquals(3, rows.size());
+			
+		} catch (InvalidCheckpointException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test that persistResult writes the grade mapping of the first
+	 * graded document once.
+	 */
+	@Test
+	void testPersistResultGradeMapping() {
+		
+		try {
+			
+			Assignment assignment = new Assignment("testUser", 
+					"Record Manager Mapping Test", "/jgram/test/");
+			assignment.setGradeMapping(GradeMapping.DEFAULT);
+			RecordManager rm = new RecordManager(assignment);
+			String dbPath = TestUtilities.copyDatabase(tempDir);
+			rm.setURL(dbPath);
+			
+			// Persist two results and change the mapping in between
+			rm.openConnection();
+			rm.persistResult(createResult("last_first_map1.docx", 85));
+			assignment.setGradeMapping(GradeMapping.EMPTY);
+			rm.persistResult(createResult("last_first_map2.docx", 90));
+			rm.closeConnection();
+			
+			// Assert the first grade mapping was written once
+			Connection connection = DriverManager.getConnection(dbPath);
+			Statement statement = connection.createStatement();
+			ResultSet results = statement.executeQuery("SELECT count(*) FROM "
+					+ "GradeMapping WHERE a_id = (SELECT assignment_id FROM "
+					+ "Assignment WHERE assignment_title = 'Record Manager "
+					+ "Mapping Test');");
+			assertEquals(GradeMapping.DEFAULT.getLimits().size(), 
+					results.getInt(1));
+			results.close();
+			statement.close();
+			connection.close();
+			
+		} catch (InvalidCheckpointException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test that a transaction that fails with an unchecked exception
+	 * is rolled back and not committed by the next transaction.
+	 */
+	@Test
+	void testPersistResultRollback() {
+		
+		try {
+			
+			Assignment assignment = new Assignment("testUser", 
+					"Record Manager Rollback Test", "/jgram/test/");
+			assignment.setGradeMapping(GradeMapping.DEFAULT);
+			RecordManager rm = new RecordManager(assignment);
+			rm.setURL(TestUtilities.copyDatabase(tempDir));
+			rm.openConnection();
+			
+			// A result without a checkpoint list fails after its row is 
+			// written
+			Result broken = new Result((List<Checkpoint>) null);
+			broken.setHashString("broken");
+			broken.setAssignmentName("last_first_broken.docx");
+			broken.extractStudentName();
+			assertThrows(NullPointerException.class, 
+					() -> rm.persistResult(broken));
+			
+			// The next transaction commits only its own result
+			Result result = createResult("last_first_rollback.docx", 85);
+			rm.persistResult(result);
+			Map<String, Result> previousResultMap = rm.selectPreviousResults();
+			rm.closeConnection();
+			
+			assertEquals(1, previousResultMap.size());
+			assertTrue(previousResultMap.containsKey(
+					"last_first_rollback.docx"));
+			
+		} catch (InvalidCheckpointException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
 	/**
 	 * Intent; Test the selectAllStudents method of the RecordManager class.
 	 */
@@ -98,8 +357,7 @@ public class RecordManagerTest {
 		
 		// RecordManager
 		RecordManager rm = new RecordManager();
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		rm.setURL(dbPath);
 		
 		// Select all students from assignment
@@ -134,8 +392,7 @@ public class RecordManagerTest {
 		
 		// RecordManager
 		RecordManager rm = new RecordManager();
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		rm.setURL(dbPath);
 		
 		// Select all students from assignment
@@ -155,6 +412,8 @@ public class RecordManagerTest {
 		assertEquals("82.0", rows.get(0)[2]);
 		assertEquals("94.2", rows.get(0)[3]);
 		assertEquals("89.23", rows.get(0)[4]);
+		assertEquals("27.38", rows.get(0)[5]);
+		assertEquals("5.23", rows.get(0)[6]);
 		
 	}
 	
@@ -167,8 +426,7 @@ public class RecordManagerTest {
 		
 		// RecordManager
 		RecordManager rm = new RecordManager();
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		rm.setURL(dbPath);
 		
 		// Student name
@@ -198,6 +456,90 @@ public class RecordManagerTest {
 		
 	}
 	
+	/**
+	 * Intent: Test that visitAllStudents streams the same rows as 
+	 * selectAllStudents with typed columns.
+	 */
+	@Test
+	void testVisitAllStudents() {
+		
+		// RecordManager
+		RecordManager rm = new RecordManager();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
+		rm.setURL(dbPath);
+		
+		try {
+			rm.openConnection();
+			ArrayList<String[]> rows = rm.selectAllStudents(
+					"Assignment 1: Array Basics");
+			
+			// Visit rows
+			List<String> visited = new ArrayList<>();
+			int rowCount = rm.visitAllStudents("Assignment 1: Array Basics",
+					row -> {
+						assertTrue(row.getWeight() > 0);
+						visited.add(row.getStudentLastName() + " " 
+								+ row.getTotalGrade() + " " + row.getGrade());
+					});
+			rm.closeConnection();
+			
+			// Assert the visited rows match the selected rows
+			assertEquals(rows.size(), rowCount);
+			assertEquals(rows.size(), visited.size());
+			for (int i = 0; i < rows.size(); i++) {
+				assertEquals(rows.get(i)[3] + " " + rows.get(i)[5] + " " 
+						+ rows.get(i)[7], visited.get(i));
+			}
+			
+		} catch (SQLException e) {
+			fail("Could not visit assignment grading data.");
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test that the checkpoint ids are saved and that the stats of an
+	 * assignment are aggregated by checkpoint id.
+	 */
+	@Test
+	void testVisitCheckpointStats() {
+		
+		try {
+			
+			// Write two results whose first checkpoints differ
+			Assignment assignment = new Assignment("testUser", 
+					"Record Manager Checkpoint Test", "/jgram/test/");
+			assignment.setGradeMapping(GradeMapping.DEFAULT);
+			assignment.addResult(createResult("last_first_cp1.docx", 0));
+			assignment.addResult(createResult("last_first_cp2.docx", 80));
+			RecordManager rm = new RecordManager(assignment);
+			rm.setURL(TestUtilities.copyDatabase(tempDir));
+			rm.openConnection();
+			rm.writeAssignmentData();
+			
+			// Visit the checkpoint stats
+			List<String> rows = new ArrayList<>();
+			int rowCount = rm.visitCheckpointStats(
+					"Record Manager Checkpoint Test", row -> rows.add(
+							row.getCheckpointID() + " " + row.getCount() + " "
+							+ row.getAverage() + " " 
+							+ row.getStandardDeviation() + " "
+							+ row.getMinimum() + " " + row.getMaximum() + " "
+							+ row.getZeroCount()));
+			rm.closeConnection();
+			
+			// Assert one row for each checkpoint id
+			assertEquals(3, rowCount);
+			assertEquals("1 2 40.0 40.0 0 80 1", rows.get(0));
+			assertEquals("2 2 90.0 0.0 90 90 0", rows.get(1));
+			assertEquals("3 2 100.0 0.0 100 100 0", rows.get(2));
+			
+		} catch (InvalidCheckpointException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
 	/**
 	 * Intent: Test writeAssignmentData method of RecordManager class.
 	 */
@@ -230,6 +572,240 @@ public class RecordManagerTest {
 		
 	}
 	
+	/**
+	 * Intent: Test that writeAssignmentData keeps the records of unchanged
+	 * results and replaces the records of results that were graded again.
+	 */
+	@Test
+	void testWriteAssignmentDataIncremental() {
+		
+		// Write assignment data
+		RecordManager rm = writeAssignmentData();
+		
+		try {
+			
+			// Write the same result again
+			rm.openConnection();
+			rm.writeAssignmentData();
+			Map<String, Result> previousResultMap = rm.selectPreviousResults();
+			assertEquals(1, previousResultMap.size());
+			
+			// Write a result that was graded again
+			Result result = rm.getAssignment().getResultList().get(0);
+			result.setHashString("regraded");
+			result.setFingerprint("fingerprint");
+			rm.writeAssignmentData();
+			previousResultMap = rm.selectPreviousResults();
+			rm.closeConnection();
+			
+			// Assert the result record was replaced
+			assertEquals(1, previousResultMap.size());
+			Result previous = previousResultMap.get("last_first_a1.docx");
+			assertEquals("regraded", previous.getHashString());
+			assertEquals("fingerprint", previous.getFingerprint());
+			
+			// Assert the replaced record has no orphan checkpoints
+			String dbPath = TestUtilities.copyDatabase(tempDir);
+			Connection connection = DriverManager.getConnection(dbPath);
+			Statement statement = connection.createStatement();
+			ResultSet results = statement.executeQuery("SELECT count(*) FROM "
+					+ "Checkpoint WHERE r_id NOT IN (SELECT result_id FROM "
+					+ "Result);");
+			assertEquals(0, results.getInt(1));
+			results.close();
+			statement.close();
+			connection.close();
+			
+		} catch (SQLException e) {
+			fail("Could not write assignment data");
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test that writeAssignmentData writes only the rows that differ
+	 * from the stored results and counts them.
+	 */
+	@Test
+	void testWriteAssignmentDataChanges() {
+		
+		try {
+			
+			// Write two results
+			Assignment assignment = new Assignment("testUser", 
+					"Record Manager Diff Test", "/jgram/test/");
+			assignment.setGradeMapping(GradeMapping.DEFAULT);
+			assignment.addResult(createResult("last_first_diff1.docx", 85));
+			assignment.addResult(createResult("last_first_diff2.docx", 85));
+			RecordManager rm = new RecordManager(assignment);
+			String dbPath = TestUtilities.copyDatabase(tempDir);
+			rm.setURL(dbPath);
+			rm.openConnection();
+			rm.writeAssignmentData();
+			int resultID = selectResultID("last_first_diff1.docx");
+			
+			// Grade one result again, remove one and add one
+			RecordManager regrade = new RecordManager(assignment);
+			regrade.setURL(dbPath);
+			regrade.openConnection();
+			assignment.replaceResult(createResult("last_first_diff1.docx", 
+					70));
+			assignment.getResultList().removeIf(result -> result
+					.getAssignmentName().equals("last_first_diff2.docx"));
+			assignment.addResult(createResult("last_first_diff3.docx", 85));
+			regrade.writeAssignmentData();
+			ArrayList<String[]> rows = regrade.selectAllStudents(
+					"Record Manager Diff Test");
+			ArrayList<String[]> stats = regrade.selectAssignmentStats();
+			regrade.closeConnection();
+			rm.closeConnection();
+			
+			// Assert the counts of the rows that were written
+			assertEquals(2, rm.getResultChanges().getAdded());
+			assertEquals(6, rm.getCheckpointChanges().getAdded());
+			assertEquals(1, regrade.getResultChanges().getAdded());
+			assertEquals(1, regrade.getResultChanges().getChanged());
+			assertEquals(1, regrade.getResultChanges().getRemoved());
+			assertEquals(3, regrade.getCheckpointChanges().getAdded());
+			assertEquals(1, regrade.getCheckpointChanges().getChanged());
+			assertEquals(3, regrade.getCheckpointChanges().getRemoved());
+			
+			// Assert the result that was graded again kept its id
+			assertEquals(resultID, selectResultID("last_first_diff1.docx"));
+			assertEquals(6, rows.size());
+			
+			// Assert the stats of the assignment were updated
+			String[] stat = stats.get(stats.size() - 1);
+			assertEquals("Record Manager Diff Test", stat[0]);
+			assertEquals("2", stat[1]);
+			assertEquals("0.0", stat[5]);
+			
+		} catch (InvalidCheckpointException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test that the stats of an assignment are updated from the total
+	 * grades that were added, changed and removed, including an extreme.
+	 */
+	@Test
+	void testWriteAssignmentStatsChanges() {
+		
+		try {
+			
+			// Write three results
+			Assignment assignment = new Assignment("testUser", 
+					"Record Manager Stats Test", "/jgram/test/");
+			assignment.setGradeMapping(GradeMapping.DEFAULT);
+			assignment.addResult(createResult("last_first_stat1.docx", 60, 
+					60));
+			assignment.addResult(createResult("last_first_stat2.docx", 80, 
+					80));
+			assignment.addResult(createResult("last_first_stat3.docx", 100, 
+					100));
+			RecordManager rm = new RecordManager(assignment);
+			String dbPath = TestUtilities.copyDatabase(tempDir);
+			rm.setURL(dbPath);
+			rm.openConnection();
+			rm.writeAssignmentData();
+			rm.closeConnection();
+			
+			// Grade the minimum again, remove the maximum and add one
+			RecordManager regrade = new RecordManager(assignment);
+			regrade.setURL(dbPath);
+			regrade.openConnection();
+			assignment.replaceResult(createResult("last_first_stat1.docx", 90,
+					90));
+			assignment.getResultList().removeIf(result -> result
+					.getAssignmentName().equals("last_first_stat3.docx"));
+			assignment.addResult(createResult("last_first_stat4.docx", 70, 
+					70));
+			regrade.writeAssignmentData();
+			ArrayList<String[]> stats = regrade.selectAssignmentStats();
+			List<GradeSketch> sketches = new ArrayList<>();
+			regrade.visitGradeSketches(row -> {
+				if (row.getAssignmentTitle().equals(
+						"Record Manager Stats Test")) {
+					sketches.add(row.getSketch());
+				}
+			});
+			regrade.closeConnection();
+			
+			// Assert the sketch holds the total grades that are stored
+			assertEquals(1, sketches.size());
+			assertEquals(3, sketches.get(0).getCount());
+			assertEquals(70.0f, sketches.get(0).quantile(0));
+			assertEquals(80.0f, sketches.get(0).quantile(0.5));
+			assertEquals(90.0f, sketches.get(0).quantile(1));
+			
+			// Assert the stats match the results that are stored
+			String[] stat = stats.stream().filter(row -> row[0].equals(
+					"Record Manager Stats Test")).findFirst().get();
+			assertEquals("3", stat[1]);
+			assertEquals("70.0", stat[2]);
+			assertEquals("90.0", stat[3]);
+			assertEquals("80.0", stat[4]);
+			assertEquals("66.67", stat[5]);
+			assertEquals("8.16", stat[6]);
+			
+		} catch (InvalidCheckpointException | SQLException e) {
+			fail(e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * Intent: Create a result with three checkpoints and a total grade.
+	 */
+	private Result createResult(String assignmentName, int grade, 
+			float totalGrade) throws InvalidCheckpointException {
+		
+		Result result = createResult(assignmentName, grade);
+		result.setTotalGrade(totalGrade);
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Intent: Create a result with three checkpoints. The grade of the first
+	 * checkpoint and the hash string depend on the grade parameter.
+	 */
+	private Result createResult(String assignmentName, int grade) 
+			throws InvalidCheckpointException {
+		
+		List<Checkpoint> checkpointList = new ArrayList<>();
+		checkpointList.add(new Checkpoint(3, grade, "Okay job", 1));
+		checkpointList.add(new Checkpoint(3, 90, "Good job", 2));
+		checkpointList.add(new Checkpoint(4, 100, "Excellent job", 3));
+		
+		Result result = new Result(checkpointList, (float) 92.5);
+		result.setHashString("hash-" + grade + "-" + assignmentName);
+		result.setAssignmentName(assignmentName);
+		result.extractStudentName();
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Intent: Return the id of the stored result with an assignment name.
+	 */
+	private int selectResultID(String assignmentName) throws SQLException {
+		
+		String dbPath = TestUtilities.copyDatabase(tempDir);
+		try (Connection connection = DriverManager.getConnection(dbPath);
+				Statement statement = connection.createStatement();
+				ResultSet results = statement.executeQuery("SELECT result_id "
+						+ "FROM Result WHERE assignment_name = '" 
+						+ assignmentName + "';")) {
+			return results.getInt(1);
+		}
+		
+	}
+	
 	private RecordManager writeAssignmentData() {
 		
 		// Create an Assignment object with grading data
@@ -244,8 +820,7 @@ public class RecordManagerTest {
 		RecordManager rm = new RecordManager(assignment);
 		
 		// Set DB URL
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		rm.setURL(dbPath);
 		
 		// Write assignment data
@@ -0,0 +1,100 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jgram.assessment.Checkpoint;
+import jgram.assessment.GradeMapping;
+import jgram.assessment.Result;
+import jgram.exceptions.InvalidCheckpointException;
+import jgram.storage.Assignment;
+import jgram.storage.RecordManager;
+import jgram.storage.ResultWriter;
+
+class ResultWriterTest {
+	
+	// Directory of the copy of the test database
+	@TempDir
+	Path tempDir;
+
+	/**
+	 * Intent: Create a result with three checkpoints.
+	 */
+	private Result createResult(String assignmentName)
+			throws InvalidCheckpointException {
+
+		List<Checkpoint> checkpointList = new ArrayList<>();
+		checkpointList.add(new Checkpoint(3, 85, "Okay job", 1));
+		checkpointList.add(new Checkpoint(3, 90, "Good job", 2));
+		checkpointList.add(new Checkpoint(4, 100, "Excellent job", 3));
+
+		Result result = new Result(checkpointList, (float) 92.5);
+		result.setHashString("hash-" + assignmentName);
+		result.setAssignmentName(assignmentName);
+		result.extractStudentName();
+
+		return result;
+
+	}
+
+	/**
+	 * Intent: Test that results submitted to a ResultWriter with a small
+	 * queue and batch size are all saved when it is closed.
+	 */
+	@Test
+	void testSubmit() {
+
+		// RecordManager
+		Assignment assignment = new Assignment("testUser",
+				"Result Writer Test", "/jgram/test/");
+		assignment.setGradeMapping(GradeMapping.DEFAULT);
+		RecordManager rm = new RecordManager(assignment);
+		String dbPath = TestUtilities.copyDatabase(tempDir);
+		rm.setURL(dbPath);
+
+		try {
+			rm.openConnection();
+
+			// Submit results from two Threads
+			ResultWriter writer = new ResultWriter(rm, 2, 2);
+			Thread other = new Thread(() -> {
+				try {
+					for (int i = 0; i < 5; i++) {
+						writer.submit(createResult("other_" + i + ".docx"));
+					}
+				} catch (InvalidCheckpointException | SQLException e) {
+					fail(e.getMessage());
+				}
+			});
+			other.start();
+			for (int i = 0; i < 5; i++) {
+				writer.submit(createResult("last_first" + i + ".docx"));
+			}
+			other.join();
+			writer.close();
+
+			// Assert every result and checkpoint was saved
+			Map<String, Result> previousResultMap = rm.selectPreviousResults();
+			ArrayList<String[]> rows = rm.selectAllStudents(
+					"Result Writer Test");
+			rm.closeConnection();
+			assertEquals(10, previousResultMap.size());
+			assertEquals(30, rows.size());
+
+		} catch (InvalidCheckpointException | SQLException
+				| InterruptedException e) {
+			fail(e.getMessage());
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+package jgram.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import jgram.assessment.Comment;
+import jgram.assessment.StreamingCommentSource;
+import jgram.assessment.XWPFCommentSource;
+
+class StreamingCommentSourceTest {
+
+	/**
+	 * Test that the streaming comment source produces the same comments as
+	 * the XWPF comment source.
+	 */
+	@Test
+	void testMatchesXWPFCommentSource() {
+
+		String[] filenames = {"document/document-test.docx",
+				"eval/eval-task-test-valid.docx",
+				"tamper/GRADED/GRADED_tamper-invalid.docx",
+				"newdoc/new-doc-test-invalid.docx"};
+
+		StreamingCommentSource streamingSource = new StreamingCommentSource();
+		XWPFCommentSource xwpfSource = new XWPFCommentSource();
+
+		try {
+
+			for (String filename : filenames) {
+
+				Path path = TestUtilities.returnPath(filename);
+				List<Comment> expected = xwpfSource.retrieveComments(path);
+				List<Comment> actual = streamingSource.retrieveComments(path);
+
+				assertTrue(Arrays.deepEquals(expected.toArray(),
+						actual.toArray()), filename);
+			}
+
+		} catch (IOException e) {
+			fail("Could not retrieve comments.");
+		}
+
+	}
+
+	/**
+	 * Test that a document without a comments part produces an empty list.
+	 */
+	@Test
+	void testNoComments() {
+
+		Path path = TestUtilities.returnPath("newdoc/new-doc-test-valid.docx");
+
+		try {
+			List<Comment> comments = new StreamingCommentSource()
+					.retrieveComments(path);
+			assertTrue(comments.isEmpty());
+
+		} catch (IOException e) {
+			fail("Could not retrieve comments.");
+		}
+
+	}
+
+	/**
+	 * Test that tabs and breaks in runs are kept while tab stops, tables and
+	 * field codes are ignored.
+	 */
+	@Test
+	void testParseComments() {
+
+		String xml = "<w:comments xmlns:w=\"http://schemas.openxmlformats.org"
+				+ "/wordprocessingml/2006/main\">"
+				+ "<w:comment w:id=\"4\" w:author=\"Grader\">"
+				+ "<w:p><w:pPr><w:tabs><w:tab w:val=\"left\"/></w:tabs></w:pPr>"
+				+ "<w:r><w:t>CHECKPOINT(</w:t><w:tab/><w:t>WEIGHT=3)</w:t>"
+				+ "<w:br/><w:instrText>PAGE</w:instrText></w:r></w:p>"
+				+ "<w:tbl><w:tr><w:tc><w:p><w:r><w:t>skip</w:t></w:r></w:p>"
+				+ "</w:tc></w:tr></w:tbl>"
+				+ "<w:p><w:r><w:t xml:space=\"preserve\"> end</w:t></w:r></w:p>"
+				+ "</w:comment></w:comments>";
+
+		try {
+			List<Comment> comments = new StreamingCommentSource()
+					.parseComments(new ByteArrayInputStream(
+							xml.getBytes(StandardCharsets.UTF_8)));
+
+			assertEquals(1, comments.size());
+			assertEquals(new Comment("4", "Grader",
+					"CHECKPOINT(\tWEIGHT=3)\n end"), comments.get(0));
+
+		} catch (IOException e) {
+			fail("Could not parse comments.");
+		}
+
+	}
+
+}
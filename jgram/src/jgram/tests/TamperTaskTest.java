@@ -10,12 +10,15 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import jgram.security.Secret;
 import jgram.storage.Assignment;
@@ -26,6 +29,10 @@ import jgram.task.Task;
 
 public class TamperTaskTest {
 	
+	// Directory of the copied test documents and database
+	@TempDir
+	Path tempDir;
+	
 	/**
 	 * Intent run EvalTask so records are present in JGRAM test database.
 	 * 
@@ -70,8 +77,7 @@ public class TamperTaskTest {
 			
 			// Set Record Manager (including test database)
 			RecordManager rm = new RecordManager(assignment);
-			String dbPath = "jdbc:sqlite:" 
-					+ TestUtilities.returnPath("jgramTest.db").toString();
+			String dbPath = TestUtilities.copyDatabase(tempDir);
 			rm.setURL(dbPath);
 			evalTask.setRecordManager(rm);
 
@@ -88,6 +94,28 @@ public class TamperTaskTest {
 	 */
 	private TamperTask performTask(Path resourceDir) {
 		
+		// Simulate output from Task createFileList method
+		Path path1 = Paths.get(resourceDir.toString(), 
+				"GRADED_tamper-valid.docx");
+		Path path2 = Paths.get(resourceDir.toString(),
+				"GRADED_tamper-invalid.docx");
+		List<Path> fileList = new ArrayList<>();
+		fileList.add(path1);
+		fileList.add(path2);
+		
+		return performTask(resourceDir, fileList);
+		
+	}
+	
+	/**
+	 * Intent: Perform Tamper Task on a list of graded files.
+	 * 
+	 * @param resourceDir
+	 * @param fileList
+	 * @return
+	 */
+	private TamperTask performTask(Path resourceDir, List<Path> fileList) {
+		
 		// Create new TamperTask object
 		Task task = new TamperTask();
 		
@@ -109,18 +137,10 @@ public class TamperTaskTest {
 		task.setSecret(secret);
 		
 		// Simulate output from Task createFileList method
-		Path path1 = Paths.get(resourceDir.toString(), 
-				"GRADED_tamper-valid.docx");
-		Path path2 = Paths.get(resourceDir.toString(),
-				"GRADED_tamper-invalid.docx");
-		List<Path> fileList = new ArrayList<>();
-		fileList.add(path1);
-		fileList.add(path2);
 		task.setFileList(fileList);
 		
 		// Set database URL
-		String dbPath = "jdbc:sqlite:" 
-				+ TestUtilities.returnPath("jgramTest.db").toString();
+		String dbPath = TestUtilities.copyDatabase(tempDir);
 		TamperTask tamperTask = (TamperTask) task;
 		tamperTask.getRecordManager().setURL(dbPath);
 		
@@ -139,9 +159,8 @@ public class TamperTaskTest {
 	void testPerformTask() {
 				
 		// Locate test assignment file
-		Path resourceDir = TestUtilities
-				.returnAssignmentDir("tamper/GRADED/"
-						+ "GRADED_tamper-task-test-valid.docx");
+		Path resourceDir = TestUtilities.copyResources("tamper", tempDir)
+				.resolve("GRADED");
 		
 		// Perform eval task
 		performEvalTask(resourceDir.getParent());
@@ -160,5 +179,71 @@ public class TamperTaskTest {
 		// Assert expected thread count
 		assertEquals(2, task.getThreadCount());
 		
+		// Assert the graded documents are the signed results
+		String report = readReport(resourceDir);
+		assertTrue(report.contains("Assignment Title: Tamper Task Test"), 
+				report);
+		assertTrue(report.contains("\tPASSED signed root comparison"), 
+				report);
+		
+	}
+	
+	/**
+	 * Intent: Test that a graded document that was removed and a graded
+	 * document that was added are reported by comparing the graded documents
+	 * with the signed root of the assignment.
+	 */
+	@Test
+	void testPerformTaskChangedSet() {
+		
+		// Grade the test assignments
+		Path resourceDir = TestUtilities.copyResources("tamper", tempDir)
+				.resolve("GRADED");
+		performEvalTask(resourceDir.getParent());
+		
+		try {
+			
+			// Remove one graded document and add another
+			Files.delete(resourceDir.resolve("GRADED_tamper-invalid.docx"));
+			Path extra = resourceDir.resolve("GRADED_extra_student.docx");
+			Files.copy(resourceDir.resolve("GRADED_tamper-valid.docx"), extra);
+			List<Path> fileList = new ArrayList<>();
+			fileList.add(resourceDir.resolve("GRADED_tamper-valid.docx"));
+			fileList.add(extra);
+			
+			// Perform tamper task
+			performTask(resourceDir, fileList);
+			
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+		
+		// Assert the missing and extra documents are reported
+		String report = readReport(resourceDir);
+		assertTrue(report.contains("\tFAILED signed root comparison"), 
+				report);
+		assertTrue(report.contains("Missing Documents: \n\t"
+				+ "tamper-invalid.docx"), report);
+		assertTrue(report.contains("Extra Documents: \n\t"
+				+ "extra_student.docx"), report);
+		
+	}
+	
+	/**
+	 * Intent: Read the report of the tamper task.
+	 * 
+	 * @param resourceDir
+	 * @return String contents of 'report.txt'
+	 */
+	private String readReport(Path resourceDir) {
+		
+		try {
+			return new String(Files.readAllBytes(resourceDir.resolve(
+					"report.txt")), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			fail("Could not read report.txt.");
+			return null;
+		}
+		
 	}
 }
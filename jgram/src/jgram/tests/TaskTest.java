@@ -7,7 +7,13 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 import org.junit.jupiter.api.Test;
@@ -61,6 +67,107 @@ public class TaskTest {
 		
 	}
 	
+	/**
+	 * Intent: Test the method createFileList of the Task class on an archive 
+	 * with a folder for each submission.
+	 */
+	@Test
+	void testCreateFileListFromArchive() {
+		
+		// Locate new doc sample file directory
+		Path resourceDir = TestUtilities
+				.returnAssignmentDir("newdoc/new-doc-test-invalid.docx");
+		
+		Task task = new NewDocumentTask();
+		try {
+			
+			// Create an archive with nested submissions and a hidden file
+			Path archive = Files.createTempDirectory("jgram")
+					.resolve("submissions.zip");
+			try (FileSystem zipFileSystem = FileSystems.newFileSystem(archive,
+					Map.of("create", "true"))) {
+				Path folder = Files.createDirectories(
+						zipFileSystem.getPath("student_1"));
+				Files.copy(resourceDir.resolve("new-doc-test-valid.docx"),
+						folder.resolve("new-doc-test-valid.docx"));
+				Files.copy(resourceDir.resolve("new-doc-test-valid.docx"),
+						folder.resolve("~$w-doc-test-valid.docx"));
+			}
+			
+			// Change System.in to point to input
+			InputStream in = new ByteArrayInputStream(archive.toString()
+					.getBytes());
+			Scanner keyboard = new Scanner(in);
+			task.setKeyboard(keyboard);
+			task.getDirectory();
+			
+			// Run createFileList method
+			task.createFileList();
+			
+			// Assert archive is the working source
+			assertEquals(archive, task.getArchivePath());
+			assertEquals(archive.toString(), task.getSourceLocation());
+			
+			// Assert file list is read from the archive
+			assertEquals(1, task.getFileList().size());
+			Path entry = task.getFileList().get(0);
+			assertEquals("/student_1/new-doc-test-valid.docx", 
+					entry.toString());
+			assertTrue(Files.size(entry) > 0);
+			
+			task.closeArchive();
+			
+		} catch (IOException e) {
+			fail("Unable to obtain files in archive.");
+		}
+		
+	}
+	
+	/**
+	 * Intent: Test the method forEachDocument of the Task class on nested 
+	 * directories with include and exclude patterns.
+	 */
+	@Test
+	void testForEachDocument() {
+		
+		// Locate new doc sample file directory
+		Path resourceDir = TestUtilities
+				.returnAssignmentDir("newdoc/new-doc-test-invalid.docx");
+		Path document = resourceDir.resolve("new-doc-test-valid.docx");
+		
+		Task task = new NewDocumentTask();
+		try {
+			
+			// Create course, section and graded directories
+			Path root = Files.createTempDirectory("jgram");
+			Path section1 = Files.createDirectories(root.resolve("section1"));
+			Path section2 = Files.createDirectories(root.resolve("section2"));
+			Path drafts = Files.createDirectories(section1.resolve("drafts"));
+			Path graded = Files.createDirectories(section1.resolve("GRADED"));
+			Files.copy(document, section1.resolve("a.docx"));
+			Files.copy(document, section1.resolve("~$a.docx"));
+			Files.copy(document, section2.resolve("b.docx"));
+			Files.copy(document, drafts.resolve("c.docx"));
+			Files.copy(document, graded.resolve("a.docx"));
+			task.setWorkingDirectory(root);
+			
+			// Assert every document outside GRADED is found
+			List<Path> found = new ArrayList<>();
+			assertEquals(3, task.forEachDocument(found::add));
+			assertEquals(3, found.size());
+			
+			// Assert include and exclude patterns are applied
+			found.clear();
+			task.setFilterPatterns("section1/** !**/drafts");
+			assertEquals(1, task.forEachDocument(found::add));
+			assertEquals(section1.resolve("a.docx"), found.get(0));
+			
+		} catch (IOException e) {
+			fail("Unable to obtain files in nested directories.");
+		}
+		
+	}
+	
 	/**
 	 * Test the getDirectory method of the Task class.
 	 */
@@ -3,9 +3,12 @@ package jgram.tests;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFTable;
@@ -73,4 +76,49 @@ public class TestUtilities {
 		return resourceDocument;
 	}
 
+	/**
+	 * Intent: Copy the test database to a temporary directory and return its
+	 * URL, so that tests never change the committed database. The database is
+	 * copied once for each directory.
+	 * @param directory temporary directory of the test
+	 * @return String JDBC URL of the copy
+	 */
+	public static String copyDatabase(Path directory) {
+		
+		Path database = directory.resolve("jgramTest.db");
+		try {
+			if (Files.notExists(database)) {
+				Files.copy(returnPath("jgramTest.db"), database);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return "jdbc:sqlite:" + database.toString();
+	}
+
+	/**
+	 * Intent: Copy a directory of test resources to a temporary directory and
+	 * return the path of the copy, so that graded documents and reports are 
+	 * never written to the committed resources.
+	 * @param directory resource directory, e.g. "tamper"
+	 * @param target temporary directory of the test
+	 * @return Path of the copied directory
+	 */
+	public static Path copyResources(String directory, Path target) {
+		
+		Path source = returnPath(directory);
+		Path copy = target.resolve(directory);
+		try (Stream<Path> paths = Files.walk(source)) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				Files.copy(path, copy.resolve(source.relativize(path)
+						.toString()));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return copy;
+	}
+
 }